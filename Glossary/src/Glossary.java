@@ -1,8 +1,12 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Comparator;
 
 import components.map.Map;
 import components.map.Map.Pair;
-import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
 import components.set.Set;
@@ -131,33 +135,164 @@ public final class Glossary {
             String term = input.nextLine();
             tempTerms.enqueue(term);
 
-            // Second line to the empty line is the definition of the term.
-            String explain = input.nextLine();
-            StringBuffer finalExplain = new StringBuffer();
+            // Add the word into glossary
+            tempGlossary.add(term, nextDefinition(input));
+        }
 
-            // Keep taking lines until it is empty (which is a new term)
-            while (!explain.isEmpty()) {
-                finalExplain.append(explain + " ");
+        terms.transferFrom(tempTerms);
+        glossary.transferFrom(tempGlossary);
 
-                if (input.atEOS()) {
-                    explain = "";
-                } else {
-                    explain = input.nextLine();
-                }
+        input.close();
+    }
 
+    /**
+     * Reads the definition following a term: the lines up to the next empty
+     * line or the end of the input, joined by single spaces.
+     *
+     * @param input
+     *            the input stream, positioned after a term
+     * @return the definition
+     * @updates input
+     * @requires input.is_open and [input has at least one more line]
+     * @ensures nextDefinition = [the lines of #input up to the first empty
+     *          line, joined by spaces] and input = [#input after that line]
+     */
+    private static String nextDefinition(SimpleReader input) {
+        // Second line to the empty line is the definition of the term.
+        String explain = input.nextLine();
+        StringBuffer finalExplain = new StringBuffer();
+
+        // Keep taking lines until it is empty (which is a new term)
+        while (!explain.isEmpty()) {
+            finalExplain.append(explain + " ");
+
+            if (input.atEOS()) {
+                explain = "";
+            } else {
+                explain = input.nextLine();
             }
 
-            // Remove the additional space
-            finalExplain.deleteCharAt(finalExplain.length() - 1);
+        }
 
-            // Add the word into glossary
-            tempGlossary.add(term, finalExplain.toString());
+        // Remove the additional space
+        finalExplain.deleteCharAt(finalExplain.length() - 1);
+
+        return finalExplain.toString();
+    }
+
+    /**
+     * Adding words from user provided text file into a glossary file to be
+     * opened as a {@code MappedStringMap}. Definitions are written out as
+     * they are read, so only the terms are kept in memory. If the input cannot
+     * be parsed, the glossary file is deleted and {@code terms} is unchanged.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param terms
+     *            the Queue contains all terms
+     * @param indexFile
+     *            the name of the glossary file to be written
+     * @replace terms
+     * @requires #inputFile exist and #terms exist
+     * @ensures #terms includes all term from input file
+     * @ensures [indexFile holds all term and definition from input file]
+     */
+    public static void putWordsIntoMappedGlossary(String inputFile,
+            Queue<String> terms, String indexFile) {
+        assert inputFile != null : "Violation of: input is not null";
+        assert terms != null : "Violation of: terms is not null";
+        assert indexFile != null : "Violation of: indexFile is not null";
+
+        SimpleReader input = new SimpleReader1L(inputFile);
+        Queue<String> tempTerms = terms.newInstance();
+        try {
+            MappedStringMap.Writer glossary = new MappedStringMap.Writer(
+                    indexFile);
+            boolean open = true;
+            try {
+                while (!input.atEOS()) {
+                    // First line is the term
+                    String term = input.nextLine();
+                    tempTerms.enqueue(term);
+
+                    // Write the word into glossary file
+                    glossary.add(term, nextDefinition(input));
+                }
+                open = false;
+                glossary.close();
+            } catch (RuntimeException | Error e) {
+                // Do not leave a partial glossary file behind
+                if (open) {
+                    try {
+                        glossary.close();
+                    } catch (RuntimeException closing) {
+                        e.addSuppressed(closing);
+                    }
+                }
+                try {
+                    Files.deleteIfExists(new File(indexFile).toPath());
+                } catch (IOException deleting) {
+                    e.addSuppressed(deleting);
+                }
+                throw e;
+            }
+        } finally {
+            input.close();
         }
 
         terms.transferFrom(tempTerms);
-        glossary.transferFrom(tempGlossary);
+    }
 
-        input.close();
+    /**
+     * Opens the glossary of the input file as a {@code MappedStringMap},
+     * reusing the glossary file {@code inputFile + ".idx"} written by an
+     * earlier run. The input file is parsed, and the glossary file rewritten,
+     * only if the glossary file is missing or older than the input file;
+     * otherwise opening the glossary is a single mmap, and the terms are read
+     * from its keys without decoding any definition.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param terms
+     *            the Queue contains all terms
+     * @return the glossary of the input file
+     * @replace terms
+     * @requires #inputFile exist and #terms exist
+     * @ensures #terms includes all term from input file, in input order
+     * @ensures [openMappedGlossary includes all term and definition from
+     *          input file]
+     */
+    public static Map<String, String> openMappedGlossary(String inputFile,
+            Queue<String> terms) {
+        assert inputFile != null : "Violation of: input is not null";
+        assert terms != null : "Violation of: terms is not null";
+
+        File input = new File(inputFile);
+        File index = new File(inputFile + ".idx");
+        Map<String, String> glossary;
+        if (!index.isFile() || index.lastModified() < input.lastModified()) {
+            /*
+             * Write the new glossary file beside the old one and then replace
+             * it, so an interrupted run never leaves a partial index behind
+             */
+            File partial = new File(inputFile + ".idx.tmp");
+            putWordsIntoMappedGlossary(inputFile, terms, partial.getPath());
+            try {
+                Files.move(partial.toPath(), index.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            glossary = new MappedStringMap(index.getPath());
+        } else {
+            glossary = new MappedStringMap(index.getPath());
+            Queue<String> tempTerms = terms.newInstance();
+            for (Pair<String, String> p : glossary) {
+                tempTerms.enqueue(p.key());
+            }
+            terms.transferFrom(tempTerms);
+        }
+        return glossary;
     }
 
     /**
@@ -295,10 +430,13 @@ public final class Glossary {
 //        final String inputFile = "data/terms_copy.txt";
 //        final String outputDir = "data/output/";
 
+        /*
+         * Definitions go to a memory-mapped glossary file kept next to the
+         * input rather than to the heap, so glossaries larger than memory can
+         * be processed, and later runs on the same input just map that file
+         */
         Queue<String> terms = new Queue1L<String>();
-        Map<String, String> glossary = new Map1L<String, String>();
-
-        putWordsIntoGlossary(inputFile, terms, glossary);
+        Map<String, String> glossary = openMappedGlossary(inputFile, terms);
 
         /*
          * Sort terms into non-decreasing lexicographic order and generate
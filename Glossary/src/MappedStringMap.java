@@ -0,0 +1,700 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * Read-only {@code Map<String, String>} backed by a memory-mapped file, so the
+ * pairs need not fit in the heap.
+ * <p>
+ * The file is written once, pair by pair, with a {@link Writer}, and then
+ * opened with {@link #MappedStringMap(String)}, which maps it into memory
+ * without reading it: pages are loaded by the operating system only when a
+ * lookup or the iterator touches them. The file holds a header, the pairs as
+ * length-prefixed UTF-8 records, and an open-addressing hash index (linear
+ * probing) from the {@code hashCode} of each key to the position of its
+ * record. A lookup hashes the key, probes the index, and compares the key
+ * bytes of just the records whose stored hash codes match.
+ * <p>
+ * {@code FileChannel.map} cannot map more than 2 GB at once, so the file is
+ * mapped as consecutive 1 GB segments, and any record, length, or index slot
+ * straddling two segments is read in parts.
+ * <p>
+ * {@code add}, {@code remove}, {@code removeAny}, and the {@code Standard}
+ * methods throw {@code UnsupportedOperationException}. The pairs returned by
+ * the iterator decode their values only when {@code value} is called, so
+ * iterating over the keys does not read the definitions.
+ * <p>
+ * File layout (big-endian): {@code int} magic number, {@code int} number of
+ * pairs, {@code int} number of index slots (a power of 2), {@code long}
+ * position of the index; then the records, each an {@code int} byte length
+ * and the UTF-8 bytes of the key, then the same for the value; then the
+ * index, each slot a {@code long} record position (0 if empty) and the
+ * {@code int} hash code of its key.
+ *
+ * @convention <pre>
+ * 0 < $this.segmentBits <= SEGMENT_BITS  and
+ * [$this.segments map the whole file, 2^($this.segmentBits) bytes each
+ *  except the last]  and
+ * [the file has the layout above, with $this.size pairs, $this.slots index
+ *  slots starting at $this.indexStart, and distinct keys]
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (String, String)
+ *           where [the file has a record of key followed by value]}
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class MappedStringMap extends MapSecondary<String, String> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number identifying files written by {@code Writer}.
+     */
+    private static final int MAGIC = 0x474C5331;
+
+    /**
+     * Size of the header, in bytes.
+     */
+    private static final int HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+
+    /**
+     * Size of an index slot, in bytes.
+     */
+    private static final int SLOT_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Numerator of the largest fraction of occupied index slots.
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the largest fraction of occupied index slots.
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * Base 2 logarithm of the size of a mapped segment.
+     */
+    private static final int SEGMENT_BITS = 30;
+
+    /**
+     * Base 2 logarithm of the size of the segments of this map.
+     */
+    private final int segmentBits;
+
+    /**
+     * Consecutive mapped segments of the file.
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Number of pairs.
+     */
+    private final int size;
+
+    /**
+     * Number of index slots.
+     */
+    private final int slots;
+
+    /**
+     * Position in the file of the index.
+     */
+    private final long indexStart;
+
+    /**
+     * Mixes the high bits of {@code h} into the low bits, since only the low
+     * bits select a slot.
+     *
+     * @param h
+     *            the hash code
+     * @return the spread hash code
+     * @ensures spread = [h with its high half XORed into its low half]
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> (Integer.SIZE / 2));
+    }
+
+    /**
+     * Returns the offset of {@code position} in its segment.
+     *
+     * @param position
+     *            the position in the file
+     * @return the offset
+     */
+    private int offset(long position) {
+        return (int) (position & ((1L << this.segmentBits) - 1));
+    }
+
+    /**
+     * Returns a view of {@code length} bytes of the file starting at
+     * {@code position}, which must lie within one segment.
+     *
+     * @param position
+     *            the position in the file
+     * @param length
+     *            the number of bytes
+     * @return a buffer positioned at {@code position}
+     * @requires [position and position + length - 1 are in the same segment]
+     */
+    private ByteBuffer view(long position, int length) {
+        ByteBuffer b = this.segments[(int) (position >>> this.segmentBits)]
+                .duplicate();
+        int offset = this.offset(position);
+        b.position(offset);
+        b.limit(offset + length);
+        return b;
+    }
+
+    /**
+     * Copies {@code dst.length} bytes of the file starting at
+     * {@code position} into {@code dst}.
+     *
+     * @param position
+     *            the position in the file
+     * @param dst
+     *            the destination
+     * @replaces dst
+     */
+    private void read(long position, byte[] dst) {
+        int done = 0;
+        while (done < dst.length) {
+            long p = position + done;
+            int inSegment = (int) Math.min(dst.length - done,
+                    (1L << this.segmentBits) - this.offset(p));
+            this.view(p, inSegment).get(dst, done, inSegment);
+            done += inSegment;
+        }
+    }
+
+    /**
+     * Returns the big-endian {@code int} at {@code position} in the file.
+     *
+     * @param position
+     *            the position in the file
+     * @return the {@code int}
+     */
+    private int readInt(long position) {
+        int offset = this.offset(position);
+        int result;
+        if (offset <= (1L << this.segmentBits) - Integer.BYTES) {
+            result = this.segments[(int) (position >>> this.segmentBits)]
+                    .getInt(offset);
+        } else {
+            byte[] b = new byte[Integer.BYTES];
+            this.read(position, b);
+            result = ByteBuffer.wrap(b).getInt();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the big-endian {@code long} at {@code position} in the file.
+     *
+     * @param position
+     *            the position in the file
+     * @return the {@code long}
+     */
+    private long readLong(long position) {
+        int offset = this.offset(position);
+        long result;
+        if (offset <= (1L << this.segmentBits) - Long.BYTES) {
+            result = this.segments[(int) (position >>> this.segmentBits)]
+                    .getLong(offset);
+        } else {
+            byte[] b = new byte[Long.BYTES];
+            this.read(position, b);
+            result = ByteBuffer.wrap(b).getLong();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the string whose length-prefixed UTF-8 encoding starts at
+     * {@code position} in the file.
+     *
+     * @param position
+     *            the position in the file
+     * @return the string
+     */
+    private String readString(long position) {
+        byte[] b = new byte[this.readInt(position)];
+        this.read(position + Integer.BYTES, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the position of the record with key {@code key}, or 0 if there
+     * is none.
+     *
+     * @param key
+     *            the key
+     * @return the position of the record of {@code key}
+     */
+    private long find(String key) {
+        int hash = key.hashCode();
+        byte[] keyBytes = null;
+        int mask = this.slots - 1;
+        int i = spread(hash) & mask;
+        long found = -1;
+        while (found < 0) {
+            long slot = this.indexStart + (long) i * SLOT_SIZE;
+            long record = this.readLong(slot);
+            if (record == 0) {
+                found = 0;
+            } else if (this.readInt(slot + Long.BYTES) == hash) {
+                if (keyBytes == null) {
+                    keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                }
+                if (this.readInt(record) == keyBytes.length) {
+                    byte[] b = new byte[keyBytes.length];
+                    this.read(record + Integer.BYTES, b);
+                    if (Arrays.equals(b, keyBytes)) {
+                        found = record;
+                    }
+                }
+            }
+            i = (i + 1) & mask;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the position of the value of the record at {@code record}.
+     *
+     * @param record
+     *            the position of the record
+     * @return the position of its value
+     */
+    private long valuePosition(long record) {
+        return record + Integer.BYTES + this.readInt(record);
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor mapping the file {@code fileName}, written by a
+     * {@code Writer}.
+     *
+     * @param fileName
+     *            the name of the file
+     * @throws UncheckedIOException
+     *             if the file cannot be read
+     */
+    public MappedStringMap(String fileName) {
+        this(fileName, SEGMENT_BITS);
+    }
+
+    /**
+     * Constructor mapping the file {@code fileName}, written by a
+     * {@code Writer}, as segments of {@code 2^segmentBits} bytes. Small
+     * segments let tests exercise records straddling segments without
+     * gigabyte files.
+     *
+     * @param fileName
+     *            the name of the file
+     * @param segmentBits
+     *            base 2 logarithm of the segment size
+     * @requires 0 < segmentBits <= SEGMENT_BITS
+     * @throws UncheckedIOException
+     *             if the file cannot be read
+     */
+    MappedStringMap(String fileName, int segmentBits) {
+        assert fileName != null : "Violation of: fileName is not null";
+        assert 0 < segmentBits && segmentBits <= SEGMENT_BITS : ""
+                + "Violation of: 0 < segmentBits <= SEGMENT_BITS";
+
+        this.segmentBits = segmentBits;
+        long segmentSize = 1L << segmentBits;
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            long length = channel.size();
+            int count = (int) ((length + segmentSize - 1) >>> segmentBits);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * segmentSize;
+                this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        start, Math.min(segmentSize, length - start));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (this.segments.length == 0 || this.readInt(0) != MAGIC) {
+            throw new UncheckedIOException(
+                    new IOException("Not a MappedStringMap file: " + fileName));
+        }
+        this.size = this.readInt(Integer.BYTES);
+        this.slots = this.readInt(2 * Integer.BYTES);
+        this.indexStart = this.readLong(3 * Integer.BYTES);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Map<String, String> newInstance() {
+        throw new UnsupportedOperationException(
+                "newInstance operation not supported");
+    }
+
+    @Override
+    public final void clear() {
+        throw new UnsupportedOperationException(
+                "clear operation not supported");
+    }
+
+    @Override
+    public final void transferFrom(Map<String, String> source) {
+        throw new UnsupportedOperationException(
+                "transferFrom operation not supported");
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(String key, String value) {
+        throw new UnsupportedOperationException("add operation not supported");
+    }
+
+    @Override
+    public final Pair<String, String> remove(String key) {
+        throw new UnsupportedOperationException(
+                "remove operation not supported");
+    }
+
+    @Override
+    public final Pair<String, String> removeAny() {
+        throw new UnsupportedOperationException(
+                "removeAny operation not supported");
+    }
+
+    @Override
+    public final String value(String key) {
+        assert key != null : "Violation of: key is not null";
+
+        long record = this.find(key);
+        assert record != 0 : "Violation of: key is in DOMAIN(this)";
+
+        return this.readString(this.valuePosition(record));
+    }
+
+    @Override
+    public final boolean hasKey(String key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.find(key) != 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<String, String>> iterator() {
+        return new MappedStringMapIterator();
+    }
+
+    /**
+     * Pair whose value is read from the file only when asked for.
+     */
+    private final class LazyPair implements Pair<String, String> {
+
+        /**
+         * The key.
+         */
+        private final String key;
+
+        /**
+         * Position in the file of the value.
+         */
+        private final long valuePosition;
+
+        /**
+         * Constructor.
+         *
+         * @param key
+         *            the key
+         * @param valuePosition
+         *            position in the file of the value
+         */
+        LazyPair(String key, long valuePosition) {
+            this.key = key;
+            this.valuePosition = valuePosition;
+        }
+
+        @Override
+        public String key() {
+            return this.key;
+        }
+
+        @Override
+        public String value() {
+            return MappedStringMap.this.readString(this.valuePosition);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + this.key + "," + this.value() + ")";
+        }
+
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code MappedStringMap}.
+     */
+    private final class MappedStringMapIterator
+            implements Iterator<Pair<String, String>> {
+
+        /**
+         * Position in the file of the next record.
+         */
+        private long position;
+
+        /**
+         * Number of pairs not yet returned.
+         */
+        private int remaining;
+
+        /**
+         * No-argument constructor.
+         */
+        MappedStringMapIterator() {
+            this.position = HEADER_SIZE;
+            this.remaining = MappedStringMap.this.size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public Pair<String, String> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            MappedStringMap m = MappedStringMap.this;
+            String key = m.readString(this.position);
+            long value = m.valuePosition(this.position);
+            this.position = value + Integer.BYTES + m.readInt(value);
+            this.remaining--;
+            return new LazyPair(key, value);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /**
+     * Writes a file to be opened as a {@code MappedStringMap}, one pair at a
+     * time. Only the position and hash code of each key are kept in memory
+     * until {@code close}, which writes the index.
+     */
+    public static final class Writer {
+
+        /**
+         * Name of the file being written.
+         */
+        private final String fileName;
+
+        /**
+         * Stream writing the records.
+         */
+        private final DataOutputStream out;
+
+        /**
+         * Position in the file of the next record.
+         */
+        private long position;
+
+        /**
+         * Number of pairs written.
+         */
+        private int size;
+
+        /**
+         * Positions of the records, in {@code [0, size)}.
+         */
+        private long[] records;
+
+        /**
+         * Hash codes of the keys of the records, in {@code [0, size)}.
+         */
+        private int[] hashes;
+
+        /**
+         * Whether {@code close} has been called.
+         */
+        private boolean closed;
+
+        /**
+         * Constructor creating (or replacing) the file {@code fileName}.
+         *
+         * @param fileName
+         *            the name of the file
+         * @throws UncheckedIOException
+         *             if the file cannot be written
+         */
+        public Writer(String fileName) {
+            assert fileName != null : "Violation of: fileName is not null";
+
+            final int initialCapacity = 16;
+            this.fileName = fileName;
+            FileOutputStream file = null;
+            try {
+                file = new FileOutputStream(fileName);
+                this.out = new DataOutputStream(
+                        new BufferedOutputStream(file));
+                this.out.write(new byte[HEADER_SIZE]);
+            } catch (IOException e) {
+                if (file != null) {
+                    try {
+                        file.close();
+                    } catch (IOException closing) {
+                        e.addSuppressed(closing);
+                    }
+                }
+                throw new UncheckedIOException(e);
+            }
+            this.position = HEADER_SIZE;
+            this.size = 0;
+            this.records = new long[initialCapacity];
+            this.hashes = new int[initialCapacity];
+            this.closed = false;
+        }
+
+        /**
+         * Writes {@code bytes} with its length in front.
+         *
+         * @param bytes
+         *            the bytes to be written
+         * @throws IOException
+         *             if the file cannot be written
+         */
+        private void writeBytes(byte[] bytes) throws IOException {
+            this.out.writeInt(bytes.length);
+            this.out.write(bytes);
+            this.position += Integer.BYTES + bytes.length;
+        }
+
+        /**
+         * Writes the pair ({@code key}, {@code value}).
+         *
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         * @requires [key has not been written before]  and  [not closed]
+         * @throws UncheckedIOException
+         *             if the file cannot be written
+         */
+        public void add(String key, String value) {
+            assert key != null : "Violation of: key is not null";
+            assert value != null : "Violation of: value is not null";
+            assert !this.closed : "Violation of: not closed";
+
+            if (this.size == this.records.length) {
+                this.records = Arrays.copyOf(this.records,
+                        2 * this.size);
+                this.hashes = Arrays.copyOf(this.hashes,
+                        2 * this.size);
+            }
+            this.records[this.size] = this.position;
+            this.hashes[this.size] = key.hashCode();
+            this.size++;
+            try {
+                this.writeBytes(key.getBytes(StandardCharsets.UTF_8));
+                this.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes the index and the header and closes the file.
+         *
+         * @requires [not closed]
+         * @throws UncheckedIOException
+         *             if the file cannot be written
+         */
+        public void close() {
+            assert !this.closed : "Violation of: not closed";
+
+            int slots = 2;
+            while ((long) slots * MAX_LOAD_NUMERATOR < (long) this.size
+                    * MAX_LOAD_DENOMINATOR) {
+                slots *= 2;
+            }
+            long[] slotRecords = new long[slots];
+            int[] slotHashes = new int[slots];
+            int mask = slots - 1;
+            for (int k = 0; k < this.size; k++) {
+                int i = spread(this.hashes[k]) & mask;
+                while (slotRecords[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                slotRecords[i] = this.records[k];
+                slotHashes[i] = this.hashes[k];
+            }
+            this.closed = true;
+            try {
+                try {
+                    for (int i = 0; i < slots; i++) {
+                        this.out.writeLong(slotRecords[i]);
+                        this.out.writeInt(slotHashes[i]);
+                    }
+                } finally {
+                    this.out.close();
+                }
+                try (RandomAccessFile file = new RandomAccessFile(
+                        this.fileName, "rw")) {
+                    file.writeInt(MAGIC);
+                    file.writeInt(this.size);
+                    file.writeInt(slots);
+                    file.writeLong(this.position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,238 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test fixture for {@code MappedStringMap}.
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class MappedStringMapTest {
+
+    /**
+     * Returns the name of a new temporary file, deleted when the JVM exits.
+     *
+     * @return the file name
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    private static String tempFile() throws IOException {
+        File f = File.createTempFile("mapped", ".idx");
+        f.deleteOnExit();
+        return f.getPath();
+    }
+
+    /**
+     * Writes the pairs in {@code args} to a new file and opens it.
+     *
+     * @param args
+     *            the keys and values, alternating
+     * @return the map
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    private static Map<String, String> createFromArgs(String... args)
+            throws IOException {
+        String name = tempFile();
+        MappedStringMap.Writer w = new MappedStringMap.Writer(name);
+        for (int i = 0; i < args.length; i += 2) {
+            w.add(args[i], args[i + 1]);
+        }
+        w.close();
+        return new MappedStringMap(name);
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Map<String, String> m = createFromArgs();
+
+        assertEquals(0, m.size());
+        assertEquals(false, m.hasKey("a"));
+        assertEquals(new Map1L<String, String>(), m);
+    }
+
+    @Test
+    public void testLookups() throws IOException {
+        Map<String, String> m = createFromArgs("term", "a word", "book",
+                "a written work", "", "empty key");
+
+        assertEquals(3, m.size());
+        assertEquals(true, m.hasKey("book"));
+        assertEquals("a word", m.value("term"));
+        assertEquals("empty key", m.value(""));
+        assertEquals(false, m.hasKey("Book"));
+    }
+
+    @Test
+    public void testEqualHashCodes() throws IOException {
+        // "Aa" and "BB" have the same hashCode
+        Map<String, String> m = createFromArgs("Aa", "1", "BB", "2");
+
+        assertEquals("1", m.value("Aa"));
+        assertEquals("2", m.value("BB"));
+        assertEquals(false, m.hasKey("C#"));
+    }
+
+    @Test
+    public void testNonAscii() throws IOException {
+        Map<String, String> m = createFromArgs("caf\u00e9", "\u2615 coffee");
+
+        assertEquals("\u2615 coffee", m.value("caf\u00e9"));
+        assertEquals(false, m.hasKey("cafe"));
+    }
+
+    @Test
+    public void testIteratorAndEquals() throws IOException {
+        final int n = 1000;
+        String[] args = new String[2 * n];
+        Map<String, String> expected = new Map1L<String, String>();
+        for (int i = 0; i < n; i++) {
+            args[2 * i] = "key" + i;
+            args[2 * i + 1] = "value" + i;
+            expected.add("key" + i, "value" + i);
+        }
+        Map<String, String> m = createFromArgs(args);
+
+        Map<String, String> iterated = new Map1L<String, String>();
+        for (Pair<String, String> p : m) {
+            iterated.add(p.key(), p.value());
+        }
+
+        assertEquals(n, m.size());
+        assertEquals(expected, iterated);
+        assertEquals(expected, m);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddUnsupported() throws IOException {
+        Map<String, String> m = createFromArgs("a", "1");
+
+        m.add("b", "2");
+    }
+
+    @Test
+    public void testPutWordsIntoMappedGlossary() throws IOException {
+        Queue<String> q = new Queue1L<String>();
+        q.enqueue("Hello");
+        Map<String, String> g = new Map1L<String, String>();
+        g.add("Hello",
+                "used to express a greeting, answer a telephone, or attract attention.");
+        String name = tempFile();
+
+        Queue<String> qTest = new Queue1L<String>();
+        Glossary.putWordsIntoMappedGlossary(
+                "data/testFile/putWordsIntoGlossaryTest2.txt", qTest, name);
+
+        assertEquals(q, qTest);
+        assertEquals(g, new MappedStringMap(name));
+    }
+
+    @Test
+    public void testRecordsStraddlingSegments() throws IOException {
+        final int n = 300;
+        final int[] segmentBits = { 3, 4, 5, 7 };
+        String name = tempFile();
+        MappedStringMap.Writer w = new MappedStringMap.Writer(name);
+        Map<String, String> expected = new Map1L<String, String>();
+        for (int i = 0; i < n; i++) {
+            String key = "k" + i + "\u00e9".substring(0, i % 2);
+            StringBuilder value = new StringBuilder();
+            for (int j = 0; j < i % 37; j++) {
+                value.append((char) ('a' + j % 26));
+            }
+            w.add(key, value.toString());
+            expected.add(key, value.toString());
+        }
+        w.close();
+
+        for (int bits : segmentBits) {
+            Map<String, String> m = new MappedStringMap(name, bits);
+
+            assertEquals(expected, m);
+            assertEquals("abcdefghijklmnopqrstuvwxyzabcdefghij",
+                    m.value("k36"));
+            assertEquals("", m.value("k0"));
+            assertEquals(false, m.hasKey("k1"));
+            assertEquals(true, m.hasKey("k1\u00e9"));
+        }
+    }
+
+    @Test
+    public void testOpenMappedGlossaryReusesIndex() throws IOException {
+        File dir = Files.createTempDirectory("glossary").toFile();
+        File input = new File(dir, "terms.txt");
+        File index = new File(dir, "terms.txt.idx");
+        input.deleteOnExit();
+        index.deleteOnExit();
+        dir.deleteOnExit();
+        Files.write(input.toPath(),
+                "term\nfirst definition\n".getBytes(StandardCharsets.UTF_8));
+        final long inputTime = 1_000_000_000_000L;
+        final long later = 10_000L;
+        input.setLastModified(inputTime);
+
+        Queue<String> q1 = new Queue1L<String>();
+        Map<String, String> g1 = Glossary.openMappedGlossary(input.getPath(),
+                q1);
+        index.setLastModified(inputTime + later);
+        Queue<String> q2 = new Queue1L<String>();
+        Map<String, String> g2 = Glossary.openMappedGlossary(input.getPath(),
+                q2);
+        long reusedTime = index.lastModified();
+        Files.write(input.toPath(),
+                "term\nsecond definition\n".getBytes(StandardCharsets.UTF_8));
+        input.setLastModified(inputTime + 2 * later);
+        Queue<String> q3 = new Queue1L<String>();
+        Map<String, String> g3 = Glossary.openMappedGlossary(input.getPath(),
+                q3);
+
+        Queue<String> expectedTerms = new Queue1L<String>();
+        expectedTerms.enqueue("term");
+        assertEquals(expectedTerms, q1);
+        assertEquals(expectedTerms, q2);
+        assertEquals(expectedTerms, q3);
+        assertEquals("first definition", g1.value("term"));
+        assertEquals("first definition", g2.value("term"));
+        assertEquals(inputTime + later, reusedTime);
+        assertEquals("second definition", g3.value("term"));
+        assertEquals(false, new File(dir, "terms.txt.idx.tmp").exists());
+    }
+
+    @Test
+    public void testOpenMappedGlossaryDeletesPartialIndex()
+            throws IOException {
+        File dir = Files.createTempDirectory("glossary").toFile();
+        File input = new File(dir, "terms.txt");
+        input.deleteOnExit();
+        dir.deleteOnExit();
+        // The last term has no definition
+        Files.write(input.toPath(), "term\ndefinition\n\nlast\n"
+                .getBytes(StandardCharsets.UTF_8));
+
+        Queue<String> q = new Queue1L<String>();
+        boolean failed = false;
+        try {
+            Glossary.openMappedGlossary(input.getPath(), q);
+        } catch (AssertionError e) {
+            failed = true;
+        }
+
+        assertEquals(true, failed);
+        assertEquals(0, q.length());
+        assertEquals(false, new File(dir, "terms.txt.idx.tmp").exists());
+        assertEquals(false, new File(dir, "terms.txt.idx").exists());
+    }
+
+}
@@ -74,6 +74,36 @@ public final class HashingExploration {
         return x;
     }
 
+    /**
+     * Returns Pearson's chi-square statistic of the bucket counts in
+     * {@code counts} against a uniform distribution of {@code total} hits.
+     * With a good hash function it is close to {@code |counts| - 1}.
+     *
+     * @param counts
+     *            the number of hits in each bucket
+     * @param total
+     *            the total number of hits
+     * @return the chi-square statistic
+     * @requires |counts| > 0  and  total > 0
+     * @ensures <pre>
+     * chiSquare = sum i: integer where (0 <= i < |counts|)
+     *   ((counts[i] - total / |counts|)^2 / (total / |counts|))
+     * </pre>
+     */
+    private static double chiSquare(Array<Integer> counts, int total) {
+        assert counts.length() > 0 : "Violation of: |counts| > 0";
+        assert total > 0 : "Violation of: total > 0";
+
+        double expected = (double) total / counts.length();
+        double x = 0.0;
+        for (int i = 0; i < counts.length(); i++) {
+            double difference = counts.entry(i) - expected;
+            x += difference * difference / expected;
+        }
+
+        return x;
+    }
+
     /**
      * Main method.
      *
@@ -131,6 +161,21 @@ public final class HashingExploration {
         }
         out.println();
         out.println("Total:\t" + counted.size());
+        if (counted.size() > 0) {
+            int max = 0;
+            int nonEmpty = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                max = Math.max(max, counts.entry(i));
+                if (counts.entry(i) > 0) {
+                    nonEmpty++;
+                }
+            }
+            out.println("Max:\t" + max);
+            out.println("Mean:\t" + (double) counted.size() / nonEmpty
+                    + " (non-empty buckets)");
+            out.println("Chi-sq:\t" + chiSquare(counts, counted.size())
+                    + " (df = " + (hashTableSize - 1) + ")");
+        }
         in.close();
         out.close();
     }
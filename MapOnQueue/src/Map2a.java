@@ -0,0 +1,414 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a self-organizing doubly linked list of pairs,
+ * done "bare-handed", with implementations of primary methods.
+ * <p>
+ * Like {@code Map2}, lookups search the pairs in order, but a successful
+ * {@code hasKey} or {@code value} also reorganizes the list so that keys
+ * looked up often drift to the front: with {@code Reorder.MOVE_TO_FRONT} the
+ * pair found is unlinked and relinked as the first node, and with
+ * {@code Reorder.TRANSPOSE} it is swapped with its predecessor. Either takes
+ * O(1) beyond the search itself, since no other pair moves. Repeated lookups
+ * of a few hot keys then cost close to O(1). New pairs go to the front under
+ * move-to-front and to the back under transpose; {@code removeAny} takes the
+ * last (least recently promoted) pair.
+ * <p>
+ * Because lookups reorder the list, the iterator walks a snapshot of the
+ * pairs taken when it is created, so looking up keys of {@code this} while
+ * iterating over {@code this} is safe. Taking the snapshot costs O(n) time
+ * and space on each call of {@code iterator}, so a full iteration still
+ * costs O(n) but even looking at just the first pair does too.
+ * {@code newInstance} returns a map with the same reorganization as
+ * {@code this}.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * $this.length >= 0  and
+ * [$this.preFront is not null]  and
+ * [$this.postBack is not null]  and
+ * [$this.preFront points to the first node of a doubly linked list
+ *  containing $this.length + 2 nodes]  and
+ * [$this.postBack points to the last node in that doubly linked list]  and
+ * [for every node n in the doubly linked list of nodes, except the one
+ *  pointed to by $this.preFront, n.previous.next = n]  and
+ * [for every node n in the doubly linked list of nodes, except the one
+ *  pointed to by $this.postBack, n.next.previous = n]  and
+ * [the keys of the pairs in nodes starting at $this.preFront.next and running
+ *  through $this.postBack.previous are all different]
+ * </pre>
+ * @correspondence <pre>
+ * this = [set of pairs in nodes starting at $this.preFront.next and running
+ *         through $this.postBack.previous]
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class Map2a<K, V> extends MapSecondary<K, V> {
+
+    /**
+     * How a successful lookup reorganizes the list.
+     */
+    public enum Reorder {
+
+        /**
+         * The pair found becomes the first pair.
+         */
+        MOVE_TO_FRONT,
+
+        /**
+         * The pair found trades places with the pair before it.
+         */
+        TRANSPOSE
+
+    }
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for doubly linked list nodes.
+     */
+    private final class Node {
+
+        /**
+         * Pair in node.
+         */
+        private Pair<K, V> pair;
+
+        /**
+         * Next node in doubly linked list, or null.
+         */
+        private Node next;
+
+        /**
+         * Previous node in doubly linked list, or null.
+         */
+        private Node previous;
+
+    }
+
+    /**
+     * Reorganization done by successful lookups.
+     */
+    private final Reorder reorder;
+
+    /**
+     * "Smart node" before front node of doubly linked list.
+     */
+    private Node preFront;
+
+    /**
+     * "Smart node" after back node of doubly linked list.
+     */
+    private Node postBack;
+
+    /**
+     * Number of pairs in the list.
+     */
+    private int length;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.preFront = new Node();
+        this.postBack = new Node();
+        this.preFront.next = this.postBack;
+        this.postBack.previous = this.preFront;
+        this.length = 0;
+    }
+
+    /**
+     * Returns the node holding the pair with key {@code key}, or {@code null}
+     * if there is none.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return the node holding {@code key}
+     * @ensures <pre>
+     * if key is in DOMAIN(this)
+     *  then find.pair.key = key
+     *  else find = null
+     * </pre>
+     */
+    private Node find(K key) {
+        Node n = this.preFront.next;
+        while (n != this.postBack && !n.pair.key().equals(key)) {
+            n = n.next;
+        }
+        Node found = null;
+        if (n != this.postBack) {
+            found = n;
+        }
+        return found;
+    }
+
+    /**
+     * Unlinks {@code n} from the list.
+     *
+     * @param n
+     *            the node to be unlinked
+     * @requires [n is a node of the list other than the smart nodes]
+     * @ensures [n is no longer in the list; the other nodes keep their order]
+     */
+    private void unlink(Node n) {
+        n.previous.next = n.next;
+        n.next.previous = n.previous;
+    }
+
+    /**
+     * Links {@code n} into the list right after {@code p}.
+     *
+     * @param n
+     *            the node to be linked
+     * @param p
+     *            the node {@code n} is to follow
+     * @requires <pre>
+     * [n is not in the list]  and
+     * [p is a node of the list other than $this.postBack]
+     * </pre>
+     * @ensures [n is in the list, right after p]
+     */
+    private void linkAfter(Node n, Node p) {
+        n.previous = p;
+        n.next = p.next;
+        p.next.previous = n;
+        p.next = n;
+    }
+
+    /**
+     * Reorganizes the list after a successful lookup of the pair in
+     * {@code n}.
+     *
+     * @param n
+     *            the node found
+     * @requires [n is a node of the list other than the smart nodes]
+     * @ensures [n has moved to the front or one step forward, according to
+     *          $this.reorder; the other nodes keep their order]
+     */
+    private void promote(Node n) {
+        if (n.previous != this.preFront) {
+            Node p;
+            if (this.reorder == Reorder.MOVE_TO_FRONT) {
+                p = this.preFront;
+            } else {
+                p = n.previous.previous;
+            }
+            this.unlink(n);
+            this.linkAfter(n, p);
+        }
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor, resulting in a move-to-front map.
+     */
+    public Map2a() {
+        this(Reorder.MOVE_TO_FRONT);
+    }
+
+    /**
+     * Constructor resulting in a map reorganized by {@code reorder}.
+     *
+     * @param reorder
+     *            how successful lookups reorganize the map
+     */
+    public Map2a(Reorder reorder) {
+        assert reorder != null : "Violation of: reorder is not null";
+
+        this.reorder = reorder;
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor(Reorder.class)
+                    .newInstance(this.reorder);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map2a<?, ?> : ""
+                + "Violation of: source is of dynamic type Map2a<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map2a<?,?>,
+         * and the ?,? must be K,V or the call would not have compiled.
+         */
+        Map2a<K, V> localSource = (Map2a<K, V>) source;
+        this.preFront = localSource.preFront;
+        this.postBack = localSource.postBack;
+        this.length = localSource.length;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert this.find(key) == null : ""
+                + "Violation of: key is not in DOMAIN(this)";
+
+        Node n = new Node();
+        n.pair = new SimplePair<K, V>(key, value);
+        if (this.reorder == Reorder.MOVE_TO_FRONT) {
+            this.linkAfter(n, this.preFront);
+        } else {
+            this.linkAfter(n, this.postBack.previous);
+        }
+        this.length++;
+
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        Node n = this.find(key);
+        assert n != null : "Violation of: key is in DOMAIN(this)";
+
+        this.unlink(n);
+        this.length--;
+
+        return n.pair;
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Node n = this.postBack.previous;
+        this.unlink(n);
+        this.length--;
+
+        return n.pair;
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        Node n = this.find(key);
+        assert n != null : "Violation of: key is in DOMAIN(this)";
+
+        this.promote(n);
+
+        return n.pair.value();
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        Node n = this.find(key);
+        if (n != null) {
+            this.promote(n);
+        }
+
+        return n != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.length;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map2aIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map2a}.
+     */
+    private final class Map2aIterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Pairs of {@code Map2a.this}, in list order, when this iterator was
+         * created.
+         */
+        private final Object[] pairs;
+
+        /**
+         * Position in {@code pairs} of the next pair.
+         */
+        private int position;
+
+        /**
+         * No-argument constructor.
+         */
+        Map2aIterator() {
+            this.pairs = new Object[Map2a.this.length];
+            Node n = Map2a.this.preFront.next;
+            for (int i = 0; i < this.pairs.length; i++) {
+                this.pairs[i] = n.pair;
+                n = n.next;
+            }
+            this.position = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.position < this.pairs.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Pair<K, V> x = (Pair<K, V>) this.pairs[this.position];
+            this.position++;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map2a} with move-to-front
+ * reorganization.
+ */
+public class Map2aTest extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map2a<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    @Test
+    public final void testValueMovesToFront() {
+        Map<String, String> m = this.constructorTest();
+        m.add("1", "one");
+        m.add("2", "two");
+        m.add("3", "three");
+
+        m.value("1");
+
+        /*
+         * Order is now 1, 3, 2, and removeAny takes the back
+         */
+        Pair<String, String> x = m.removeAny();
+        assertEquals("2", x.key());
+        assertEquals("1", m.iterator().next().key());
+    }
+
+    @Test
+    public final void testLookupWhileIterating() {
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> seen = this.constructorRef();
+        m.add("1", "one");
+        m.add("2", "two");
+        m.add("3", "three");
+
+        for (Pair<String, String> p : m) {
+            assertEquals(p.value(), m.value(p.key()));
+            seen.add(p.key(), p.value());
+        }
+
+        assertEquals(seen, m);
+    }
+
+}
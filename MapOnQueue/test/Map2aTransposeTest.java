@@ -0,0 +1,59 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map2a} with transpose
+ * reorganization.
+ */
+public class Map2aTransposeTest extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map2a<String, String>(Map2a.Reorder.TRANSPOSE);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    @Test
+    public final void testHasKeyTransposes() {
+        Map<String, String> m = this.constructorTest();
+        m.add("1", "one");
+        m.add("2", "two");
+        m.add("3", "three");
+
+        m.hasKey("3");
+
+        /*
+         * Order is now 1, 3, 2, and removeAny takes the back
+         */
+        Pair<String, String> x = m.removeAny();
+        assertEquals("2", x.key());
+        assertEquals("1", m.iterator().next().key());
+    }
+
+    @Test
+    public final void testNewInstanceTransposes() {
+        Map<String, String> m = this.constructorTest().newInstance();
+        m.add("1", "one");
+        m.add("2", "two");
+        m.add("3", "three");
+
+        m.hasKey("3");
+
+        /*
+         * Under move-to-front the order would be 3, 2, 1 and removeAny would
+         * take 1
+         */
+        Pair<String, String> x = m.removeAny();
+        assertEquals("2", x.key());
+    }
+
+}
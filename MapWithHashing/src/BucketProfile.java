@@ -0,0 +1,245 @@
+import components.simplewriter.SimpleWriter;
+
+/**
+ * Summary statistics of how the entries of a hash table are spread over its
+ * buckets: chain lengths, a chi-square measure of uniformity, and the
+ * expected number of key comparisons per lookup. Built from a live
+ * {@code Map4} with {@link #of(Map4)}.
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class BucketProfile {
+
+    /**
+     * Number of entries in each bucket.
+     */
+    private final int[] bucketSizes;
+
+    /**
+     * Total number of entries.
+     */
+    private final int entries;
+
+    /**
+     * Constructor from the number of entries in each bucket.
+     *
+     * @param bucketSizes
+     *            the bucket sizes
+     * @requires <pre>
+     * |bucketSizes| > 0  and
+     * for all i: integer where (0 <= i < |bucketSizes|) (bucketSizes[i] >= 0)
+     * </pre>
+     */
+    public BucketProfile(int[] bucketSizes) {
+        assert bucketSizes != null : "Violation of: bucketSizes is not null";
+        assert bucketSizes.length > 0 : "Violation of: |bucketSizes| > 0";
+
+        this.bucketSizes = bucketSizes.clone();
+        int total = 0;
+        for (int size : this.bucketSizes) {
+            total += size;
+        }
+        this.entries = total;
+    }
+
+    /**
+     * Returns the profile of the current bucket distribution of {@code map}.
+     *
+     * @param map
+     *            the map to be profiled
+     * @return the profile of {@code map}
+     * @ensures of = [profile of map.bucketSizes()]
+     */
+    public static BucketProfile of(Map4<?, ?> map) {
+        assert map != null : "Violation of: map is not null";
+
+        return new BucketProfile(map.bucketSizes());
+    }
+
+    /**
+     * Reports the number of buckets.
+     *
+     * @return the number of buckets
+     */
+    public int buckets() {
+        return this.bucketSizes.length;
+    }
+
+    /**
+     * Reports the total number of entries.
+     *
+     * @return the number of entries
+     */
+    public int entries() {
+        return this.entries;
+    }
+
+    /**
+     * Reports the average number of entries per bucket.
+     *
+     * @return entries / buckets
+     */
+    public double load() {
+        return (double) this.entries / this.bucketSizes.length;
+    }
+
+    /**
+     * Reports the number of entries in the fullest bucket.
+     *
+     * @return the longest chain length
+     */
+    public int maxChainLength() {
+        int max = 0;
+        for (int size : this.bucketSizes) {
+            max = Math.max(max, size);
+        }
+        return max;
+    }
+
+    /**
+     * Reports the average number of entries in the non-empty buckets, or 0 if
+     * there are none.
+     *
+     * @return the mean chain length
+     */
+    public double meanChainLength() {
+        int nonEmpty = 0;
+        for (int size : this.bucketSizes) {
+            if (size > 0) {
+                nonEmpty++;
+            }
+        }
+        double mean = 0.0;
+        if (nonEmpty > 0) {
+            mean = (double) this.entries / nonEmpty;
+        }
+        return mean;
+    }
+
+    /**
+     * Reports Pearson's chi-square statistic of the bucket sizes against a
+     * uniform distribution. With a good hash function it is close to the
+     * number of buckets minus 1; much larger values mean some buckets are hot.
+     *
+     * @return the chi-square statistic, or 0 if there are no entries
+     */
+    public double chiSquare() {
+        double chiSquare = 0.0;
+        if (this.entries > 0) {
+            double expected = this.load();
+            for (int size : this.bucketSizes) {
+                double difference = size - expected;
+                chiSquare += difference * difference / expected;
+            }
+        }
+        return chiSquare;
+    }
+
+    /**
+     * Reports the expected number of key comparisons made to find a key that
+     * is present, assuming every present key is equally likely to be looked
+     * up and each bucket is searched linearly.
+     *
+     * @return the expected comparisons for a successful lookup, or 0 if there
+     *         are no entries
+     */
+    public double expectedProbesSuccessful() {
+        double probes = 0.0;
+        if (this.entries > 0) {
+            long total = 0;
+            for (int size : this.bucketSizes) {
+                total += (long) size * (size + 1) / 2;
+            }
+            probes = (double) total / this.entries;
+        }
+        return probes;
+    }
+
+    /**
+     * Reports the expected number of key comparisons made to find that a key
+     * is absent, assuming the key is equally likely to hash to every bucket.
+     *
+     * @return the expected comparisons for an unsuccessful lookup
+     */
+    public double expectedProbesUnsuccessful() {
+        return this.load();
+    }
+
+    /**
+     * Returns the indices of the {@code k} fullest buckets, fullest first.
+     *
+     * @param k
+     *            the number of buckets wanted
+     * @return the indices of the fullest buckets
+     * @requires 0 <= k <= buckets()
+     * @ensures <pre>
+     * |hottestBuckets| = k  and
+     * [hottestBuckets lists the k buckets with the most entries, in
+     *  non-increasing order of size]
+     * </pre>
+     */
+    public int[] hottestBuckets(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k <= this.buckets() : "Violation of: k <= buckets()";
+
+        int[] hottest = new int[k];
+        int count = 0;
+        for (int i = 0; i < this.bucketSizes.length; i++) {
+            /*
+             * Insertion into the sorted prefix hottest[0, count); once it is
+             * full, bucket i replaces the last entry only if it is fuller
+             */
+            int j = -1;
+            if (count < k) {
+                j = count;
+                count++;
+            } else if (k > 0
+                    && this.bucketSizes[i] > this.bucketSizes[hottest[k - 1]]) {
+                j = k - 1;
+            }
+            if (j >= 0) {
+                int size = this.bucketSizes[i];
+                while (j > 0 && size > this.bucketSizes[hottest[j - 1]]) {
+                    hottest[j] = hottest[j - 1];
+                    j--;
+                }
+                hottest[j] = i;
+            }
+        }
+        return hottest;
+    }
+
+    /**
+     * Outputs the statistics, followed by the {@code hot} fullest buckets, one
+     * per line.
+     *
+     * @param out
+     *            the output stream
+     * @param hot
+     *            the number of fullest buckets to list
+     * @updates out.content
+     * @requires out.is_open  and  0 <= hot <= buckets()
+     * @ensures out.content = #out.content * [the statistics]
+     */
+    public void print(SimpleWriter out, int hot) {
+        assert out != null : "Violation of: out is not null";
+        assert out.isOpen() : "Violation of: out.is_open";
+
+        out.println("Buckets:\t" + this.buckets());
+        out.println("Entries:\t" + this.entries());
+        out.println("Load:\t" + this.load());
+        out.println("Max chain:\t" + this.maxChainLength());
+        out.println("Mean chain:\t" + this.meanChainLength());
+        out.println("Chi-square:\t" + this.chiSquare() + " (df = "
+                + (this.buckets() - 1) + ")");
+        out.println("Probes (hit):\t" + this.expectedProbesSuccessful());
+        out.println("Probes (miss):\t" + this.expectedProbesUnsuccessful());
+        int[] hottest = this.hottestBuckets(hot);
+        for (int i = 0; i < hottest.length; i++) {
+            out.println("Hot bucket:\t" + hottest[i] + "\t"
+                    + this.bucketSizes[hottest[i]]);
+        }
+    }
+
+}
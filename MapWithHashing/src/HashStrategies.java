@@ -0,0 +1,222 @@
+/**
+ * Utility class with factory methods for the standard {@code HashStrategy}s.
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class HashStrategies {
+
+    /**
+     * First multiplier of the murmur3 32-bit finalizer.
+     */
+    private static final int MURMUR3_C1 = 0x85ebca6b;
+
+    /**
+     * Second multiplier of the murmur3 32-bit finalizer.
+     */
+    private static final int MURMUR3_C2 = 0xc2b2ae35;
+
+    /**
+     * First shift of the murmur3 32-bit finalizer.
+     */
+    private static final int MURMUR3_SHIFT1 = 16;
+
+    /**
+     * Second shift of the murmur3 32-bit finalizer.
+     */
+    private static final int MURMUR3_SHIFT2 = 13;
+
+    /**
+     * 32-bit FNV offset basis.
+     */
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+
+    /**
+     * 32-bit FNV prime.
+     */
+    private static final int FNV_PRIME = 0x01000193;
+
+    /**
+     * Mask selecting the low byte of a {@code char}.
+     */
+    private static final int BYTE_MASK = 0xff;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private HashStrategies() {
+    }
+
+    /**
+     * Applies the murmur3 32-bit finalizer to {@code h}, so that every bit of
+     * the result depends on every bit of {@code h}.
+     *
+     * @param h
+     *            the value to be mixed
+     * @return the mixed value
+     * @ensures mix = [murmur3 fmix32 of h]
+     */
+    public static int mix(int h) {
+        int x = h;
+        x ^= x >>> MURMUR3_SHIFT1;
+        x *= MURMUR3_C1;
+        x ^= x >>> MURMUR3_SHIFT2;
+        x *= MURMUR3_C2;
+        x ^= x >>> MURMUR3_SHIFT1;
+        return x;
+    }
+
+    /**
+     * Strategy returning {@code key.hashCode()} unchanged.
+     *
+     * @param <K>
+     *            type of the keys hashed
+     */
+    private static final class Identity<K> implements HashStrategy<K> {
+
+        @Override
+        public int hash(K key) {
+            return key.hashCode();
+        }
+
+    }
+
+    /**
+     * Strategy mixing {@code key.hashCode()}, combined with a seed, through
+     * the murmur3 finalizer.
+     *
+     * @param <K>
+     *            type of the keys hashed
+     */
+    private static final class Murmur3<K> implements HashStrategy<K> {
+
+        /**
+         * Seed combined with every hash code before mixing.
+         */
+        private final int seed;
+
+        /**
+         * Constructor.
+         *
+         * @param seed
+         *            the seed
+         */
+        Murmur3(int seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public int hash(K key) {
+            return mix(key.hashCode() ^ this.seed);
+        }
+
+    }
+
+    /**
+     * Strategy computing the 32-bit FNV-1a hash of the UTF-16 code units of a
+     * {@code String}.
+     */
+    private static final class Fnv1a implements HashStrategy<String> {
+
+        /**
+         * Starting value of the hash.
+         */
+        private final int basis;
+
+        /**
+         * Constructor.
+         *
+         * @param basis
+         *            the starting value of the hash
+         */
+        Fnv1a(int basis) {
+            this.basis = basis;
+        }
+
+        @Override
+        public int hash(String key) {
+            int h = this.basis;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                h = (h ^ (c & BYTE_MASK)) * FNV_PRIME;
+                h = (h ^ (c >>> Byte.SIZE)) * FNV_PRIME;
+            }
+            return h;
+        }
+
+    }
+
+    /**
+     * Returns the strategy that uses {@code key.hashCode()} unchanged.
+     *
+     * @param <K>
+     *            type of the keys hashed
+     * @return the identity strategy
+     * @ensures identity.hash(key) = [computed result of key.hashCode()]
+     */
+    public static <K> HashStrategy<K> identity() {
+        return new Identity<K>();
+    }
+
+    /**
+     * Returns the strategy that passes {@code key.hashCode()} through the
+     * murmur3 finalizer. This spreads keys whose hash codes differ only in a
+     * few (e.g., high) bits over all buckets, but keys with equal hash codes
+     * still collide.
+     *
+     * @param <K>
+     *            type of the keys hashed
+     * @return the murmur3 strategy
+     * @ensures murmur3.hash(key) = mix([computed result of key.hashCode()])
+     */
+    public static <K> HashStrategy<K> murmur3() {
+        return new Murmur3<K>(0);
+    }
+
+    /**
+     * Returns the strategy that XORs {@code seed} into {@code key.hashCode()}
+     * and passes the result through the murmur3 finalizer. Different seeds
+     * place the same keys in unrelated buckets.
+     *
+     * @param <K>
+     *            type of the keys hashed
+     * @param seed
+     *            the seed
+     * @return the seeded strategy
+     * @ensures <pre>
+     * seeded.hash(key) = mix([computed result of key.hashCode()] XOR seed)
+     * </pre>
+     */
+    public static <K> HashStrategy<K> seeded(int seed) {
+        return new Murmur3<K>(seed);
+    }
+
+    /**
+     * Returns the strategy that computes the 32-bit FNV-1a hash of the
+     * characters of a {@code String}, ignoring {@code String.hashCode}.
+     *
+     * @return the FNV-1a strategy
+     * @ensures fnv1a.hash(key) = [FNV-1a hash of the UTF-16LE bytes of key]
+     */
+    public static HashStrategy<String> fnv1a() {
+        return new Fnv1a(FNV_OFFSET_BASIS);
+    }
+
+    /**
+     * Returns the FNV-1a strategy for {@code String}s, starting from a basis
+     * perturbed by {@code seed}.
+     *
+     * @param seed
+     *            the seed
+     * @return the seeded FNV-1a strategy
+     * @ensures <pre>
+     * fnv1a.hash(key) =
+     *   [FNV-1a hash of the UTF-16LE bytes of key, starting from
+     *    FNV_OFFSET_BASIS XOR mix(seed)]
+     * </pre>
+     */
+    public static HashStrategy<String> fnv1a(int seed) {
+        return new Fnv1a(FNV_OFFSET_BASIS ^ mix(seed));
+    }
+
+}
@@ -0,0 +1,30 @@
+/**
+ * Function from keys to hash codes, used by a hash table in place of
+ * {@code Object.hashCode}. Ready-made strategies are available from
+ * {@link HashStrategies}.
+ *
+ * @param <K>
+ *            type of the keys hashed
+ *
+ * @author Yifan Yao
+ *
+ */
+public interface HashStrategy<K> {
+
+    /**
+     * Returns the hash code of {@code key}. Equal keys must have equal hash
+     * codes.
+     *
+     * @param key
+     *            the key to be hashed
+     * @return the hash code of {@code key}
+     * @requires key is not null
+     * @ensures <pre>
+     * [hash is the hash code of key under this strategy]  and
+     * for all other: K where (other.equals(key))
+     *   (hash(other) = hash)
+     * </pre>
+     */
+    int hash(K key);
+
+}
@@ -0,0 +1,487 @@
+/**
+ * Map from {@code int} keys to {@code int} values, represented as an
+ * open-addressing hash table with linear probing, meant for counting.
+ * <p>
+ * The {@code int} sibling of {@code ObjIntMap}: keys and values are kept in
+ * two parallel {@code int[]}s, so no operation boxes. Key 0 marks an empty
+ * slot, so the pair with key 0, if any, is kept in two fields of its own. A
+ * key not in the map has value 0. Keys are mixed with
+ * {@code HashStrategies.mix} before choosing a slot, since small and
+ * regularly spaced keys are common.
+ *
+ * @convention <pre>
+ * |$this.keys| = |$this.values|  and
+ * |$this.keys| is a power of 2  and
+ * |$this.keys| >= MINIMUM_CAPACITY  and
+ * $this.size * MAX_LOAD_DENOMINATOR <= |$this.keys| * MAX_LOAD_NUMERATOR  and
+ * $this.size = |{i: integer where $this.keys[i] /= 0}|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|  and  $this.keys[i] /= 0)
+ *   ([every slot from home($this.keys[i]) up to i, cyclically, is not 0]
+ *    and  [$this.keys[i] appears at no other index])  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|  and  $this.keys[i] = 0)
+ *   ($this.values[i] = 0)  and
+ * ($this.hasZeroKey  or  $this.zeroValue = 0)
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (integer, integer)
+ *           where there exists i: integer
+ *                   (0 <= i  and  i < |$this.keys|  and  key /= 0  and
+ *                    key = $this.keys[i]  and  value = $this.values[i])}
+ *        union
+ *        [if $this.hasZeroKey then {(0, $this.zeroValue)} else {}]
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class IntIntMap {
+
+    /**
+     * Action performed on each pair by {@code forEach}.
+     */
+    public interface IntIntConsumer {
+
+        /**
+         * Performs this action on one pair.
+         *
+         * @param key
+         *            the key
+         * @param value
+         *            the value associated with {@code key}
+         */
+        void accept(int key, int value);
+
+    }
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of slots in the hash table.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Smallest number of slots in the hash table.
+     */
+    private static final int MINIMUM_CAPACITY = 2;
+
+    /**
+     * Numerator of the largest allowed fraction of occupied slots.
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the largest allowed fraction of occupied slots.
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * Keys, with 0 marking an empty slot.
+     */
+    private int[] keys;
+
+    /**
+     * Values associated with the keys in the same slots.
+     */
+    private int[] values;
+
+    /**
+     * Number of occupied slots (not counting key 0).
+     */
+    private int size;
+
+    /**
+     * Whether key 0 is in the map.
+     */
+    private boolean hasZeroKey;
+
+    /**
+     * Value associated with key 0.
+     */
+    private int zeroValue;
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n} and at least
+     * {@code MINIMUM_CAPACITY}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the power of 2
+     * @requires n <= 2^30
+     * @ensures <pre>
+     * powerOfTwoAtLeast >= n  and  powerOfTwoAtLeast >= MINIMUM_CAPACITY  and
+     * there exists k: integer (powerOfTwoAtLeast = 2^k)  and
+     * [powerOfTwoAtLeast is the smallest such number]
+     * </pre>
+     */
+    private static int powerOfTwoAtLeast(int n) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < n) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the home slot of {@code key} in a table with {@code mask + 1}
+     * slots.
+     *
+     * @param key
+     *            the key
+     * @param mask
+     *            the number of slots minus 1
+     * @return the home slot
+     * @requires mask + 1 is a power of 2
+     * @ensures 0 <= home <= mask
+     */
+    private static int home(int key, int mask) {
+        return HashStrategies.mix(key) & mask;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the number of slots
+     * @requires capacity is a power of 2  and  capacity >= MINIMUM_CAPACITY
+     * @ensures <pre>
+     * |$this.keys| = capacity  and
+     * [every slot of $this.keys is empty]  and
+     * $this.size = 0  and  not $this.hasZeroKey  and  $this.zeroValue = 0
+     * </pre>
+     */
+    private void createNewRep(int capacity) {
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.size = 0;
+        this.hasZeroKey = false;
+        this.zeroValue = 0;
+    }
+
+    /**
+     * Returns the slot holding {@code key} or, if there is none, the empty
+     * slot where {@code key} would be inserted.
+     *
+     * @param key
+     *            the key to look for
+     * @return the slot for {@code key}
+     * @requires key /= 0
+     * @ensures <pre>
+     * if key is in DOMAIN(this)
+     *  then $this.keys[slot] = key
+     *  else $this.keys[slot] = 0
+     * </pre>
+     */
+    private int slot(int key) {
+        int mask = this.keys.length - 1;
+        int i = home(key, mask);
+        while (this.keys[i] != 0 && this.keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Doubles the number of slots if one more key would exceed the maximum
+     * load, and returns the slot for {@code key} in the (possibly new) table.
+     *
+     * @param key
+     *            the key about to be inserted
+     * @return the empty slot for {@code key}
+     * @requires key /= 0  and  key is not in DOMAIN(this)
+     * @ensures <pre>
+     * ($this.size + 1) * MAX_LOAD_DENOMINATOR <=
+     *   |$this.keys| * MAX_LOAD_NUMERATOR  and
+     * $this.keys[slotForNewKey] = 0
+     * </pre>
+     */
+    private int slotForNewKey(int key) {
+        if ((this.size + 1L) * MAX_LOAD_DENOMINATOR > (long) this.keys.length
+                * MAX_LOAD_NUMERATOR) {
+            int[] oldKeys = this.keys;
+            int[] oldValues = this.values;
+            int mask = 2 * oldKeys.length - 1;
+            this.keys = new int[mask + 1];
+            this.values = new int[mask + 1];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int j = home(oldKeys[i], mask);
+                    while (this.keys[j] != 0) {
+                        j = (j + 1) & mask;
+                    }
+                    this.keys[j] = oldKeys[i];
+                    this.values[j] = oldValues[i];
+                }
+            }
+        }
+        return this.slot(key);
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public IntIntMap() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a map that can hold {@code expectedSize} keys
+     * without growing.
+     *
+     * @param expectedSize
+     *            the number of keys expected
+     * @requires 0 <= expectedSize <= 2^29
+     */
+    public IntIntMap(int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: 0 <= expectedSize";
+
+        /*
+         * Computed in long: expectedSize * MAX_LOAD_DENOMINATOR overflows int
+         * well within the allowed range of expectedSize
+         */
+        this.createNewRep(powerOfTwoAtLeast((int) ((long) expectedSize
+                * MAX_LOAD_DENOMINATOR / MAX_LOAD_NUMERATOR + 1)));
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Reports whether there is a pair in {@code this} whose first component
+     * is {@code key}.
+     *
+     * @param key
+     *            the key to be checked
+     * @return true iff there is a pair in {@code this} whose first component
+     *         is {@code key}
+     * @ensures hasKey = (key is in DOMAIN(this))
+     */
+    public boolean hasKey(int key) {
+        boolean hasKey;
+        if (key == 0) {
+            hasKey = this.hasZeroKey;
+        } else {
+            hasKey = this.keys[this.slot(key)] != 0;
+        }
+        return hasKey;
+    }
+
+    /**
+     * Reports the value associated with {@code key}, or 0 if there is none.
+     *
+     * @param key
+     *            the key whose associated value is to be reported
+     * @return the value associated with {@code key}
+     * @ensures <pre>
+     * if key is in DOMAIN(this)
+     *  then (key, get) is in this
+     *  else get = 0
+     * </pre>
+     */
+    public int get(int key) {
+        int value;
+        if (key == 0) {
+            value = this.zeroValue;
+        } else {
+            value = this.values[this.slot(key)];
+        }
+        return value;
+    }
+
+    /**
+     * Associates {@code value} with {@code key}, adding {@code key} if it is
+     * not already in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value to be associated with {@code key}
+     * @updates this
+     * @ensures this = (#this \ {(key, #this(key))}) union {(key, value)}
+     */
+    public void put(int key, int value) {
+        if (key == 0) {
+            this.hasZeroKey = true;
+            this.zeroValue = value;
+        } else {
+            int i = this.slot(key);
+            if (this.keys[i] == 0) {
+                i = this.slotForNewKey(key);
+                this.keys[i] = key;
+                this.size++;
+            }
+            this.values[i] = value;
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value associated with {@code key}, treating a
+     * key not in {@code this} as having value 0, and reports the new value.
+     *
+     * @param key
+     *            the key
+     * @param delta
+     *            the amount to be added
+     * @return the new value associated with {@code key}
+     * @updates this
+     * @ensures <pre>
+     * addTo = [value associated with key in #this, or 0 if none] + delta  and
+     * this = (#this \ {(key, #this(key))}) union {(key, addTo)}
+     * </pre>
+     */
+    public int addTo(int key, int delta) {
+        int value;
+        if (key == 0) {
+            this.hasZeroKey = true;
+            this.zeroValue += delta;
+            value = this.zeroValue;
+        } else {
+            int i = this.slot(key);
+            if (this.keys[i] == 0) {
+                i = this.slotForNewKey(key);
+                this.keys[i] = key;
+                this.size++;
+            }
+            this.values[i] += delta;
+            value = this.values[i];
+        }
+        return value;
+    }
+
+    /**
+     * Adds 1 to the value associated with {@code key}, treating a key not in
+     * {@code this} as having value 0, and reports the new value.
+     *
+     * @param key
+     *            the key
+     * @return the new value associated with {@code key}
+     * @updates this
+     * @ensures <pre>
+     * increment = [value associated with key in #this, or 0 if none] + 1  and
+     * this = (#this \ {(key, #this(key))}) union {(key, increment)}
+     * </pre>
+     */
+    public int increment(int key) {
+        return this.addTo(key, 1);
+    }
+
+    /**
+     * Removes {@code key} from {@code this} and reports its value.
+     *
+     * @param key
+     *            the key to be removed
+     * @return the value that was associated with {@code key}
+     * @updates this
+     * @requires key is in DOMAIN(this)
+     * @ensures (key, remove) is in #this  and  this = #this \ {(key, remove)}
+     */
+    public int remove(int key) {
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int value;
+        if (key == 0) {
+            value = this.zeroValue;
+            this.hasZeroKey = false;
+            this.zeroValue = 0;
+        } else {
+            int i = this.slot(key);
+            value = this.values[i];
+            this.keys[i] = 0;
+            this.values[i] = 0;
+            this.size--;
+            /*
+             * Backward shift: move each later entry of the probe run into the
+             * hole if the hole lies between its home slot and its current slot
+             */
+            int mask = this.keys.length - 1;
+            int j = (i + 1) & mask;
+            while (this.keys[j] != 0) {
+                int h = home(this.keys[j], mask);
+                if (((j - h) & mask) >= ((j - i) & mask)) {
+                    this.keys[i] = this.keys[j];
+                    this.values[i] = this.values[j];
+                    this.keys[j] = 0;
+                    this.values[j] = 0;
+                    i = j;
+                }
+                j = (j + 1) & mask;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Reports the number of keys in {@code this}.
+     *
+     * @return the number of keys in {@code this}
+     * @ensures size = |this|
+     */
+    public int size() {
+        int size = this.size;
+        if (this.hasZeroKey) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Resets {@code this} to an empty map.
+     *
+     * @clears this
+     */
+    public void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the keys of {@code this}, in no particular order.
+     *
+     * @return the keys of {@code this}
+     * @ensures [entries of keys are the elements of DOMAIN(this)]  and
+     *          |keys| = |this|
+     */
+    public int[] keys() {
+        int[] result = new int[this.size()];
+        int count = 0;
+        if (this.hasZeroKey) {
+            count++;
+        }
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != 0) {
+                result[count] = this.keys[i];
+                count++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls {@code action.accept(key, value)} for every pair in {@code this},
+     * without boxing.
+     *
+     * @param action
+     *            the action to be performed on each pair
+     */
+    public void forEach(IntIntConsumer action) {
+        assert action != null : "Violation of: action is not null";
+
+        if (this.hasZeroKey) {
+            action.accept(0, this.zeroValue);
+        }
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != 0) {
+                action.accept(this.keys[i], this.values[i]);
+            }
+        }
+    }
+
+}
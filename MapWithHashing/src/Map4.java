@@ -10,6 +10,25 @@ import components.map.MapSecondary;
 /**
  * {@code Map} represented as a hash table using {@code Map}s for the buckets,
  * with implementations of primary methods.
+ * <p>
+ * A {@code Map4} constructed with a load factor resizes itself: when
+ * {@code size / |hashTable|} exceeds the load factor the table grows, and when
+ * it drops below a quarter of the load factor the table shrinks (never below
+ * its initial size). The rehash is incremental: the old table is kept next to
+ * the new one and each later {@code add}, {@code remove}, and
+ * {@code removeAny} migrates a few of its buckets, so no single call pays for
+ * rebuilding the whole table. A {@code Map4} constructed without a load factor
+ * keeps its bucket count fixed.
+ * <p>
+ * Keys are hashed by a {@code HashStrategy}, which defaults to
+ * {@code key.hashCode()} but can be replaced (e.g., by one of
+ * {@link HashStrategies}) when the keys' own hash codes are skewed.
+ * {@link #bucketSizes()} exposes the resulting distribution for profiling.
+ * <p>
+ * Each table is paired with a list of its non-empty buckets, so
+ * {@code removeAny} and the iterator never look at an empty bucket: draining
+ * a map of n entries takes time proportional to n, not to n times the number
+ * of buckets.
  *
  * @param <K>
  *            type of {@code Map} domain (key) entries
@@ -21,17 +40,47 @@ import components.map.MapSecondary;
  *     where (0 <= i  and  i < |$this.hashTable.entries|  and
  *            <pf> = $this.hashTable.entries[i, i+1)  and
  *            x is in DOMAIN(pf))
- *   ([computed result of x.hashCode()] mod |$this.hashTable.entries| = i))  and
+ *   ($this.hashStrategy.hash(x) mod |$this.hashTable.entries| = i  and
+ *    ($this.oldHashTable = null  or
+ *     $this.hashStrategy.hash(x) mod |$this.oldHashTable.entries| <
+ *        $this.rehashIndex))  and
  * |$this.hashTable.examinableIndices| = |$this.hashTable.entries|  and
+ * [$this.occupied lists, each once, exactly the indices i such that
+ *  $this.hashTable.entries[i, i+1) /= <{}>]  and
+ * if $this.oldHashTable /= null then
+ *  (0 <= $this.rehashIndex  and
+ *   $this.rehashIndex < |$this.oldHashTable.entries|  and
+ *   |$this.oldHashTable.examinableIndices| = |$this.oldHashTable.entries|  and
+ *   for all i: integer, pf: PARTIAL_FUNCTION, x: K
+ *       where (0 <= i  and  i < |$this.oldHashTable.entries|  and
+ *              <pf> = $this.oldHashTable.entries[i, i+1)  and
+ *              x is in DOMAIN(pf))
+ *     ($this.hashStrategy.hash(x) mod |$this.oldHashTable.entries| = i
+ *      and  $this.rehashIndex <= i)  and
+ *   [$this.oldOccupied lists, each once, exactly the indices i such that
+ *    $this.oldHashTable.entries[i, i+1) /= <{}>])  and
+ * $this.hashStrategy /= null  and
+ * $this.initialHashTableSize > 0  and
+ * $this.loadFactor >= 0  and
  * $this.size = sum i: integer, pf: PARTIAL_FUNCTION
  *     where (0 <= i  and  i < |$this.hashTable.entries|  and
  *            <pf> = $this.hashTable.entries[i, i+1))
+ *   (|pf|) +
+ *   sum i: integer, pf: PARTIAL_FUNCTION
+ *     where ($this.oldHashTable /= null  and
+ *            0 <= i  and  i < |$this.oldHashTable.entries|  and
+ *            <pf> = $this.oldHashTable.entries[i, i+1))
  *   (|pf|)
  * </pre>
  * @correspondence <pre>
  * this = union i: integer, pf: PARTIAL_FUNCTION
  *            where (0 <= i  and  i < |$this.hashTable.entries|  and
  *                   <pf> = $this.hashTable.entries[i, i+1))
+ *          (pf)  union
+ *        union i: integer, pf: PARTIAL_FUNCTION
+ *            where ($this.oldHashTable /= null  and
+ *                   0 <= i  and  i < |$this.oldHashTable.entries|  and
+ *                   <pf> = $this.oldHashTable.entries[i, i+1))
  *          (pf)
  * </pre>
  *
@@ -49,11 +98,69 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private static final int DEFAULT_HASH_TABLE_SIZE = 101;
 
+    /**
+     * Load factor meaning "never resize the hash table".
+     */
+    private static final double FIXED_SIZE = 0.0;
+
+    /**
+     * Number of buckets of the old hash table moved to the new one by each
+     * {@code add}, {@code remove}, or {@code removeAny} while a rehash is in
+     * progress.
+     */
+    private static final int REHASH_BUCKETS_PER_CALL = 4;
+
+    /**
+     * The hash table shrinks when its load drops below the load factor divided
+     * by this amount.
+     */
+    private static final int SHRINK_DIVISOR = 4;
+
+    /**
+     * Size of the hash table created by the constructor, {@code clear}, and
+     * {@code transferFrom}; the table never shrinks below this size.
+     */
+    private int initialHashTableSize;
+
+    /**
+     * Largest allowed {@code size / |hashTable|}, or {@code FIXED_SIZE} if the
+     * hash table never resizes.
+     */
+    private double loadFactor;
+
+    /**
+     * Hash function applied to keys.
+     */
+    private HashStrategy<K> hashStrategy;
+
     /**
      * Buckets for hashing.
      */
     private Array<Map<K, V>> hashTable;
 
+    /**
+     * Indices of the non-empty buckets of {@code hashTable}.
+     */
+    private OccupiedBuckets occupied;
+
+    /**
+     * Buckets of the hash table being rehashed into {@code hashTable}, or
+     * {@code null} if no rehash is in progress.
+     */
+    private Array<Map<K, V>> oldHashTable;
+
+    /**
+     * Indices of the non-empty buckets of {@code oldHashTable}, or
+     * {@code null} if no rehash is in progress.
+     */
+    private OccupiedBuckets oldOccupied;
+
+    /**
+     * Index of the next bucket of {@code oldHashTable} to be moved to
+     * {@code hashTable}.
+     */
+    private int rehashIndex;
+
     /**
      * Total size of abstract {@code this}.
      */
@@ -102,12 +209,241 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private void createNewRep(int hashTableSize) {
 
-        this.hashTable = new Array1L<Map<K, V>>(hashTableSize);
+        this.hashTable = newHashTable(hashTableSize);
+        this.occupied = new OccupiedBuckets(hashTableSize);
+        this.oldHashTable = null;
+        this.oldOccupied = null;
+        this.rehashIndex = 0;
+        this.size = 0;
+
+    }
+
+    /**
+     * Creates and returns a hash table of {@code hashTableSize} empty buckets.
+     *
+     * @param <K>
+     *            type of {@code Map} domain (key) entries
+     * @param <V>
+     *            type of {@code Map} range (associated value) entries
+     * @param hashTableSize
+     *            the size of the hash table
+     * @return the new hash table
+     * @requires hashTableSize > 0
+     * @ensures <pre>
+     * |newHashTable.entries| = hashTableSize  and
+     * for all i: integer
+     *     where (0 <= i  and  i < |newHashTable.entries|)
+     *   (newHashTable.entries[i, i+1) = <{}>  and
+     *    i is in newHashTable.examinableIndices)
+     * </pre>
+     */
+    private static <K, V> Array<Map<K, V>> newHashTable(int hashTableSize) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+
+        Array<Map<K, V>> table = new Array1L<Map<K, V>>(hashTableSize);
         for (int i = 0; i < hashTableSize; i++) {
-            this.hashTable.setEntry(i, new Map2<K, V>());
+            table.setEntry(i, new Map2<K, V>());
         }
-        this.size = 0;
 
+        return table;
+    }
+
+    /**
+     * Reports whether {@code key} belongs in {@code $this.oldHashTable}, i.e.,
+     * whether a rehash is in progress and the bucket for {@code key} in the old
+     * table has not been moved yet.
+     *
+     * @param key
+     *            the key
+     * @return true iff {@code key} belongs in the old hash table
+     * @ensures <pre>
+     * inOldHashTable = ($this.oldHashTable /= null  and
+     *    $this.hashStrategy.hash(key) mod |$this.oldHashTable.entries|
+     *       >= $this.rehashIndex)
+     * </pre>
+     */
+    private boolean inOldHashTable(K key) {
+        return this.oldHashTable != null
+                && mod(this.hashStrategy.hash(key),
+                        this.oldHashTable.length()) >= this.rehashIndex;
+    }
+
+    /**
+     * Returns the bucket in which {@code key} is, or would be, stored.
+     *
+     * @param key
+     *            the key
+     * @return the bucket for {@code key}
+     * @ensures <pre>
+     * if inOldHashTable(key)
+     *  then <bucket> = $this.oldHashTable.entries[i, i+1) where
+     *         i = $this.hashStrategy.hash(key) mod
+     *             |$this.oldHashTable.entries|
+     *  else <bucket> = $this.hashTable.entries[i, i+1) where
+     *         i = $this.hashStrategy.hash(key) mod
+     *             |$this.hashTable.entries|
+     * </pre>
+     */
+    private Map<K, V> bucket(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        Array<Map<K, V>> table = this.hashTable;
+        if (this.inOldHashTable(key)) {
+            table = this.oldHashTable;
+        }
+
+        return table.entry(mod(this.hashStrategy.hash(key), table.length()));
+    }
+
+    /**
+     * Adds the pair ({@code key}, {@code value}) to its bucket in
+     * {@code table}, recording the bucket in {@code occupied} if it was empty.
+     *
+     * @param table
+     *            the hash table
+     * @param occupied
+     *            the non-empty buckets of {@code table}
+     * @param key
+     *            the key to be added
+     * @param value
+     *            the associated value to be added
+     * @updates table, occupied
+     * @requires key is not in the bucket for key in table
+     * @ensures <pre>
+     * [(key, value) is added to the bucket for key in table]  and
+     * [occupied lists the non-empty buckets of table]
+     * </pre>
+     */
+    private void addToBucket(Array<Map<K, V>> table, OccupiedBuckets occupied,
+            K key, V value) {
+        int i = mod(this.hashStrategy.hash(key), table.length());
+        Map<K, V> bucket = table.entry(i);
+        if (bucket.size() == 0) {
+            occupied.link(i);
+        }
+        bucket.add(key, value);
+    }
+
+    /**
+     * Removes the pair whose first component is {@code key} from its bucket in
+     * {@code table}, dropping the bucket from {@code occupied} if it becomes
+     * empty, and returns the pair.
+     *
+     * @param table
+     *            the hash table
+     * @param occupied
+     *            the non-empty buckets of {@code table}
+     * @param key
+     *            the key to be removed
+     * @return the pair removed
+     * @updates table, occupied
+     * @requires key is in the bucket for key in table
+     * @ensures <pre>
+     * [removeFromBucket is removed from the bucket for key in table]  and
+     * removeFromBucket.key = key  and
+     * [occupied lists the non-empty buckets of table]
+     * </pre>
+     */
+    private Pair<K, V> removeFromBucket(Array<Map<K, V>> table,
+            OccupiedBuckets occupied, K key) {
+        int i = mod(this.hashStrategy.hash(key), table.length());
+        Map<K, V> bucket = table.entry(i);
+        Pair<K, V> x = bucket.remove(key);
+        if (bucket.size() == 0) {
+            occupied.unlink(i);
+        }
+        return x;
+    }
+
+    /**
+     * Removes and returns an arbitrary pair from the first bucket listed in
+     * {@code occupied}, dropping the bucket from {@code occupied} if it
+     * becomes empty.
+     *
+     * @param <K>
+     *            type of {@code Map} domain (key) entries
+     * @param <V>
+     *            type of {@code Map} range (associated value) entries
+     * @param table
+     *            the hash table
+     * @param occupied
+     *            the non-empty buckets of {@code table}
+     * @return the pair removed
+     * @updates table, occupied
+     * @requires [table has a non-empty bucket]
+     * @ensures <pre>
+     * [removeAnyFromBucket is removed from some bucket of table]  and
+     * [occupied lists the non-empty buckets of table]
+     * </pre>
+     */
+    private static <K, V> Pair<K, V> removeAnyFromBucket(
+            Array<Map<K, V>> table, OccupiedBuckets occupied) {
+        int i = occupied.first();
+        Map<K, V> bucket = table.entry(i);
+        Pair<K, V> x = bucket.removeAny();
+        if (bucket.size() == 0) {
+            occupied.unlink(i);
+        }
+        return x;
+    }
+
+    /**
+     * If a rehash is in progress, moves up to {@code REHASH_BUCKETS_PER_CALL}
+     * buckets of {@code $this.oldHashTable} into {@code $this.hashTable},
+     * discarding the old table once it has been emptied.
+     *
+     * @updates $this.hashTable, $this.occupied, $this.oldHashTable,
+     *          $this.oldOccupied, $this.rehashIndex
+     */
+    private void rehashStep() {
+        if (this.oldHashTable != null) {
+            int end = Math.min(this.rehashIndex + REHASH_BUCKETS_PER_CALL,
+                    this.oldHashTable.length());
+            while (this.rehashIndex < end) {
+                Map<K, V> bucket = this.oldHashTable.entry(this.rehashIndex);
+                if (bucket.size() > 0) {
+                    this.oldOccupied.unlink(this.rehashIndex);
+                    while (bucket.size() > 0) {
+                        Pair<K, V> p = bucket.removeAny();
+                        this.addToBucket(this.hashTable, this.occupied,
+                                p.key(), p.value());
+                    }
+                }
+                this.rehashIndex++;
+            }
+            if (this.rehashIndex == this.oldHashTable.length()) {
+                this.oldHashTable = null;
+                this.oldOccupied = null;
+                this.rehashIndex = 0;
+            }
+        }
+    }
+
+    /**
+     * Starts a rehash into a new table if this is a resizing {@code Map4}, no
+     * rehash is in progress, and the load is outside the allowed range.
+     *
+     * @updates $this.hashTable, $this.occupied, $this.oldHashTable,
+     *          $this.oldOccupied, $this.rehashIndex
+     */
+    private void resizeIfNeeded() {
+        if (this.loadFactor > FIXED_SIZE && this.oldHashTable == null) {
+            int length = this.hashTable.length();
+            int newLength = length;
+            if (this.size > this.loadFactor * length) {
+                newLength = 2 * length + 1;
+            } else if (length > this.initialHashTableSize && this.size
+                    * SHRINK_DIVISOR < this.loadFactor * length) {
+                newLength = Math.max(length / 2, this.initialHashTableSize);
+            }
+            if (newLength != length) {
+                this.oldHashTable = this.hashTable;
+                this.oldOccupied = this.occupied;
+                this.hashTable = newHashTable(newLength);
+                this.occupied = new OccupiedBuckets(newLength);
+                this.rehashIndex = 0;
+            }
+        }
     }
 
     /*
@@ -119,7 +455,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     public Map4() {
 
-        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this(DEFAULT_HASH_TABLE_SIZE);
 
     }
 
@@ -133,6 +469,70 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     public Map4(int hashTableSize) {
 
+        this(hashTableSize, FIXED_SIZE, HashStrategies.<K> identity());
+
+    }
+
+    /**
+     * Constructor resulting in a hash table of size {@code hashTableSize} that
+     * hashes keys with {@code hashStrategy}.
+     *
+     * @param hashTableSize
+     *            size of hash table
+     * @param hashStrategy
+     *            hash function for keys
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, HashStrategy<K> hashStrategy) {
+
+        this(hashTableSize, FIXED_SIZE, hashStrategy);
+
+    }
+
+    /**
+     * Constructor resulting in a resizing hash table, initially of size
+     * {@code hashTableSize}, that keeps {@code size / |hashTable|} at most
+     * {@code loadFactor}.
+     *
+     * @param hashTableSize
+     *            initial (and minimum) size of hash table
+     * @param loadFactor
+     *            largest allowed ratio of size to hash table size
+     * @requires hashTableSize > 0  and  loadFactor > 0
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, double loadFactor) {
+
+        this(hashTableSize, loadFactor, HashStrategies.<K> identity());
+        assert loadFactor > 0 : "Violation of: loadFactor > 0";
+
+    }
+
+    /**
+     * Constructor resulting in a hash table, initially of size
+     * {@code hashTableSize}, that hashes keys with {@code hashStrategy} and,
+     * if {@code loadFactor > 0}, resizes to keep {@code size / |hashTable|} at
+     * most {@code loadFactor}.
+     *
+     * @param hashTableSize
+     *            initial (and minimum) size of hash table
+     * @param loadFactor
+     *            largest allowed ratio of size to hash table size, or 0 for a
+     *            hash table that never resizes
+     * @param hashStrategy
+     *            hash function for keys
+     * @requires hashTableSize > 0  and  loadFactor >= 0
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, double loadFactor,
+            HashStrategy<K> hashStrategy) {
+        assert hashStrategy != null : "Violation of: hashStrategy is not null";
+        assert loadFactor >= 0 : "Violation of: loadFactor >= 0";
+
+        this.initialHashTableSize = hashTableSize;
+        this.loadFactor = loadFactor;
+        this.hashStrategy = hashStrategy;
         this.createNewRep(hashTableSize);
 
     }
@@ -144,8 +544,16 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     @SuppressWarnings("unchecked")
     @Override
     public final Map<K, V> newInstance() {
+        /*
+         * The new map is configured like this one: same initial hash table
+         * size, load factor, and hash strategy
+         */
         try {
-            return this.getClass().getConstructor().newInstance();
+            return this.getClass()
+                    .getConstructor(int.class, double.class,
+                            HashStrategy.class)
+                    .newInstance(this.initialHashTableSize, this.loadFactor,
+                            this.hashStrategy);
         } catch (ReflectiveOperationException e) {
             throw new AssertionError(
                     "Cannot construct object of type " + this.getClass());
@@ -154,7 +562,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
 
     @Override
     public final void clear() {
-        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this.createNewRep(this.initialHashTableSize);
     }
 
     @Override
@@ -169,9 +577,20 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          * the ?,? must be K,V or the call would not have compiled.
          */
         Map4<K, V> localSource = (Map4<K, V>) source;
+        /*
+         * The tables were filled under source's hash strategy, so its
+         * configuration comes with them
+         */
+        this.initialHashTableSize = localSource.initialHashTableSize;
+        this.loadFactor = localSource.loadFactor;
+        this.hashStrategy = localSource.hashStrategy;
         this.hashTable = localSource.hashTable;
+        this.occupied = localSource.occupied;
+        this.oldHashTable = localSource.oldHashTable;
+        this.oldOccupied = localSource.oldOccupied;
+        this.rehashIndex = localSource.rehashIndex;
         this.size = localSource.size;
-        localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        localSource.createNewRep(localSource.initialHashTableSize);
     }
 
     /*
@@ -184,11 +603,15 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         assert value != null : "Violation of: value is not null";
         assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
 
-        int i = mod(key.hashCode(), this.hashTable.length());
-        Map<K, V> x = this.hashTable.entry(i);
-        x.add(key, value);
-
+        this.rehashStep();
+        if (this.inOldHashTable(key)) {
+            this.addToBucket(this.oldHashTable, this.oldOccupied, key,
+                    value);
+        } else {
+            this.addToBucket(this.hashTable, this.occupied, key, value);
+        }
         this.size++;
+        this.resizeIfNeeded();
 
     }
 
@@ -197,11 +620,16 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
 
-        int i = mod(key.hashCode(), this.hashTable.length());
-        Map<K, V> bucket = this.hashTable.entry(i);
-        Pair<K, V> x = bucket.remove(key);
-
+        this.rehashStep();
+        Pair<K, V> x;
+        if (this.inOldHashTable(key)) {
+            x = this.removeFromBucket(this.oldHashTable, this.oldOccupied,
+                    key);
+        } else {
+            x = this.removeFromBucket(this.hashTable, this.occupied, key);
+        }
         this.size--;
+        this.resizeIfNeeded();
 
         return x;
     }
@@ -210,20 +638,16 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     public final Pair<K, V> removeAny() {
         assert this.size() > 0 : "Violation of: this /= empty_set";
 
-        int i = 0;
-        boolean found = false;
-        Map.Pair<K, V> x = null;
-
-        while (i < this.size || !found) {
-            Map<K, V> bucket = this.hashTable.entry(i);
-            if (bucket.size() > 0) {
-                x = bucket.removeAny();
-                this.size--;
-                found = true;
-            } else {
-                i++;
-            }
+        this.rehashStep();
+        Pair<K, V> x;
+        if (this.oldHashTable != null
+                && this.oldOccupied.first() != OccupiedBuckets.NONE) {
+            x = removeAnyFromBucket(this.oldHashTable, this.oldOccupied);
+        } else {
+            x = removeAnyFromBucket(this.hashTable, this.occupied);
         }
+        this.size--;
+        this.resizeIfNeeded();
 
         return x;
     }
@@ -233,25 +657,14 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
 
-        int i = mod(key.hashCode(), this.hashTable.length());
-        Map<K, V> bucket = this.hashTable.entry(i);
-
-        return bucket.value(key);
+        return this.bucket(key).value(key);
     }
 
     @Override
     public final boolean hasKey(K key) {
         assert key != null : "Violation of: key is not null";
 
-        int i = mod(key.hashCode(), this.hashTable.length());
-        boolean hasKey = false;
-
-        if (this.hashTable.mayBeExamined(i)) {
-            Map<K, V> bucket = this.hashTable.entry(i);
-            hasKey = bucket.hasKey(key);
-        }
-
-        return hasKey;
+        return this.bucket(key).hasKey(key);
     }
 
     @Override
@@ -265,8 +678,144 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         return new Map4Iterator();
     }
 
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the number of entries in each bucket of the hash table. While an
+     * incremental rehash is in progress, entries still in the old table are
+     * counted in the bucket of the new table they will move to.
+     *
+     * @return the bucket sizes
+     * @ensures <pre>
+     * |bucketSizes| = |$this.hashTable.entries|  and
+     * for all i: integer
+     *     where (0 <= i  and  i < |bucketSizes|)
+     *   (bucketSizes[i] = |{key: K where (key is in DOMAIN(this)  and
+     *      $this.hashStrategy.hash(key) mod |$this.hashTable.entries| = i)}|)
+     * </pre>
+     */
+    public final int[] bucketSizes() {
+        int length = this.hashTable.length();
+        int[] sizes = new int[length];
+        int i = this.occupied.first();
+        while (i != OccupiedBuckets.NONE) {
+            sizes[i] = this.hashTable.entry(i).size();
+            i = this.occupied.next(i);
+        }
+        if (this.oldHashTable != null) {
+            int j = this.oldOccupied.first();
+            while (j != OccupiedBuckets.NONE) {
+                for (Pair<K, V> p : this.oldHashTable.entry(j)) {
+                    sizes[mod(this.hashStrategy.hash(p.key()), length)]++;
+                }
+                j = this.oldOccupied.next(j);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Doubly linked list, threaded through two {@code int} arrays, of the
+     * indices of the non-empty buckets of a hash table. Buckets are linked in
+     * at the front, so every operation takes constant time.
+     */
+    private static final class OccupiedBuckets {
+
+        /**
+         * Index marking the end of the list.
+         */
+        static final int NONE = -1;
+
+        /**
+         * For each linked bucket index, the index after it in the list.
+         */
+        private final int[] next;
+
+        /**
+         * For each linked bucket index, the index before it in the list.
+         */
+        private final int[] previous;
+
+        /**
+         * First index in the list.
+         */
+        private int first;
+
+        /**
+         * Constructor resulting in an empty list for a hash table of size
+         * {@code hashTableSize}.
+         *
+         * @param hashTableSize
+         *            size of the hash table
+         */
+        OccupiedBuckets(int hashTableSize) {
+            this.next = new int[hashTableSize];
+            this.previous = new int[hashTableSize];
+            this.first = NONE;
+        }
+
+        /**
+         * Returns the first index in the list, or {@code NONE} if the list is
+         * empty.
+         *
+         * @return the first index
+         */
+        int first() {
+            return this.first;
+        }
+
+        /**
+         * Returns the index after {@code i} in the list, or {@code NONE} if
+         * {@code i} is last.
+         *
+         * @param i
+         *            a linked index
+         * @return the next index
+         */
+        int next(int i) {
+            return this.next[i];
+        }
+
+        /**
+         * Adds index {@code i} to the list.
+         *
+         * @param i
+         *            an index not in the list
+         */
+        void link(int i) {
+            this.next[i] = this.first;
+            this.previous[i] = NONE;
+            if (this.first != NONE) {
+                this.previous[this.first] = i;
+            }
+            this.first = i;
+        }
+
+        /**
+         * Removes index {@code i} from the list.
+         *
+         * @param i
+         *            an index in the list
+         */
+        void unlink(int i) {
+            if (this.previous[i] != NONE) {
+                this.next[this.previous[i]] = this.next[i];
+            } else {
+                this.first = this.next[i];
+            }
+            if (this.next[i] != NONE) {
+                this.previous[this.next[i]] = this.previous[i];
+            }
+        }
+
+    }
+
     /**
-     * Implementation of {@code Iterator} interface for {@code Map4}.
+     * Implementation of {@code Iterator} interface for {@code Map4}. Visits
+     * the non-empty buckets of the old hash table, if any, and then those of
+     * the current hash table, following their lists of occupied buckets.
      */
     private final class Map4Iterator implements Iterator<Pair<K, V>> {
 
@@ -275,13 +824,24 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          */
         private int numberSeen;
 
+        /**
+         * Hash table from which current bucket iterator comes.
+         */
+        private Array<Map<K, V>> currentTable;
+
+        /**
+         * Non-empty buckets of {@code currentTable}.
+         */
+        private OccupiedBuckets currentOccupied;
+
         /**
          * Bucket from which current bucket iterator comes.
          */
         private int currentBucket;
 
         /**
-         * Bucket iterator from which next element will come.
+         * Bucket iterator from which next element will come, or {@code null} if
+         * there are no elements at all.
          */
         private Iterator<Pair<K, V>> bucketIterator;
 
@@ -290,8 +850,20 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          */
         Map4Iterator() {
             this.numberSeen = 0;
-            this.currentBucket = 0;
-            this.bucketIterator = Map4.this.hashTable.entry(0).iterator();
+            if (Map4.this.oldHashTable != null
+                    && Map4.this.oldOccupied.first() != OccupiedBuckets.NONE) {
+                this.currentTable = Map4.this.oldHashTable;
+                this.currentOccupied = Map4.this.oldOccupied;
+            } else {
+                this.currentTable = Map4.this.hashTable;
+                this.currentOccupied = Map4.this.occupied;
+            }
+            this.currentBucket = this.currentOccupied.first();
+            this.bucketIterator = null;
+            if (this.currentBucket != OccupiedBuckets.NONE) {
+                this.bucketIterator = this.currentTable
+                        .entry(this.currentBucket).iterator();
+            }
         }
 
         @Override
@@ -311,12 +883,15 @@ public class Map4<K, V> extends MapSecondary<K, V> {
                 throw new NoSuchElementException();
             }
             this.numberSeen++;
-            if (this.bucketIterator.hasNext()) {
-                return this.bucketIterator.next();
-            }
             while (!this.bucketIterator.hasNext()) {
-                this.currentBucket++;
-                this.bucketIterator = Map4.this.hashTable
+                this.currentBucket = this.currentOccupied
+                        .next(this.currentBucket);
+                if (this.currentBucket == OccupiedBuckets.NONE) {
+                    this.currentTable = Map4.this.hashTable;
+                    this.currentOccupied = Map4.this.occupied;
+                    this.currentBucket = this.currentOccupied.first();
+                }
+                this.bucketIterator = this.currentTable
                         .entry(this.currentBucket).iterator();
             }
             return this.bucketIterator.next();
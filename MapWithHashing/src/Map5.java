@@ -0,0 +1,508 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as an open-addressing hash table with Robin Hood
+ * linear probing, with implementations of primary methods.
+ * <p>
+ * Keys, values, and hash codes are kept in three parallel arrays, so there is
+ * no per-bucket object and a lookup touches consecutive slots only. An entry
+ * is never further from its home slot than the entry it displaced on
+ * insertion ("Robin Hood"), which lets an unsuccessful search stop early.
+ * {@code remove} shifts the following entries of the probe run back by one
+ * slot instead of leaving a tombstone, so the table never fills up with
+ * deleted slots.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * |$this.keys| = |$this.values| = |$this.hashes|  and
+ * |$this.keys| is a power of 2  and
+ * |$this.keys| >= MINIMUM_CAPACITY  and
+ * $this.size * MAX_LOAD_DENOMINATOR <= |$this.keys| * MAX_LOAD_NUMERATOR  and
+ * 0 <= $this.scanIndex < |$this.keys|  and
+ * $this.size = |{i: integer where $this.keys[i] /= null}|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|  and  $this.keys[i] /= null)
+ *   ($this.values[i] /= null  and
+ *    $this.hashes[i] = spread([computed result of $this.keys[i].hashCode()])
+ *    and  [every slot from home($this.hashes[i]) up to i, cyclically, is
+ *          not null]  and
+ *    [$this.keys[i] appears at no other index])  and
+ * [no entry is further from its home slot than the entry in the slot after
+ *  it, unless that slot is empty or holds an entry in its home slot]
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, V)
+ *           where there exists i: integer
+ *                   (0 <= i  and  i < |$this.keys|  and
+ *                    key = $this.keys[i]  and  value = $this.values[i])}
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class Map5<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of slots in the hash table.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Smallest number of slots in the hash table.
+     */
+    private static final int MINIMUM_CAPACITY = 2;
+
+    /**
+     * Numerator of the largest allowed fraction of occupied slots.
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the largest allowed fraction of occupied slots.
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * Keys, with {@code null} marking an empty slot.
+     */
+    private Object[] keys;
+
+    /**
+     * Values associated with the keys in the same slots.
+     */
+    private Object[] values;
+
+    /**
+     * Spread hash codes of the keys in the same slots.
+     */
+    private int[] hashes;
+
+    /**
+     * Number of occupied slots.
+     */
+    private int size;
+
+    /**
+     * Slot at which {@code removeAny} starts looking for an entry.
+     */
+    private int scanIndex;
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n} and at least
+     * {@code MINIMUM_CAPACITY}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the power of 2
+     * @requires n <= 2^30
+     * @ensures <pre>
+     * powerOfTwoAtLeast >= n  and  powerOfTwoAtLeast >= MINIMUM_CAPACITY  and
+     * there exists k: integer (powerOfTwoAtLeast = 2^k)  and
+     * [powerOfTwoAtLeast is the smallest such number]
+     * </pre>
+     */
+    private static int powerOfTwoAtLeast(int n) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < n) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Mixes the high bits of {@code h} into the low bits, since only the low
+     * bits select a slot.
+     *
+     * @param h
+     *            the hash code
+     * @return the spread hash code
+     * @ensures spread = [h with its high half XORed into its low half]
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> (Integer.SIZE / 2));
+    }
+
+    /**
+     * Returns the distance, in slots, of slot {@code i} from the home slot of
+     * hash code {@code hash}.
+     *
+     * @param hash
+     *            the spread hash code
+     * @param i
+     *            the slot
+     * @param mask
+     *            the number of slots minus 1
+     * @return the probe distance
+     * @requires mask + 1 is a power of 2  and  0 <= i <= mask
+     * @ensures probeDistance = (i - (hash mod (mask + 1))) mod (mask + 1)
+     */
+    private static int probeDistance(int hash, int i, int mask) {
+        return (i - (hash & mask)) & mask;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the number of slots
+     * @requires capacity is a power of 2  and  capacity >= MINIMUM_CAPACITY
+     * @ensures <pre>
+     * |$this.keys| = capacity  and
+     * [every slot of $this.keys is empty]  and
+     * $this.size = 0  and  $this.scanIndex = 0
+     * </pre>
+     */
+    private void createNewRep(int capacity) {
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.size = 0;
+        this.scanIndex = 0;
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or -1 if there is none.
+     *
+     * @param key
+     *            the key to look for
+     * @return the slot of {@code key}
+     * @ensures <pre>
+     * if key is in DOMAIN(this)
+     *  then $this.keys[indexOf] = key
+     *  else indexOf = -1
+     * </pre>
+     */
+    private int indexOf(K key) {
+        int hash = spread(key.hashCode());
+        int mask = this.keys.length - 1;
+        int i = hash & mask;
+        int distance = 0;
+        int index = -1;
+        while (index < 0 && this.keys[i] != null
+                && probeDistance(this.hashes[i], i, mask) >= distance) {
+            if (this.hashes[i] == hash && this.keys[i].equals(key)) {
+                index = i;
+            }
+            i = (i + 1) & mask;
+            distance++;
+        }
+        return index;
+    }
+
+    /**
+     * Puts an entry into the table, displacing entries closer to their home
+     * slot as needed.
+     *
+     * @param hash
+     *            the spread hash code of {@code key}
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @updates $this.keys, $this.values, $this.hashes
+     * @requires <pre>
+     * key is not in DOMAIN(this)  and
+     * [$this.keys has an empty slot]
+     * </pre>
+     * @ensures this = #this union {(key, value)}
+     */
+    private void insert(int hash, Object key, Object value) {
+        int mask = this.keys.length - 1;
+        int i = hash & mask;
+        int distance = 0;
+        int h = hash;
+        Object k = key;
+        Object v = value;
+        while (this.keys[i] != null) {
+            int existingDistance = probeDistance(this.hashes[i], i, mask);
+            if (existingDistance < distance) {
+                int tempHash = this.hashes[i];
+                Object tempKey = this.keys[i];
+                Object tempValue = this.values[i];
+                this.hashes[i] = h;
+                this.keys[i] = k;
+                this.values[i] = v;
+                h = tempHash;
+                k = tempKey;
+                v = tempValue;
+                distance = existingDistance;
+            }
+            i = (i + 1) & mask;
+            distance++;
+        }
+        this.hashes[i] = h;
+        this.keys[i] = k;
+        this.values[i] = v;
+    }
+
+    /**
+     * Removes and returns the entry in slot {@code i}, shifting the rest of its
+     * probe run back by one slot.
+     *
+     * @param i
+     *            the slot
+     * @return the removed entry
+     * @updates this
+     * @requires 0 <= i < |$this.keys|  and  $this.keys[i] /= null
+     * @ensures <pre>
+     * removeAt = ($this.keys[i], $this.values[i])  and
+     * this = #this \ {removeAt}
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private Pair<K, V> removeAt(int i) {
+        Pair<K, V> removed = new SimplePair<K, V>((K) this.keys[i],
+                (V) this.values[i]);
+        int mask = this.keys.length - 1;
+        int hole = i;
+        int next = (hole + 1) & mask;
+        while (this.keys[next] != null
+                && probeDistance(this.hashes[next], next, mask) > 0) {
+            this.hashes[hole] = this.hashes[next];
+            this.keys[hole] = this.keys[next];
+            this.values[hole] = this.values[next];
+            hole = next;
+            next = (hole + 1) & mask;
+        }
+        this.keys[hole] = null;
+        this.values[hole] = null;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     * Moves every entry into a table with {@code capacity} slots.
+     *
+     * @param capacity
+     *            the new number of slots
+     * @updates $this
+     * @requires <pre>
+     * capacity is a power of 2  and
+     * $this.size * MAX_LOAD_DENOMINATOR <= capacity * MAX_LOAD_NUMERATOR
+     * </pre>
+     * @ensures this = #this  and  |$this.keys| = capacity
+     */
+    private void resize(int capacity) {
+        Object[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        int[] oldHashes = this.hashes;
+        int oldSize = this.size;
+        this.createNewRep(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                this.insert(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+        this.size = oldSize;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map5() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a hash table that can hold
+     * {@code expectedSize} entries without resizing.
+     *
+     * @param expectedSize
+     *            the number of entries expected
+     * @requires 0 <= expectedSize <= 2^29
+     * @ensures this = {}
+     */
+    public Map5(int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: 0 <= expectedSize";
+
+        /*
+         * Computed in long: expectedSize * MAX_LOAD_DENOMINATOR overflows int
+         * well within the allowed range of expectedSize
+         */
+        this.createNewRep(powerOfTwoAtLeast((int) ((long) expectedSize
+                * MAX_LOAD_DENOMINATOR / MAX_LOAD_NUMERATOR + 1)));
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map5<?, ?> : ""
+                + "Violation of: source is of dynamic type Map5<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map5<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map5<K, V> localSource = (Map5<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.hashes = localSource.hashes;
+        this.size = localSource.size;
+        this.scanIndex = localSource.scanIndex;
+        localSource.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        if ((this.size + 1L) * MAX_LOAD_DENOMINATOR > (long) this.keys.length
+                * MAX_LOAD_NUMERATOR) {
+            this.resize(2 * this.keys.length);
+        }
+        this.insert(spread(key.hashCode()), key, value);
+        this.size++;
+
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.removeAt(this.indexOf(key));
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int mask = this.keys.length - 1;
+        int i = this.scanIndex;
+        while (this.keys[i] == null) {
+            i = (i + 1) & mask;
+        }
+        this.scanIndex = i;
+
+        return this.removeAt(i);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return (V) this.values[this.indexOf(key)];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.indexOf(key) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map5}.
+     */
+    private final class Map5Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Slot from which the next element will come, once empty slots are
+         * skipped.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        Map5Iterator() {
+            this.numberSeen = 0;
+            this.currentIndex = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Map5.this.size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            while (Map5.this.keys[this.currentIndex] == null) {
+                this.currentIndex++;
+            }
+            Pair<K, V> x = new SimplePair<K, V>(
+                    (K) Map5.this.keys[this.currentIndex],
+                    (V) Map5.this.values[this.currentIndex]);
+            this.currentIndex++;
+            this.numberSeen++;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
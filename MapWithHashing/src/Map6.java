@@ -0,0 +1,734 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BinaryOperator;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a hash table that many threads may use at once,
+ * with implementations of primary methods.
+ * <p>
+ * The table is split into a fixed number of stripes by the high bits of the
+ * (mixed) hash code. Each stripe is a lock guarding its own chained hash
+ * table, which it doubles, under that lock, when it gets more than 3/4 full,
+ * so buckets stay short however large the map grows and writers to different
+ * stripes do not contend. Writers update the chains in place: {@code add}
+ * links in one new node, {@code remove} unlinks one, and
+ * {@link #addOrMerge(Object, Object, BinaryOperator)} and
+ * {@code replaceValue} overwrite the value of an existing node. Readers
+ * ({@code hasKey}, {@code value}, iteration) never lock: chain links and
+ * values are volatile, and a stripe being resized copies its nodes into the
+ * new table so that readers still walking the old one are not disturbed.
+ * {@code addOrMerge} and {@code replaceValue} are atomic, so a counting loop
+ * such as "if present add one, else add (word, 1)" needs no external locking.
+ * <p>
+ * Iterators are weakly consistent: they see each stripe as it was when they
+ * reached it, never throw because of concurrent updates, and may or may not
+ * reflect updates made after they were created; the pairs they return are
+ * snapshots. {@code size} is exact only while no update is in progress, and
+ * {@code removeAny} throws {@code NoSuchElementException} if other threads
+ * empty {@code this} while it is looking for a pair. {@code clear} holds every
+ * stripe lock at once, so no update interleaves with it, but a concurrent
+ * reader may see some stripes already cleared and others not yet.
+ * {@code newInstance} is safe to call at any time, but {@code transferFrom}
+ * must not run concurrently with any other operation on either map. The other
+ * secondary methods inherited from {@code MapSecondary} are composed of
+ * several kernel calls and are not atomic.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * |$this.stripes| = STRIPES  and
+ * $this.initialStripeTableSize is a power of 2  and
+ * for all s: integer
+ *     where (0 <= s  and  s < STRIPES)
+ *   (|$this.stripes[s].table| is a power of 2  and
+ *    for all i: integer, n: Node
+ *        where (0 <= i  and  i < |$this.stripes[s].table|  and
+ *               [n is on the chain starting at $this.stripes[s].table[i]])
+ *      (n.key /= null  and  n.value /= null  and
+ *       n.hash = mix([computed result of n.key.hashCode()])  and
+ *       n.hash / 2^(32 - STRIPE_BITS) = s  (as an unsigned number)  and
+ *       n.hash mod |$this.stripes[s].table| = i  and
+ *       [n.key is on no other chain of any stripe, and once on this one])  and
+ *    [$this.stripes[s].table, its chains, and their values are changed only
+ *     while holding the lock of $this.stripes[s]]  and
+ *    [when no update is in progress, $this.stripes[s].count = number of
+ *     nodes on the chains of $this.stripes[s].table]  and
+ *    0 <= $this.stripes[s].scanIndex < |$this.stripes[s].table|)
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, V)
+ *           where there exists s, i: integer, n: Node
+ *                   ([n is on the chain starting at
+ *                     $this.stripes[s].table[i]]  and
+ *                    (key, value) = (n.key, n.value))}
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class Map6<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default initial size of hash table, over all stripes.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 1024;
+
+    /**
+     * Number of high bits of the hash code selecting a stripe.
+     */
+    private static final int STRIPE_BITS = 6;
+
+    /**
+     * Number of stripes, each with its own lock and hash table.
+     */
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    /**
+     * Largest size of the hash table of one stripe.
+     */
+    private static final int MAX_STRIPE_TABLE_SIZE = 1 << 24;
+
+    /**
+     * Node of a bucket chain.
+     *
+     * @param <K>
+     *            type of the key
+     * @param <V>
+     *            type of the value
+     */
+    private static final class Node<K, V> {
+
+        /**
+         * Mixed hash code of {@code key}.
+         */
+        private final int hash;
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * The value, replaced in place under the stripe lock.
+         */
+        private volatile V value;
+
+        /**
+         * Next node of the chain, relinked in place under the stripe lock.
+         */
+        private volatile Node<K, V> next;
+
+        /**
+         * Constructor.
+         *
+         * @param hash
+         *            mixed hash code of {@code key}
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         * @param next
+         *            next node of the chain
+         */
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+    }
+
+    /**
+     * One stripe: a lock (the stripe itself) and the hash table it guards.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param <V>
+     *            type of the values
+     */
+    private static final class Stripe<K, V> {
+
+        /**
+         * Buckets, each the first node of a chain or null; replaced as a
+         * whole when the stripe resizes.
+         */
+        private volatile AtomicReferenceArray<Node<K, V>> table;
+
+        /**
+         * Number of nodes in {@code table}.
+         */
+        private volatile int count;
+
+        /**
+         * Bucket at which {@code removeAny} starts looking for a node.
+         */
+        private int scanIndex;
+
+        /**
+         * Constructor.
+         *
+         * @param tableSize
+         *            size of the hash table
+         */
+        Stripe(int tableSize) {
+            this.table = new AtomicReferenceArray<Node<K, V>>(tableSize);
+            this.count = 0;
+            this.scanIndex = 0;
+        }
+
+    }
+
+    /**
+     * The stripes.
+     */
+    private Stripe<K, V>[] stripes;
+
+    /**
+     * Size of the hash table of each stripe created by {@code createNewRep}.
+     */
+    private final int initialStripeTableSize;
+
+    /**
+     * Stripe at which {@code removeAny} starts looking for a pair; only a hint,
+     * so it is not updated atomically with the stripes.
+     */
+    private volatile int scanStart;
+
+    /**
+     * Returns the mixed hash code of {@code key}.
+     *
+     * @param key
+     *            the key
+     * @return the hash code
+     * @ensures hash = mix([computed result of key.hashCode()])
+     */
+    private static int hash(Object key) {
+        return HashStrategies.mix(key.hashCode());
+    }
+
+    /**
+     * Returns the node with key {@code key} in {@code table}, or null if
+     * there is none.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param <V>
+     *            type of the values
+     * @param table
+     *            the hash table of a stripe
+     * @param h
+     *            mixed hash code of {@code key}
+     * @param key
+     *            the key to be searched for
+     * @return the node of {@code key}, or null
+     */
+    private static <K, V> Node<K, V> find(
+            AtomicReferenceArray<Node<K, V>> table, int h, Object key) {
+        Node<K, V> n = table.get(h & (table.length() - 1));
+        while (n != null && !(n.hash == h && n.key.equals(key))) {
+            n = n.next;
+        }
+        return n;
+    }
+
+    /**
+     * Doubles the hash table of {@code stripe}, copying its nodes so that
+     * readers of the old table still see complete chains.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param <V>
+     *            type of the values
+     * @param stripe
+     *            the stripe
+     * @requires [the caller holds the lock of stripe]
+     */
+    private static <K, V> void grow(Stripe<K, V> stripe) {
+        AtomicReferenceArray<Node<K, V>> old = stripe.table;
+        int length = 2 * old.length();
+        AtomicReferenceArray<Node<K, V>> table = new AtomicReferenceArray<>(
+                length);
+        for (int i = 0; i < old.length(); i++) {
+            Node<K, V> n = old.get(i);
+            while (n != null) {
+                int j = n.hash & (length - 1);
+                table.lazySet(j, new Node<K, V>(n.hash, n.key, n.value,
+                        table.get(j)));
+                n = n.next;
+            }
+        }
+        /*
+         * Writing the volatile field publishes the whole new table
+         */
+        stripe.table = table;
+    }
+
+    /**
+     * Adds a node for ({@code key}, {@code value}) to {@code stripe}, first
+     * growing its hash table if it is more than 3/4 full.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param <V>
+     *            type of the values
+     * @param stripe
+     *            the stripe
+     * @param h
+     *            mixed hash code of {@code key}
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @requires <pre>
+     * [the caller holds the lock of stripe]  and
+     * [key is not in stripe]
+     * </pre>
+     */
+    private static <K, V> void insert(Stripe<K, V> stripe, int h, K key,
+            V value) {
+        int length = stripe.table.length();
+        if (stripe.count >= length - (length >>> 2)
+                && length < MAX_STRIPE_TABLE_SIZE) {
+            grow(stripe);
+        }
+        AtomicReferenceArray<Node<K, V>> table = stripe.table;
+        int i = h & (table.length() - 1);
+        table.set(i, new Node<K, V>(h, key, value, table.get(i)));
+        stripe.count++;
+    }
+
+    /**
+     * Returns the stripe for mixed hash code {@code h}.
+     *
+     * @param h
+     *            the mixed hash code
+     * @return the stripe
+     */
+    private Stripe<K, V> stripe(int h) {
+        return this.stripes[h >>> (Integer.SIZE - STRIPE_BITS)];
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @ensures <pre>
+     * [every stripe of $this.stripes is empty, with a hash table of size
+     *  $this.initialStripeTableSize]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        Stripe<K, V>[] newStripes = (Stripe<K, V>[]) new Stripe<?, ?>[STRIPES];
+        for (int s = 0; s < STRIPES; s++) {
+            newStripes[s] = new Stripe<K, V>(this.initialStripeTableSize);
+        }
+        this.stripes = newStripes;
+        this.scanStart = 0;
+    }
+
+    /**
+     * Empties the stripes from {@code first} on, taking their locks one after
+     * the other and holding them all until every one of them is empty.
+     *
+     * @param first
+     *            the first stripe to be locked
+     * @requires [the caller holds the locks of the stripes before first]
+     */
+    private void clearFrom(int first) {
+        if (first < STRIPES) {
+            synchronized (this.stripes[first]) {
+                this.clearFrom(first + 1);
+            }
+        } else {
+            for (int s = 0; s < STRIPES; s++) {
+                Stripe<K, V> stripe = this.stripes[s];
+                stripe.table = new AtomicReferenceArray<Node<K, V>>(
+                        this.initialStripeTableSize);
+                stripe.count = 0;
+                stripe.scanIndex = 0;
+            }
+        }
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map6() {
+        this(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Constructor resulting in a hash table initially of at least
+     * {@code hashTableSize} buckets over all stripes.
+     *
+     * @param hashTableSize
+     *            initial size of hash table
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Map6(int hashTableSize) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+
+        int perStripe = (hashTableSize - 1) / STRIPES + 1;
+        int tableSize = 1;
+        while (tableSize < perStripe && tableSize < MAX_STRIPE_TABLE_SIZE) {
+            tableSize *= 2;
+        }
+        this.initialStripeTableSize = tableSize;
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.clearFrom(0);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map6<?, ?> : ""
+                + "Violation of: source is of dynamic type Map6<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map6<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map6<K, V> localSource = (Map6<K, V>) source;
+        this.stripes = localSource.stripes;
+        this.scanStart = localSource.scanStart;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+
+        int h = hash(key);
+        Stripe<K, V> stripe = this.stripe(h);
+        synchronized (stripe) {
+            assert find(stripe.table, h,
+                    key) == null : "Violation of: key is not in DOMAIN(this)";
+            insert(stripe, h, key, value);
+        }
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int h = hash(key);
+        Stripe<K, V> stripe = this.stripe(h);
+        Node<K, V> n;
+        synchronized (stripe) {
+            AtomicReferenceArray<Node<K, V>> table = stripe.table;
+            int i = h & (table.length() - 1);
+            Node<K, V> previous = null;
+            n = table.get(i);
+            while (n != null && !(n.hash == h && n.key.equals(key))) {
+                previous = n;
+                n = n.next;
+            }
+            assert n != null : "Violation of: key is in DOMAIN(this)";
+            if (previous == null) {
+                table.set(i, n.next);
+            } else {
+                previous.next = n.next;
+            }
+            stripe.count--;
+        }
+        return new SimplePair<K, V>(n.key, n.value);
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Pair<K, V> x = null;
+        int s = this.scanStart;
+        int stripesSeen = 0;
+        while (x == null) {
+            if (stripesSeen == STRIPES && this.size() == 0) {
+                /*
+                 * Other threads emptied this after the assert above was checked
+                 */
+                throw new NoSuchElementException();
+            }
+            Stripe<K, V> stripe = this.stripes[s];
+            if (stripe.count > 0) {
+                synchronized (stripe) {
+                    /*
+                     * Another thread may have emptied the stripe since it was
+                     * checked above
+                     */
+                    if (stripe.count > 0) {
+                        AtomicReferenceArray<Node<K, V>> table = stripe.table;
+                        int mask = table.length() - 1;
+                        int i = stripe.scanIndex & mask;
+                        while (table.get(i) == null) {
+                            i = (i + 1) & mask;
+                        }
+                        Node<K, V> n = table.get(i);
+                        table.set(i, n.next);
+                        stripe.count--;
+                        stripe.scanIndex = i;
+                        this.scanStart = s;
+                        x = new SimplePair<K, V>(n.key, n.value);
+                    }
+                }
+            }
+            s = (s + 1) % STRIPES;
+            stripesSeen = Math.min(stripesSeen + 1, STRIPES);
+        }
+        return x;
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int h = hash(key);
+        Node<K, V> n = find(this.stripe(h).table, h, key);
+        assert n != null : "Violation of: key is in DOMAIN(this)";
+
+        return n.value;
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int h = hash(key);
+        return find(this.stripe(h).table, h, key) != null;
+    }
+
+    @Override
+    public final int size() {
+        int size = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            size += this.stripes[s].count;
+        }
+        return size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map6Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Atomically adds ({@code key}, {@code value}) to {@code this} if
+     * {@code key} is not in {@code DOMAIN(this)}, and otherwise replaces the
+     * value {@code v} associated with {@code key} by
+     * {@code merge.apply(v, value)}. Returns the value now associated with
+     * {@code key}.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value to be added or merged in
+     * @param merge
+     *            the function combining the old and the new value; it is
+     *            called while holding a lock, so it should be quick and must
+     *            not use {@code this}
+     * @return the value now associated with {@code key}
+     * @updates this
+     * @requires <pre>
+     * key is not null  and  value is not null  and
+     * [merge.apply never returns null]
+     * </pre>
+     * @ensures <pre>
+     * if key is in DOMAIN(#this)
+     *  then (this = (#this \ {(key, #this(key))}) union
+     *                {(key, merge(#this(key), value))}  and
+     *        addOrMerge = merge(#this(key), value))
+     *  else (this = #this union {(key, value)}  and
+     *        addOrMerge = value)
+     * </pre>
+     */
+    public final V addOrMerge(K key, V value, BinaryOperator<V> merge) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert merge != null : "Violation of: merge is not null";
+
+        int h = hash(key);
+        Stripe<K, V> stripe = this.stripe(h);
+        V result;
+        synchronized (stripe) {
+            Node<K, V> n = find(stripe.table, h, key);
+            if (n != null) {
+                result = merge.apply(n.value, value);
+                assert result != null : ""
+                        + "Violation of: merge.apply never returns null";
+                n.value = result;
+            } else {
+                result = value;
+                insert(stripe, h, key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Atomically replaces the value associated with {@code key} by
+     * {@code value} and returns the old one.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the new value
+     * @return the old value associated with {@code key}
+     * @updates this
+     * @requires key is in DOMAIN(this)
+     * @ensures <pre>
+     * this = (#this \ {(key, #this(key))}) union {(key, value)}  and
+     * replaceValue = #this(key)
+     * </pre>
+     */
+    @Override
+    public final V replaceValue(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+
+        int h = hash(key);
+        Stripe<K, V> stripe = this.stripe(h);
+        V old;
+        synchronized (stripe) {
+            Node<K, V> n = find(stripe.table, h, key);
+            assert n != null : "Violation of: key is in DOMAIN(this)";
+            old = n.value;
+            n.value = value;
+        }
+        return old;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map6}.
+     */
+    private final class Map6Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Stripes being iterated over.
+         */
+        private final Stripe<K, V>[] iterated;
+
+        /**
+         * Index of the stripe from which {@code table} was read.
+         */
+        private int currentStripe;
+
+        /**
+         * Hash table of the current stripe, as it was when it was reached.
+         */
+        private AtomicReferenceArray<Node<K, V>> table;
+
+        /**
+         * Index in {@code table} of the bucket of {@code next}.
+         */
+        private int currentBucket;
+
+        /**
+         * Next node to be returned, or null if there is none.
+         */
+        private Node<K, V> next;
+
+        /**
+         * No-argument constructor.
+         */
+        Map6Iterator() {
+            this.iterated = Map6.this.stripes;
+            this.currentStripe = 0;
+            this.table = this.iterated[0].table;
+            this.currentBucket = 0;
+            this.next = this.table.get(0);
+            this.skipEmptyBuckets();
+        }
+
+        /**
+         * Moves {@code next} to the first node of the following non-empty
+         * bucket, in this stripe or a later one, if it is null.
+         */
+        private void skipEmptyBuckets() {
+            while (this.next == null && (this.currentStripe + 1 < STRIPES
+                    || this.currentBucket + 1 < this.table.length())) {
+                if (this.currentBucket + 1 < this.table.length()) {
+                    this.currentBucket++;
+                } else {
+                    this.currentStripe++;
+                    this.table = this.iterated[this.currentStripe].table;
+                    this.currentBucket = 0;
+                }
+                this.next = this.table.get(this.currentBucket);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<K, V> n = this.next;
+            this.next = n.next;
+            this.skipEmptyBuckets();
+            return new SimplePair<K, V>(n.key, n.value);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
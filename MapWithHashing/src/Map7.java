@@ -0,0 +1,706 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a persistent hash array mapped trie (HAMT), with
+ * implementations of primary methods.
+ * <p>
+ * The trie branches on successive 5-bit slices of the (mixed) hash code of a
+ * key. Each node keeps a 32-bit bitmap of which of its 32 possible children
+ * exist and a packed array of just those children, each either a pair or a
+ * deeper node; keys whose 32-bit hash codes are all equal share a collision
+ * node at the bottom. Nodes are never modified once built: {@code add} and
+ * {@code remove} copy only the O(log n) nodes on the path to the key and
+ * share the rest with the previous version. So {@link #snapshot()} and
+ * {@link #copyFrom(Map7)} take O(1) time and space, and many versions of a
+ * map (an undo history, say) cost only the nodes in which they differ.
+ * <p>
+ * For the same reason an iterator walks the version of the map that existed
+ * when the iterator was created, and is unaffected by later changes to
+ * {@code this}.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @convention <pre>
+ * [$this.root is not null]  and
+ * [every node reachable from $this.root is never modified]  and
+ * [each leaf reachable from $this.root is at the position in the trie given
+ *  by the 5-bit slices of its hash, hash = mix(leaf.pair.key.hashCode())]
+ * and  [no two leaves reachable from $this.root have equal keys]  and
+ * [every node other than $this.root has at least two entries, or exactly
+ *  one entry that is a node]  and
+ * $this.size = [number of leaves reachable from $this.root]
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, V)
+ *           where [there is a leaf reachable from $this.root whose pair is
+ *                  (key, value)]}
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class Map7<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of hash code bits consumed by each level of the trie.
+     */
+    private static final int BITS = 5;
+
+    /**
+     * Mask selecting the low {@code BITS} bits.
+     */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Largest depth of the trie: the bitmap levels needed to consume all
+     * hash code bits, plus one collision level.
+     */
+    private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS
+            + 1;
+
+    /**
+     * A pair together with the hash code of its key.
+     *
+     * @param <K>
+     *            type of the key
+     * @param <V>
+     *            type of the value
+     */
+    private static final class Leaf<K, V> {
+
+        /**
+         * Mixed hash code of {@code pair.key()}.
+         */
+        private final int hash;
+
+        /**
+         * The pair.
+         */
+        private final Pair<K, V> pair;
+
+        /**
+         * Constructor.
+         *
+         * @param hash
+         *            mixed hash code of {@code pair.key()}
+         * @param pair
+         *            the pair
+         */
+        Leaf(int hash, Pair<K, V> pair) {
+            this.hash = hash;
+            this.pair = pair;
+        }
+
+    }
+
+    /**
+     * Immutable trie node. Its {@code entries} are leaves or nodes.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param <V>
+     *            type of the values
+     */
+    private abstract static class Node<K, V> {
+
+        /**
+         * Children of this node: {@code Leaf}s and {@code Node}s.
+         */
+        private final Object[] entries;
+
+        /**
+         * Constructor.
+         *
+         * @param entries
+         *            the children, not to be modified afterwards
+         */
+        Node(Object[] entries) {
+            this.entries = entries;
+        }
+
+        /**
+         * Returns the children of this node.
+         *
+         * @return the children
+         */
+        final Object[] entries() {
+            return this.entries;
+        }
+
+        /**
+         * Returns the leaf with key {@code key} in the subtrie rooted here, or
+         * {@code null} if there is none.
+         *
+         * @param hash
+         *            mixed hash code of {@code key}
+         * @param key
+         *            the key
+         * @param shift
+         *            number of hash code bits consumed above this node
+         * @return the leaf with {@code key}
+         */
+        abstract Leaf<K, V> find(int hash, Object key, int shift);
+
+        /**
+         * Returns a subtrie with the pairs of this one plus {@code leaf}.
+         *
+         * @param leaf
+         *            the leaf to be added, whose key is not in this subtrie
+         * @param shift
+         *            number of hash code bits consumed above this node
+         * @return the new subtrie
+         */
+        abstract Node<K, V> with(Leaf<K, V> leaf, int shift);
+
+        /**
+         * Returns a subtrie with the pairs of this one except the one with key
+         * {@code key}: {@code null} if it is empty, the remaining
+         * {@code Leaf} if just one remains, and otherwise a {@code Node}.
+         *
+         * @param hash
+         *            mixed hash code of {@code key}
+         * @param key
+         *            the key to be removed, which is in this subtrie
+         * @param shift
+         *            number of hash code bits consumed above this node
+         * @return the new subtrie
+         */
+        abstract Object without(int hash, Object key, int shift);
+
+        /**
+         * Returns some leaf of this (non-empty) subtrie.
+         *
+         * @return a leaf
+         */
+        @SuppressWarnings("unchecked")
+        final Leaf<K, V> any() {
+            Object e = this.entries[0];
+            while (!(e instanceof Leaf<?, ?>)) {
+                e = ((Node<K, V>) e).entries[0];
+            }
+            return (Leaf<K, V>) e;
+        }
+
+    }
+
+    /**
+     * Node branching on one 5-bit slice of the hash code.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param <V>
+     *            type of the values
+     */
+    private static final class BitmapNode<K, V> extends Node<K, V> {
+
+        /**
+         * Bit i is set iff this node has a child for slice value i; the
+         * children are in {@code entries} in increasing order of i.
+         */
+        private final int bitmap;
+
+        /**
+         * Constructor.
+         *
+         * @param bitmap
+         *            the slice values present
+         * @param entries
+         *            the children, one per bit of {@code bitmap}
+         */
+        BitmapNode(int bitmap, Object[] entries) {
+            super(entries);
+            this.bitmap = bitmap;
+        }
+
+        /**
+         * Returns the position in {@code entries} of the child for the slice
+         * value whose bit is {@code bit}.
+         *
+         * @param bit
+         *            the bit
+         * @return the position of the child
+         */
+        private int index(int bit) {
+            return Integer.bitCount(this.bitmap & (bit - 1));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Leaf<K, V> find(int hash, Object key, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            Leaf<K, V> found = null;
+            if ((this.bitmap & bit) != 0) {
+                Object e = this.entries()[this.index(bit)];
+                if (e instanceof Leaf<?, ?>) {
+                    Leaf<K, V> leaf = (Leaf<K, V>) e;
+                    if (leaf.hash == hash && leaf.pair.key().equals(key)) {
+                        found = leaf;
+                    }
+                } else {
+                    found = ((Node<K, V>) e).find(hash, key, shift + BITS);
+                }
+            }
+            return found;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Node<K, V> with(Leaf<K, V> leaf, int shift) {
+            int bit = 1 << ((leaf.hash >>> shift) & MASK);
+            int i = this.index(bit);
+            Object[] old = this.entries();
+            Object[] entries;
+            if ((this.bitmap & bit) == 0) {
+                entries = new Object[old.length + 1];
+                System.arraycopy(old, 0, entries, 0, i);
+                entries[i] = leaf;
+                System.arraycopy(old, i, entries, i + 1, old.length - i);
+            } else {
+                entries = old.clone();
+                Object e = old[i];
+                if (e instanceof Leaf<?, ?>) {
+                    entries[i] = merge((Leaf<K, V>) e, leaf, shift + BITS);
+                } else {
+                    entries[i] = ((Node<K, V>) e).with(leaf, shift + BITS);
+                }
+            }
+            return new BitmapNode<K, V>(this.bitmap | bit, entries);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Object without(int hash, Object key, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = this.index(bit);
+            Object[] old = this.entries();
+            Object e = old[i];
+            Object child = null;
+            if (!(e instanceof Leaf<?, ?>)) {
+                child = ((Node<K, V>) e).without(hash, key, shift + BITS);
+            }
+            Object result;
+            if (child == null) {
+                /*
+                 * The child for this slice is gone
+                 */
+                if (old.length == 1) {
+                    result = null;
+                } else if (old.length == 2
+                        && old[1 - i] instanceof Leaf<?, ?>) {
+                    result = old[1 - i];
+                } else {
+                    Object[] entries = new Object[old.length - 1];
+                    System.arraycopy(old, 0, entries, 0, i);
+                    System.arraycopy(old, i + 1, entries, i,
+                            old.length - i - 1);
+                    result = new BitmapNode<K, V>(this.bitmap & ~bit, entries);
+                }
+            } else if (old.length == 1 && child instanceof Leaf<?, ?>) {
+                result = child;
+            } else {
+                Object[] entries = old.clone();
+                entries[i] = child;
+                result = new BitmapNode<K, V>(this.bitmap, entries);
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Node holding leaves whose hash codes are all equal.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param <V>
+     *            type of the values
+     */
+    private static final class CollisionNode<K, V> extends Node<K, V> {
+
+        /**
+         * Constructor.
+         *
+         * @param entries
+         *            the leaves, at least two, all with the same hash code
+         */
+        CollisionNode(Object[] entries) {
+            super(entries);
+        }
+
+        /**
+         * Returns the position in {@code entries} of the leaf with key
+         * {@code key}, or -1 if there is none.
+         *
+         * @param key
+         *            the key
+         * @return the position of {@code key}
+         */
+        @SuppressWarnings("unchecked")
+        private int indexOf(Object key) {
+            Object[] entries = this.entries();
+            int i = 0;
+            while (i < entries.length
+                    && !((Leaf<K, V>) entries[i]).pair.key().equals(key)) {
+                i++;
+            }
+            if (i == entries.length) {
+                i = -1;
+            }
+            return i;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Leaf<K, V> find(int hash, Object key, int shift) {
+            int i = this.indexOf(key);
+            Leaf<K, V> found = null;
+            if (i >= 0) {
+                found = (Leaf<K, V>) this.entries()[i];
+            }
+            return found;
+        }
+
+        @Override
+        Node<K, V> with(Leaf<K, V> leaf, int shift) {
+            Object[] old = this.entries();
+            Object[] entries = new Object[old.length + 1];
+            System.arraycopy(old, 0, entries, 0, old.length);
+            entries[old.length] = leaf;
+            return new CollisionNode<K, V>(entries);
+        }
+
+        @Override
+        Object without(int hash, Object key, int shift) {
+            int i = this.indexOf(key);
+            Object[] old = this.entries();
+            Object result;
+            if (old.length == 2) {
+                result = old[1 - i];
+            } else {
+                Object[] entries = new Object[old.length - 1];
+                System.arraycopy(old, 0, entries, 0, i);
+                System.arraycopy(old, i + 1, entries, i, old.length - i - 1);
+                result = new CollisionNode<K, V>(entries);
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Returns the smallest subtrie, at a node with {@code shift} hash code
+     * bits consumed above it, holding both {@code a} and {@code b}.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param <V>
+     *            type of the values
+     * @param a
+     *            one leaf
+     * @param b
+     *            another leaf, with a different key
+     * @param shift
+     *            number of hash code bits consumed above the new node
+     * @return the new subtrie
+     * @requires [a.hash and b.hash agree in the low shift bits]
+     */
+    private static <K, V> Node<K, V> merge(Leaf<K, V> a, Leaf<K, V> b,
+            int shift) {
+        Node<K, V> node;
+        if (shift >= Integer.SIZE) {
+            node = new CollisionNode<K, V>(new Object[] { a, b });
+        } else {
+            int sliceA = (a.hash >>> shift) & MASK;
+            int sliceB = (b.hash >>> shift) & MASK;
+            if (sliceA == sliceB) {
+                node = new BitmapNode<K, V>(1 << sliceA,
+                        new Object[] { merge(a, b, shift + BITS) });
+            } else if (sliceA < sliceB) {
+                node = new BitmapNode<K, V>((1 << sliceA) | (1 << sliceB),
+                        new Object[] { a, b });
+            } else {
+                node = new BitmapNode<K, V>((1 << sliceA) | (1 << sliceB),
+                        new Object[] { b, a });
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns the mixed hash code of {@code key}.
+     *
+     * @param key
+     *            the key
+     * @return the hash code used to place {@code key} in the trie
+     */
+    private static int hash(Object key) {
+        return HashStrategies.mix(key.hashCode());
+    }
+
+    /**
+     * Root of the trie.
+     */
+    private Node<K, V> root;
+
+    /**
+     * Number of pairs in the trie.
+     */
+    private int size;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = new BitmapNode<K, V>(0, new Object[0]);
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map7() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map7<?, ?> : ""
+                + "Violation of: source is of dynamic type Map7<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map7<?,?>,
+         * and the ?,? must be K,V or the call would not have compiled.
+         */
+        Map7<K, V> localSource = (Map7<K, V>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        Leaf<K, V> leaf = new Leaf<K, V>(hash(key),
+                new SimplePair<K, V>(key, value));
+        this.root = this.root.with(leaf, 0);
+        this.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int hash = hash(key);
+        Leaf<K, V> leaf = this.root.find(hash, key, 0);
+        Object newRoot = this.root.without(hash, key, 0);
+        if (newRoot == null) {
+            this.root = new BitmapNode<K, V>(0, new Object[0]);
+        } else if (newRoot instanceof Leaf<?, ?>) {
+            Leaf<K, V> last = (Leaf<K, V>) newRoot;
+            this.root = new BitmapNode<K, V>(1 << (last.hash & MASK),
+                    new Object[] { last });
+        } else {
+            this.root = (Node<K, V>) newRoot;
+        }
+        this.size--;
+
+        return leaf.pair;
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        return this.remove(this.root.any().pair.key());
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.root.find(hash(key), key, 0).pair.value();
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.root.find(hash(key), key, 0) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map7Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Makes {@code this} a copy of {@code source}, sharing its trie, in O(1)
+     * time.
+     *
+     * @param source
+     *            the map to be copied
+     * @replaces this
+     * @ensures this = source
+     */
+    public final void copyFrom(Map7<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+
+        this.root = source.root;
+        this.size = source.size;
+    }
+
+    /**
+     * Returns a copy of {@code this}, sharing its trie, in O(1) time. Later
+     * changes to either map do not affect the other.
+     *
+     * @return a copy of {@code this}
+     * @ensures snapshot = this
+     */
+    public final Map7<K, V> snapshot() {
+        Map7<K, V> copy = new Map7<K, V>();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map7}.
+     */
+    private final class Map7Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Entries of the nodes on the path from the root to the node being
+         * visited.
+         */
+        private final Object[][] path;
+
+        /**
+         * For each node on {@code path}, the position of its next entry to be
+         * visited.
+         */
+        private final int[] positions;
+
+        /**
+         * Depth of the node being visited.
+         */
+        private int depth;
+
+        /**
+         * Number of pairs not yet returned.
+         */
+        private int remaining;
+
+        /**
+         * No-argument constructor.
+         */
+        Map7Iterator() {
+            this.path = new Object[MAX_DEPTH][];
+            this.positions = new int[MAX_DEPTH];
+            this.path[0] = Map7.this.root.entries();
+            this.positions[0] = 0;
+            this.depth = 0;
+            this.remaining = Map7.this.size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Leaf<K, V> leaf = null;
+            while (leaf == null) {
+                Object[] entries = this.path[this.depth];
+                int p = this.positions[this.depth];
+                if (p == entries.length) {
+                    this.depth--;
+                } else {
+                    this.positions[this.depth] = p + 1;
+                    if (entries[p] instanceof Leaf<?, ?>) {
+                        leaf = (Leaf<K, V>) entries[p];
+                    } else {
+                        this.depth++;
+                        Node<K, V> child = (Node<K, V>) entries[p];
+                        this.path[this.depth] = child.entries();
+                        this.positions[this.depth] = 0;
+                    }
+                }
+            }
+            this.remaining--;
+            return leaf.pair;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
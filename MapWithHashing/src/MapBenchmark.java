@@ -0,0 +1,478 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+import components.map.Map2;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Micro-benchmark of the {@code Map} implementations in this project and in
+ * the components library. For each implementation, key type ({@code Integer}
+ * or {@code String}), access pattern (uniform or Zipfian), and size from 10 to
+ * 10^6, it times {@code add}, {@code hasKey}, {@code value}, full iteration,
+ * {@code remove}, and {@code removeAny}, and prints one CSV line per
+ * measurement with the median time per operation in nanoseconds.
+ * <p>
+ * Run without assertions enabled (no {@code -ea}): the kernel assertions
+ * call {@code hasKey} and would dominate the timings. Command-line arguments,
+ * all optional: the largest size to run (default 10^6), and the name of a
+ * CSV output file (default standard output).
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class MapBenchmark {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private MapBenchmark() {
+    }
+
+    /**
+     * Smallest size benchmarked.
+     */
+    private static final int MIN_SIZE = 10;
+
+    /**
+     * Default largest size benchmarked.
+     */
+    private static final int DEFAULT_MAX_SIZE = 1_000_000;
+
+    /**
+     * Factor between consecutive sizes.
+     */
+    private static final int SIZE_STEP = 10;
+
+    /**
+     * Number of untimed runs of each measurement, so the JIT compiler has
+     * settled before timing starts.
+     */
+    private static final int WARMUP_RUNS = 3;
+
+    /**
+     * Number of timed runs of each measurement; the median is reported.
+     */
+    private static final int TIMED_RUNS = 5;
+
+    /**
+     * Smallest number of lookups timed in one run.
+     */
+    private static final int MIN_LOOKUPS = 100_000;
+
+    /**
+     * Exponent of the Zipfian distribution.
+     */
+    private static final double ZIPF_EXPONENT = 1.0;
+
+    /**
+     * Length of generated {@code String} keys.
+     */
+    private static final int STRING_KEY_LENGTH = 10;
+
+    /**
+     * Load factor of the resizing {@code Map4}.
+     */
+    private static final double LOAD_FACTOR = 0.75;
+
+    /**
+     * Seed of the random number generator, so runs are repeatable.
+     */
+    private static final long SEED = 2221;
+
+    /**
+     * Sum of values seen by the timed code, printed at the end so the JIT
+     * compiler cannot discard the work being timed.
+     */
+    private static long blackhole = 0;
+
+    /**
+     * Map implementations under test.
+     */
+    private enum Implementation {
+
+        /**
+         * Library {@code Map1L} (layered on {@code java.util.HashMap}).
+         */
+        MAP1L(Integer.MAX_VALUE) {
+            @Override
+            <K> Map<K, Integer> create() {
+                return new Map1L<K, Integer>();
+            }
+        },
+
+        /**
+         * Library {@code Map2} (queue of pairs); linear time per operation.
+         */
+        MAP2(10_000) {
+            @Override
+            <K> Map<K, Integer> create() {
+                return new Map2<K, Integer>();
+            }
+        },
+
+        /**
+         * {@code Map4} with the default fixed number of buckets.
+         */
+        MAP4_FIXED(100_000) {
+            @Override
+            <K> Map<K, Integer> create() {
+                return new Map4<K, Integer>();
+            }
+        },
+
+        /**
+         * {@code Map4} resizing to keep the load factor bounded.
+         */
+        MAP4_RESIZING(Integer.MAX_VALUE) {
+            @Override
+            <K> Map<K, Integer> create() {
+                return new Map4<K, Integer>(MIN_SIZE, LOAD_FACTOR);
+            }
+        },
+
+        /**
+         * {@code Map5} (open addressing).
+         */
+        MAP5(Integer.MAX_VALUE) {
+            @Override
+            <K> Map<K, Integer> create() {
+                return new Map5<K, Integer>();
+            }
+        },
+
+        /**
+         * {@code Map6} (concurrent, striped locks).
+         */
+        MAP6(Integer.MAX_VALUE) {
+            @Override
+            <K> Map<K, Integer> create() {
+                return new Map6<K, Integer>();
+            }
+        },
+
+        /**
+         * {@code Map7} (persistent hash array mapped trie).
+         */
+        MAP7(Integer.MAX_VALUE) {
+            @Override
+            <K> Map<K, Integer> create() {
+                return new Map7<K, Integer>();
+            }
+        };
+
+        /**
+         * Largest size at which this implementation finishes in reasonable
+         * time.
+         */
+        private final int maxSize;
+
+        /**
+         * Constructor.
+         *
+         * @param maxSize
+         *            largest size to benchmark
+         */
+        Implementation(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Returns a new, empty map of this implementation.
+         *
+         * @param <K>
+         *            type of the keys
+         * @return the new map
+         */
+        abstract <K> Map<K, Integer> create();
+
+    }
+
+    /**
+     * Returns {@code n} distinct {@code Integer} keys in random order.
+     *
+     * @param n
+     *            number of keys
+     * @param rnd
+     *            source of randomness
+     * @return the keys
+     */
+    private static Integer[] integerKeys(int n, Random rnd) {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            /*
+             * Odd multiplier: distinct, but not consecutive, hash codes
+             */
+            keys[i] = i * 0x9E3779B1;
+        }
+        shuffle(keys, rnd);
+        return keys;
+    }
+
+    /**
+     * Returns {@code n} distinct random lower-case {@code String} keys.
+     *
+     * @param n
+     *            number of keys
+     * @param rnd
+     *            source of randomness
+     * @return the keys
+     */
+    private static String[] stringKeys(int n, Random rnd) {
+        Set<String> seen = new HashSet<String>();
+        String[] keys = new String[n];
+        int count = 0;
+        char[] chars = new char[STRING_KEY_LENGTH];
+        while (count < n) {
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + rnd.nextInt('z' - 'a' + 1));
+            }
+            String key = new String(chars);
+            if (seen.add(key)) {
+                keys[count] = key;
+                count++;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Shuffles {@code a} uniformly at random.
+     *
+     * @param a
+     *            the array
+     * @param rnd
+     *            source of randomness
+     */
+    private static void shuffle(Object[] a, Random rnd) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Object t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    /**
+     * Returns {@code count} indices into an array of length {@code n}, drawn
+     * uniformly or from a Zipfian distribution over the indices (index 0 most
+     * frequent).
+     *
+     * @param n
+     *            number of distinct indices
+     * @param count
+     *            number of indices wanted
+     * @param zipfian
+     *            whether to use the Zipfian distribution
+     * @param rnd
+     *            source of randomness
+     * @return the indices
+     */
+    private static int[] accessSequence(int n, int count, boolean zipfian,
+            Random rnd) {
+        int[] sequence = new int[count];
+        if (zipfian) {
+            double[] cumulative = new double[n];
+            double total = 0.0;
+            for (int i = 0; i < n; i++) {
+                total += 1.0 / Math.pow(i + 1, ZIPF_EXPONENT);
+                cumulative[i] = total;
+            }
+            for (int i = 0; i < count; i++) {
+                int index = Arrays.binarySearch(cumulative,
+                        rnd.nextDouble() * total);
+                if (index < 0) {
+                    index = -index - 1;
+                }
+                sequence[i] = Math.min(index, n - 1);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                sequence[i] = rnd.nextInt(n);
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Fills {@code map} with ({@code keys[i]}, {@code i}).
+     *
+     * @param <K>
+     *            type of the keys
+     * @param map
+     *            the map
+     * @param keys
+     *            the keys
+     */
+    private static <K> void fill(Map<K, Integer> map, K[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            map.add(keys[i], i);
+        }
+    }
+
+    /**
+     * Times one run of {@code operation} on a freshly filled map and returns
+     * the time per operation in nanoseconds.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param impl
+     *            the implementation
+     * @param keys
+     *            the keys
+     * @param sequence
+     *            the lookup sequence (indices into {@code keys})
+     * @param operation
+     *            which operation to time
+     * @return nanoseconds per operation
+     */
+    private static <K> double timeOnce(Implementation impl, K[] keys,
+            int[] sequence, String operation) {
+        Map<K, Integer> map = impl.<K> create();
+        long start;
+        long stop;
+        int operations = keys.length;
+        if (operation.equals("add")) {
+            start = System.nanoTime();
+            fill(map, keys);
+            stop = System.nanoTime();
+        } else {
+            fill(map, keys);
+            long sum = 0;
+            start = System.nanoTime();
+            if (operation.equals("hasKey")) {
+                for (int i : sequence) {
+                    if (map.hasKey(keys[i])) {
+                        sum++;
+                    }
+                }
+                operations = sequence.length;
+            } else if (operation.equals("value")) {
+                for (int i : sequence) {
+                    sum += map.value(keys[i]);
+                }
+                operations = sequence.length;
+            } else if (operation.equals("iterate")) {
+                for (Pair<K, Integer> p : map) {
+                    sum += p.value();
+                }
+            } else if (operation.equals("remove")) {
+                for (K key : keys) {
+                    sum += map.remove(key).value();
+                }
+            } else {
+                while (map.size() > 0) {
+                    sum += map.removeAny().value();
+                }
+            }
+            stop = System.nanoTime();
+            blackhole += sum;
+        }
+        return (double) (stop - start) / operations;
+    }
+
+    /**
+     * Runs one measurement {@code WARMUP_RUNS + TIMED_RUNS} times and returns
+     * the median of the timed runs.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param impl
+     *            the implementation
+     * @param keys
+     *            the keys
+     * @param sequence
+     *            the lookup sequence (indices into {@code keys})
+     * @param operation
+     *            which operation to time
+     * @return median nanoseconds per operation
+     */
+    private static <K> double measure(Implementation impl, K[] keys,
+            int[] sequence, String operation) {
+        for (int r = 0; r < WARMUP_RUNS; r++) {
+            timeOnce(impl, keys, sequence, operation);
+        }
+        double[] times = new double[TIMED_RUNS];
+        for (int r = 0; r < TIMED_RUNS; r++) {
+            times[r] = timeOnce(impl, keys, sequence, operation);
+        }
+        Arrays.sort(times);
+        return times[TIMED_RUNS / 2];
+    }
+
+    /**
+     * Runs every measurement for one key type and size, printing CSV lines.
+     *
+     * @param <K>
+     *            type of the keys
+     * @param out
+     *            the output stream
+     * @param keyType
+     *            name of the key type
+     * @param keys
+     *            the keys
+     * @param rnd
+     *            source of randomness
+     */
+    private static <K> void runAll(SimpleWriter out, String keyType, K[] keys,
+            Random rnd) {
+        int lookups = Math.max(MIN_LOOKUPS, keys.length);
+        int[] uniform = accessSequence(keys.length, lookups, false, rnd);
+        int[] zipfian = accessSequence(keys.length, lookups, true, rnd);
+        String[] operations = { "add", "hasKey", "value", "iterate", "remove",
+                "removeAny" };
+        for (Implementation impl : Implementation.values()) {
+            if (keys.length <= impl.maxSize) {
+                for (String operation : operations) {
+                    boolean isLookup = operation.equals("hasKey")
+                            || operation.equals("value");
+                    out.println(impl + "," + keyType + ","
+                            + (isLookup ? "uniform" : "-") + ","
+                            + keys.length + "," + operation + ","
+                            + measure(impl, keys, uniform, operation));
+                    if (isLookup) {
+                        out.println(impl + "," + keyType + ",zipfian,"
+                                + keys.length + "," + operation + ","
+                                + measure(impl, keys, zipfian, operation));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optional largest size, optional
+     *            output file name
+     */
+    public static void main(String[] args) {
+        int maxSize = DEFAULT_MAX_SIZE;
+        if (args.length > 0) {
+            maxSize = Integer.parseInt(args[0]);
+        }
+        SimpleWriter out;
+        if (args.length > 1) {
+            out = new SimpleWriter1L(args[1]);
+        } else {
+            out = new SimpleWriter1L();
+        }
+        Random rnd = new Random(SEED);
+
+        out.println("implementation,keys,pattern,size,operation,nsPerOp");
+        for (int n = MIN_SIZE; n <= maxSize; n *= SIZE_STEP) {
+            runAll(out, "Integer", integerKeys(n, rnd), rnd);
+            runAll(out, "String", stringKeys(n, rnd), rnd);
+        }
+        out.println("# checksum " + blackhole);
+
+        out.close();
+    }
+
+}
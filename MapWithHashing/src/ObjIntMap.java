@@ -0,0 +1,482 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Map from keys of type {@code K} to {@code int} values, represented as an
+ * open-addressing hash table with linear probing, meant for counting.
+ * <p>
+ * Unlike a {@code Map<K, Integer>}, values are kept in an {@code int[]}
+ * parallel to the keys, so {@code increment}, {@code addTo}, {@code get}, and
+ * {@code put} never create an {@code Integer}: counting n occurrences of d
+ * distinct keys allocates only for the d keys and the table growth, not for
+ * each of the n updates. A key not in the map has value 0, so a word count is
+ * simply {@code counts.increment(word)}. {@code remove} shifts the following
+ * entries of the probe run back instead of leaving a tombstone.
+ * <p>
+ * Iterating over the map yields its keys. The map must not gain or lose keys
+ * during an iteration, but {@code get}, and {@code put} or {@code addTo} on
+ * keys already in the map, are safe.
+ * <p>
+ * This class is maintained in MapWithHashing. Identical copies are kept in
+ * TagCloudGenerator, TagCloudGeneratorStandard, and WordCounter, since each
+ * project builds on its own; change the MapWithHashing file and copy it over,
+ * and {@code ObjIntMapCopiesTest} in MapWithHashing checks that they match.
+ *
+ * @param <K>
+ *            type of the keys
+ * @convention <pre>
+ * |$this.keys| = |$this.values|  and
+ * |$this.keys| is a power of 2  and
+ * |$this.keys| >= MINIMUM_CAPACITY  and
+ * $this.size * MAX_LOAD_DENOMINATOR <= |$this.keys| * MAX_LOAD_NUMERATOR  and
+ * $this.size = |{i: integer where $this.keys[i] /= null}|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|  and  $this.keys[i] /= null)
+ *   ([every slot from home($this.keys[i]) up to i, cyclically, is not null]
+ *    and  [$this.keys[i] appears at no other index])
+ * </pre>
+ * @correspondence <pre>
+ * this = {(key, value): (K, integer)
+ *           where there exists i: integer
+ *                   (0 <= i  and  i < |$this.keys|  and
+ *                    key = $this.keys[i]  and  value = $this.values[i])}
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class ObjIntMap<K> implements Iterable<K> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of slots in the hash table.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Smallest number of slots in the hash table.
+     */
+    private static final int MINIMUM_CAPACITY = 2;
+
+    /**
+     * Numerator of the largest allowed fraction of occupied slots.
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the largest allowed fraction of occupied slots.
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * Keys, with {@code null} marking an empty slot.
+     */
+    private Object[] keys;
+
+    /**
+     * Values associated with the keys in the same slots.
+     */
+    private int[] values;
+
+    /**
+     * Number of occupied slots.
+     */
+    private int size;
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n} and at least
+     * {@code MINIMUM_CAPACITY}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the power of 2
+     * @requires n <= 2^30
+     * @ensures <pre>
+     * powerOfTwoAtLeast >= n  and  powerOfTwoAtLeast >= MINIMUM_CAPACITY  and
+     * there exists k: integer (powerOfTwoAtLeast = 2^k)  and
+     * [powerOfTwoAtLeast is the smallest such number]
+     * </pre>
+     */
+    private static int powerOfTwoAtLeast(int n) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < n) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the home slot of {@code key} in a table with {@code mask + 1}
+     * slots.
+     *
+     * @param key
+     *            the key
+     * @param mask
+     *            the number of slots minus 1
+     * @return the home slot
+     * @requires mask + 1 is a power of 2
+     * @ensures 0 <= home <= mask
+     */
+    private static int home(Object key, int mask) {
+        int h = key.hashCode();
+        return (h ^ (h >>> (Integer.SIZE / 2))) & mask;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the number of slots
+     * @requires capacity is a power of 2  and  capacity >= MINIMUM_CAPACITY
+     * @ensures <pre>
+     * |$this.keys| = capacity  and
+     * [every slot of $this.keys is empty]  and
+     * $this.size = 0
+     * </pre>
+     */
+    private void createNewRep(int capacity) {
+        this.keys = new Object[capacity];
+        this.values = new int[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the slot holding {@code key} or, if there is none, the empty
+     * slot where {@code key} would be inserted.
+     *
+     * @param key
+     *            the key to look for
+     * @return the slot for {@code key}
+     * @ensures <pre>
+     * if key is in DOMAIN(this)
+     *  then $this.keys[slot] = key
+     *  else $this.keys[slot] = null
+     * </pre>
+     */
+    private int slot(Object key) {
+        int mask = this.keys.length - 1;
+        int i = home(key, mask);
+        while (this.keys[i] != null && !this.keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Doubles the number of slots if one more key would exceed the maximum
+     * load, and returns the slot for {@code key} in the (possibly new) table.
+     *
+     * @param key
+     *            the key about to be inserted
+     * @return the empty slot for {@code key}
+     * @requires key is not in DOMAIN(this)
+     * @ensures <pre>
+     * ($this.size + 1) * MAX_LOAD_DENOMINATOR <=
+     *   |$this.keys| * MAX_LOAD_NUMERATOR  and
+     * $this.keys[slotForNewKey] = null
+     * </pre>
+     */
+    private int slotForNewKey(Object key) {
+        if ((this.size + 1L) * MAX_LOAD_DENOMINATOR > (long) this.keys.length
+                * MAX_LOAD_NUMERATOR) {
+            Object[] oldKeys = this.keys;
+            int[] oldValues = this.values;
+            int oldSize = this.size;
+            this.createNewRep(2 * oldKeys.length);
+            int mask = this.keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int j = home(oldKeys[i], mask);
+                    while (this.keys[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+                    this.keys[j] = oldKeys[i];
+                    this.values[j] = oldValues[i];
+                }
+            }
+            this.size = oldSize;
+        }
+        return this.slot(key);
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public ObjIntMap() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a map that can hold {@code expectedSize} keys
+     * without growing.
+     *
+     * @param expectedSize
+     *            the number of keys expected
+     * @requires 0 <= expectedSize <= 2^29
+     */
+    public ObjIntMap(int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: 0 <= expectedSize";
+
+        /*
+         * Computed in long: expectedSize * MAX_LOAD_DENOMINATOR overflows int
+         * well within the allowed range of expectedSize
+         */
+        this.createNewRep(powerOfTwoAtLeast((int) ((long) expectedSize
+                * MAX_LOAD_DENOMINATOR / MAX_LOAD_NUMERATOR + 1)));
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Reports whether there is a pair in {@code this} whose first component
+     * is {@code key}.
+     *
+     * @param key
+     *            the key to be checked
+     * @return true iff there is a pair in {@code this} whose first component
+     *         is {@code key}
+     * @ensures hasKey = (key is in DOMAIN(this))
+     */
+    public boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.keys[this.slot(key)] != null;
+    }
+
+    /**
+     * Reports the value associated with {@code key}, or 0 if there is none.
+     *
+     * @param key
+     *            the key whose associated value is to be reported
+     * @return the value associated with {@code key}
+     * @ensures <pre>
+     * if key is in DOMAIN(this)
+     *  then (key, get) is in this
+     *  else get = 0
+     * </pre>
+     */
+    public int get(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.values[this.slot(key)];
+    }
+
+    /**
+     * Associates {@code value} with {@code key}, adding {@code key} if it is
+     * not already in {@code this}.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value to be associated with {@code key}
+     * @updates this
+     * @ensures this = (#this \ {(key, #this(key))}) union {(key, value)}
+     */
+    public void put(K key, int value) {
+        assert key != null : "Violation of: key is not null";
+
+        int i = this.slot(key);
+        if (this.keys[i] == null) {
+            i = this.slotForNewKey(key);
+            this.keys[i] = key;
+            this.size++;
+        }
+        this.values[i] = value;
+    }
+
+    /**
+     * Adds {@code delta} to the value associated with {@code key}, treating a
+     * key not in {@code this} as having value 0, and reports the new value.
+     *
+     * @param key
+     *            the key
+     * @param delta
+     *            the amount to be added
+     * @return the new value associated with {@code key}
+     * @updates this
+     * @ensures <pre>
+     * addTo = [value associated with key in #this, or 0 if none] + delta  and
+     * this = (#this \ {(key, #this(key))}) union {(key, addTo)}
+     * </pre>
+     */
+    public int addTo(K key, int delta) {
+        assert key != null : "Violation of: key is not null";
+
+        int i = this.slot(key);
+        if (this.keys[i] == null) {
+            i = this.slotForNewKey(key);
+            this.keys[i] = key;
+            this.size++;
+        }
+        this.values[i] += delta;
+        return this.values[i];
+    }
+
+    /**
+     * Adds 1 to the value associated with {@code key}, treating a key not in
+     * {@code this} as having value 0, and reports the new value.
+     *
+     * @param key
+     *            the key
+     * @return the new value associated with {@code key}
+     * @updates this
+     * @ensures <pre>
+     * increment = [value associated with key in #this, or 0 if none] + 1  and
+     * this = (#this \ {(key, #this(key))}) union {(key, increment)}
+     * </pre>
+     */
+    public int increment(K key) {
+        return this.addTo(key, 1);
+    }
+
+    /**
+     * Removes {@code key} from {@code this} and reports its value.
+     *
+     * @param key
+     *            the key to be removed
+     * @return the value that was associated with {@code key}
+     * @updates this
+     * @requires key is in DOMAIN(this)
+     * @ensures (key, remove) is in #this  and  this = #this \ {(key, remove)}
+     */
+    public int remove(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int i = this.slot(key);
+        assert this.keys[i] != null : "Violation of: key is in DOMAIN(this)";
+
+        int value = this.values[i];
+        this.keys[i] = null;
+        this.values[i] = 0;
+        this.size--;
+        /*
+         * Backward shift: move each later entry of the probe run into the hole
+         * if the hole lies between its home slot and its current slot
+         */
+        int mask = this.keys.length - 1;
+        int j = (i + 1) & mask;
+        while (this.keys[j] != null) {
+            int h = home(this.keys[j], mask);
+            if (((j - h) & mask) >= ((j - i) & mask)) {
+                this.keys[i] = this.keys[j];
+                this.values[i] = this.values[j];
+                this.keys[j] = null;
+                this.values[j] = 0;
+                i = j;
+            }
+            j = (j + 1) & mask;
+        }
+        return value;
+    }
+
+    /**
+     * Reports the number of keys in {@code this}.
+     *
+     * @return the number of keys in {@code this}
+     * @ensures size = |this|
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Resets {@code this} to an empty map.
+     *
+     * @clears this
+     */
+    public void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Calls {@code action.accept(key, value)} for every pair in {@code this},
+     * without boxing the values.
+     *
+     * @param action
+     *            the action to be performed on each pair
+     */
+    public void forEach(ObjIntConsumer<? super K> action) {
+        assert action != null : "Violation of: action is not null";
+
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != null) {
+                @SuppressWarnings("unchecked")
+                K key = (K) this.keys[i];
+                action.accept(key, this.values[i]);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new ObjIntMapIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code ObjIntMap}.
+     */
+    private final class ObjIntMapIterator implements Iterator<K> {
+
+        /**
+         * Slot at which to look for the next key.
+         */
+        private int slot;
+
+        /**
+         * Number of keys not yet returned.
+         */
+        private int remaining;
+
+        /**
+         * No-argument constructor.
+         */
+        ObjIntMapIterator() {
+            this.slot = 0;
+            this.remaining = ObjIntMap.this.size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public K next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            while (ObjIntMap.this.keys[this.slot] == null) {
+                this.slot++;
+            }
+            K key = (K) ObjIntMap.this.keys[this.slot];
+            this.slot++;
+            this.remaining--;
+            return key;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code BucketProfile} and the hash strategies it is
+ * meant to compare.
+ */
+public final class BucketProfileTest {
+
+    /**
+     * Tolerance for floating-point comparisons.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testUniform() {
+        BucketProfile profile = new BucketProfile(new int[] { 2, 2, 2, 2 });
+
+        assertEquals(4, profile.buckets());
+        assertEquals(8, profile.entries());
+        assertEquals(2, profile.maxChainLength());
+        assertEquals(2.0, profile.meanChainLength(), EPSILON);
+        assertEquals(0.0, profile.chiSquare(), EPSILON);
+        assertEquals(1.5, profile.expectedProbesSuccessful(), EPSILON);
+        assertEquals(2.0, profile.expectedProbesUnsuccessful(), EPSILON);
+    }
+
+    @Test
+    public void testSkewed() {
+        BucketProfile profile = new BucketProfile(new int[] { 0, 6, 0, 2 });
+
+        assertEquals(6, profile.maxChainLength());
+        assertEquals(4.0, profile.meanChainLength(), EPSILON);
+        assertEquals(12.0, profile.chiSquare(), EPSILON);
+        assertEquals(3.0, profile.expectedProbesSuccessful(), EPSILON);
+        assertArrayEquals(new int[] { 1, 3 }, profile.hottestBuckets(2));
+    }
+
+    @Test
+    public void testEmpty() {
+        BucketProfile profile = new BucketProfile(new int[] { 0, 0, 0 });
+
+        assertEquals(0, profile.maxChainLength());
+        assertEquals(0.0, profile.meanChainLength(), EPSILON);
+        assertEquals(0.0, profile.chiSquare(), EPSILON);
+        assertEquals(0.0, profile.expectedProbesSuccessful(), EPSILON);
+    }
+
+    @Test
+    public void testOfMap4CountsEveryEntry() {
+        Map4<Integer, Integer> map = new Map4<Integer, Integer>(1, 0.75);
+        for (int i = 0; i < 100; i++) {
+            map.add(i, i);
+        }
+
+        BucketProfile profile = BucketProfile.of(map);
+
+        assertEquals(100, profile.entries());
+    }
+
+    @Test
+    public void testMurmur3SpreadsSkewedHashCodes() {
+        /*
+         * Keys whose hash codes are all multiples of 64 land in one bucket of a
+         * 64-bucket table unless the hash codes are mixed
+         */
+        Map4<Integer, Integer> identity = new Map4<Integer, Integer>(64);
+        Map4<Integer, Integer> mixed = new Map4<Integer, Integer>(64,
+                HashStrategies.<Integer> murmur3());
+        for (int i = 0; i < 256; i++) {
+            identity.add(i * 64, i);
+            mixed.add(i * 64, i);
+        }
+
+        assertEquals(256, BucketProfile.of(identity).maxChainLength());
+        assertEquals(true, BucketProfile.of(mixed).maxChainLength() < 32);
+    }
+
+    @Test
+    public void testFnv1aKnownValues() {
+        HashStrategy<String> fnv = HashStrategies.fnv1a();
+
+        assertEquals(0x811c9dc5, fnv.hash(""));
+        assertEquals(true, fnv.hash("ab") != fnv.hash("ba"));
+        assertEquals(fnv.hash("glossary"), fnv.hash(new String("glossary")));
+    }
+
+    @Test
+    public void testSeededDiffersBySeed() {
+        HashStrategy<String> a = HashStrategies.seeded(1);
+        HashStrategy<String> b = HashStrategies.seeded(2);
+
+        assertEquals(a.hash("term"), a.hash("term"));
+        assertEquals(true, a.hash("term") != b.hash("term"));
+    }
+
+}
@@ -0,0 +1,146 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code IntIntMap}.
+ */
+public final class IntIntMapTest {
+
+    /**
+     * Sums the keys and values it is given.
+     */
+    private static final class Summer implements IntIntMap.IntIntConsumer {
+
+        /**
+         * Sum of keys seen so far.
+         */
+        private int keySum = 0;
+
+        /**
+         * Sum of values seen so far.
+         */
+        private int valueSum = 0;
+
+        @Override
+        public void accept(int key, int value) {
+            this.keySum += key;
+            this.valueSum += value;
+        }
+
+    }
+
+    @Test
+    public void testConstructor() {
+        IntIntMap m = new IntIntMap();
+
+        assertEquals(0, m.size());
+        assertFalse(m.hasKey(1));
+        assertFalse(m.hasKey(0));
+        assertEquals(0, m.get(1));
+    }
+
+    @Test
+    public void testIncrement() {
+        IntIntMap m = new IntIntMap();
+
+        assertEquals(1, m.increment(7));
+        assertEquals(2, m.increment(7));
+
+        assertEquals(1, m.size());
+        assertTrue(m.hasKey(7));
+        assertEquals(2, m.get(7));
+    }
+
+    @Test
+    public void testZeroKey() {
+        IntIntMap m = new IntIntMap();
+        m.put(0, 4);
+        m.put(1, 5);
+
+        assertEquals(5, m.addTo(0, 1));
+        assertEquals(2, m.size());
+        assertEquals(5, m.remove(0));
+
+        assertEquals(1, m.size());
+        assertFalse(m.hasKey(0));
+        assertEquals(0, m.get(0));
+        assertEquals(5, m.get(1));
+    }
+
+    @Test
+    public void testNegativeKeysAndValues() {
+        IntIntMap m = new IntIntMap();
+        m.put(-3, -10);
+
+        assertEquals(-7, m.addTo(-3, 3));
+        assertEquals(-7, m.get(-3));
+        assertEquals(-7, m.remove(-3));
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testKeysAndForEach() {
+        IntIntMap m = new IntIntMap(10);
+        for (int i = 0; i < 50; i++) {
+            m.put(i, 2 * i);
+        }
+
+        int[] keys = m.keys();
+        Arrays.sort(keys);
+        int[] expected = new int[50];
+        for (int i = 0; i < 50; i++) {
+            expected[i] = i;
+        }
+        Summer s = new Summer();
+        m.forEach(s);
+
+        assertArrayEquals(expected, keys);
+        assertEquals(1225, s.keySum);
+        assertEquals(2450, s.valueSum);
+    }
+
+    @Test
+    public void testClear() {
+        IntIntMap m = new IntIntMap();
+        m.put(0, 1);
+        m.put(1, 1);
+
+        m.clear();
+
+        assertEquals(0, m.size());
+        assertFalse(m.hasKey(0));
+        assertFalse(m.hasKey(1));
+    }
+
+    @Test
+    public void testManyRandomOperations() {
+        IntIntMap m = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random rnd = new Random(2221);
+        for (int i = 0; i < 100_000; i++) {
+            int key = rnd.nextInt(500) - 250;
+            if (rnd.nextInt(3) == 0 && expected.containsKey(key)) {
+                assertEquals((int) expected.remove(key), m.remove(key));
+            } else {
+                int delta = rnd.nextInt(10);
+                expected.put(key, expected.getOrDefault(key, 0) + delta);
+                assertEquals((int) expected.get(key), m.addTo(key, delta));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        for (int key = -250; key < 250; key++) {
+            assertEquals(expected.containsKey(key), m.hasKey(key));
+            assertEquals(expected.getOrDefault(key, 0).intValue(), m.get(key));
+        }
+    }
+
+}
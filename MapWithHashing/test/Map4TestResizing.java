@@ -0,0 +1,174 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} using the resizing
+ * constructor, starting from a hash table of size 1 so that every test grows
+ * (and shrinks) the table.
+ */
+public class Map4TestResizing extends MapTest {
+
+    /**
+     * Initial size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 1;
+
+    /**
+     * Load factor to be used in tests.
+     */
+    private static final double TEST_LOAD_FACTOR = 0.75;
+
+    /**
+     * Number of entries used by the tests that force several rehashes.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Size of the fixed hash table of the sparse draining test.
+     */
+    private static final int SPARSE_HASH_TABLE_SIZE = 1 << 20;
+
+    /**
+     * Number of last buckets the keys of the sparse draining test hash to.
+     */
+    private static final int LAST_BUCKETS = 64;
+
+    /**
+     * Hash strategy sending every key to one of the last
+     * {@code LAST_BUCKETS} buckets, as far as possible from bucket 0.
+     */
+    private static final class LastBuckets implements HashStrategy<String> {
+
+        @Override
+        public int hash(String key) {
+            return -1 - (key.hashCode() & (LAST_BUCKETS - 1));
+        }
+
+    }
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE,
+                TEST_LOAD_FACTOR);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    @Test
+    public final void testAddManyWhileRehashing() {
+        Map<String, String> map = this.constructorTest();
+        Map<String, String> expectedMap = this.constructorRef();
+
+        for (int i = 0; i < MANY; i++) {
+            map.add("key" + i, "value" + i);
+            expectedMap.add("key" + i, "value" + i);
+            assertEquals(true, map.hasKey("key" + i));
+            assertEquals("value" + (i / 2), map.value("key" + (i / 2)));
+        }
+
+        assertEquals(expectedMap, map);
+    }
+
+    @Test
+    public final void testRemoveManyWhileRehashing() {
+        Map<String, String> map = this.constructorTest();
+        Map<String, String> expectedMap = this.constructorRef();
+        for (int i = 0; i < MANY; i++) {
+            map.add("key" + i, "value" + i);
+            expectedMap.add("key" + i, "value" + i);
+        }
+
+        for (int i = 0; i < MANY; i += 2) {
+            Pair<String, String> removed = map.remove("key" + i);
+            expectedMap.remove("key" + i);
+            assertEquals("value" + i, removed.value());
+        }
+
+        assertEquals(expectedMap, map);
+    }
+
+    @Test
+    public final void testNewInstanceKeepsConfiguration() {
+        Map4<String, String> map = new Map4<String, String>(
+                TEST_HASH_TABLE_SIZE, TEST_LOAD_FACTOR,
+                HashStrategies.<String> murmur3());
+        Map4<String, String> copy = (Map4<String, String>) map.newInstance();
+
+        for (int i = 0; i < MANY; i++) {
+            map.add("key" + i, "value" + i);
+            copy.add("key" + i, "value" + i);
+        }
+
+        assertEquals(true, copy.bucketSizes().length > 1);
+        assertArrayEquals(map.bucketSizes(), copy.bucketSizes());
+    }
+
+    @Test
+    public final void testTransferFromOtherStrategy() {
+        Map4<String, String> source = new Map4<String, String>(
+                TEST_HASH_TABLE_SIZE, TEST_LOAD_FACTOR,
+                HashStrategies.<String> murmur3());
+        Map4<String, String> map = new Map4<String, String>();
+        Map<String, String> expected = this.constructorRef();
+        for (int i = 0; i < MANY; i++) {
+            source.add("key" + i, "value" + i);
+            expected.add("key" + i, "value" + i);
+        }
+
+        map.transferFrom(source);
+
+        assertEquals(expected, map);
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(true, map.hasKey("key" + i));
+        }
+        map.add("key", "value");
+        assertEquals("value", map.remove("key").value());
+        for (int i = 0; i < MANY; i += 2) {
+            map.remove("key" + i);
+        }
+        assertEquals(MANY / 2, map.size());
+        source.add("key", "value");
+        assertEquals(true, source.hasKey("key"));
+    }
+
+    @Test(timeout = 10000)
+    public final void testRemoveAnyDrainsSparseTableInLinearTime() {
+        /*
+         * Each removeAny that scanned the table from bucket 0 would walk
+         * about a million empty buckets here, for a total of billions of
+         * steps
+         */
+        Map4<String, String> map = new Map4<String, String>(
+                SPARSE_HASH_TABLE_SIZE, new LastBuckets());
+        for (int i = 0; i < 4 * MANY; i++) {
+            map.add("key" + i, "value" + i);
+        }
+        for (int i = 0; i < 4 * MANY; i += 4) {
+            map.remove("key" + i);
+        }
+
+        int drained = 0;
+        while (map.size() > 0) {
+            map.removeAny();
+            drained++;
+        }
+        map.add("key", "value");
+
+        assertEquals(3 * MANY, drained);
+        assertEquals("key", map.removeAny().key());
+        int[] sizes = map.bucketSizes();
+        for (int i = 0; i < sizes.length; i++) {
+            assertEquals(0, sizes[i]);
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.function.BinaryOperator;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map6}.
+ */
+public class Map6Test extends MapTest {
+
+    /**
+     * Number of threads used by the concurrent tests.
+     */
+    private static final int THREADS = 8;
+
+    /**
+     * Number of distinct words counted by the concurrent tests.
+     */
+    private static final int WORDS = 100;
+
+    /**
+     * Number of times each thread counts each word.
+     */
+    private static final int REPETITIONS = 200;
+
+    /**
+     * Number of distinct keys of the tests that make the stripes resize.
+     */
+    private static final int MANY = 20000;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map6<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Adds two counts.
+     */
+    private static final class Sum implements BinaryOperator<Integer> {
+
+        @Override
+        public Integer apply(Integer a, Integer b) {
+            return a + b;
+        }
+
+    }
+
+    /**
+     * Counts every one of a number of words a number of times in
+     * {@code counts}.
+     */
+    private static final class Counter extends Thread {
+
+        /**
+         * The shared word counts.
+         */
+        private final Map6<String, Integer> counts;
+
+        /**
+         * Number of distinct words counted.
+         */
+        private final int words;
+
+        /**
+         * Number of times each word is counted.
+         */
+        private final int repetitions;
+
+        /**
+         * Constructor.
+         *
+         * @param counts
+         *            the shared word counts
+         * @param words
+         *            number of distinct words counted
+         * @param repetitions
+         *            number of times each word is counted
+         */
+        Counter(Map6<String, Integer> counts, int words, int repetitions) {
+            this.counts = counts;
+            this.words = words;
+            this.repetitions = repetitions;
+        }
+
+        @Override
+        public void run() {
+            BinaryOperator<Integer> sum = new Sum();
+            for (int r = 0; r < this.repetitions; r++) {
+                for (int w = 0; w < this.words; w++) {
+                    this.counts.addOrMerge("word" + w, 1, sum);
+                }
+            }
+        }
+
+    }
+
+    @Test
+    public final void testAddOrMergeAbsentAndPresent() {
+        Map6<String, Integer> counts = new Map6<String, Integer>();
+
+        int first = counts.addOrMerge("a", 1, new Sum());
+        int second = counts.addOrMerge("a", 1, new Sum());
+
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(1, counts.size());
+        assertEquals(Integer.valueOf(2), counts.value("a"));
+    }
+
+    @Test
+    public final void testAddOrMergeFromManyThreads()
+            throws InterruptedException {
+        Map6<String, Integer> counts = new Map6<String, Integer>();
+        Counter[] counters = new Counter[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            counters[t] = new Counter(counts, WORDS, REPETITIONS);
+            counters[t].start();
+        }
+        for (int t = 0; t < THREADS; t++) {
+            counters[t].join();
+        }
+
+        assertEquals(WORDS, counts.size());
+        for (int w = 0; w < WORDS; w++) {
+            assertEquals(Integer.valueOf(THREADS * REPETITIONS),
+                    counts.value("word" + w));
+        }
+    }
+
+    @Test
+    public final void testAddOrMergeManyKeysFromManyThreads()
+            throws InterruptedException {
+        Map6<String, Integer> counts = new Map6<String, Integer>(1);
+        Counter[] counters = new Counter[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            counters[t] = new Counter(counts, MANY, 1);
+            counters[t].start();
+        }
+        for (int t = 0; t < THREADS; t++) {
+            counters[t].join();
+        }
+
+        assertEquals(MANY, counts.size());
+        for (int w = 0; w < MANY; w++) {
+            assertEquals(Integer.valueOf(THREADS), counts.value("word" + w));
+        }
+    }
+
+    @Test
+    public final void testAddRemoveManyKeys() {
+        Map<String, String> map = this.constructorTest();
+        Map<String, String> expectedMap = this.constructorRef();
+        for (int i = 0; i < MANY; i++) {
+            map.add("key" + i, "value" + i);
+            expectedMap.add("key" + i, "value" + i);
+        }
+        for (int i = 0; i < MANY; i += 2) {
+            map.remove("key" + i);
+            expectedMap.remove("key" + i);
+        }
+        for (int i = 1; i < MANY; i += 4) {
+            map.replaceValue("key" + i, "new" + i);
+            expectedMap.replaceValue("key" + i, "new" + i);
+        }
+
+        assertEquals(expectedMap, map);
+    }
+
+    @Test
+    public final void testClearThenReuse() {
+        Map<String, String> map = this.constructorTest();
+        for (int i = 0; i < MANY; i++) {
+            map.add("key" + i, "value" + i);
+        }
+
+        map.clear();
+        map.add("key", "value");
+
+        assertEquals(1, map.size());
+        assertEquals("value", map.value("key"));
+        assertEquals(false, map.hasKey("key0"));
+    }
+
+}
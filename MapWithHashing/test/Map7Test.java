@@ -0,0 +1,139 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map7}.
+ */
+public class Map7Test extends MapTest {
+
+    /**
+     * Number of entries used by the tests that build several trie levels.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Key whose hash code is the same for every instance, to force collision
+     * nodes.
+     */
+    private static final class Clash {
+
+        /**
+         * Distinguishes instances.
+         */
+        private final int id;
+
+        /**
+         * Constructor.
+         *
+         * @param id
+         *            identity of the key
+         */
+        Clash(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clash && ((Clash) o).id == this.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+    }
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map7<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    @Test
+    public final void testSnapshotIsIndependent() {
+        Map7<String, String> map = new Map7<String, String>();
+        for (int i = 0; i < MANY; i++) {
+            map.add("key" + i, "value" + i);
+        }
+        Map<String, String> expectedOld = this.constructorRef();
+        for (Pair<String, String> p : map) {
+            expectedOld.add(p.key(), p.value());
+        }
+
+        Map7<String, String> old = map.snapshot();
+        map.remove("key0");
+        map.add("extra", "value");
+        map.replaceValue("key1", "changed");
+
+        assertEquals(expectedOld, old);
+        assertEquals(MANY, map.size());
+        assertEquals("changed", map.value("key1"));
+        assertEquals(false, map.hasKey("key0"));
+        assertEquals(true, old.hasKey("key0"));
+        assertEquals("value1", old.value("key1"));
+    }
+
+    @Test
+    public final void testCopyFrom() {
+        Map7<String, String> map = new Map7<String, String>();
+        map.add("a", "1");
+        Map7<String, String> copy = new Map7<String, String>();
+        copy.add("b", "2");
+
+        copy.copyFrom(map);
+        copy.add("c", "3");
+
+        assertEquals(1, map.size());
+        assertEquals(2, copy.size());
+        assertEquals("1", copy.value("a"));
+        assertEquals(false, copy.hasKey("b"));
+    }
+
+    @Test
+    public final void testIteratorSeesVersionAtCreation() {
+        Map7<String, String> map = new Map7<String, String>();
+        map.add("a", "1");
+        map.add("b", "2");
+
+        int count = 0;
+        for (Pair<String, String> p : map) {
+            map.remove(p.key());
+            count++;
+        }
+
+        assertEquals(2, count);
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public final void testFullHashCollisions() {
+        Map7<Clash, Integer> map = new Map7<Clash, Integer>();
+        for (int i = 0; i < 10; i++) {
+            map.add(new Clash(i), i);
+        }
+
+        for (int i = 0; i < 10; i += 2) {
+            assertEquals(i, map.remove(new Clash(i)).value().intValue());
+        }
+
+        assertEquals(5, map.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 2 == 1, map.hasKey(new Clash(i)));
+        }
+        while (map.size() > 0) {
+            map.removeAny();
+        }
+        assertEquals(false, map.hasKey(new Clash(1)));
+    }
+
+}
@@ -14,6 +14,11 @@ import components.map.Map.Pair;
  */
 public abstract class MapTest {
 
+    /**
+     * Number of entries used by the tests that add and remove many entries.
+     */
+    private static final int MANY = 1000;
+
     /**
      * Invokes the appropriate {@code Map} constructor for the implementation
      * under test and returns the result.
@@ -323,4 +328,45 @@ public abstract class MapTest {
         assertEquals(size, expectedSize);
         assertEquals(map, expectedMap);
     }
+
+    @Test
+    public final void testAddAndRemoveMany() {
+        Map<String, String> map = this.constructorTest();
+        Map<String, String> expectedMap = this.constructorRef();
+        for (int i = 0; i < MANY; i++) {
+            map.add("key" + i, "value" + i);
+            expectedMap.add("key" + i, "value" + i);
+        }
+
+        for (int i = 0; i < MANY; i += 3) {
+            Pair<String, String> removed = map.remove("key" + i);
+            expectedMap.remove("key" + i);
+            assertEquals("value" + i, removed.value());
+        }
+        for (int i = 1; i < MANY; i += 3) {
+            assertEquals(true, map.hasKey("key" + i));
+            assertEquals("value" + i, map.value("key" + i));
+        }
+
+        assertEquals(expectedMap, map);
+    }
+
+    @Test
+    public final void testRemoveAnyUntilEmpty() {
+        Map<String, String> map = this.constructorTest();
+        Map<String, String> expectedMap = this.constructorRef();
+        for (int i = 0; i < MANY; i++) {
+            map.add("key" + i, "value" + i);
+            expectedMap.add("key" + i, "value" + i);
+        }
+
+        while (map.size() > 0) {
+            Pair<String, String> removed = map.removeAny();
+            Pair<String, String> expectedRemoved = expectedMap
+                    .remove(removed.key());
+            assertEquals(expectedRemoved.value(), removed.value());
+        }
+
+        assertEquals(expectedMap, map);
+    }
 }
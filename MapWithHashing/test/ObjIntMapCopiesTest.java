@@ -0,0 +1,73 @@
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture checking that the copies of {@code ObjIntMap} in other
+ * projects are identical to the one maintained here. Paths are relative to
+ * this project's directory, the working directory of its tests.
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class ObjIntMapCopiesTest {
+
+    /**
+     * The maintained source file.
+     */
+    private static final Path ORIGINAL = Paths.get("src", "ObjIntMap.java");
+
+    /**
+     * Checks that the copy of {@code ObjIntMap} in {@code project} is
+     * identical to {@code ORIGINAL}.
+     *
+     * @param project
+     *            the project holding the copy
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    private static void checkCopy(String project) throws IOException {
+        Path copy = Paths.get("..", project, "src", "ObjIntMap.java");
+        assertArrayEquals(copy + " differs from " + ORIGINAL,
+                Files.readAllBytes(ORIGINAL), Files.readAllBytes(copy));
+    }
+
+    /**
+     * Test the copy in TagCloudGenerator.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public void testTagCloudGeneratorCopy() throws IOException {
+        checkCopy("TagCloudGenerator");
+    }
+
+    /**
+     * Test the copy in TagCloudGeneratorStandard.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public void testTagCloudGeneratorStandardCopy() throws IOException {
+        checkCopy("TagCloudGeneratorStandard");
+    }
+
+    /**
+     * Test the copy in WordCounter.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public void testWordCounterCopy() throws IOException {
+        checkCopy("WordCounter");
+    }
+
+}
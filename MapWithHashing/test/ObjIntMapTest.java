@@ -0,0 +1,147 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ObjIntConsumer;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code ObjIntMap}.
+ */
+public final class ObjIntMapTest {
+
+    /**
+     * Adds each pair it is given to a {@code java.util.Map}.
+     */
+    private static final class Collector implements ObjIntConsumer<String> {
+
+        /**
+         * Pairs seen so far.
+         */
+        private final Map<String, Integer> seen = new HashMap<>();
+
+        @Override
+        public void accept(String key, int value) {
+            this.seen.put(key, value);
+        }
+
+    }
+
+    @Test
+    public void testConstructor() {
+        ObjIntMap<String> m = new ObjIntMap<String>();
+
+        assertEquals(0, m.size());
+        assertFalse(m.hasKey("a"));
+        assertEquals(0, m.get("a"));
+    }
+
+    @Test
+    public void testIncrementNew() {
+        ObjIntMap<String> m = new ObjIntMap<String>();
+
+        assertEquals(1, m.increment("a"));
+
+        assertEquals(1, m.size());
+        assertTrue(m.hasKey("a"));
+        assertEquals(1, m.get("a"));
+    }
+
+    @Test
+    public void testIncrementExisting() {
+        ObjIntMap<String> m = new ObjIntMap<String>();
+        m.increment("a");
+        m.increment("b");
+
+        assertEquals(2, m.increment("a"));
+
+        assertEquals(2, m.size());
+        assertEquals(2, m.get("a"));
+        assertEquals(1, m.get("b"));
+    }
+
+    @Test
+    public void testAddToAndPut() {
+        ObjIntMap<String> m = new ObjIntMap<String>();
+        m.put("a", 5);
+
+        assertEquals(2, m.addTo("a", -3));
+        assertEquals(7, m.addTo("b", 7));
+        m.put("a", 10);
+
+        assertEquals(2, m.size());
+        assertEquals(10, m.get("a"));
+        assertEquals(7, m.get("b"));
+    }
+
+    @Test
+    public void testRemove() {
+        ObjIntMap<String> m = new ObjIntMap<String>();
+        m.put("a", 1);
+        m.put("b", 2);
+
+        assertEquals(1, m.remove("a"));
+
+        assertEquals(1, m.size());
+        assertFalse(m.hasKey("a"));
+        assertEquals(0, m.get("a"));
+        assertEquals(2, m.get("b"));
+    }
+
+    @Test
+    public void testClear() {
+        ObjIntMap<String> m = new ObjIntMap<String>(100);
+        m.put("a", 1);
+
+        m.clear();
+
+        assertEquals(0, m.size());
+        assertFalse(m.hasKey("a"));
+    }
+
+    @Test
+    public void testIteratorAndForEach() {
+        ObjIntMap<String> m = new ObjIntMap<String>();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            m.put("k" + i, i);
+            expected.put("k" + i, i);
+        }
+
+        Map<String, Integer> iterated = new HashMap<>();
+        for (String key : m) {
+            iterated.put(key, m.get(key));
+        }
+        Collector c = new Collector();
+        m.forEach(c);
+
+        assertEquals(expected, iterated);
+        assertEquals(expected, c.seen);
+    }
+
+    @Test
+    public void testManyRandomOperations() {
+        ObjIntMap<Integer> m = new ObjIntMap<Integer>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random rnd = new Random(2221);
+        for (int i = 0; i < 100_000; i++) {
+            Integer key = rnd.nextInt(500);
+            if (rnd.nextInt(3) == 0 && expected.containsKey(key)) {
+                assertEquals((int) expected.remove(key), m.remove(key));
+            } else {
+                expected.put(key, expected.getOrDefault(key, 0) + 1);
+                assertEquals((int) expected.get(key), m.increment(key));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        for (int key = 0; key < 500; key++) {
+            assertEquals(expected.containsKey(key), m.hasKey(key));
+            assertEquals(expected.getOrDefault(key, 0).intValue(), m.get(key));
+        }
+    }
+
+}
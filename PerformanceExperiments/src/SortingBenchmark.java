@@ -0,0 +1,674 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.function.Function;
+
+import components.queue.Queue;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Benchmark of the {@code SortingMachine} and {@code Queue.sort}
+ * implementations in the sorting projects and in the components library. For
+ * each implementation, input shape and size from 10^2 up, it times a full
+ * cycle (fill, sort, drain) and prints one CSV line with the median time and
+ * the median number of bytes allocated, both per element.
+ * <p>
+ * The input shapes are random, sorted, reversed, organ pipe (ascending then
+ * descending), few distinct values, and a quicksort killer. The killer is
+ * built separately for each implementation by McIlroy's adversary: the
+ * implementation first sorts under a comparator that fixes the values of
+ * the entries only as they are compared, always so as to make the current
+ * pivot candidate as small as possible, and the values so fixed are then
+ * replayed as an ordinary input. Entries are fixed-width decimal
+ * {@code String}s, so that lexicographic order is numeric order and the
+ * {@code String}-only {@code Queue1LSort1} can take part.
+ * <p>
+ * The implementations live in several projects, each in the default
+ * package, so they are loaded by class name: put the output folders of
+ * QueueSort, QueueInsertionSort, QueueQuicksort and the SortingMachineWith*
+ * projects on the class path, in any combination, and the classes not found
+ * are reported as skipped. Allocation is measured with the HotSpot
+ * {@code com.sun.management.ThreadMXBean} and reported as -1 on other
+ * virtual machines.
+ * <p>
+ * Run without assertions enabled (no {@code -ea}): some kernel assertions
+ * take linear time and would dominate the timings. Command-line arguments,
+ * all optional: the largest size to run (default 10^6; 10^7 needs a large
+ * heap), and the name of a CSV output file (default standard output).
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class SortingBenchmark {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingBenchmark() {
+    }
+
+    /**
+     * Smallest size benchmarked.
+     */
+    private static final int MIN_SIZE = 100;
+
+    /**
+     * Default largest size benchmarked.
+     */
+    private static final int DEFAULT_MAX_SIZE = 1_000_000;
+
+    /**
+     * Factor between consecutive sizes.
+     */
+    private static final int SIZE_STEP = 10;
+
+    /**
+     * Largest size at which quadratic implementations are run.
+     */
+    private static final int QUADRATIC_MAX_SIZE = 10_000;
+
+    /**
+     * Number of untimed runs of each measurement, so the JIT compiler has
+     * settled before timing starts.
+     */
+    private static final int WARMUP_RUNS = 2;
+
+    /**
+     * Number of timed runs of each measurement; the median is reported.
+     */
+    private static final int TIMED_RUNS = 5;
+
+    /**
+     * Number of distinct values in the few-distinct input.
+     */
+    private static final int FEW_DISTINCT = 16;
+
+    /**
+     * Number of digits of each entry.
+     */
+    private static final int DIGITS = 10;
+
+    /**
+     * Seed of the random number generator, so runs are repeatable.
+     */
+    private static final long SEED = 2231;
+
+    /**
+     * Sum of lengths of the entries drained, printed at the end so the JIT
+     * compiler cannot discard the work being timed.
+     */
+    private static long blackhole = 0;
+
+    /**
+     * Compare {@code String}s in lexicographic order.
+     */
+    private static class StringLT implements Comparator<String> {
+
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+
+    }
+
+    /**
+     * ASCII bytes of a {@code String}, the radix sort key that agrees with
+     * {@code StringLT}.
+     */
+    private static class AsciiKey implements Function<String, byte[]> {
+
+        @Override
+        public byte[] apply(String s) {
+            return s.getBytes(StandardCharsets.US_ASCII);
+        }
+
+    }
+
+    /**
+     * McIlroy's adversarial comparator. Entry {@code i} is the index
+     * {@code i} written with {@code DIGITS} digits; its value is "gas" until
+     * the adversary freezes it to the next smallest unused value.
+     */
+    private static final class Adversary implements Comparator<String> {
+
+        /**
+         * Value of the entries not yet frozen, larger than any frozen value.
+         */
+        private final int gas;
+
+        /**
+         * Value of each entry.
+         */
+        private final int[] value;
+
+        /**
+         * Number of entries frozen so far.
+         */
+        private int frozen;
+
+        /**
+         * Entry currently believed to be the pivot.
+         */
+        private int candidate;
+
+        /**
+         * Constructor.
+         *
+         * @param n
+         *            number of entries
+         */
+        Adversary(int n) {
+            this.gas = n;
+            this.value = new int[n];
+            Arrays.fill(this.value, n);
+            this.frozen = 0;
+            this.candidate = 0;
+        }
+
+        @Override
+        public int compare(String s1, String s2) {
+            int x = Integer.parseInt(s1);
+            int y = Integer.parseInt(s2);
+            if (this.value[x] == this.gas && this.value[y] == this.gas) {
+                if (x == this.candidate) {
+                    this.value[x] = this.frozen;
+                } else {
+                    this.value[y] = this.frozen;
+                }
+                this.frozen++;
+            }
+            if (this.value[x] == this.gas) {
+                this.candidate = x;
+            } else if (this.value[y] == this.gas) {
+                this.candidate = y;
+            }
+            return Integer.compare(this.value[x], this.value[y]);
+        }
+
+        /**
+         * Returns the values fixed by the comparisons made so far, freezing
+         * any entries never compared.
+         *
+         * @return the values, an input that forces the same comparisons
+         */
+        int[] values() {
+            for (int i = 0; i < this.value.length; i++) {
+                if (this.value[i] == this.gas) {
+                    this.value[i] = this.frozen;
+                    this.frozen++;
+                }
+            }
+            return this.value;
+        }
+
+    }
+
+    /**
+     * Implementations under test.
+     */
+    private enum Implementation {
+
+        /**
+         * Library {@code SortingMachine1L} (layered on
+         * {@code java.util.PriorityQueue}).
+         */
+        SORTING_MACHINE_1L("components.sortingmachine.SortingMachine1L", true,
+                Integer.MAX_VALUE),
+
+        /**
+         * Library {@code SortingMachine5} (heap sort).
+         */
+        SORTING_MACHINE_5("components.sortingmachine.SortingMachine5", true,
+                Integer.MAX_VALUE),
+
+        /**
+         * {@code SortingMachine3} (insertion sort), QueueInsertionSort.
+         */
+        SORTING_MACHINE_3("SortingMachine3", true, QUADRATIC_MAX_SIZE),
+
+        /**
+         * {@code SortingMachine4} (quicksort), QueueQuicksort.
+         */
+        SORTING_MACHINE_4("SortingMachine4", true, Integer.MAX_VALUE),
+
+        /**
+         * {@code SortingMachine5a} (heap sort on a queue and an array),
+         * SortingMachineWithHeapsort.
+         */
+        SORTING_MACHINE_5A("SortingMachine5a", true, Integer.MAX_VALUE),
+
+        /**
+         * {@code SortingMachine5b} (heap sort on an array),
+         * SortingMachineWithHeapsort.
+         */
+        SORTING_MACHINE_5B("SortingMachine5b", true, Integer.MAX_VALUE),
+
+        /**
+         * {@code SortingMachine5c} (pairing heap), SortingMachineWithHeapsort.
+         */
+        SORTING_MACHINE_5C("SortingMachine5c", true, Integer.MAX_VALUE),
+
+        /**
+         * {@code SortingMachine6} (parallel merge sort),
+         * SortingMachineWithMergesort.
+         */
+        SORTING_MACHINE_6("SortingMachine6", true, Integer.MAX_VALUE),
+
+        /**
+         * {@code SortingMachine7} (external merge sort),
+         * SortingMachineWithMergesort.
+         */
+        SORTING_MACHINE_7("SortingMachine7", true, Integer.MAX_VALUE) {
+            @Override
+            Object create(Comparator<String> order)
+                    throws ReflectiveOperationException {
+                Class<?> serializer = Class.forName("Serializer");
+                return Class.forName(this.className())
+                        .getConstructor(Comparator.class, serializer)
+                        .newInstance(order, Class.forName("StringSerializer")
+                                .getConstructor().newInstance());
+            }
+        },
+
+        /**
+         * {@code SortingMachine8} (MSD radix sort),
+         * SortingMachineWithRadixsort.
+         */
+        SORTING_MACHINE_8("SortingMachine8", true, Integer.MAX_VALUE) {
+            @Override
+            Object create(Comparator<String> order)
+                    throws ReflectiveOperationException {
+                return Class.forName(this.className())
+                        .getMethod("withByteKey", Comparator.class,
+                                Function.class)
+                        .invoke(null, order, new AsciiKey());
+            }
+        },
+
+        /**
+         * Library {@code Queue1L} (quadratic sort).
+         */
+        QUEUE_1L("components.queue.Queue1L", false, QUADRATIC_MAX_SIZE),
+
+        /**
+         * {@code Queue1LSort1} (selection sort), QueueSort.
+         */
+        QUEUE_1L_SORT_1("Queue1LSort1", false, QUADRATIC_MAX_SIZE),
+
+        /**
+         * {@code Queue1LSort3} (insertion sort), QueueInsertionSort.
+         */
+        QUEUE_1L_SORT_3("Queue1LSort3", false, QUADRATIC_MAX_SIZE),
+
+        /**
+         * {@code Queue1LSort4} (quicksort), QueueQuicksort.
+         */
+        QUEUE_1L_SORT_4("Queue1LSort4", false, Integer.MAX_VALUE),
+
+        /**
+         * {@code Queue1LSort5} (adaptive run merging), QueueSort.
+         */
+        QUEUE_1L_SORT_5("Queue1LSort5", false, Integer.MAX_VALUE);
+
+        /**
+         * Fully qualified name of the class.
+         */
+        private final String className;
+
+        /**
+         * Whether the class is a {@code SortingMachine} (otherwise a
+         * {@code Queue}).
+         */
+        private final boolean isMachine;
+
+        /**
+         * Largest size at which this implementation finishes in reasonable
+         * time.
+         */
+        private final int maxSize;
+
+        /**
+         * Constructor.
+         *
+         * @param className
+         *            fully qualified name of the class
+         * @param isMachine
+         *            whether the class is a {@code SortingMachine}
+         * @param maxSize
+         *            largest size to benchmark
+         */
+        Implementation(String className, boolean isMachine, int maxSize) {
+            this.className = className;
+            this.isMachine = isMachine;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Reports the fully qualified name of the class.
+         *
+         * @return the class name
+         */
+        String className() {
+            return this.className;
+        }
+
+        /**
+         * Reports whether the class is on the class path.
+         *
+         * @return true iff the class can be loaded
+         */
+        boolean isAvailable() {
+            boolean available = true;
+            try {
+                Class.forName(this.className);
+            } catch (ClassNotFoundException e) {
+                available = false;
+            }
+            return available;
+        }
+
+        /**
+         * Returns a new, empty instance of this implementation: a
+         * {@code SortingMachine} with the given order, or a {@code Queue}.
+         *
+         * @param order
+         *            the order, for a {@code SortingMachine}
+         * @return the new instance
+         * @throws ReflectiveOperationException
+         *             if the class cannot be instantiated
+         */
+        Object create(Comparator<String> order)
+                throws ReflectiveOperationException {
+            Class<?> c = Class.forName(this.className);
+            Object result;
+            if (this.isMachine) {
+                result = c.getConstructor(Comparator.class).newInstance(order);
+            } else {
+                result = c.getConstructor().newInstance();
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Input shapes.
+     */
+    private enum Input {
+        /**
+         * Uniformly random values.
+         */
+        RANDOM,
+
+        /**
+         * Ascending values.
+         */
+        SORTED,
+
+        /**
+         * Descending values.
+         */
+        REVERSED,
+
+        /**
+         * Ascending then descending values.
+         */
+        ORGAN_PIPE,
+
+        /**
+         * Random values among {@code FEW_DISTINCT}.
+         */
+        FEW_DISTINCT,
+
+        /**
+         * McIlroy's adversary against the implementation under test.
+         */
+        QUICKSORT_KILLER
+    }
+
+    /**
+     * Returns {@code x} written with {@code DIGITS} decimal digits.
+     *
+     * @param x
+     *            the value
+     * @return the padded decimal representation
+     * @requires 0 <= x
+     */
+    private static String pad(int x) {
+        char[] digits = new char[DIGITS];
+        int rest = x;
+        for (int i = DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + rest % 10);
+            rest = rest / 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Returns the values {@code values} as padded {@code String}s.
+     *
+     * @param values
+     *            the values
+     * @return the entries
+     */
+    private static String[] entries(int[] values) {
+        String[] result = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = pad(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Runs one full cycle of {@code impl} on {@code input}: adds or enqueues
+     * every entry, sorts, and removes every entry.
+     *
+     * @param impl
+     *            the implementation
+     * @param input
+     *            the entries
+     * @param order
+     *            the order
+     * @throws ReflectiveOperationException
+     *             if the class cannot be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    private static void cycle(Implementation impl, String[] input,
+            Comparator<String> order) throws ReflectiveOperationException {
+        long sum = 0;
+        if (impl.isMachine) {
+            SortingMachine<String> m = (SortingMachine<String>) impl
+                    .create(order);
+            for (String x : input) {
+                m.add(x);
+            }
+            m.changeToExtractionMode();
+            while (m.size() > 0) {
+                sum += m.removeFirst().length();
+            }
+        } else {
+            Queue<String> q = (Queue<String>) impl.create(order);
+            for (String x : input) {
+                q.enqueue(x);
+            }
+            q.sort(order);
+            while (q.length() > 0) {
+                sum += q.dequeue().length();
+            }
+        }
+        blackhole += sum;
+    }
+
+    /**
+     * Returns {@code n} values of shape {@code shape}; for the quicksort
+     * killer, the values that defeat {@code impl}.
+     *
+     * @param shape
+     *            the input shape
+     * @param n
+     *            number of values
+     * @param impl
+     *            the implementation under test
+     * @param rnd
+     *            source of randomness
+     * @return the entries
+     * @throws ReflectiveOperationException
+     *             if the class cannot be instantiated
+     */
+    private static String[] generate(Input shape, int n, Implementation impl,
+            Random rnd) throws ReflectiveOperationException {
+        int[] values = new int[n];
+        switch (shape) {
+            case RANDOM:
+                for (int i = 0; i < n; i++) {
+                    values[i] = rnd.nextInt(Integer.MAX_VALUE);
+                }
+                break;
+            case SORTED:
+                for (int i = 0; i < n; i++) {
+                    values[i] = i;
+                }
+                break;
+            case REVERSED:
+                for (int i = 0; i < n; i++) {
+                    values[i] = n - i;
+                }
+                break;
+            case ORGAN_PIPE:
+                for (int i = 0; i < n; i++) {
+                    values[i] = Math.min(i, n - 1 - i);
+                }
+                break;
+            case FEW_DISTINCT:
+                for (int i = 0; i < n; i++) {
+                    values[i] = rnd.nextInt(FEW_DISTINCT);
+                }
+                break;
+            default:
+                int[] indices = new int[n];
+                for (int i = 0; i < n; i++) {
+                    indices[i] = i;
+                }
+                Adversary adversary = new Adversary(n);
+                cycle(impl, entries(indices), adversary);
+                values = adversary.values();
+                break;
+        }
+        return entries(values);
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or
+     * -1 if the virtual machine cannot tell.
+     *
+     * @return the number of bytes allocated
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        long bytes = -1;
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            bytes = ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return bytes;
+    }
+
+    /**
+     * Runs one measurement {@code WARMUP_RUNS + TIMED_RUNS} times and returns
+     * the medians of the timed runs.
+     *
+     * @param impl
+     *            the implementation
+     * @param input
+     *            the entries
+     * @return median nanoseconds and median bytes allocated, per element
+     * @throws ReflectiveOperationException
+     *             if the class cannot be instantiated
+     */
+    private static double[] measure(Implementation impl, String[] input)
+            throws ReflectiveOperationException {
+        Comparator<String> order = new StringLT();
+        for (int r = 0; r < WARMUP_RUNS; r++) {
+            cycle(impl, input, order);
+        }
+        double[] times = new double[TIMED_RUNS];
+        double[] bytes = new double[TIMED_RUNS];
+        for (int r = 0; r < TIMED_RUNS; r++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            cycle(impl, input, order);
+            long stop = System.nanoTime();
+            long allocatedAfter = allocatedBytes();
+            times[r] = (double) (stop - start) / input.length;
+            bytes[r] = -1;
+            if (allocatedBefore >= 0) {
+                bytes[r] = (double) (allocatedAfter - allocatedBefore)
+                        / input.length;
+            }
+        }
+        Arrays.sort(times);
+        Arrays.sort(bytes);
+        return new double[] { times[TIMED_RUNS / 2], bytes[TIMED_RUNS / 2] };
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: optional largest size, optional
+     *            output file name
+     * @throws ReflectiveOperationException
+     *             if an implementation on the class path cannot be
+     *             instantiated
+     */
+    public static void main(String[] args)
+            throws ReflectiveOperationException {
+        int maxSize = DEFAULT_MAX_SIZE;
+        if (args.length > 0) {
+            maxSize = Integer.parseInt(args[0]);
+        }
+        SimpleWriter out;
+        if (args.length > 1) {
+            out = new SimpleWriter1L(args[1]);
+        } else {
+            out = new SimpleWriter1L();
+        }
+        Random rnd = new Random(SEED);
+
+        out.println("implementation,input,size,nsPerElement,bytesPerElement");
+        for (Implementation impl : Implementation.values()) {
+            if (!impl.isAvailable()) {
+                out.println("# skipped " + impl + ": " + impl.className()
+                        + " is not on the class path");
+            }
+        }
+        for (int n = MIN_SIZE; n <= maxSize; n *= SIZE_STEP) {
+            for (Input shape : Input.values()) {
+                String[] shared = null;
+                if (shape != Input.QUICKSORT_KILLER) {
+                    shared = generate(shape, n, null, rnd);
+                }
+                for (Implementation impl : Implementation.values()) {
+                    if (impl.isAvailable() && n <= impl.maxSize) {
+                        String[] input = shared;
+                        if (input == null) {
+                            input = generate(shape, n, impl, rnd);
+                        }
+                        double[] result = measure(impl, input);
+                        out.println(impl + "," + shape + "," + n + ","
+                                + result[0] + "," + result[1]);
+                    }
+                }
+            }
+        }
+        out.println("# checksum " + blackhole);
+
+        out.close();
+    }
+
+}
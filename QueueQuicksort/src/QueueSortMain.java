@@ -68,6 +68,7 @@ public final class QueueSortMain {
          */
 //        Comparator<String> cs = new StringLT();
 //        q.sort(cs);
+        sm.changeToExtractionMode();
 
         /*
          * Output lines in sorted order
@@ -0,0 +1,245 @@
+import java.util.Comparator;
+
+import components.queue.Queue;
+
+/**
+ * In-place quicksort on arrays, and on {@code Queue}s by way of one array.
+ * <p>
+ * The pivot is the median of the first, middle and last entries, and each
+ * range is split three ways (less than, equal to and greater than the pivot)
+ * with one comparison per entry, so runs of equal entries are finished in a
+ * single pass instead of degrading to quadratic time. Ranges of at most
+ * {@code CUTOFF} entries are finished by insertion sort. Only the smaller
+ * side of each split is sorted recursively, so the recursion depth is
+ * O(log n).
+ *
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   s: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T where (<x, y> is substring of s) (r(x, y))
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class Quicksort {
+
+    /**
+     * Length of the longest range finished by insertion sort.
+     */
+    private static final int CUTOFF = 16;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Quicksort() {
+    }
+
+    /**
+     * Exchanges {@code a[i]} and {@code a[j]}.
+     *
+     * @param a
+     *            the array
+     * @param i
+     *            one index
+     * @param j
+     *            the other index
+     * @updates a
+     * @requires 0 <= i < |a|  and  0 <= j < |a|
+     * @ensures [a is #a with the entries at i and j exchanged]
+     */
+    private static void swap(Object[] a, int i, int j) {
+        Object x = a[i];
+        a[i] = a[j];
+        a[j] = x;
+    }
+
+    /**
+     * Sorts {@code a[lo, hi)} by insertion sort.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the array
+     * @param lo
+     *            start of the range
+     * @param hi
+     *            end of the range
+     * @param order
+     *            ordering by which to sort
+     * @updates a
+     * @requires 0 <= lo <= hi <= |a|
+     * @ensures <pre>
+     * perms(a[lo, hi), #a[lo, hi))  and
+     * IS_SORTED(a[lo, hi), [relation computed by order.compare method])
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void insertionSort(Object[] a, int lo, int hi,
+            Comparator<T> order) {
+        for (int i = lo + 1; i < hi; i++) {
+            Object x = a[i];
+            int j = i;
+            while (j > lo && order.compare((T) a[j - 1], (T) x) > 0) {
+                a[j] = a[j - 1];
+                j--;
+            }
+            a[j] = x;
+        }
+    }
+
+    /**
+     * Orders {@code a[i]}, {@code a[j]} and {@code a[k]} among themselves, so
+     * that {@code a[j]} is their median.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the array
+     * @param i
+     *            the first index
+     * @param j
+     *            the middle index
+     * @param k
+     *            the last index
+     * @param order
+     *            ordering by which to sort
+     * @updates a
+     * @requires 0 <= i < j < k < |a|
+     * @ensures <pre>
+     * [a is #a with the entries at i, j and k permuted so that
+     *  a[i] <= a[j] <= a[k] according to order.compare]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void sortThree(Object[] a, int i, int j, int k,
+            Comparator<T> order) {
+        if (order.compare((T) a[j], (T) a[i]) < 0) {
+            swap(a, i, j);
+        }
+        if (order.compare((T) a[k], (T) a[j]) < 0) {
+            swap(a, j, k);
+            if (order.compare((T) a[j], (T) a[i]) < 0) {
+                swap(a, i, j);
+            }
+        }
+    }
+
+    /**
+     * Sorts {@code a[lo, hi)} according to the ordering provided by the
+     * {@code compare} method from {@code order}.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the array
+     * @param lo
+     *            start of the range
+     * @param hi
+     *            end of the range
+     * @param order
+     *            ordering by which to sort
+     * @updates a
+     * @requires <pre>
+     * 0 <= lo <= hi <= |a|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * perms(a[lo, hi), #a[lo, hi))  and
+     * IS_SORTED(a[lo, hi), [relation computed by order.compare method])
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(Object[] a, int lo, int hi,
+            Comparator<T> order) {
+        assert a != null : "Violation of: a is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= lo && lo <= hi
+                && hi <= a.length : "Violation of: 0 <= lo <= hi <= |a|";
+
+        int low = lo;
+        int high = hi;
+        while (high - low > CUTOFF) {
+            int mid = (low + high) >>> 1;
+            sortThree(a, low, mid, high - 1, order);
+            T pivot = (T) a[mid];
+            /*
+             * Invariant: a[low, lt) < pivot, a[lt, i) = pivot, a[gt, high) >
+             * pivot, and a[i, gt) is not yet examined
+             */
+            int lt = low;
+            int i = low;
+            int gt = high;
+            while (i < gt) {
+                int c = order.compare((T) a[i], pivot);
+                if (c < 0) {
+                    swap(a, lt, i);
+                    lt++;
+                    i++;
+                } else if (c > 0) {
+                    gt--;
+                    swap(a, i, gt);
+                } else {
+                    i++;
+                }
+            }
+            /*
+             * Recur on the smaller side, and loop on the larger one
+             */
+            if (lt - low < high - gt) {
+                sort(a, low, lt, order);
+                low = gt;
+            } else {
+                sort(a, gt, high, order);
+                high = lt;
+            }
+        }
+        insertionSort(a, low, high, order);
+    }
+
+    /**
+     * Sorts {@code q} according to the ordering provided by the
+     * {@code compare} method from {@code order}, by moving its entries into
+     * an array, sorting that in place, and moving them back.
+     *
+     * @param <T>
+     *            type of {@code Queue} entries
+     * @param q
+     *            the {@code Queue} to be sorted
+     * @param order
+     *            ordering by which to sort
+     * @updates q
+     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * @ensures <pre>
+     * perms(q, #q)  and
+     * IS_SORTED(q, [relation computed by order.compare method])
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(Queue<T> q, Comparator<T> order) {
+        assert q != null : "Violation of: q is not null";
+        assert order != null : "Violation of: order is not null";
+
+        int n = q.length();
+        if (n > 1) {
+            Object[] a = new Object[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = q.dequeue();
+            }
+            sort(a, 0, n, order);
+            for (int i = 0; i < n; i++) {
+                q.enqueue((T) a[i]);
+            }
+        }
+    }
+
+}
@@ -10,6 +10,9 @@ import components.sortingmachine.SortingMachineSecondary;
 /**
  * {@code SortingMachine} represented as a {@code Queue} (using an embedding of
  * quicksort), with implementations of primary methods.
+ * <p>
+ * {@code add} just enqueues, and {@code changeToExtractionMode} sorts the
+ * whole queue once with {@code Quicksort}.
  *
  * @param <T>
  *            type of {@code SortingMachine} entries
@@ -58,105 +61,6 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
      */
     private Queue<T> entries;
 
-    /**
-     * Partitions {@code q} into two parts: entries no larger than
-     * {@code partitioner} are put in {@code front}, and the rest are put in
-     * {@code back}.
-     *
-     * @param <T>
-     *            type of {@code Queue} entries
-     * @param q
-     *            the {@code Queue} to be partitioned
-     * @param partitioner
-     *            the partitioning value
-     * @param front
-     *            upon return, the entries no larger than {@code partitioner}
-     * @param back
-     *            upon return, the entries larger than {@code partitioner}
-     * @param order
-     *            ordering by which to separate entries
-     * @clears q
-     * @replaces front, back
-     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
-     * @ensures <pre>
-     * perms(#q, front * back)  and
-     * for all x: T where (<x> is substring of front)
-     *  ([relation computed by order.compare method](x, partitioner))  and
-     * for all x: T where (<x> is substring of back)
-     *  (not [relation computed by order.compare method](x, partitioner))
-     * </pre>
-     */
-    private static <T> void partition(Queue<T> q, T partitioner, Queue<T> front,
-            Queue<T> back, Comparator<T> order) {
-        assert q != null : "Violation of: q is not null";
-        assert partitioner != null : "Violation of: partitioner is not null";
-        assert front != null : "Violation of: front is not null";
-        assert back != null : "Violation of: back is not null";
-        assert order != null : "Violation of: order is not null";
-
-        for (T x : q) {
-            if (order.compare(x, partitioner) < 0) {
-                front.enqueue(x);
-            } else if (order.compare(x, partitioner) >= 0) {
-                back.enqueue(x);
-            }
-        }
-
-        q.clear();
-
-    }
-
-    /**
-     * Sorts {@code q} according to the ordering provided by the {@code compare}
-     * method from {@code order}.
-     *
-     * @param <T>
-     *            type of {@code Queue} entries
-     * @param q
-     *            the {@code Queue} to be sorted
-     * @param order
-     *            ordering by which to sort
-     * @updates q
-     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
-     * @ensures IS_SORTED(q, [relation computed by order.compare method])
-     */
-    private static <T> void sort(Queue<T> q, Comparator<T> order) {
-        assert order != null : "Violation of: order is not null";
-
-        if (q.length() > 1) {
-
-            Queue<T> front = q.newInstance();
-            Queue<T> back = q.newInstance();
-
-            /*
-             * Dequeue the partitioning entry from this
-             */
-            T x = q.dequeue();
-
-            /*
-             * Partition this into two queues as discussed above (you will need
-             * to declare and initialize two new queues)
-             */
-            partition(q, x, front, back, order);
-
-            /*
-             * Recursively sort the two queues
-             */
-            front.sort(order);
-            back.sort(order);
-
-            /*
-             * Reconstruct this by combining the two sorted queues and the
-             * partitioning entry in the proper order
-             */
-            q.append(front);
-            q.enqueue(x);
-            q.append(back);
-
-        }
-
-    }
-
     /**
      * Creator of initial representation.
      *
@@ -232,28 +136,15 @@ public class SortingMachine4<T> extends SortingMachineSecondary<T> {
         assert x != null : "Violation of: x is not null";
         assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
 
-        // TODO #3 - enqueue x onto this.entries
-        // Queue<T> q, T partitioner, Queue<T> front, Queue<T> back, Comparator<T> order
-        Queue<T> front = this.entries.newInstance();
-        Queue<T> back = this.entries.newInstance();
-
         this.entries.enqueue(x);
-        partition(this.entries, x, front, back, this.machineOrder);
-        sort(front, this.machineOrder);
-        sort(back, this.machineOrder);
-
-        front.append(back);
-        this.entries.transferFrom(front);
-
     }
 
     @Override
     public final void changeToExtractionMode() {
         assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
 
-        // TODO #4 - change this.insertionMode to false and sort this.entries
         this.insertionMode = false;
-
+        Quicksort.sort(this.entries, this.machineOrder);
     }
 
     @Override
@@ -0,0 +1,154 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test fixture for {@code Quicksort}.
+ */
+public final class QuicksortTest {
+
+    /**
+     * Length of the large arrays sorted.
+     */
+    private static final int LARGE = 5000;
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer i1, Integer i2) {
+            return i1.compareTo(i2);
+        }
+
+    }
+
+    /**
+     * Sorts {@code values} with {@code Quicksort} and checks the result
+     * against {@code Arrays.sort}.
+     *
+     * @param values
+     *            the entries to sort
+     */
+    private static void checkSort(Integer[] values) {
+        Integer[] expected = values.clone();
+        Arrays.sort(expected);
+        Object[] a = values.clone();
+
+        Quicksort.sort(a, 0, a.length, new IntegerLT());
+
+        assertArrayEquals(expected, a);
+    }
+
+    @Test
+    public void testSortEmpty() {
+        checkSort(new Integer[0]);
+    }
+
+    @Test
+    public void testSortSmall() {
+        checkSort(new Integer[] { 3, 1, 2 });
+    }
+
+    @Test
+    public void testSortRandom() {
+        Integer[] values = new Integer[LARGE];
+        Random rnd = new Random(2231);
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = rnd.nextInt();
+        }
+        checkSort(values);
+    }
+
+    @Test
+    public void testSortFewDistinct() {
+        Integer[] values = new Integer[LARGE];
+        Random rnd = new Random(2231);
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = rnd.nextInt(3);
+        }
+        checkSort(values);
+    }
+
+    @Test
+    public void testSortAllEqual() {
+        Integer[] values = new Integer[LARGE];
+        Arrays.fill(values, 7);
+        checkSort(values);
+    }
+
+    @Test
+    public void testSortAscending() {
+        Integer[] values = new Integer[LARGE];
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = i;
+        }
+        checkSort(values);
+    }
+
+    @Test
+    public void testSortDescending() {
+        Integer[] values = new Integer[LARGE];
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = LARGE - i;
+        }
+        checkSort(values);
+    }
+
+    @Test
+    public void testSortSubrange() {
+        Object[] a = { 9, 4, 3, 2, 1, 0 };
+
+        Quicksort.sort(a, 1, 5, new IntegerLT());
+
+        assertArrayEquals(new Object[] { 9, 1, 2, 3, 4, 0 }, a);
+    }
+
+    @Test
+    public void testSortQueue() {
+        Queue<Integer> q = new Queue1L<Integer>();
+        Queue<Integer> qExpected = new Queue1L<Integer>();
+        q.enqueue(5);
+        q.enqueue(2);
+        q.enqueue(5);
+        q.enqueue(1);
+        qExpected.enqueue(1);
+        qExpected.enqueue(2);
+        qExpected.enqueue(5);
+        qExpected.enqueue(5);
+
+        Quicksort.sort(q, new IntegerLT());
+
+        assertEquals(qExpected, q);
+    }
+
+    @Test
+    public void testQueue1LSort4Sort() {
+        Queue<Integer> q = new Queue1LSort4<Integer>();
+        Queue<Integer> qExpected = new Queue1L<Integer>();
+        Random rnd = new Random(2231);
+        Integer[] values = new Integer[LARGE];
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = rnd.nextInt(LARGE);
+            q.enqueue(values[i]);
+        }
+        Arrays.sort(values);
+        for (Integer x : values) {
+            qExpected.enqueue(x);
+        }
+
+        q.sort(new IntegerLT());
+
+        assertEquals(qExpected, q);
+    }
+
+}
@@ -0,0 +1,372 @@
+import java.util.Comparator;
+
+import components.queue.Queue1L;
+
+/**
+ * Layered implementation of secondary method {@code sort} for
+ * {@code Queue<T>} that adapts to the order already present in the entries.
+ * <p>
+ * The entries are moved into an array, sorted there, and moved back. Up to
+ * {@code SMALL} entries are sorted by insertion sort. Otherwise the array is
+ * cut into its natural runs (maximal non-descending, or strictly descending
+ * and then reversed in place), runs shorter than a minimum length are
+ * extended by insertion sort, and adjacent runs are merged TimSort-style, a
+ * stack of pending runs keeping the merges balanced. An already sorted or
+ * reverse sorted queue is a single run and costs n - 1 comparisons; a queue
+ * made of k long runs costs O(n log k). The sort is stable.
+ *
+ * @param <T>
+ *            type of {@code Queue} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   s: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T where (<x, y> is substring of s) (r(x, y))
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class Queue1LSort5<T> extends Queue1L<T> {
+
+    /**
+     * Length of the longest queue sorted by insertion sort alone, and bound
+     * on the minimum run length.
+     */
+    private static final int SMALL = 32;
+
+    /**
+     * Largest number of pending runs: their lengths grow at least like the
+     * Fibonacci numbers, so this covers any {@code int} length.
+     */
+    private static final int MAX_RUNS = 64;
+
+    /**
+     * No-argument constructor.
+     */
+    public Queue1LSort5() {
+        super();
+    }
+
+    /**
+     * Sorts {@code a[lo, hi)} by insertion sort, given that
+     * {@code a[lo, start)} is already sorted.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the array
+     * @param lo
+     *            start of the range
+     * @param start
+     *            end of the sorted prefix
+     * @param hi
+     *            end of the range
+     * @param order
+     *            ordering by which to sort
+     * @updates a
+     * @requires <pre>
+     * 0 <= lo < start <= hi <= |a|  and
+     * IS_SORTED(a[lo, start), [relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * perms(a[lo, hi), #a[lo, hi))  and
+     * IS_SORTED(a[lo, hi), [relation computed by order.compare method])
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void insertionSort(Object[] a, int lo, int start,
+            int hi, Comparator<T> order) {
+        for (int i = start; i < hi; i++) {
+            Object x = a[i];
+            int j = i;
+            while (j > lo && order.compare((T) a[j - 1], (T) x) > 0) {
+                a[j] = a[j - 1];
+                j--;
+            }
+            a[j] = x;
+        }
+    }
+
+    /**
+     * Returns the end of the natural run starting at {@code lo}. A strictly
+     * descending run is reversed in place first.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the array
+     * @param lo
+     *            start of the run
+     * @param hi
+     *            end of the range searched
+     * @param order
+     *            ordering by which to sort
+     * @return the end of the run
+     * @updates a
+     * @requires 0 <= lo < hi <= |a|
+     * @ensures <pre>
+     * lo < runEnd <= hi  and  perms(a[lo, runEnd), #a[lo, runEnd))  and
+     * IS_SORTED(a[lo, runEnd), [relation computed by order.compare method])
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int runEnd(Object[] a, int lo, int hi,
+            Comparator<T> order) {
+        int end = lo + 1;
+        if (end < hi) {
+            if (order.compare((T) a[end], (T) a[lo]) < 0) {
+                end++;
+                while (end < hi
+                        && order.compare((T) a[end], (T) a[end - 1]) < 0) {
+                    end++;
+                }
+                int i = lo;
+                int j = end - 1;
+                while (i < j) {
+                    Object x = a[i];
+                    a[i] = a[j];
+                    a[j] = x;
+                    i++;
+                    j--;
+                }
+            } else {
+                end++;
+                while (end < hi
+                        && order.compare((T) a[end], (T) a[end - 1]) >= 0) {
+                    end++;
+                }
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns the minimum run length for sorting {@code n} entries: a length
+     * between {@code SMALL / 2} and {@code SMALL} such that {@code n} divided
+     * by it is a power of 2 or just below one, so the final merges are
+     * balanced.
+     *
+     * @param n
+     *            the number of entries
+     * @return the minimum run length
+     * @requires n >= 0
+     * @ensures <pre>
+     * if n < SMALL then minRunLength = n
+     * else SMALL / 2 <= minRunLength <= SMALL
+     * </pre>
+     */
+    private static int minRunLength(int n) {
+        int length = n;
+        int lowBits = 0;
+        while (length >= SMALL) {
+            lowBits = lowBits | (length & 1);
+            length = length >> 1;
+        }
+        return length + lowBits;
+    }
+
+    /**
+     * Stack of pending runs of an array being sorted, with the scratch space
+     * for merging them.
+     *
+     * @param <T>
+     *            type of the entries
+     */
+    private static final class RunStack<T> {
+
+        /**
+         * The array being sorted.
+         */
+        private final Object[] a;
+
+        /**
+         * Scratch space for merges.
+         */
+        private final Object[] scratch;
+
+        /**
+         * Ordering by which to sort.
+         */
+        private final Comparator<T> order;
+
+        /**
+         * Start of each pending run.
+         */
+        private final int[] base;
+
+        /**
+         * Length of each pending run.
+         */
+        private final int[] length;
+
+        /**
+         * Number of pending runs.
+         */
+        private int size;
+
+        /**
+         * Constructor.
+         *
+         * @param a
+         *            the array being sorted
+         * @param order
+         *            ordering by which to sort
+         */
+        RunStack(Object[] a, Comparator<T> order) {
+            this.a = a;
+            this.scratch = new Object[a.length];
+            this.order = order;
+            this.base = new int[MAX_RUNS];
+            this.length = new int[MAX_RUNS];
+            this.size = 0;
+        }
+
+        /**
+         * Pushes the sorted run {@code a[lo, lo + n)}, which must follow the
+         * last pending run, and merges runs until the stack is balanced
+         * again.
+         *
+         * @param lo
+         *            start of the run
+         * @param n
+         *            length of the run
+         */
+        void push(int lo, int n) {
+            this.base[this.size] = lo;
+            this.length[this.size] = n;
+            this.size++;
+            this.collapse();
+        }
+
+        /**
+         * Merges pending runs until, reading down from the top, each length
+         * exceeds the sum of the next two and each exceeds the one above.
+         */
+        private void collapse() {
+            int[] len = this.length;
+            boolean balanced = false;
+            while (!balanced && this.size > 1) {
+                int k = this.size - 2;
+                if ((k > 0 && len[k - 1] <= len[k] + len[k + 1])
+                        || (k > 1 && len[k - 2] <= len[k - 1] + len[k])) {
+                    if (len[k - 1] < len[k + 1]) {
+                        k--;
+                    }
+                    this.mergeAt(k);
+                } else if (len[k] <= len[k + 1]) {
+                    this.mergeAt(k);
+                } else {
+                    balanced = true;
+                }
+            }
+        }
+
+        /**
+         * Merges all pending runs into one.
+         */
+        void mergeAll() {
+            while (this.size > 1) {
+                int k = this.size - 2;
+                if (k > 0 && this.length[k - 1] < this.length[k + 1]) {
+                    k--;
+                }
+                this.mergeAt(k);
+            }
+        }
+
+        /**
+         * Merges pending runs {@code i} and {@code i + 1} stably.
+         *
+         * @param i
+         *            index of the first of the two runs
+         */
+        @SuppressWarnings("unchecked")
+        private void mergeAt(int i) {
+            int lo = this.base[i];
+            int mid = this.base[i + 1];
+            int hi = mid + this.length[i + 1];
+            this.length[i] += this.length[i + 1];
+            if (i + 3 == this.size) {
+                this.base[i + 1] = this.base[i + 2];
+                this.length[i + 1] = this.length[i + 2];
+            }
+            this.size--;
+
+            /*
+             * Nothing to do if the runs are already in order; otherwise the
+             * first run is moved out of the way and merged back
+             */
+            if (this.order.compare((T) this.a[mid], (T) this.a[mid - 1]) < 0) {
+                System.arraycopy(this.a, lo, this.scratch, 0, mid - lo);
+                int left = 0;
+                int leftEnd = mid - lo;
+                int right = mid;
+                int to = lo;
+                while (left < leftEnd && right < hi) {
+                    if (this.order.compare((T) this.a[right],
+                            (T) this.scratch[left]) < 0) {
+                        this.a[to] = this.a[right];
+                        right++;
+                    } else {
+                        this.a[to] = this.scratch[left];
+                        left++;
+                    }
+                    to++;
+                }
+                System.arraycopy(this.scratch, left, this.a, to,
+                        leftEnd - left);
+                for (int j = 0; j < leftEnd; j++) {
+                    this.scratch[j] = null;
+                }
+            }
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void sort(Comparator<T> order) {
+        assert order != null : "Violation of: order is not null";
+
+        int n = this.length();
+        if (n > 1) {
+            Object[] a = new Object[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = this.dequeue();
+            }
+
+            if (n <= SMALL) {
+                insertionSort(a, 0, 1, n, order);
+            } else {
+                RunStack<T> runs = new RunStack<T>(a, order);
+                int minRun = minRunLength(n);
+                int lo = 0;
+                while (lo < n) {
+                    int end = runEnd(a, lo, n, order);
+                    if (end - lo < minRun) {
+                        int forced = Math.min(lo + minRun, n);
+                        insertionSort(a, lo, end, forced, order);
+                        end = forced;
+                    }
+                    runs.push(lo, end - lo);
+                    lo = end;
+                }
+                runs.mergeAll();
+            }
+
+            for (int i = 0; i < n; i++) {
+                this.enqueue((T) a[i]);
+            }
+        }
+    }
+
+}
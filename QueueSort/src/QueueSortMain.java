@@ -8,7 +8,7 @@ import components.simplewriter.SimpleWriter1L;
 
 /**
  * Program to sort lines from an input file in lexicographic order by using
- * selection sort on {@code Queue<String>}.
+ * an adaptive sort on {@code Queue<String>}.
  *
  * @author Paolo Bucci
  */
@@ -125,7 +125,7 @@ public final class QueueSortMain {
         /*
          * Get lines from input and output them, unsorted
          */
-        Queue<String> q = new Queue1LSort1();
+        Queue<String> q = new Queue1LSort5<String>();
         getLinesFromInput(file, q);
         putLinesToOutput(out, q);
 
@@ -0,0 +1,169 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test fixture for {@code Queue1LSort5}.
+ */
+public final class Queue1LSort5Test {
+
+    /**
+     * Length of the large queues sorted.
+     */
+    private static final int LARGE = 5000;
+
+    /**
+     * Compare {@code Integer}s in increasing order, counting comparisons.
+     */
+    private static class CountingLT implements Comparator<Integer> {
+
+        /**
+         * Number of comparisons made.
+         */
+        private int count = 0;
+
+        @Override
+        public int compare(Integer i1, Integer i2) {
+            this.count++;
+            return i1.compareTo(i2);
+        }
+
+    }
+
+    /**
+     * Compare {@code String}s by length only.
+     */
+    private static class StringLengthLT implements Comparator<String> {
+
+        @Override
+        public int compare(String s1, String s2) {
+            return Integer.compare(s1.length(), s2.length());
+        }
+
+    }
+
+    /**
+     * Sorts {@code values} in a {@code Queue1LSort5} and checks the result
+     * against {@code Arrays.sort}.
+     *
+     * @param values
+     *            the entries to sort
+     * @return the number of comparisons made
+     */
+    private static int checkSort(Integer[] values) {
+        Queue<Integer> q = new Queue1LSort5<Integer>();
+        for (Integer x : values) {
+            q.enqueue(x);
+        }
+        Integer[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Queue<Integer> qExpected = new Queue1L<Integer>();
+        for (Integer x : sorted) {
+            qExpected.enqueue(x);
+        }
+        CountingLT order = new CountingLT();
+
+        q.sort(order);
+
+        assertEquals(qExpected, q);
+        return order.count;
+    }
+
+    @Test
+    public void testSortEmpty() {
+        checkSort(new Integer[0]);
+    }
+
+    @Test
+    public void testSortSmall() {
+        checkSort(new Integer[] { 4, 1, 3, 1, 2 });
+    }
+
+    @Test
+    public void testSortRandom() {
+        Integer[] values = new Integer[LARGE];
+        Random rnd = new Random(2231);
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = rnd.nextInt(LARGE);
+        }
+        checkSort(values);
+    }
+
+    @Test
+    public void testSortAscendingIsLinear() {
+        Integer[] values = new Integer[LARGE];
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = i / 2;
+        }
+        assertEquals(LARGE - 1, checkSort(values));
+    }
+
+    @Test
+    public void testSortDescendingIsLinear() {
+        Integer[] values = new Integer[LARGE];
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = LARGE - i;
+        }
+        assertEquals(LARGE - 1, checkSort(values));
+    }
+
+    @Test
+    public void testSortFewRuns() {
+        final int runs = 4;
+        Integer[] values = new Integer[LARGE];
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = (i * runs) % LARGE + i * runs / LARGE;
+        }
+        int comparisons = checkSort(values);
+        assertEquals(true, comparisons < 3 * LARGE);
+    }
+
+    @Test
+    public void testSortNearlySorted() {
+        Integer[] values = new Integer[LARGE];
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = i;
+        }
+        Random rnd = new Random(2231);
+        for (int k = 0; k < LARGE / 100; k++) {
+            int i = rnd.nextInt(LARGE);
+            int j = rnd.nextInt(LARGE);
+            Integer x = values[i];
+            values[i] = values[j];
+            values[j] = x;
+        }
+        checkSort(values);
+    }
+
+    @Test
+    public void testSortIsStable() {
+        Queue<String> q = new Queue1LSort5<String>();
+        Random rnd = new Random(2231);
+        for (int i = 0; i < LARGE; i++) {
+            q.enqueue(rnd.nextInt(3) + ":" + i);
+        }
+
+        q.sort(new StringLengthLT());
+
+        String previous = q.dequeue();
+        while (q.length() > 0) {
+            String s = q.dequeue();
+            assertEquals(true, previous.length() <= s.length());
+            if (previous.length() == s.length()) {
+                int i = Integer.parseInt(
+                        previous.substring(previous.indexOf(':') + 1));
+                int j = Integer.parseInt(s.substring(s.indexOf(':') + 1));
+                assertEquals(true, i < j);
+            }
+            previous = s;
+        }
+    }
+
+}
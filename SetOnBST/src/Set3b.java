@@ -0,0 +1,1033 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a red-black tree of elements with
+ * implementations of primary methods.
+ * <p>
+ * Unlike {@code Set3a}, the tree is linked directly through its nodes (each
+ * with a pointer to its parent) rather than through {@code BinaryTree}, so
+ * {@code contains}, {@code add} and {@code remove} walk it in a loop without
+ * recursion and, apart from the one node {@code add} creates, without
+ * allocating. The red-black rules keep the height below 2 log(n + 1) whatever
+ * the order of insertion, so all three take O(log n) time, and sorted input
+ * no longer degenerates into a list. Iteration is in increasing order.
+ * <p>
+ * Each node also records the size of its subtree, which makes {@code Set3b}
+ * an order-statistic set: besides the {@code Set} methods it answers
+ * {@code floor}, {@code ceiling}, {@code rank}, {@code select} and
+ * {@code rangeCount} in O(log n) time, and {@code range} iterates over the
+ * elements between two bounds lazily, in O(log n) time to start and O(1)
+ * amortized per element.
+ * <p>
+ * When the other operand is also a {@code Set3b}, the bulk operations
+ * {@code add(Set)} (union) and {@code remove(Set)} (difference) merge the two
+ * sorted sequences of elements and rebuild balanced trees from the results,
+ * in O(|this| + |s|) time, whenever that beats one O(log |this|) lookup and
+ * update per element of {@code s}: that is, when |s| log |this| >= |this|.
+ * A small {@code s} is still handled one element at a time.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_RED_BLACK(
+ *   tree: binary tree of (value: T, red: boolean)
+ *  ): boolean satisfies
+ *  [tree satisfies the binary search tree properties with the ordering
+ *   reported by compareTo for T, including that it has no duplicate
+ *   labels]  and
+ *  [the root of tree is not red]  and
+ *  [no red node of tree has a red child]  and
+ *  [every path from the root of tree to an empty subtree passes through
+ *   the same number of nodes that are not red]
+ * </pre>
+ * @convention <pre>
+ * $this.nil is a node that is not red  and
+ * IS_RED_BLACK([the tree rooted at $this.root, where a subtree equal to
+ *   $this.nil is empty])  and
+ * [for each node y of that tree other than $this.root, y.parent is the node
+ *  of which y is a child, and $this.root.parent = $this.nil]  and
+ * [for each node y of that tree, y.count is the number of nodes of the
+ *  subtree rooted at y]  and  $this.nil.count = 0  and
+ * $this.size = [the number of nodes of that tree]
+ * </pre>
+ * @correspondence this = [the values of the nodes of the tree rooted at
+ *                 $this.root]
+ *
+ * @author Yifan Yao
+ *
+ */
+public class Set3b<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node of the tree.
+     *
+     * @param <T>
+     *            type of the value
+     */
+    private static final class Node<T> {
+
+        /**
+         * The value.
+         */
+        private T value;
+
+        /**
+         * Left child, or the sentinel.
+         */
+        private Node<T> left;
+
+        /**
+         * Right child, or the sentinel.
+         */
+        private Node<T> right;
+
+        /**
+         * Parent, or the sentinel.
+         */
+        private Node<T> parent;
+
+        /**
+         * Whether the node is red.
+         */
+        private boolean red;
+
+        /**
+         * Number of nodes in the subtree rooted at this node.
+         */
+        private int count;
+
+        /**
+         * Constructor.
+         *
+         * @param value
+         *            the value
+         */
+        private Node(T value) {
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * Sentinel standing for every empty subtree, and for the parent of the
+     * root.
+     */
+    private Node<T> nil;
+
+    /**
+     * Root of the tree, or the sentinel.
+     */
+    private Node<T> root;
+
+    /**
+     * Number of elements.
+     */
+    private int size;
+
+    /**
+     * Returns the node of the tree with value {@code x}, or the sentinel.
+     *
+     * @param x
+     *            the value searched for
+     * @return the node with value x, or $this.nil if there is none
+     */
+    private Node<T> find(T x) {
+        Node<T> n = this.root;
+        int c = 1;
+        while (n != this.nil && c != 0) {
+            c = x.compareTo(n.value);
+            if (c < 0) {
+                n = n.left;
+            } else if (c > 0) {
+                n = n.right;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the leftmost node of the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the root of the subtree
+     * @return the node of that subtree with the smallest value
+     * @requires n /= $this.nil
+     */
+    private Node<T> leftmost(Node<T> n) {
+        Node<T> m = n;
+        while (m.left != this.nil) {
+            m = m.left;
+        }
+        return m;
+    }
+
+    /**
+     * Returns the node of the tree with the smallest value not less than
+     * {@code x}, or the sentinel.
+     *
+     * @param x
+     *            the bound
+     * @return the node with the smallest value >= x, or $this.nil if there is
+     *         none
+     */
+    private Node<T> ceilingNode(T x) {
+        Node<T> best = this.nil;
+        Node<T> n = this.root;
+        int c = 1;
+        while (n != this.nil && c != 0) {
+            c = x.compareTo(n.value);
+            if (c <= 0) {
+                best = n;
+                n = n.left;
+            } else {
+                n = n.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the in-order successor of node {@code n}, or the sentinel.
+     *
+     * @param n
+     *            the node
+     * @return the node with the next larger value, or $this.nil if there is
+     *         none
+     * @requires n /= $this.nil
+     */
+    private Node<T> successor(Node<T> n) {
+        Node<T> next;
+        if (n.right != this.nil) {
+            next = this.leftmost(n.right);
+        } else {
+            Node<T> child = n;
+            next = n.parent;
+            while (next != this.nil && child == next.right) {
+                child = next;
+                next = next.parent;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code x} to the left, so its right child
+     * takes its place.
+     *
+     * @param x
+     *            the root of the subtree
+     * @requires x /= $this.nil  and  x.right /= $this.nil
+     */
+    private void rotateLeft(Node<T> x) {
+        Node<T> y = x.right;
+        x.right = y.left;
+        if (y.left != this.nil) {
+            y.left.parent = x;
+        }
+        this.replace(x, y);
+        y.left = x;
+        x.parent = y;
+        y.count = x.count;
+        x.count = x.left.count + x.right.count + 1;
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code x} to the right, so its left child
+     * takes its place.
+     *
+     * @param x
+     *            the root of the subtree
+     * @requires x /= $this.nil  and  x.left /= $this.nil
+     */
+    private void rotateRight(Node<T> x) {
+        Node<T> y = x.left;
+        x.left = y.right;
+        if (y.right != this.nil) {
+            y.right.parent = x;
+        }
+        this.replace(x, y);
+        y.right = x;
+        x.parent = y;
+        y.count = x.count;
+        x.count = x.left.count + x.right.count + 1;
+    }
+
+    /**
+     * Puts the subtree rooted at {@code v} in the place of the subtree rooted
+     * at {@code u}, as a child of the parent of {@code u} (or as the root).
+     *
+     * @param u
+     *            the root of the subtree replaced
+     * @param v
+     *            the root of the replacing subtree, possibly the sentinel
+     * @requires u /= $this.nil
+     */
+    private void replace(Node<T> u, Node<T> v) {
+        if (u.parent == this.nil) {
+            this.root = v;
+        } else if (u == u.parent.left) {
+            u.parent.left = v;
+        } else {
+            u.parent.right = v;
+        }
+        v.parent = u.parent;
+    }
+
+    /**
+     * Restores the red-black rules after the red node {@code z} has been
+     * linked in as a leaf.
+     *
+     * @param z
+     *            the new node
+     */
+    private void fixAfterInsert(Node<T> z) {
+        Node<T> x = z;
+        while (x.parent.red) {
+            Node<T> p = x.parent;
+            Node<T> g = p.parent;
+            if (p == g.left) {
+                Node<T> uncle = g.right;
+                if (uncle.red) {
+                    p.red = false;
+                    uncle.red = false;
+                    g.red = true;
+                    x = g;
+                } else {
+                    if (x == p.right) {
+                        x = p;
+                        this.rotateLeft(x);
+                        p = x.parent;
+                    }
+                    p.red = false;
+                    g.red = true;
+                    this.rotateRight(g);
+                }
+            } else {
+                Node<T> uncle = g.left;
+                if (uncle.red) {
+                    p.red = false;
+                    uncle.red = false;
+                    g.red = true;
+                    x = g;
+                } else {
+                    if (x == p.left) {
+                        x = p;
+                        this.rotateRight(x);
+                        p = x.parent;
+                    }
+                    p.red = false;
+                    g.red = true;
+                    this.rotateLeft(g);
+                }
+            }
+        }
+        this.root.red = false;
+    }
+
+    /**
+     * Unlinks node {@code z} from the tree and restores the red-black rules.
+     *
+     * @param z
+     *            the node to be removed
+     * @requires z /= $this.nil  and  [z is a node of the tree]
+     */
+    private void delete(Node<T> z) {
+        /*
+         * The node unlinked from its place is z itself if it has at most one
+         * child, its successor otherwise; every subtree above that place loses
+         * one node
+         */
+        Node<T> unlinked = z;
+        if (z.left != this.nil && z.right != this.nil) {
+            unlinked = this.leftmost(z.right);
+        }
+        for (Node<T> a = unlinked.parent; a != this.nil; a = a.parent) {
+            a.count--;
+        }
+
+        Node<T> x;
+        boolean removedRed = z.red;
+        if (z.left == this.nil) {
+            x = z.right;
+            this.replace(z, x);
+        } else if (z.right == this.nil) {
+            x = z.left;
+            this.replace(z, x);
+        } else {
+            /*
+             * Move the successor of z, which has no left child, into the place
+             * of z
+             */
+            Node<T> y = unlinked;
+            removedRed = y.red;
+            x = y.right;
+            if (y.parent == z) {
+                x.parent = y;
+            } else {
+                this.replace(y, x);
+                y.right = z.right;
+                y.right.parent = y;
+            }
+            this.replace(z, y);
+            y.left = z.left;
+            y.left.parent = y;
+            y.red = z.red;
+            y.count = z.count;
+        }
+        if (!removedRed) {
+            this.fixAfterDelete(x);
+        }
+        this.nil.parent = this.nil;
+    }
+
+    /**
+     * Restores the red-black rules after a node that was not red has been
+     * unlinked, {@code x} having taken its place.
+     *
+     * @param x
+     *            the node, possibly the sentinel with its parent set, now one
+     *            short of nodes that are not red on its paths
+     */
+    private void fixAfterDelete(Node<T> x) {
+        Node<T> n = x;
+        while (n != this.root && !n.red) {
+            Node<T> p = n.parent;
+            if (n == p.left) {
+                Node<T> w = p.right;
+                if (w.red) {
+                    w.red = false;
+                    p.red = true;
+                    this.rotateLeft(p);
+                    w = p.right;
+                }
+                if (!w.left.red && !w.right.red) {
+                    w.red = true;
+                    n = p;
+                } else {
+                    if (!w.right.red) {
+                        w.left.red = false;
+                        w.red = true;
+                        this.rotateRight(w);
+                        w = p.right;
+                    }
+                    w.red = p.red;
+                    p.red = false;
+                    w.right.red = false;
+                    this.rotateLeft(p);
+                    n = this.root;
+                }
+            } else {
+                Node<T> w = p.left;
+                if (w.red) {
+                    w.red = false;
+                    p.red = true;
+                    this.rotateRight(p);
+                    w = p.left;
+                }
+                if (!w.left.red && !w.right.red) {
+                    w.red = true;
+                    n = p;
+                } else {
+                    if (!w.left.red) {
+                        w.right.red = false;
+                        w.red = true;
+                        this.rotateLeft(w);
+                        w = p.left;
+                    }
+                    w.red = p.red;
+                    p.red = false;
+                    w.left.red = false;
+                    this.rotateRight(p);
+                    n = this.root;
+                }
+            }
+        }
+        n.red = false;
+    }
+
+    /**
+     * Returns the values of the tree in increasing order.
+     *
+     * @return the values of the tree, in increasing order
+     * @ensures |toSortedArray| = $this.size
+     */
+    private Object[] toSortedArray() {
+        Object[] a = new Object[this.size];
+        if (this.root != this.nil) {
+            int i = 0;
+            Node<T> n = this.leftmost(this.root);
+            while (n != this.nil) {
+                a[i] = n.value;
+                i++;
+                n = this.successor(n);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns the root of a tree of height O(log n) holding {@code a[lo, hi)},
+     * whose nodes are red exactly at depth {@code redLevel}.
+     *
+     * @param a
+     *            the values, in increasing order
+     * @param lo
+     *            start of the range
+     * @param hi
+     *            end of the range
+     * @param level
+     *            the depth of the root of the tree built
+     * @param redLevel
+     *            the depth of the red nodes
+     * @param parent
+     *            the parent of the root of the tree built
+     * @return the root of the tree, or the sentinel if lo = hi
+     */
+    @SuppressWarnings("unchecked")
+    private Node<T> build(Object[] a, int lo, int hi, int level,
+            int redLevel, Node<T> parent) {
+        Node<T> n = this.nil;
+        if (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            n = new Node<T>((T) a[mid]);
+            n.parent = parent;
+            n.red = level == redLevel;
+            n.count = hi - lo;
+            n.left = this.build(a, lo, mid, level + 1, redLevel, n);
+            n.right = this.build(a, mid + 1, hi, level + 1, redLevel, n);
+        }
+        return n;
+    }
+
+    /**
+     * Replaces the tree by a balanced one holding {@code a[0, n)}.
+     *
+     * @param a
+     *            the values, in increasing order without duplicates
+     * @param n
+     *            the number of values
+     * @replaces this
+     * @ensures this = entries(a[0, n))
+     */
+    private void rebuild(Object[] a, int n) {
+        this.createNewRep();
+        /*
+         * Splitting at the middle leaves every empty subtree at one of two
+         * depths; coloring the nodes of the deepest full level red (when it
+         * is not complete) balances the black heights
+         */
+        int redLevel = 0;
+        for (int m = n - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+        this.root = this.build(a, 0, n, 0, redLevel, this.nil);
+        this.size = n;
+    }
+
+    /**
+     * Reports whether merging with a set of {@code m} elements, in
+     * O(|this| + m) time, is no slower than updating {@code this} one element
+     * at a time, in O(m log |this|) time.
+     *
+     * @param m
+     *            the size of the other set
+     * @return true iff m * log |this| >= |this|
+     */
+    private boolean mergeIsCheaper(int m) {
+        int log = Integer.SIZE - Integer.numberOfLeadingZeros(this.size);
+        return (long) m * log >= this.size;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.nil = new Node<T>(null);
+        this.nil.left = this.nil;
+        this.nil.right = this.nil;
+        this.nil.parent = this.nil;
+        this.nil.red = false;
+        this.nil.count = 0;
+        this.root = this.nil;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3b() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3b<?> : ""
+                + "Violation of: source is of dynamic type Set3b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3b<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3b<T> localSource = (Set3b<T>) source;
+        this.nil = localSource.nil;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node<T> parent = this.nil;
+        Node<T> n = this.root;
+        int c = 0;
+        while (n != this.nil) {
+            parent = n;
+            c = x.compareTo(n.value);
+            assert c != 0 : "Violation of: x is not in this";
+            n.count++;
+            if (c < 0) {
+                n = n.left;
+            } else {
+                n = n.right;
+            }
+        }
+        Node<T> z = new Node<T>(x);
+        z.left = this.nil;
+        z.right = this.nil;
+        z.parent = parent;
+        z.red = true;
+        z.count = 1;
+        if (parent == this.nil) {
+            this.root = z;
+        } else if (c < 0) {
+            parent.left = z;
+        } else {
+            parent.right = z;
+        }
+        this.size++;
+        this.fixAfterInsert(z);
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node<T> z = this.find(x);
+        assert z != this.nil : "Violation of: x is in this";
+        this.delete(z);
+        this.size--;
+        return z.value;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Node<T> z = this.root;
+        this.delete(z);
+        this.size--;
+        return z.value;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.find(x) != this.nil;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        Node<T> first = this.nil;
+        if (this.root != this.nil) {
+            first = this.leftmost(this.root);
+        }
+        return new Set3bIterator(first, null);
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Reports the largest element of {@code this} not greater than {@code x}.
+     *
+     * @param x
+     *            the bound
+     * @return the largest element <= x, or null if there is none
+     * @ensures <pre>
+     * if there exists y: T (y is in this  and  y <= x)
+     * then floor is in this  and  floor <= x  and
+     *      for all y: T where (y is in this  and  y <= x) (y <= floor)
+     * else floor = null
+     * </pre>
+     */
+    public final T floor(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        T best = null;
+        Node<T> n = this.root;
+        int c = -1;
+        while (n != this.nil && c != 0) {
+            c = x.compareTo(n.value);
+            if (c >= 0) {
+                best = n.value;
+                n = n.right;
+            } else {
+                n = n.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Reports the smallest element of {@code this} not less than {@code x}.
+     *
+     * @param x
+     *            the bound
+     * @return the smallest element >= x, or null if there is none
+     * @ensures <pre>
+     * if there exists y: T (y is in this  and  x <= y)
+     * then ceiling is in this  and  x <= ceiling  and
+     *      for all y: T where (y is in this  and  x <= y) (ceiling <= y)
+     * else ceiling = null
+     * </pre>
+     */
+    public final T ceiling(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.ceilingNode(x).value;
+    }
+
+    /**
+     * Reports the number of elements of {@code this} less than {@code x}.
+     *
+     * @param x
+     *            the element to be ranked, which need not be in {@code this}
+     * @return the number of elements < x
+     * @ensures rank = |{y: T where (y is in this  and  y < x)}|
+     */
+    public final int rank(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        int rank = 0;
+        Node<T> n = this.root;
+        int c = 1;
+        while (n != this.nil && c != 0) {
+            c = x.compareTo(n.value);
+            if (c < 0) {
+                n = n.left;
+            } else {
+                rank += n.left.count;
+                if (c > 0) {
+                    rank++;
+                    n = n.right;
+                }
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Reports the element of {@code this} of rank {@code i}, i.e., the
+     * element with exactly {@code i} smaller elements.
+     *
+     * @param i
+     *            the rank
+     * @return the element of rank i
+     * @requires 0 <= i < |this|
+     * @ensures select is in this  and  rank(select) = i
+     */
+    public final T select(int i) {
+        assert 0 <= i && i < this.size : "Violation of: 0 <= i < |this|";
+
+        int k = i;
+        Node<T> n = this.root;
+        while (k != n.left.count) {
+            if (k < n.left.count) {
+                n = n.left;
+            } else {
+                k -= n.left.count + 1;
+                n = n.right;
+            }
+        }
+        return n.value;
+    }
+
+    /**
+     * Reports the number of elements of {@code this} between {@code lo} and
+     * {@code hi}, both included.
+     *
+     * @param lo
+     *            the lower bound
+     * @param hi
+     *            the upper bound
+     * @return the number of elements in [lo, hi]
+     * @ensures rangeCount = |{y: T where (y is in this  and  lo <= y <= hi)}|
+     */
+    public final int rangeCount(T lo, T hi) {
+        assert lo != null : "Violation of: lo is not null";
+        assert hi != null : "Violation of: hi is not null";
+
+        int count = 0;
+        if (lo.compareTo(hi) <= 0) {
+            count = this.rank(hi) - this.rank(lo);
+            if (this.contains(hi)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the elements of {@code this} between {@code lo} and {@code hi},
+     * both included, in increasing order. The elements are found as they are
+     * iterated over, so the iteration must end before {@code this} is
+     * changed.
+     *
+     * @param lo
+     *            the lower bound
+     * @param hi
+     *            the upper bound
+     * @return the elements in [lo, hi]
+     * @ensures <pre>
+     * [range iterates over {y: T where (y is in this  and  lo <= y <= hi)}
+     *  in increasing order]
+     * </pre>
+     */
+    public final Iterable<T> range(T lo, T hi) {
+        assert lo != null : "Violation of: lo is not null";
+        assert hi != null : "Violation of: hi is not null";
+
+        return new Range(lo, hi);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void add(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s instanceof Set3b<?> && this.mergeIsCheaper(s.size())) {
+            Set3b<T> other = (Set3b<T>) s;
+            Object[] a = this.toSortedArray();
+            Object[] b = other.toSortedArray();
+            Object[] union = new Object[a.length + b.length];
+            Object[] common = new Object[Math.min(a.length, b.length)];
+            int i = 0;
+            int j = 0;
+            int u = 0;
+            int c = 0;
+            while (i < a.length && j < b.length) {
+                int cmp = ((T) a[i]).compareTo((T) b[j]);
+                if (cmp < 0) {
+                    union[u] = a[i];
+                    i++;
+                } else if (cmp > 0) {
+                    union[u] = b[j];
+                    j++;
+                } else {
+                    union[u] = a[i];
+                    common[c] = b[j];
+                    c++;
+                    i++;
+                    j++;
+                }
+                u++;
+            }
+            System.arraycopy(a, i, union, u, a.length - i);
+            u += a.length - i;
+            System.arraycopy(b, j, union, u, b.length - j);
+            u += b.length - j;
+            this.rebuild(union, u);
+            other.rebuild(common, c);
+        } else {
+            super.add(s);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> remove(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        Set<T> removed;
+        if (s instanceof Set3b<?> && this.mergeIsCheaper(s.size())) {
+            Set3b<T> other = (Set3b<T>) s;
+            Object[] a = this.toSortedArray();
+            Object[] b = other.toSortedArray();
+            Object[] difference = new Object[a.length];
+            Object[] common = new Object[Math.min(a.length, b.length)];
+            int i = 0;
+            int j = 0;
+            int d = 0;
+            int c = 0;
+            while (i < a.length && j < b.length) {
+                int cmp = ((T) a[i]).compareTo((T) b[j]);
+                if (cmp < 0) {
+                    difference[d] = a[i];
+                    d++;
+                    i++;
+                } else if (cmp > 0) {
+                    j++;
+                } else {
+                    common[c] = a[i];
+                    c++;
+                    i++;
+                    j++;
+                }
+            }
+            System.arraycopy(a, i, difference, d, a.length - i);
+            d += a.length - i;
+            this.rebuild(difference, d);
+            Set3b<T> localRemoved = (Set3b<T>) this.newInstance();
+            localRemoved.rebuild(common, c);
+            removed = localRemoved;
+        } else {
+            removed = super.remove(s);
+        }
+        return removed;
+    }
+
+    /**
+     * The elements of {@code Set3b} between two bounds, as returned by
+     * {@code range}.
+     */
+    private final class Range implements Iterable<T> {
+
+        /**
+         * The lower bound.
+         */
+        private final T lo;
+
+        /**
+         * The upper bound.
+         */
+        private final T hi;
+
+        /**
+         * Constructor.
+         *
+         * @param lo
+         *            the lower bound
+         * @param hi
+         *            the upper bound
+         */
+        private Range(T lo, T hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Set3bIterator(Set3b.this.ceilingNode(this.lo), this.hi);
+        }
+
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3b}, walking
+     * the tree in order from node to successor, optionally up to a bound.
+     */
+    private final class Set3bIterator implements Iterator<T> {
+
+        /**
+         * Node whose value is returned next, or the sentinel.
+         */
+        private Node<T> current;
+
+        /**
+         * Largest value to be returned, or null for no bound.
+         */
+        private final T hi;
+
+        /**
+         * Constructor.
+         *
+         * @param first
+         *            the node whose value is returned first, or the sentinel
+         * @param hi
+         *            the largest value to be returned, or null for no bound
+         */
+        private Set3bIterator(Node<T> first, T hi) {
+            this.current = first;
+            this.hi = hi;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != Set3b.this.nil && (this.hi == null
+                    || this.current.value.compareTo(this.hi) <= 0);
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<T> n = this.current;
+            this.current = Set3b.this.successor(n);
+            return n.value;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,272 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3b}.
+ */
+public class Set3bTest extends SetTest {
+
+    /**
+     * Number of elements in the large tests, enough to overflow the stack of
+     * an unbalanced tree built from sorted input.
+     */
+    private static final int LARGE = 200_000;
+
+    /**
+     * Returns a {@code Set3b<String>} with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     */
+    private static Set3b<String> createFromArgs(String... args) {
+        Set3b<String> set = new Set3b<String>();
+        for (String s : args) {
+            set.add(s);
+        }
+        return set;
+    }
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3b<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Returns {@code i} written with nine digits, so that the order of the
+     * strings is the order of the numbers.
+     *
+     * @param i
+     *            the number
+     * @return the padded string
+     */
+    private static String key(int i) {
+        return String.format("%09d", i);
+    }
+
+    @Test
+    public final void testIteratorInOrder() {
+        Set<String> s = this.constructorTest();
+        s.add("m");
+        s.add("c");
+        s.add("x");
+        s.add("a");
+        s.add("e");
+        s.add("q");
+        StringBuilder seen = new StringBuilder();
+        for (String x : s) {
+            seen.append(x);
+        }
+        assertEquals("acemqx", seen.toString());
+    }
+
+    @Test
+    public final void testSortedAddLarge() {
+        Set<String> s = this.constructorTest();
+        for (int i = 0; i < LARGE; i++) {
+            s.add(key(i));
+        }
+        assertEquals(LARGE, s.size());
+        assertTrue(s.contains(key(0)));
+        assertTrue(s.contains(key(LARGE - 1)));
+        int i = 0;
+        for (String x : s) {
+            assertEquals(key(i), x);
+            i++;
+        }
+        assertEquals(LARGE, i);
+    }
+
+    @Test
+    public final void testReversedAddRemoveLarge() {
+        Set<String> s = this.constructorTest();
+        for (int i = LARGE - 1; i >= 0; i--) {
+            s.add(key(i));
+        }
+        for (int i = 0; i < LARGE; i += 2) {
+            assertEquals(key(i), s.remove(key(i)));
+        }
+        assertEquals(LARGE / 2, s.size());
+        int i = 1;
+        for (String x : s) {
+            assertEquals(key(i), x);
+            i += 2;
+        }
+        while (s.size() > 0) {
+            s.removeAny();
+        }
+        assertEquals(0, s.size());
+    }
+
+    @Test
+    public final void testFloorCeiling() {
+        Set3b<String> s = createFromArgs("d", "b", "f");
+        assertNull(s.floor("a"));
+        assertEquals("b", s.floor("b"));
+        assertEquals("b", s.floor("c"));
+        assertEquals("f", s.floor("z"));
+        assertEquals("b", s.ceiling("a"));
+        assertEquals("d", s.ceiling("c"));
+        assertEquals("f", s.ceiling("f"));
+        assertNull(s.ceiling("g"));
+        assertEquals(3, s.size());
+    }
+
+    @Test
+    public final void testFloorCeilingEmpty() {
+        Set3b<String> s = createFromArgs();
+        assertNull(s.floor("a"));
+        assertNull(s.ceiling("a"));
+    }
+
+    @Test
+    public final void testRankSelect() {
+        Set3b<String> s = createFromArgs("d", "b", "f", "a", "e");
+        assertEquals(0, s.rank("a"));
+        assertEquals(2, s.rank("c"));
+        assertEquals(2, s.rank("d"));
+        assertEquals(5, s.rank("z"));
+        assertEquals("a", s.select(0));
+        assertEquals("d", s.select(2));
+        assertEquals("f", s.select(4));
+    }
+
+    @Test
+    public final void testRangeCount() {
+        Set3b<String> s = createFromArgs("d", "b", "f", "a", "e");
+        assertEquals(3, s.rangeCount("b", "e"));
+        assertEquals(2, s.rangeCount("c", "e"));
+        assertEquals(5, s.rangeCount("a", "z"));
+        assertEquals(1, s.rangeCount("d", "d"));
+        assertEquals(0, s.rangeCount("e", "b"));
+    }
+
+    @Test
+    public final void testRange() {
+        Set3b<String> s = createFromArgs("d", "b", "f", "a", "e");
+        StringBuilder seen = new StringBuilder();
+        for (String x : s.range("c", "e")) {
+            seen.append(x);
+        }
+        assertEquals("de", seen.toString());
+        seen.setLength(0);
+        for (String x : s.range("g", "z")) {
+            seen.append(x);
+        }
+        assertEquals("", seen.toString());
+    }
+
+    @Test
+    public final void testRankSelectLarge() {
+        Set3b<String> s = new Set3b<String>();
+        for (int i = 0; i < LARGE; i++) {
+            s.add(key(2 * i));
+        }
+        for (int i = 0; i < LARGE; i += 2) {
+            s.remove(key(2 * i));
+        }
+        assertEquals(LARGE / 2, s.size());
+        for (int j = 0; j < LARGE / 2; j += 1000) {
+            String x = key(4 * j + 2);
+            assertEquals(x, s.select(j));
+            assertEquals(j, s.rank(x));
+            assertEquals(x, s.floor(key(4 * j + 3)));
+            assertEquals(x, s.ceiling(key(4 * j + 1)));
+        }
+        assertEquals(LARGE / 4, s.rangeCount(key(0), key(LARGE)));
+    }
+
+    @Test
+    public final void testAddSet() {
+        Set3b<String> s = createFromArgs("a", "c", "e");
+        Set3b<String> t = createFromArgs("b", "c", "f");
+        s.add(t);
+        assertEquals(createFromArgs("a", "b", "c", "e", "f"), s);
+        assertEquals(createFromArgs("c"), t);
+        assertEquals("b", s.select(1));
+        assertEquals(1, t.rank("d"));
+    }
+
+    @Test
+    public final void testRemoveSet() {
+        Set3b<String> s = createFromArgs("a", "c", "e");
+        Set3b<String> t = createFromArgs("b", "c", "e");
+        Set<String> removed = s.remove(t);
+        assertEquals(createFromArgs("a"), s);
+        assertEquals(createFromArgs("b", "c", "e"), t);
+        assertEquals(createFromArgs("c", "e"), removed);
+    }
+
+    @Test
+    public final void testRemoveOtherSet() {
+        Set3b<String> s = createFromArgs("a", "c", "e");
+        Set<String> t = this.constructorRef();
+        t.add("c");
+        t.add("d");
+        Set<String> removed = s.remove(t);
+        assertEquals(createFromArgs("a", "e"), s);
+        assertEquals(2, t.size());
+        assertEquals(createFromArgs("c"), removed);
+    }
+
+    @Test
+    public final void testAddSetLarge() {
+        Set3b<String> s = new Set3b<String>();
+        Set3b<String> t = new Set3b<String>();
+        for (int i = 0; i < LARGE; i += 2) {
+            s.add(key(i));
+        }
+        for (int i = 0; i < LARGE; i += 3) {
+            t.add(key(i));
+        }
+        s.add(t);
+        assertEquals(LARGE / 2 + (LARGE + 2) / 3 - (LARGE + 5) / 6, s.size());
+        assertEquals((LARGE + 5) / 6, t.size());
+        assertEquals(key(3), s.select(2));
+        s.add(key(1));
+        s.remove(key(0));
+        assertEquals(key(1), s.select(0));
+    }
+
+    @Test
+    public final void testAddSmallSetToLarge() {
+        Set3b<String> s = new Set3b<String>();
+        for (int i = 0; i < LARGE; i += 2) {
+            s.add(key(i));
+        }
+        Set3b<String> t = createFromArgs(key(1), key(2), key(LARGE + 1));
+        s.add(t);
+        assertEquals(LARGE / 2 + 2, s.size());
+        assertEquals(createFromArgs(key(2)), t);
+        assertEquals(key(1), s.select(1));
+        assertEquals(key(LARGE + 1), s.select(LARGE / 2 + 1));
+    }
+
+    @Test
+    public final void testRemoveSmallSetFromLarge() {
+        Set3b<String> s = new Set3b<String>();
+        for (int i = 0; i < LARGE; i += 2) {
+            s.add(key(i));
+        }
+        Set3b<String> t = createFromArgs(key(0), key(3), key(LARGE - 2));
+        Set<String> removed = s.remove(t);
+        assertEquals(LARGE / 2 - 2, s.size());
+        assertEquals(createFromArgs(key(0), key(3), key(LARGE - 2)), t);
+        assertEquals(createFromArgs(key(0), key(LARGE - 2)), removed);
+        assertEquals(key(2), s.select(0));
+        assertEquals(0, s.rank(key(2)));
+    }
+
+}
@@ -0,0 +1,355 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set<Character>} represented as a bitmap, with implementations of
+ * primary methods, meant for small sets of characters such as the separators
+ * of a tokenizer.
+ * <p>
+ * Character {@code c} is in the set iff bit {@code c mod 64} of word
+ * {@code c / 64} of the bitmap is set, so {@code contains}, {@code add} and
+ * {@code remove} are a shift and a mask, with no hashing and no
+ * {@code equals}. The bitmap only extends as far as the largest character
+ * ever added, so a set of ASCII separators takes two {@code long}s.
+ * Iteration is in increasing order of the characters.
+ * <p>
+ * When the other operand is also a {@code CharSet}, the bulk operations
+ * {@code add(Set)} (union) and {@code remove(Set)} (difference) combine the
+ * bitmaps a word at a time, 64 characters per bitwise operation.
+ * <p>
+ * This class is maintained in SetOnQueue. Identical copies are kept in
+ * TagCloudGenerator and Tokenizer, since each project builds on its own;
+ * change the SetOnQueue file and copy it over, and {@code CharSetCopiesTest}
+ * in SetOnQueue checks that they match.
+ *
+ * @convention <pre>
+ * $this.size = [number of bits set in $this.words]  and
+ * 0 <= $this.low <= |$this.words|  and
+ * [every word of $this.words before index $this.low is 0]
+ * </pre>
+ * @correspondence <pre>
+ * this = {c: character
+ *           where (c / 64 < |$this.words|  and
+ *                  [bit c mod 64 of $this.words[c / 64] is set])}
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class CharSet extends SetSecondary<Character> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of bits in each word of the bitmap, as a shift.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Mask of the bit index within a word.
+     */
+    private static final int BIT_MASK = Long.SIZE - 1;
+
+    /**
+     * The bitmap.
+     */
+    private long[] words;
+
+    /**
+     * Number of characters in the set.
+     */
+    private int size;
+
+    /**
+     * Index of the first word of the bitmap that may be non-zero.
+     */
+    private int low;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.words = new long[0];
+        this.size = 0;
+        this.low = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public CharSet() {
+        this.createNewRep();
+    }
+
+    /**
+     * Constructor from the characters of a {@code String}, which may repeat.
+     *
+     * @param chars
+     *            the characters of the set
+     * @ensures this = entries(chars)
+     */
+    public CharSet(String chars) {
+        assert chars != null : "Violation of: chars is not null";
+
+        this.createNewRep();
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (!this.contains(c)) {
+                this.add(c);
+            }
+        }
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Set<Character> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<Character> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof CharSet : ""
+                + "Violation of: source is of dynamic type CharSet";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        CharSet localSource = (CharSet) source;
+        this.words = localSource.words;
+        this.size = localSource.size;
+        this.low = localSource.low;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(Character x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        char c = x;
+        int w = c >>> WORD_SHIFT;
+        if (w >= this.words.length) {
+            long[] grown = new long[w + 1];
+            System.arraycopy(this.words, 0, grown, 0, this.words.length);
+            this.words = grown;
+        }
+        this.words[w] |= 1L << (c & BIT_MASK);
+        this.low = Math.min(this.low, w);
+        this.size++;
+    }
+
+    @Override
+    public final Character remove(Character x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        char c = x;
+        this.words[c >>> WORD_SHIFT] &= ~(1L << (c & BIT_MASK));
+        this.size--;
+        return x;
+    }
+
+    @Override
+    public final Character removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        while (this.words[this.low] == 0) {
+            this.low++;
+        }
+        long word = this.words[this.low];
+        char c = (char) ((this.low << WORD_SHIFT)
+                + Long.numberOfTrailingZeros(word));
+        this.words[this.low] = word & (word - 1);
+        this.size--;
+        return c;
+    }
+
+    @Override
+    public final boolean contains(Character x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.contains(x.charValue());
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Character> iterator() {
+        return new CharSetIterator();
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Reports whether {@code c} is in {@code this}, without boxing it.
+     *
+     * @param c
+     *            the character to be checked
+     * @return true iff c is in this
+     * @ensures contains = (c is in this)
+     */
+    public final boolean contains(char c) {
+        int w = c >>> WORD_SHIFT;
+        return w < this.words.length
+                && (this.words[w] & (1L << (c & BIT_MASK))) != 0;
+    }
+
+    @Override
+    public final void add(Set<Character> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s instanceof CharSet) {
+            CharSet other = (CharSet) s;
+            if (other.words.length > this.words.length) {
+                long[] grown = new long[other.words.length];
+                System.arraycopy(this.words, 0, grown, 0, this.words.length);
+                this.words = grown;
+            }
+            int thisSize = 0;
+            int otherSize = 0;
+            for (int w = 0; w < other.words.length; w++) {
+                long common = this.words[w] & other.words[w];
+                this.words[w] |= other.words[w];
+                other.words[w] = common;
+                otherSize += Long.bitCount(common);
+            }
+            for (int w = 0; w < this.words.length; w++) {
+                thisSize += Long.bitCount(this.words[w]);
+            }
+            this.size = thisSize;
+            this.low = Math.min(this.low, other.low);
+            other.size = otherSize;
+        } else {
+            super.add(s);
+        }
+    }
+
+    @Override
+    public final Set<Character> remove(Set<Character> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        Set<Character> removed;
+        if (s instanceof CharSet) {
+            CharSet other = (CharSet) s;
+            CharSet localRemoved = new CharSet();
+            int n = Math.min(this.words.length, other.words.length);
+            localRemoved.words = new long[n];
+            int removedSize = 0;
+            for (int w = 0; w < n; w++) {
+                long common = this.words[w] & other.words[w];
+                this.words[w] &= ~common;
+                localRemoved.words[w] = common;
+                removedSize += Long.bitCount(common);
+            }
+            this.size -= removedSize;
+            localRemoved.size = removedSize;
+            removed = localRemoved;
+        } else {
+            removed = super.remove(s);
+        }
+        return removed;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code CharSet}.
+     */
+    private final class CharSetIterator implements Iterator<Character> {
+
+        /**
+         * Index of the word being iterated over.
+         */
+        private int index;
+
+        /**
+         * Bits of that word not yet returned.
+         */
+        private long bits;
+
+        /**
+         * Number of characters not yet returned.
+         */
+        private int remaining;
+
+        /**
+         * No-argument constructor.
+         */
+        private CharSetIterator() {
+            this.index = CharSet.this.low;
+            this.bits = 0;
+            if (this.index < CharSet.this.words.length) {
+                this.bits = CharSet.this.words[this.index];
+            }
+            this.remaining = CharSet.this.size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public Character next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            while (this.bits == 0) {
+                this.index++;
+                this.bits = CharSet.this.words[this.index];
+            }
+            char c = (char) ((this.index << WORD_SHIFT)
+                    + Long.numberOfTrailingZeros(this.bits));
+            this.bits = this.bits & (this.bits - 1);
+            this.remaining--;
+            return c;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,1610 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set<Integer>} represented as a compressed ("Roaring") bitmap, with
+ * implementations of primary methods, meant for large sets of ids.
+ * <p>
+ * The integers are split into chunks of 2^16 by their high 16 bits, and the
+ * low 16 bits of the elements of each non-empty chunk are kept in a
+ * container of one of three kinds, whichever is smaller: a sorted
+ * {@code char[]} of up to {@code ARRAY_MAX} values (2 bytes per element), a
+ * bitmap of 2^16 bits (8 KB, 1 bit per possible element), or a list of runs of
+ * consecutive values (4 bytes per run). An array container becomes a bitmap
+ * when it outgrows {@code ARRAY_MAX}, and a bitmap an array when it shrinks
+ * back to it; {@code runOptimize} turns containers into run lists wherever
+ * that is smaller, which suits dense ranges of ids, and a run list that
+ * {@code add} or {@code remove} leaves no smaller than an array or bitmap
+ * becomes one again. A run list thus always has fewer than
+ * {@code ARRAY_MAX / 2} runs, which bounds the shifting when a run is
+ * inserted or deleted, as {@code ARRAY_MAX} bounds it in an array. Against
+ * the tens of bytes per element of a set of boxed {@code Integer}s, a dense
+ * range costs about 1 bit per element, or less as runs.
+ * <p>
+ * {@code size} is O(1). {@code contains}, {@code add} and {@code remove}
+ * binary search the chunk keys and then the container (O(1) in a bitmap).
+ * {@code union}, {@code intersection} and {@code difference} combine the two
+ * sets chunk by chunk, bitmaps a word at a time, and back the bulk
+ * {@code add(Set)} and {@code remove(Set)} when {@code s} is also a
+ * {@code RoaringSet}. {@code writeTo} and {@code readFrom} serialize the set
+ * to and from a {@code ByteBuffer}; {@code readFrom} checks the whole input
+ * before it changes {@code this}. Iteration is in increasing order.
+ *
+ * @convention <pre>
+ * 0 <= $this.count <= |$this.keys| = |$this.containers|  and
+ * [$this.keys[0, $this.count) is strictly increasing]  and
+ * [for each i in [0, $this.count), $this.containers[i] is a container with
+ *  at least one value, and if it is an array container then it has at most
+ *  ARRAY_MAX values, and if it is a run container then it takes fewer bytes
+ *  than an array or bitmap container with the same values]  and
+ * $this.size = [sum of the cardinalities of $this.containers[0, $this.count)]
+ * </pre>
+ * @correspondence <pre>
+ * this = {combine($this.keys[i], v): integer
+ *           where (0 <= i < $this.count  and
+ *                  v is in [the values of $this.containers[i]])}
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class RoaringSet extends SetSecondary<Integer> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of values in a chunk.
+     */
+    private static final int CHUNK = 1 << Character.SIZE;
+
+    /**
+     * Largest number of values in an array container.
+     */
+    private static final int ARRAY_MAX = 4096;
+
+    /**
+     * Number of words in a bitmap container.
+     */
+    private static final int BITMAP_WORDS = CHUNK / Long.SIZE;
+
+    /**
+     * Number of bits in each word of a bitmap, as a shift.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Flipping this bit of the high 16 bits makes the chunk keys of negative
+     * integers sort before those of non-negative ones.
+     */
+    private static final int SIGN_FLIP = 0x8000;
+
+    /**
+     * Number of containers room is made for initially.
+     */
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /**
+     * First {@code int} of a serialized {@code RoaringSet}.
+     */
+    private static final int MAGIC = 0x524F4152;
+
+    /**
+     * Tag of a serialized array container.
+     */
+    private static final byte ARRAY = 0;
+
+    /**
+     * Tag of a serialized bitmap container.
+     */
+    private static final byte BITMAP = 1;
+
+    /**
+     * Tag of a serialized run container.
+     */
+    private static final byte RUN = 2;
+
+    /**
+     * Sets of values of a chunk, as the low 16 bits of the elements.
+     */
+    private abstract static class Container {
+
+        /**
+         * Reports the number of values.
+         *
+         * @return the number of values
+         */
+        abstract int cardinality();
+
+        /**
+         * Reports whether {@code v} is a value.
+         *
+         * @param v
+         *            the value
+         * @return true iff v is a value
+         */
+        abstract boolean contains(char v);
+
+        /**
+         * Adds {@code v}, returning the container now holding the values:
+         * {@code this} or a container of another kind.
+         *
+         * @param v
+         *            the value to be added
+         * @return the updated container
+         * @requires v is not a value
+         */
+        abstract Container add(char v);
+
+        /**
+         * Removes {@code v}, returning the container now holding the values:
+         * {@code this} or a container of another kind, possibly empty.
+         *
+         * @param v
+         *            the value to be removed
+         * @return the updated container
+         * @requires v is a value
+         */
+        abstract Container remove(char v);
+
+        /**
+         * Reports the value cheapest to remove.
+         *
+         * @return some value
+         * @requires cardinality() > 0
+         */
+        abstract int any();
+
+        /**
+         * Reports the smallest value not less than {@code from}.
+         *
+         * @param from
+         *            the bound
+         * @return the smallest value >= from, or -1 if there is none
+         * @requires 0 <= from <= CHUNK
+         */
+        abstract int nextValue(int from);
+
+        /**
+         * Sets the bits of the values in the bitmap {@code words}.
+         *
+         * @param words
+         *            a bitmap of {@code BITMAP_WORDS} words
+         * @updates words
+         */
+        abstract void setBits(long[] words);
+
+        /**
+         * Reports the number of runs of consecutive values.
+         *
+         * @return the number of runs
+         */
+        abstract int runCount();
+
+        /**
+         * Returns an independent copy of {@code this}.
+         *
+         * @return the copy
+         */
+        abstract Container copy();
+
+        /**
+         * Reports the number of bytes {@code write} puts.
+         *
+         * @return the serialized size
+         */
+        abstract int serializedSize();
+
+        /**
+         * Writes the kind and the values of {@code this} to {@code buffer}.
+         *
+         * @param buffer
+         *            the buffer
+         * @updates buffer
+         */
+        abstract void write(ByteBuffer buffer);
+
+    }
+
+    /**
+     * Container keeping the values in a sorted array.
+     */
+    private static final class ArrayContainer extends Container {
+
+        /**
+         * The values, in increasing order, in {@code values[0, cardinality)}.
+         */
+        private char[] values;
+
+        /**
+         * Number of values.
+         */
+        private int cardinality;
+
+        /**
+         * Constructor.
+         *
+         * @param values
+         *            the values, in increasing order, possibly followed by
+         *            unused room
+         * @param cardinality
+         *            the number of values
+         */
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Returns the index of {@code v}, as {@code Arrays.binarySearch}.
+         *
+         * @param v
+         *            the value
+         * @return the index of v if it is a value, otherwise -(insertion
+         *         point) - 1
+         */
+        private int index(char v) {
+            return Arrays.binarySearch(this.values, 0, this.cardinality, v);
+        }
+
+        @Override
+        int cardinality() {
+            return this.cardinality;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return this.index(v) >= 0;
+        }
+
+        @Override
+        Container add(char v) {
+            Container result = this;
+            if (this.cardinality == ARRAY_MAX) {
+                long[] words = new long[BITMAP_WORDS];
+                this.setBits(words);
+                result = new BitmapContainer(words, this.cardinality).add(v);
+            } else {
+                int i = -(this.index(v) + 1);
+                if (this.cardinality == this.values.length) {
+                    this.values = Arrays.copyOf(this.values, Math.min(
+                            Math.max(2 * this.cardinality, 4), ARRAY_MAX));
+                }
+                System.arraycopy(this.values, i, this.values, i + 1,
+                        this.cardinality - i);
+                this.values[i] = v;
+                this.cardinality++;
+            }
+            return result;
+        }
+
+        @Override
+        Container remove(char v) {
+            int i = this.index(v);
+            System.arraycopy(this.values, i + 1, this.values, i,
+                    this.cardinality - i - 1);
+            this.cardinality--;
+            return this;
+        }
+
+        @Override
+        int any() {
+            return this.values[this.cardinality - 1];
+        }
+
+        @Override
+        int nextValue(int from) {
+            int result = -1;
+            if (from < CHUNK) {
+                int i = this.index((char) from);
+                if (i < 0) {
+                    i = -(i + 1);
+                }
+                if (i < this.cardinality) {
+                    result = this.values[i];
+                }
+            }
+            return result;
+        }
+
+        @Override
+        void setBits(long[] words) {
+            for (int i = 0; i < this.cardinality; i++) {
+                char v = this.values[i];
+                words[v >>> WORD_SHIFT] |= 1L << v;
+            }
+        }
+
+        @Override
+        int runCount() {
+            int runs = 0;
+            for (int i = 0; i < this.cardinality; i++) {
+                if (i == 0 || this.values[i] != this.values[i - 1] + 1) {
+                    runs++;
+                }
+            }
+            return runs;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(
+                    Arrays.copyOf(this.values, this.cardinality),
+                    this.cardinality);
+        }
+
+        @Override
+        int serializedSize() {
+            return 1 + Integer.BYTES + Character.BYTES * this.cardinality;
+        }
+
+        @Override
+        void write(ByteBuffer buffer) {
+            buffer.put(ARRAY);
+            buffer.putInt(this.cardinality);
+            for (int i = 0; i < this.cardinality; i++) {
+                buffer.putChar(this.values[i]);
+            }
+        }
+
+    }
+
+    /**
+     * Container keeping the values as the set bits of a bitmap.
+     */
+    private static final class BitmapContainer extends Container {
+
+        /**
+         * The bitmap, value v being bit v mod 64 of word v / 64.
+         */
+        private final long[] words;
+
+        /**
+         * Number of values.
+         */
+        private int cardinality;
+
+        /**
+         * Index of the first word that may be non-zero.
+         */
+        private int low;
+
+        /**
+         * Constructor.
+         *
+         * @param words
+         *            the bitmap
+         * @param cardinality
+         *            the number of bits set in {@code words}
+         */
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+            this.low = 0;
+        }
+
+        @Override
+        int cardinality() {
+            return this.cardinality;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return (this.words[v >>> WORD_SHIFT] & (1L << v)) != 0;
+        }
+
+        @Override
+        Container add(char v) {
+            int w = v >>> WORD_SHIFT;
+            this.words[w] |= 1L << v;
+            this.low = Math.min(this.low, w);
+            this.cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            this.words[v >>> WORD_SHIFT] &= ~(1L << v);
+            this.cardinality--;
+            Container result = this;
+            if (this.cardinality <= ARRAY_MAX) {
+                result = arrayOf(this.words, this.cardinality);
+            }
+            return result;
+        }
+
+        @Override
+        int any() {
+            while (this.words[this.low] == 0) {
+                this.low++;
+            }
+            return (this.low << WORD_SHIFT)
+                    + Long.numberOfTrailingZeros(this.words[this.low]);
+        }
+
+        @Override
+        int nextValue(int from) {
+            int result = -1;
+            if (from < CHUNK) {
+                int w = from >>> WORD_SHIFT;
+                long word = this.words[w] & (-1L << from);
+                while (word == 0 && w < BITMAP_WORDS - 1) {
+                    w++;
+                    word = this.words[w];
+                }
+                if (word != 0) {
+                    result = (w << WORD_SHIFT)
+                            + Long.numberOfTrailingZeros(word);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        void setBits(long[] words) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] |= this.words[w];
+            }
+        }
+
+        @Override
+        int runCount() {
+            /*
+             * A run starts at each set bit whose lower neighbor, possibly the
+             * top bit of the previous word, is clear
+             */
+            int runs = 0;
+            long previous = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = this.words[w];
+                runs += Long.bitCount(
+                        word & ~((word << 1) | (previous >>> (Long.SIZE - 1))));
+                previous = word;
+            }
+            return runs;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(this.words.clone(), this.cardinality);
+        }
+
+        @Override
+        int serializedSize() {
+            return 1 + Integer.BYTES + Long.BYTES * BITMAP_WORDS;
+        }
+
+        @Override
+        void write(ByteBuffer buffer) {
+            buffer.put(BITMAP);
+            buffer.putInt(this.cardinality);
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                buffer.putLong(this.words[w]);
+            }
+        }
+
+    }
+
+    /**
+     * Container keeping the values as runs of consecutive values.
+     */
+    private static final class RunContainer extends Container {
+
+        /**
+         * The runs, run i starting at value {@code runs[2i]} and having
+         * {@code runs[2i + 1] + 1} values, in increasing order and separated
+         * by at least one missing value.
+         */
+        private char[] runs;
+
+        /**
+         * Number of runs.
+         */
+        private int count;
+
+        /**
+         * Number of values.
+         */
+        private int cardinality;
+
+        /**
+         * Constructor.
+         *
+         * @param runs
+         *            the runs, as pairs (start, length - 1), possibly followed
+         *            by unused room
+         * @param count
+         *            the number of runs
+         * @param cardinality
+         *            the number of values
+         */
+        RunContainer(char[] runs, int count, int cardinality) {
+            this.runs = runs;
+            this.count = count;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Reports the first value of run {@code i}.
+         *
+         * @param i
+         *            the run
+         * @return its first value
+         */
+        private int start(int i) {
+            return this.runs[2 * i];
+        }
+
+        /**
+         * Reports the last value of run {@code i}.
+         *
+         * @param i
+         *            the run
+         * @return its last value
+         */
+        private int end(int i) {
+            return this.runs[2 * i] + this.runs[2 * i + 1];
+        }
+
+        /**
+         * Sets run {@code i} to the values from {@code start} to {@code end}.
+         *
+         * @param i
+         *            the run
+         * @param start
+         *            its first value
+         * @param end
+         *            its last value
+         */
+        private void set(int i, int start, int end) {
+            this.runs[2 * i] = (char) start;
+            this.runs[2 * i + 1] = (char) (end - start);
+        }
+
+        /**
+         * Returns the last run starting at or before {@code v}.
+         *
+         * @param v
+         *            the value
+         * @return the index of that run, or -1 if there is none
+         */
+        private int find(int v) {
+            int lo = 0;
+            int hi = this.count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (this.start(mid) <= v) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo - 1;
+        }
+
+        /**
+         * Inserts a run before run {@code i}, from {@code start} to
+         * {@code end}.
+         *
+         * @param i
+         *            the position of the new run
+         * @param start
+         *            its first value
+         * @param end
+         *            its last value
+         */
+        private void insertRun(int i, int start, int end) {
+            if (2 * this.count == this.runs.length) {
+                this.runs = Arrays.copyOf(this.runs,
+                        Math.max(2 * this.runs.length, 4));
+            }
+            System.arraycopy(this.runs, 2 * i, this.runs, 2 * i + 2,
+                    2 * (this.count - i));
+            this.count++;
+            this.set(i, start, end);
+        }
+
+        /**
+         * Returns {@code this}, or an array or bitmap container with the same
+         * values if that is no larger.
+         *
+         * @return the container holding the values
+         */
+        private Container compacted() {
+            Container result = this;
+            if (this.cardinality > 0
+                    && !runsAreSmaller(this.count, this.cardinality)) {
+                result = containerOf(bitmapOf(this));
+            }
+            return result;
+        }
+
+        /**
+         * Deletes run {@code i}.
+         *
+         * @param i
+         *            the run
+         */
+        private void deleteRun(int i) {
+            System.arraycopy(this.runs, 2 * i + 2, this.runs, 2 * i,
+                    2 * (this.count - i - 1));
+            this.count--;
+        }
+
+        @Override
+        int cardinality() {
+            return this.cardinality;
+        }
+
+        @Override
+        boolean contains(char v) {
+            int i = this.find(v);
+            return i >= 0 && v <= this.end(i);
+        }
+
+        @Override
+        Container add(char v) {
+            int i = this.find(v);
+            boolean joinsPrevious = i >= 0 && this.end(i) + 1 == v;
+            boolean joinsNext = i + 1 < this.count
+                    && this.start(i + 1) == v + 1;
+            if (joinsPrevious && joinsNext) {
+                this.set(i, this.start(i), this.end(i + 1));
+                this.deleteRun(i + 1);
+            } else if (joinsPrevious) {
+                this.set(i, this.start(i), v);
+            } else if (joinsNext) {
+                this.set(i + 1, v, this.end(i + 1));
+            } else {
+                this.insertRun(i + 1, v, v);
+            }
+            this.cardinality++;
+            return this.compacted();
+        }
+
+        @Override
+        Container remove(char v) {
+            int i = this.find(v);
+            int start = this.start(i);
+            int end = this.end(i);
+            if (start == end) {
+                this.deleteRun(i);
+            } else if (v == start) {
+                this.set(i, start + 1, end);
+            } else if (v == end) {
+                this.set(i, start, end - 1);
+            } else {
+                this.set(i, start, v - 1);
+                this.insertRun(i + 1, v + 1, end);
+            }
+            this.cardinality--;
+            return this.compacted();
+        }
+
+        @Override
+        int any() {
+            return this.end(this.count - 1);
+        }
+
+        @Override
+        int nextValue(int from) {
+            int result = -1;
+            if (from < CHUNK) {
+                int i = this.find(from);
+                if (i >= 0 && from <= this.end(i)) {
+                    result = from;
+                } else if (i + 1 < this.count) {
+                    result = this.start(i + 1);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        void setBits(long[] words) {
+            for (int i = 0; i < this.count; i++) {
+                for (int v = this.start(i); v <= this.end(i); v++) {
+                    words[v >>> WORD_SHIFT] |= 1L << v;
+                }
+            }
+        }
+
+        @Override
+        int runCount() {
+            return this.count;
+        }
+
+        @Override
+        Container copy() {
+            return new RunContainer(Arrays.copyOf(this.runs, 2 * this.count),
+                    this.count, this.cardinality);
+        }
+
+        @Override
+        int serializedSize() {
+            return 1 + Integer.BYTES + 2 * Character.BYTES * this.count;
+        }
+
+        @Override
+        void write(ByteBuffer buffer) {
+            buffer.put(RUN);
+            buffer.putInt(this.count);
+            for (int i = 0; i < 2 * this.count; i++) {
+                buffer.putChar(this.runs[i]);
+            }
+        }
+
+    }
+
+    /**
+     * Chunk keys of the containers, in increasing order, in
+     * {@code keys[0, count)}.
+     */
+    private char[] keys;
+
+    /**
+     * Containers of the chunks, matching {@code keys}.
+     */
+    private Container[] containers;
+
+    /**
+     * Number of containers.
+     */
+    private int count;
+
+    /**
+     * Number of elements.
+     */
+    private int size;
+
+    /**
+     * Reports whether {@code runs} runs take fewer bytes than an array or
+     * bitmap container, whichever is smaller, holding {@code cardinality}
+     * values.
+     *
+     * @param runs
+     *            the number of runs
+     * @param cardinality
+     *            the number of values
+     * @return true iff a run container is the smallest
+     */
+    private static boolean runsAreSmaller(int runs, int cardinality) {
+        int runBytes = 2 * Character.BYTES * runs;
+        int otherBytes = Long.BYTES * BITMAP_WORDS;
+        if (cardinality <= ARRAY_MAX) {
+            otherBytes = Character.BYTES * cardinality;
+        }
+        return runBytes < otherBytes;
+    }
+
+    /**
+     * Returns the chunk key of {@code x}.
+     *
+     * @param x
+     *            the integer
+     * @return its high 16 bits, with the sign bit flipped
+     */
+    private static char high(int x) {
+        return (char) ((x >>> Character.SIZE) ^ SIGN_FLIP);
+    }
+
+    /**
+     * Returns the integer with chunk key {@code key} and low 16 bits
+     * {@code v}.
+     *
+     * @param key
+     *            the chunk key
+     * @param v
+     *            the low 16 bits
+     * @return the integer
+     */
+    private static int combine(char key, int v) {
+        return ((key ^ SIGN_FLIP) << Character.SIZE) | v;
+    }
+
+    /**
+     * Returns an array container with the values of the bitmap
+     * {@code words}.
+     *
+     * @param words
+     *            the bitmap
+     * @param cardinality
+     *            the number of bits set in it
+     * @return the container
+     * @requires cardinality <= ARRAY_MAX
+     */
+    private static Container arrayOf(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[n] = (char) ((w << WORD_SHIFT)
+                        + Long.numberOfTrailingZeros(word));
+                n++;
+                word = word & (word - 1);
+            }
+        }
+        return new ArrayContainer(values, cardinality);
+    }
+
+    /**
+     * Returns the values of {@code c} as a new bitmap.
+     *
+     * @param c
+     *            the container
+     * @return the bitmap
+     */
+    private static long[] bitmapOf(Container c) {
+        long[] words = new long[BITMAP_WORDS];
+        c.setBits(words);
+        return words;
+    }
+
+    /**
+     * Returns an array or bitmap container, whichever is smaller, with the
+     * values of the bitmap {@code words}, or null if it has none.
+     *
+     * @param words
+     *            the bitmap, which the result may keep
+     * @return the container, or null
+     */
+    private static Container containerOf(long[] words) {
+        int cardinality = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            cardinality += Long.bitCount(words[w]);
+        }
+        Container result = null;
+        if (cardinality > ARRAY_MAX) {
+            result = new BitmapContainer(words, cardinality);
+        } else if (cardinality > 0) {
+            result = arrayOf(words, cardinality);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new container with the values of {@code a} that are also in
+     * {@code b} (if {@code keep}) or not in {@code b} (otherwise), or null if
+     * there are none.
+     *
+     * @param a
+     *            the array container filtered
+     * @param b
+     *            the other container
+     * @param keep
+     *            whether to keep the values in b or those not in b
+     * @return the container, or null
+     */
+    private static Container filter(ArrayContainer a, Container b,
+            boolean keep) {
+        char[] values = new char[a.cardinality];
+        int n = 0;
+        for (int i = 0; i < a.cardinality; i++) {
+            if (b.contains(a.values[i]) == keep) {
+                values[n] = a.values[i];
+                n++;
+            }
+        }
+        Container result = null;
+        if (n > 0) {
+            result = new ArrayContainer(values, n);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new container with the values in {@code a} or {@code b}.
+     *
+     * @param a
+     *            one container
+     * @param b
+     *            the other container
+     * @return the union
+     */
+    private static Container or(Container a, Container b) {
+        Container result;
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer
+                && a.cardinality() + b.cardinality() <= ARRAY_MAX) {
+            ArrayContainer x = (ArrayContainer) a;
+            ArrayContainer y = (ArrayContainer) b;
+            char[] values = new char[x.cardinality + y.cardinality];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < x.cardinality && j < y.cardinality) {
+                char u = x.values[i];
+                char v = y.values[j];
+                if (u <= v) {
+                    values[n] = u;
+                    i++;
+                    if (u == v) {
+                        j++;
+                    }
+                } else {
+                    values[n] = v;
+                    j++;
+                }
+                n++;
+            }
+            while (i < x.cardinality) {
+                values[n] = x.values[i];
+                i++;
+                n++;
+            }
+            while (j < y.cardinality) {
+                values[n] = y.values[j];
+                j++;
+                n++;
+            }
+            result = new ArrayContainer(values, n);
+        } else {
+            long[] words = bitmapOf(a);
+            b.setBits(words);
+            result = containerOf(words);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new container with the values in both {@code a} and
+     * {@code b}, or null if there are none.
+     *
+     * @param a
+     *            one container
+     * @param b
+     *            the other container
+     * @return the intersection, or null
+     */
+    private static Container and(Container a, Container b) {
+        Container result;
+        if (a instanceof ArrayContainer) {
+            result = filter((ArrayContainer) a, b, true);
+        } else if (b instanceof ArrayContainer) {
+            result = filter((ArrayContainer) b, a, true);
+        } else {
+            long[] words = bitmapOf(a);
+            long[] other = bitmapOf(b);
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= other[w];
+            }
+            result = containerOf(words);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new container with the values in {@code a} but not in
+     * {@code b}, or null if there are none.
+     *
+     * @param a
+     *            one container
+     * @param b
+     *            the other container
+     * @return the difference, or null
+     */
+    private static Container andNot(Container a, Container b) {
+        Container result;
+        if (a instanceof ArrayContainer) {
+            result = filter((ArrayContainer) a, b, false);
+        } else {
+            long[] words = bitmapOf(a);
+            long[] other = bitmapOf(b);
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= ~other[w];
+            }
+            result = containerOf(words);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the container with chunk key {@code key}, as
+     * {@code Arrays.binarySearch}.
+     *
+     * @param key
+     *            the chunk key
+     * @return the index of key if there is such a container, otherwise
+     *         -(insertion point) - 1
+     */
+    private int index(char key) {
+        return Arrays.binarySearch(this.keys, 0, this.count, key);
+    }
+
+    /**
+     * Appends container {@code c}, with chunk key {@code key}, after the
+     * others.
+     *
+     * @param key
+     *            the chunk key, greater than those of the other containers
+     * @param c
+     *            the container, or null to append nothing
+     */
+    private void append(char key, Container c) {
+        if (c != null) {
+            this.insertContainer(this.count, key, c);
+            this.size += c.cardinality();
+        }
+    }
+
+    /**
+     * Inserts container {@code c}, with chunk key {@code key}, at index
+     * {@code i}.
+     *
+     * @param i
+     *            the index
+     * @param key
+     *            the chunk key
+     * @param c
+     *            the container
+     */
+    private void insertContainer(int i, char key, Container c) {
+        if (this.count == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, 2 * this.count);
+            this.containers = Arrays.copyOf(this.containers, 2 * this.count);
+        }
+        System.arraycopy(this.keys, i, this.keys, i + 1, this.count - i);
+        System.arraycopy(this.containers, i, this.containers, i + 1,
+                this.count - i);
+        this.keys[i] = key;
+        this.containers[i] = c;
+        this.count++;
+    }
+
+    /**
+     * Removes the container at index {@code i}.
+     *
+     * @param i
+     *            the index
+     */
+    private void removeContainer(int i) {
+        System.arraycopy(this.keys, i + 1, this.keys, i, this.count - i - 1);
+        System.arraycopy(this.containers, i + 1, this.containers, i,
+                this.count - i - 1);
+        this.count--;
+        this.containers[this.count] = null;
+    }
+
+    /**
+     * Throws an {@code IllegalArgumentException} with {@code message} unless
+     * {@code condition} holds.
+     *
+     * @param condition
+     *            the condition checked
+     * @param message
+     *            the message of the exception
+     * @throws IllegalArgumentException
+     *             if the condition does not hold
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Reads one container, serialized by {@code Container.write}, from
+     * {@code buffer}.
+     *
+     * @param buffer
+     *            the buffer
+     * @return the container
+     * @updates buffer
+     * @throws IllegalArgumentException
+     *             if the buffer does not hold a valid container
+     */
+    private static Container readContainer(ByteBuffer buffer) {
+        check(buffer.remaining() >= 1 + Integer.BYTES, "Truncated container");
+        byte type = buffer.get();
+        int length = buffer.getInt();
+        Container c;
+        if (type == ARRAY) {
+            check(0 < length && length <= ARRAY_MAX,
+                    "Bad array container length " + length);
+            check(buffer.remaining() >= Character.BYTES * length,
+                    "Truncated array container");
+            char[] values = new char[length];
+            for (int k = 0; k < length; k++) {
+                values[k] = buffer.getChar();
+                check(k == 0 || values[k - 1] < values[k],
+                        "Array container values out of order");
+            }
+            c = new ArrayContainer(values, length);
+        } else if (type == BITMAP) {
+            check(buffer.remaining() >= Long.BYTES * BITMAP_WORDS,
+                    "Truncated bitmap container");
+            long[] words = new long[BITMAP_WORDS];
+            int cardinality = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] = buffer.getLong();
+                cardinality += Long.bitCount(words[w]);
+            }
+            check(cardinality > 0 && cardinality == length,
+                    "Bad bitmap container cardinality " + length);
+            c = new BitmapContainer(words, length);
+        } else if (type == RUN) {
+            check(0 < length && length < ARRAY_MAX / 2,
+                    "Bad run container length " + length);
+            check(buffer.remaining() >= 2 * Character.BYTES * length,
+                    "Truncated run container");
+            char[] runs = new char[2 * length];
+            int cardinality = 0;
+            int next = 0;
+            for (int k = 0; k < length; k++) {
+                runs[2 * k] = buffer.getChar();
+                runs[2 * k + 1] = buffer.getChar();
+                check(runs[2 * k] >= next, "Runs out of order");
+                next = runs[2 * k] + runs[2 * k + 1] + 2;
+                check(next <= CHUNK + 1, "Run past the end of its chunk");
+                cardinality += runs[2 * k + 1] + 1;
+            }
+            check(runsAreSmaller(length, cardinality),
+                    "Run container larger than the alternatives");
+            c = new RunContainer(runs, length, cardinality);
+        } else {
+            throw new IllegalArgumentException(
+                    "Unknown container type " + type);
+        }
+        return c;
+    }
+
+    /**
+     * Reads a set, serialized by {@code writeTo}, from {@code buffer}.
+     *
+     * @param buffer
+     *            the buffer
+     * @return the set
+     * @updates buffer
+     * @throws IllegalArgumentException
+     *             if the buffer does not hold a serialized {@code RoaringSet}
+     */
+    private static RoaringSet read(ByteBuffer buffer) {
+        check(buffer.remaining() >= 2 * Integer.BYTES
+                && buffer.getInt() == MAGIC, "Not a serialized RoaringSet");
+        int n = buffer.getInt();
+        /*
+         * Each container takes at least a key, a type and a length
+         */
+        final int minContainerBytes = Character.BYTES + 1 + Integer.BYTES;
+        check(0 <= n && n <= CHUNK
+                && buffer.remaining() / minContainerBytes >= n,
+                "Bad container count " + n);
+        RoaringSet result = new RoaringSet();
+        long size = 0;
+        for (int i = 0; i < n; i++) {
+            check(buffer.remaining() >= minContainerBytes,
+                    "Truncated container");
+            char key = buffer.getChar();
+            check(i == 0 || result.keys[i - 1] < key,
+                    "Container keys out of order");
+            Container c = readContainer(buffer);
+            size += c.cardinality();
+            check(size <= Integer.MAX_VALUE, "Too many elements");
+            result.append(key, c);
+        }
+        return result;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.keys = new char[DEFAULT_CAPACITY];
+        this.containers = new Container[DEFAULT_CAPACITY];
+        this.count = 0;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public RoaringSet() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Set<Integer> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<Integer> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof RoaringSet : ""
+                + "Violation of: source is of dynamic type RoaringSet";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        RoaringSet localSource = (RoaringSet) source;
+        this.keys = localSource.keys;
+        this.containers = localSource.containers;
+        this.count = localSource.count;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(Integer x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        char key = high(x);
+        char v = (char) x.intValue();
+        int i = this.index(key);
+        if (i >= 0) {
+            this.containers[i] = this.containers[i].add(v);
+        } else {
+            this.insertContainer(-(i + 1), key,
+                    new ArrayContainer(new char[] { v }, 1));
+        }
+        this.size++;
+    }
+
+    @Override
+    public final Integer remove(Integer x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        int i = this.index(high(x));
+        Container c = this.containers[i].remove((char) x.intValue());
+        if (c.cardinality() == 0) {
+            this.removeContainer(i);
+        } else {
+            this.containers[i] = c;
+        }
+        this.size--;
+        return x;
+    }
+
+    @Override
+    public final Integer removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int i = this.count - 1;
+        int x = combine(this.keys[i], this.containers[i].any());
+        return this.remove(x);
+    }
+
+    @Override
+    public final boolean contains(Integer x) {
+        assert x != null : "Violation of: x is not null";
+
+        int i = this.index(high(x));
+        return i >= 0 && this.containers[i].contains((char) x.intValue());
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Integer> iterator() {
+        return new RoaringSetIterator();
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Returns a new set with the elements in {@code this} or in
+     * {@code other}. Neither operand is changed.
+     *
+     * @param other
+     *            the other set
+     * @return the union
+     * @ensures union = this union other
+     */
+    public final RoaringSet union(RoaringSet other) {
+        assert other != null : "Violation of: other is not null";
+
+        RoaringSet result = new RoaringSet();
+        int i = 0;
+        int j = 0;
+        while (i < this.count || j < other.count) {
+            if (j == other.count
+                    || (i < this.count && this.keys[i] < other.keys[j])) {
+                result.append(this.keys[i], this.containers[i].copy());
+                i++;
+            } else if (i == this.count || other.keys[j] < this.keys[i]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(this.keys[i],
+                        or(this.containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new set with the elements in both {@code this} and
+     * {@code other}. Neither operand is changed.
+     *
+     * @param other
+     *            the other set
+     * @return the intersection
+     * @ensures intersection = this intersection other
+     */
+    public final RoaringSet intersection(RoaringSet other) {
+        assert other != null : "Violation of: other is not null";
+
+        RoaringSet result = new RoaringSet();
+        int i = 0;
+        int j = 0;
+        while (i < this.count && j < other.count) {
+            if (this.keys[i] < other.keys[j]) {
+                i++;
+            } else if (other.keys[j] < this.keys[i]) {
+                j++;
+            } else {
+                result.append(this.keys[i],
+                        and(this.containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new set with the elements in {@code this} but not in
+     * {@code other}. Neither operand is changed.
+     *
+     * @param other
+     *            the other set
+     * @return the difference
+     * @ensures difference = this \ other
+     */
+    public final RoaringSet difference(RoaringSet other) {
+        assert other != null : "Violation of: other is not null";
+
+        RoaringSet result = new RoaringSet();
+        int j = 0;
+        for (int i = 0; i < this.count; i++) {
+            while (j < other.count && other.keys[j] < this.keys[i]) {
+                j++;
+            }
+            if (j < other.count && other.keys[j] == this.keys[i]) {
+                result.append(this.keys[i],
+                        andNot(this.containers[i], other.containers[j]));
+            } else {
+                result.append(this.keys[i], this.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public final void add(Set<Integer> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s instanceof RoaringSet) {
+            RoaringSet other = (RoaringSet) s;
+            RoaringSet union = this.union(other);
+            RoaringSet common = this.intersection(other);
+            this.transferFrom(union);
+            other.transferFrom(common);
+        } else {
+            super.add(s);
+        }
+    }
+
+    @Override
+    public final Set<Integer> remove(Set<Integer> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        Set<Integer> removed;
+        if (s instanceof RoaringSet) {
+            RoaringSet other = (RoaringSet) s;
+            removed = this.intersection(other);
+            this.transferFrom(this.difference(other));
+        } else {
+            removed = super.remove(s);
+        }
+        return removed;
+    }
+
+    /**
+     * Converts each container to a list of runs where that is smaller, and
+     * each list of runs back to an array or bitmap where that is smaller.
+     * Best called once a set has been filled, as {@code union},
+     * {@code intersection} and {@code difference} only produce arrays and
+     * bitmaps.
+     *
+     * @updates this
+     * @ensures this = #this
+     */
+    public final void runOptimize() {
+        for (int i = 0; i < this.count; i++) {
+            Container c = this.containers[i];
+            int runs = c.runCount();
+            boolean smaller = runsAreSmaller(runs, c.cardinality());
+            if (smaller && !(c instanceof RunContainer)) {
+                char[] pairs = new char[2 * runs];
+                int n = 0;
+                int v = c.nextValue(0);
+                while (v >= 0) {
+                    int end = v;
+                    while (end + 1 < CHUNK && c.contains((char) (end + 1))) {
+                        end++;
+                    }
+                    pairs[2 * n] = (char) v;
+                    pairs[2 * n + 1] = (char) (end - v);
+                    n++;
+                    v = c.nextValue(end + 1);
+                }
+                this.containers[i] = new RunContainer(pairs, n,
+                        c.cardinality());
+            } else if (!smaller && c instanceof RunContainer) {
+                this.containers[i] = containerOf(bitmapOf(c));
+            }
+        }
+    }
+
+    /**
+     * Reports the number of bytes {@code writeTo} puts in a buffer.
+     *
+     * @return the serialized size of {@code this}
+     */
+    public final int serializedSize() {
+        int bytes = 2 * Integer.BYTES;
+        for (int i = 0; i < this.count; i++) {
+            bytes += Character.BYTES + this.containers[i].serializedSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes {@code this} to {@code buffer}, from its position on, in the
+     * buffer's byte order.
+     *
+     * @param buffer
+     *            the buffer
+     * @updates buffer
+     * @requires buffer.remaining() >= serializedSize()
+     * @ensures <pre>
+     * [buffer holds a serialized copy of this from #buffer.position() on]  and
+     * buffer.position() = #buffer.position() + serializedSize()
+     * </pre>
+     */
+    public final void writeTo(ByteBuffer buffer) {
+        assert buffer != null : "Violation of: buffer is not null";
+        assert buffer.remaining() >= this.serializedSize() : ""
+                + "Violation of: buffer has room for this";
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(this.count);
+        for (int i = 0; i < this.count; i++) {
+            buffer.putChar(this.keys[i]);
+            this.containers[i].write(buffer);
+        }
+    }
+
+    /**
+     * Replaces {@code this} by the set serialized in {@code buffer}, from its
+     * position on, by {@code writeTo} with the same byte order. The input is
+     * checked in full before {@code this} changes: if it is not a valid
+     * serialized set, neither {@code this} nor the buffer's position changes.
+     *
+     * @param buffer
+     *            the buffer
+     * @updates buffer
+     * @replaces this
+     * @ensures [this is the set serialized in #buffer]  and
+     *          [buffer.position() is just after it]
+     * @throws IllegalArgumentException
+     *             if the buffer does not hold a serialized {@code RoaringSet}
+     */
+    public final void readFrom(ByteBuffer buffer) {
+        assert buffer != null : "Violation of: buffer is not null";
+
+        int start = buffer.position();
+        try {
+            this.transferFrom(read(buffer));
+        } catch (IllegalArgumentException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code RoaringSet}.
+     */
+    private final class RoaringSetIterator implements Iterator<Integer> {
+
+        /**
+         * Index of the container being iterated over.
+         */
+        private int index;
+
+        /**
+         * Smallest value of that container not yet returned.
+         */
+        private int from;
+
+        /**
+         * Number of elements not yet returned.
+         */
+        private int remaining;
+
+        /**
+         * No-argument constructor.
+         */
+        private RoaringSetIterator() {
+            this.index = 0;
+            this.from = 0;
+            this.remaining = RoaringSet.this.size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public Integer next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            int v = RoaringSet.this.containers[this.index]
+                    .nextValue(this.from);
+            while (v < 0) {
+                this.index++;
+                v = RoaringSet.this.containers[this.index].nextValue(0);
+            }
+            this.from = v + 1;
+            this.remaining--;
+            return combine(RoaringSet.this.keys[this.index], v);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
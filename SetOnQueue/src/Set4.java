@@ -0,0 +1,517 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as an open-addressing hash table with linear
+ * probing, with implementations of primary methods.
+ * <p>
+ * Where {@code Set2} finds an element by rotating its whole queue,
+ * {@code Set4} probes a few consecutive slots of an array, so
+ * {@code contains}, {@code add} and {@code remove} take expected O(1) time.
+ * The hash code of each element is cached in a parallel {@code int[]}: a
+ * probe compares cached hashes first and calls {@code equals} only when they
+ * match, and growing the table never calls {@code hashCode} again. The table
+ * doubles when it would become more than three quarters full, and
+ * {@code remove} shifts the following entries of the probe run back instead
+ * of leaving a tombstone, so lookups never slow down as elements come and go.
+ * <p>
+ * The bulk operations probe the smaller operand's elements into the larger
+ * one: {@code remove(Set)} takes time proportional to the smaller of
+ * {@code |this|} and {@code |s|} (plus a scan of the table when it walks
+ * {@code this}), and {@code add(Set)} time proportional to {@code |s|}. When
+ * {@code s} is also a {@code Set4}, its cached hash codes are reused, so no
+ * {@code hashCode} is computed at all.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @convention <pre>
+ * |$this.elements| = |$this.hashes|  and
+ * |$this.elements| is a power of 2  and
+ * |$this.elements| >= MINIMUM_CAPACITY  and
+ * $this.size * MAX_LOAD_DENOMINATOR <= |$this.elements| * MAX_LOAD_NUMERATOR
+ * and
+ * $this.size = |{i: integer where $this.elements[i] /= null}|  and
+ * 0 <= $this.scan < |$this.elements|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.elements|  and
+ *            $this.elements[i] /= null)
+ *   ($this.hashes[i] = [hash code of $this.elements[i]]  and
+ *    [every slot from home($this.hashes[i]) up to i, cyclically, is not
+ *     null]  and
+ *    [no element at another index is equal to $this.elements[i]])
+ * </pre>
+ * @correspondence <pre>
+ * this = {x: T where there exists i: integer
+ *                      (0 <= i  and  i < |$this.elements|  and
+ *                       x = $this.elements[i])}
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class Set4<T> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of slots in the hash table.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Smallest number of slots in the hash table.
+     */
+    private static final int MINIMUM_CAPACITY = 2;
+
+    /**
+     * Numerator of the largest allowed fraction of occupied slots.
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the largest allowed fraction of occupied slots.
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * Elements, with {@code null} marking an empty slot.
+     */
+    private Object[] elements;
+
+    /**
+     * Hash codes of the elements in the same slots.
+     */
+    private int[] hashes;
+
+    /**
+     * Number of occupied slots.
+     */
+    private int size;
+
+    /**
+     * Slot at which {@code removeAny} starts looking for an element.
+     */
+    private int scan;
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n} and at least
+     * {@code MINIMUM_CAPACITY}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the power of 2
+     * @requires n <= 2^30
+     * @ensures <pre>
+     * powerOfTwoAtLeast >= n  and  powerOfTwoAtLeast >= MINIMUM_CAPACITY  and
+     * there exists k: integer (powerOfTwoAtLeast = 2^k)  and
+     * [powerOfTwoAtLeast is the smallest such number]
+     * </pre>
+     */
+    private static int powerOfTwoAtLeast(int n) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < n) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the home slot of an element with hash code {@code h} in a table
+     * with {@code mask + 1} slots.
+     *
+     * @param h
+     *            the hash code
+     * @param mask
+     *            the number of slots minus 1
+     * @return the home slot
+     * @requires mask + 1 is a power of 2
+     * @ensures 0 <= home <= mask
+     */
+    private static int home(int h, int mask) {
+        return (h ^ (h >>> (Integer.SIZE / 2))) & mask;
+    }
+
+    /**
+     * Returns the slot holding {@code x} or, if there is none, the empty slot
+     * where {@code x} would be inserted.
+     *
+     * @param x
+     *            the element to look for
+     * @param h
+     *            the hash code of {@code x}
+     * @return the slot for {@code x}
+     * @ensures <pre>
+     * if x is in this
+     *  then $this.elements[slot] = x
+     *  else $this.elements[slot] = null
+     * </pre>
+     */
+    private int slot(Object x, int h) {
+        int mask = this.elements.length - 1;
+        int i = home(h, mask);
+        while (this.elements[i] != null
+                && (this.hashes[i] != h || !this.elements[i].equals(x))) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Doubles the number of slots, moving every element to its slot in the
+     * new table by its cached hash code.
+     */
+    private void grow() {
+        Object[] oldElements = this.elements;
+        int[] oldHashes = this.hashes;
+        int oldSize = this.size;
+        this.createNewRep(2 * oldElements.length);
+        int mask = this.elements.length - 1;
+        for (int i = 0; i < oldElements.length; i++) {
+            if (oldElements[i] != null) {
+                int j = home(oldHashes[i], mask);
+                while (this.elements[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                this.elements[j] = oldElements[i];
+                this.hashes[j] = oldHashes[i];
+            }
+        }
+        this.size = oldSize;
+    }
+
+    /**
+     * Adds {@code x}, whose hash code is {@code h}, growing the table first if
+     * needed.
+     *
+     * @param x
+     *            the element to be added
+     * @param h
+     *            the hash code of {@code x}
+     * @requires x is not in this
+     */
+    private void insert(Object x, int h) {
+        if ((this.size + 1L) * MAX_LOAD_DENOMINATOR
+                > (long) this.elements.length * MAX_LOAD_NUMERATOR) {
+            this.grow();
+        }
+        int i = this.slot(x, h);
+        this.elements[i] = x;
+        this.hashes[i] = h;
+        this.size++;
+    }
+
+    /**
+     * Empties slot {@code i} and shifts the following entries of its probe run
+     * back to close the hole.
+     *
+     * @param i
+     *            the slot to be emptied
+     * @requires $this.elements[i] /= null
+     */
+    private void removeAt(int i) {
+        int hole = i;
+        this.elements[hole] = null;
+        this.size--;
+        /*
+         * Backward shift: move each later entry of the probe run into the hole
+         * if the hole lies between its home slot and its current slot
+         */
+        int mask = this.elements.length - 1;
+        int j = (hole + 1) & mask;
+        while (this.elements[j] != null) {
+            int h = home(this.hashes[j], mask);
+            if (((j - h) & mask) >= ((j - hole) & mask)) {
+                this.elements[hole] = this.elements[j];
+                this.hashes[hole] = this.hashes[j];
+                this.elements[j] = null;
+                hole = j;
+            }
+            j = (j + 1) & mask;
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the number of slots
+     * @requires capacity is a power of 2  and  capacity >= MINIMUM_CAPACITY
+     */
+    private void createNewRep(int capacity) {
+        this.elements = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.size = 0;
+        this.scan = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set4() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor resulting in a set that can hold {@code expectedSize}
+     * elements without growing.
+     *
+     * @param expectedSize
+     *            the number of elements expected
+     * @requires 0 <= expectedSize <= 2^29
+     */
+    public Set4(int expectedSize) {
+        assert expectedSize >= 0 : "Violation of: 0 <= expectedSize";
+
+        /*
+         * Computed in long: expectedSize * MAX_LOAD_DENOMINATOR overflows int
+         * well within the allowed range of expectedSize
+         */
+        this.createNewRep(powerOfTwoAtLeast((int) ((long) expectedSize
+                * MAX_LOAD_DENOMINATOR / MAX_LOAD_NUMERATOR + 1)));
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set4<?> : ""
+                + "Violation of: source is of dynamic type Set4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set4<T> localSource = (Set4<T>) source;
+        this.elements = localSource.elements;
+        this.hashes = localSource.hashes;
+        this.size = localSource.size;
+        this.scan = localSource.scan;
+        localSource.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        this.insert(x, x.hashCode());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        int i = this.slot(x, x.hashCode());
+        assert this.elements[i] != null : "Violation of: x is in this";
+
+        T removed = (T) this.elements[i];
+        this.removeAt(i);
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        int mask = this.elements.length - 1;
+        while (this.elements[this.scan] == null) {
+            this.scan = (this.scan + 1) & mask;
+        }
+        T removed = (T) this.elements[this.scan];
+        this.removeAt(this.scan);
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.elements[this.slot(x, x.hashCode())] != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set4Iterator();
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void add(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s instanceof Set4<?>) {
+            Set4<T> other = (Set4<T>) s;
+            Set4<T> common = (Set4<T>) this.newInstance();
+            for (int i = 0; i < other.elements.length; i++) {
+                Object x = other.elements[i];
+                if (x != null) {
+                    int h = other.hashes[i];
+                    if (this.elements[this.slot(x, h)] != null) {
+                        common.insert(x, h);
+                    } else {
+                        this.insert(x, h);
+                    }
+                }
+            }
+            other.transferFrom(common);
+        } else {
+            super.add(s);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> remove(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        Set4<T> removed = (Set4<T>) this.newInstance();
+        if (s.size() < this.size) {
+            /*
+             * Probe this for each element of the smaller s
+             */
+            if (s instanceof Set4<?>) {
+                Set4<T> other = (Set4<T>) s;
+                for (int i = 0; i < other.elements.length; i++) {
+                    Object x = other.elements[i];
+                    if (x != null) {
+                        int j = this.slot(x, other.hashes[i]);
+                        if (this.elements[j] != null) {
+                            removed.insert(this.elements[j], this.hashes[j]);
+                            this.removeAt(j);
+                        }
+                    }
+                }
+            } else {
+                for (T x : s) {
+                    int j = this.slot(x, x.hashCode());
+                    if (this.elements[j] != null) {
+                        removed.insert(this.elements[j], this.hashes[j]);
+                        this.removeAt(j);
+                    }
+                }
+            }
+        } else {
+            /*
+             * Probe s for each element of the smaller this; the elements are
+             * removed only after the scan, which removeAt would disturb
+             */
+            for (int i = 0; i < this.elements.length; i++) {
+                if (this.elements[i] != null
+                        && s.contains((T) this.elements[i])) {
+                    removed.insert(this.elements[i], this.hashes[i]);
+                }
+            }
+            for (int i = 0; i < removed.elements.length; i++) {
+                Object x = removed.elements[i];
+                if (x != null) {
+                    this.removeAt(this.slot(x, removed.hashes[i]));
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set4}.
+     */
+    private final class Set4Iterator implements Iterator<T> {
+
+        /**
+         * Slot at which to look for the next element.
+         */
+        private int slot;
+
+        /**
+         * Number of elements not yet returned.
+         */
+        private int remaining;
+
+        /**
+         * No-argument constructor.
+         */
+        private Set4Iterator() {
+            this.slot = 0;
+            this.remaining = Set4.this.size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            while (Set4.this.elements[this.slot] == null) {
+                this.slot++;
+            }
+            T x = (T) Set4.this.elements[this.slot];
+            this.slot++;
+            this.remaining--;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture checking that the copies of {@code CharSet} in other
+ * projects are identical to the one maintained here. Paths are relative to
+ * this project's directory, the working directory of its tests.
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class CharSetCopiesTest {
+
+    /**
+     * The maintained source file.
+     */
+    private static final Path ORIGINAL = Paths.get("src", "CharSet.java");
+
+    /**
+     * Checks that the copy of {@code CharSet} in {@code project} is
+     * identical to {@code ORIGINAL}.
+     *
+     * @param project
+     *            the project holding the copy
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    private static void checkCopy(String project) throws IOException {
+        Path copy = Paths.get("..", project, "src", "CharSet.java");
+        assertArrayEquals(copy + " differs from " + ORIGINAL,
+                Files.readAllBytes(ORIGINAL), Files.readAllBytes(copy));
+    }
+
+    /**
+     * Test the copy in TagCloudGenerator.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public final void testTagCloudGeneratorCopy() throws IOException {
+        checkCopy("TagCloudGenerator");
+    }
+
+    /**
+     * Test the copy in Tokenizer.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public final void testTokenizerCopy() throws IOException {
+        checkCopy("Tokenizer");
+    }
+
+}
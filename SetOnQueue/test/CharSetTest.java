@@ -0,0 +1,186 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code CharSet}.
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class CharSetTest {
+
+    /**
+     * Creates and returns a {@code Set<Character>} of the reference
+     * implementation type with the characters of {@code chars}.
+     *
+     * @param chars
+     *            the characters for the set
+     * @return the constructed set
+     */
+    private static Set<Character> createRef(String chars) {
+        Set<Character> set = new Set1L<Character>();
+        for (int i = 0; i < chars.length(); i++) {
+            if (!set.contains(chars.charAt(i))) {
+                set.add(chars.charAt(i));
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Test constructor.
+     */
+    @Test
+    public final void testConstructor() {
+        Set<Character> s = new CharSet();
+
+        assertEquals(createRef(""), s);
+    }
+
+    /**
+     * Test constructor from a {@code String} with repeated characters.
+     */
+    @Test
+    public final void testStringConstructor() {
+        Set<Character> s = new CharSet(" \t\n,.-,. ");
+
+        assertEquals(createRef(" \t\n,.-"), s);
+        assertEquals(6, s.size());
+    }
+
+    /**
+     * Test add.
+     */
+    @Test
+    public final void testAdd() {
+        Set<Character> s = new CharSet("ab");
+
+        s.add('c');
+        s.add('\u20ac');
+
+        assertEquals(createRef("abc\u20ac"), s);
+    }
+
+    /**
+     * Test remove.
+     */
+    @Test
+    public final void testRemove() {
+        Set<Character> s = new CharSet("abc");
+
+        char x = s.remove('b');
+
+        assertEquals('b', x);
+        assertEquals(createRef("ac"), s);
+    }
+
+    /**
+     * Test removeAny until empty.
+     */
+    @Test
+    public final void testRemoveAny() {
+        Set<Character> s = new CharSet("z\u00e9a!\uffff");
+        Set<Character> expected = createRef("z\u00e9a!\uffff");
+
+        while (s.size() > 0) {
+            char x = s.removeAny();
+            assertTrue(expected.contains(x));
+            expected.remove(x);
+        }
+        assertEquals(0, expected.size());
+    }
+
+    /**
+     * Test contains, boxed and unboxed.
+     */
+    @Test
+    public final void testContains() {
+        CharSet s = new CharSet(" ,\u0100");
+
+        assertTrue(s.contains(' '));
+        assertTrue(s.contains(Character.valueOf(',')));
+        assertTrue(s.contains('\u0100'));
+        assertFalse(s.contains('a'));
+        assertFalse(s.contains('\u0101'));
+        assertFalse(s.contains('\uffff'));
+    }
+
+    /**
+     * Test iteration, which is in increasing order.
+     */
+    @Test
+    public final void testIterator() {
+        Set<Character> s = new CharSet("dz\u00e9a");
+        StringBuilder seen = new StringBuilder();
+
+        for (char c : s) {
+            seen.append(c);
+        }
+
+        assertEquals("adz\u00e9", seen.toString());
+    }
+
+    /**
+     * Test transferFrom.
+     */
+    @Test
+    public final void testTransferFrom() {
+        Set<Character> s = new CharSet();
+        Set<Character> source = new CharSet("xy");
+
+        s.transferFrom(source);
+
+        assertEquals(createRef("xy"), s);
+        assertEquals(0, source.size());
+    }
+
+    /**
+     * Test add(Set) with a {@code CharSet} operand reaching further.
+     */
+    @Test
+    public final void testAddSet() {
+        Set<Character> s = new CharSet("abc");
+        Set<Character> t = new CharSet("c\u0100");
+
+        s.add(t);
+
+        assertEquals(createRef("abc\u0100"), s);
+        assertEquals(createRef("c"), t);
+    }
+
+    /**
+     * Test remove(Set) with a {@code CharSet} operand.
+     */
+    @Test
+    public final void testRemoveSet() {
+        Set<Character> s = new CharSet("abc\u0100");
+        Set<Character> t = new CharSet("bz");
+
+        Set<Character> removed = s.remove(t);
+
+        assertEquals(createRef("ac\u0100"), s);
+        assertEquals(createRef("bz"), t);
+        assertEquals(createRef("b"), removed);
+    }
+
+    /**
+     * Test remove(Set) with an operand of another implementation.
+     */
+    @Test
+    public final void testRemoveOtherSet() {
+        Set<Character> s = new CharSet("abc");
+        Set<Character> t = createRef("cd");
+
+        Set<Character> removed = s.remove(t);
+
+        assertEquals(createRef("ab"), s);
+        assertEquals(createRef("c"), removed);
+    }
+
+}
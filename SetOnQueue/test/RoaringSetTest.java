@@ -0,0 +1,490 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code RoaringSet}.
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class RoaringSetTest {
+
+    /**
+     * Number of elements in the large tests, enough for several chunks.
+     */
+    private static final int LARGE = 200_000;
+
+    /**
+     * Creates and returns a {@code RoaringSet} with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     */
+    private static RoaringSet createFromArgs(int... args) {
+        RoaringSet set = new RoaringSet();
+        for (int x : args) {
+            set.add(x);
+        }
+        return set;
+    }
+
+    /**
+     * Creates and returns a {@code Set<Integer>} of the reference
+     * implementation type with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     */
+    private static Set<Integer> createRef(int... args) {
+        Set<Integer> set = new Set1L<Integer>();
+        for (int x : args) {
+            set.add(x);
+        }
+        return set;
+    }
+
+    /**
+     * Creates and returns a {@code RoaringSet} with the multiples of
+     * {@code step} in [{@code from}, {@code to}).
+     *
+     * @param from
+     *            the first entry
+     * @param to
+     *            the bound of the entries
+     * @param step
+     *            the distance between entries
+     * @return the constructed set
+     */
+    private static RoaringSet createRange(int from, int to, int step) {
+        RoaringSet set = new RoaringSet();
+        for (int x = from; x < to; x += step) {
+            set.add(x);
+        }
+        return set;
+    }
+
+    /**
+     * Returns the bytes {@code writeTo} puts for {@code set}.
+     *
+     * @param set
+     *            the set
+     * @return the serialized set
+     */
+    private static byte[] serialize(RoaringSet set) {
+        ByteBuffer buffer = ByteBuffer.allocate(set.serializedSize());
+        set.writeTo(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Checks that {@code readFrom} rejects {@code bytes} and leaves the set
+     * and the buffer position unchanged.
+     *
+     * @param bytes
+     *            the input
+     */
+    private static void checkReadFromRejects(byte[] bytes) {
+        RoaringSet s = createFromArgs(12, -12);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            s.readFrom(buffer);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(createRef(12, -12), s);
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    /**
+     * Test constructor.
+     */
+    @Test
+    public final void testConstructor() {
+        Set<Integer> s = new RoaringSet();
+
+        assertEquals(createRef(), s);
+    }
+
+    /**
+     * Test add, with negative entries and entries of several chunks.
+     */
+    @Test
+    public final void testAdd() {
+        Set<Integer> s = createFromArgs(3, -1);
+
+        s.add(Integer.MIN_VALUE);
+        s.add(Integer.MAX_VALUE);
+        s.add(1 << 20);
+        s.add(0);
+
+        assertEquals(createRef(3, -1, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                1 << 20, 0), s);
+    }
+
+    /**
+     * Test remove, emptying a chunk.
+     */
+    @Test
+    public final void testRemove() {
+        Set<Integer> s = createFromArgs(3, 70_000, -5);
+
+        int x = s.remove(70_000);
+
+        assertEquals(70_000, x);
+        assertEquals(createRef(3, -5), s);
+    }
+
+    /**
+     * Test removeAny.
+     */
+    @Test
+    public final void testRemoveAny() {
+        Set<Integer> s = createFromArgs(1, -2, 1 << 24);
+        Set<Integer> expected = createRef(1, -2, 1 << 24);
+
+        int x = s.removeAny();
+
+        assertTrue(expected.contains(x));
+        expected.remove(x);
+        assertEquals(expected, s);
+    }
+
+    /**
+     * Test contains.
+     */
+    @Test
+    public final void testContains() {
+        Set<Integer> s = createFromArgs(7, -7, 65_543);
+
+        assertTrue(s.contains(-7));
+        assertTrue(s.contains(65_543));
+        assertFalse(s.contains(65_536 + 6));
+        assertFalse(s.contains(7 - 65_536));
+    }
+
+    /**
+     * Test iteration order, increasing across negative and positive chunks.
+     */
+    @Test
+    public final void testIterationOrder() {
+        Set<Integer> s = createFromArgs(5, Integer.MIN_VALUE, -70_000, 1 << 20,
+                -1, 0);
+        int[] expected = { Integer.MIN_VALUE, -70_000, -1, 0, 5, 1 << 20 };
+
+        Iterator<Integer> it = s.iterator();
+        for (int x : expected) {
+            assertTrue(it.hasNext());
+            assertEquals(x, it.next().intValue());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Test a chunk growing past an array container and shrinking back.
+     */
+    @Test
+    public final void testDenseChunkAddRemove() {
+        RoaringSet s = createRange(0, 10_000, 1);
+        assertEquals(10_000, s.size());
+        for (int x = 0; x < 10_000; x += 2) {
+            s.remove(x);
+        }
+
+        assertEquals(createRange(1, 10_000, 2), s);
+        assertEquals(5_000, s.size());
+        int expected = 1;
+        for (int x : s) {
+            assertEquals(expected, x);
+            expected += 2;
+        }
+    }
+
+    /**
+     * Test emptying a large set with removeAny.
+     */
+    @Test
+    public final void testRemoveAnyLarge() {
+        RoaringSet s = createRange(-LARGE / 2, LARGE / 2, 1);
+        Set<Integer> seen = new Set1L<Integer>();
+
+        while (s.size() > 0) {
+            int x = s.removeAny();
+            assertFalse(seen.contains(x));
+            seen.add(x);
+        }
+
+        assertEquals(LARGE, seen.size());
+    }
+
+    /**
+     * Test runOptimize on runs, then add and remove inside the runs.
+     */
+    @Test
+    public final void testRunOptimize() {
+        RoaringSet s = createRange(0, LARGE, 1);
+        RoaringSet expected = createRange(0, LARGE, 1);
+        int before = s.serializedSize();
+
+        s.runOptimize();
+        s.remove(1_000);
+        s.remove(1_001);
+        s.remove(0);
+        s.add(1_000);
+        expected.remove(1_001);
+        expected.remove(0);
+
+        assertTrue(s.serializedSize() * 100 < before);
+        assertEquals(expected, s);
+        assertEquals(LARGE - 2, s.size());
+        assertTrue(s.contains(1_000));
+        assertFalse(s.contains(1_001));
+    }
+
+    /**
+     * Test runOptimize leaves scattered entries alone.
+     */
+    @Test
+    public final void testRunOptimizeScattered() {
+        RoaringSet s = createRange(0, LARGE, 3);
+        int before = s.serializedSize();
+
+        s.runOptimize();
+
+        assertEquals(before, s.serializedSize());
+        assertEquals(createRange(0, LARGE, 3), s);
+    }
+
+    /**
+     * Test a run container turning back into a bitmap as remove splits its
+     * runs.
+     */
+    @Test
+    public final void testRunContainerRemoveConvertsBack() {
+        RoaringSet s = createRange(0, 10_000, 1);
+        s.runOptimize();
+
+        for (int x = 0; x < 10_000; x += 2) {
+            s.remove(x);
+        }
+
+        RoaringSet expected = createRange(1, 10_000, 2);
+        assertEquals(expected, s);
+        assertEquals(expected.serializedSize(), s.serializedSize());
+    }
+
+    /**
+     * Test a run container turning back into an array as add creates runs.
+     */
+    @Test
+    public final void testRunContainerAddConvertsBack() {
+        RoaringSet s = createRange(0, 1_000, 1);
+        s.runOptimize();
+        int runOnly = s.serializedSize();
+
+        for (int x = 2_000; x < 8_000; x += 2) {
+            s.add(x);
+        }
+
+        RoaringSet expected = createRange(0, 1_000, 1);
+        expected.add(createRange(2_000, 8_000, 2));
+        assertTrue(runOnly < expected.serializedSize());
+        assertEquals(expected, s);
+        assertEquals(expected.serializedSize(), s.serializedSize());
+        for (int x = 2_000; x < 8_000; x += 2) {
+            s.remove(x);
+        }
+        assertEquals(createRange(0, 1_000, 1), s);
+    }
+
+    /**
+     * Test union, intersection and difference over array, bitmap and run
+     * containers.
+     */
+    @Test
+    public final void testUnionIntersectionDifference() {
+        RoaringSet s1 = createRange(0, LARGE, 2);
+        RoaringSet s2 = createRange(0, LARGE, 3);
+        RoaringSet s3 = createRange(LARGE / 2, LARGE, 1);
+        s3.runOptimize();
+
+        RoaringSet union = s1.union(s2);
+        RoaringSet intersection = s1.intersection(s2);
+        RoaringSet difference = s1.difference(s2);
+        RoaringSet withRuns = s3.intersection(s2);
+
+        assertEquals(LARGE / 2 + (LARGE + 2) / 3 - (LARGE + 5) / 6,
+                union.size());
+        assertEquals(createRange(0, LARGE, 6), intersection);
+        assertEquals(LARGE / 2 - (LARGE + 5) / 6, difference.size());
+        for (int x = 0; x < 60; x++) {
+            assertEquals(x % 2 == 0 || x % 3 == 0, union.contains(x));
+            assertEquals(x % 2 == 0 && x % 3 != 0, difference.contains(x));
+        }
+        assertEquals(createRange(LARGE / 2 + 2, LARGE, 3), withRuns);
+        assertEquals(createRange(0, LARGE, 2), s1);
+        assertEquals(createRange(0, LARGE, 3), s2);
+    }
+
+    /**
+     * Test add(Set) with a {@code RoaringSet}.
+     */
+    @Test
+    public final void testAddSet() {
+        RoaringSet s1 = createFromArgs(1, 2, -3, 1 << 20);
+        RoaringSet s2 = createFromArgs(2, -3, 4);
+
+        s1.add(s2);
+
+        assertEquals(createRef(1, 2, -3, 4, 1 << 20), s1);
+        assertEquals(createRef(2, -3), s2);
+    }
+
+    /**
+     * Test add(Set) with another implementation.
+     */
+    @Test
+    public final void testAddSetOther() {
+        RoaringSet s1 = createFromArgs(1, 2);
+        Set<Integer> s2 = createRef(2, 3);
+
+        s1.add(s2);
+
+        assertEquals(createRef(1, 2, 3), s1);
+        assertEquals(createRef(2), s2);
+    }
+
+    /**
+     * Test remove(Set) with a {@code RoaringSet}.
+     */
+    @Test
+    public final void testRemoveSet() {
+        RoaringSet s1 = createRange(0, LARGE, 1);
+        RoaringSet s2 = createRange(-10, LARGE / 2, 1);
+
+        Set<Integer> removed = s1.remove(s2);
+
+        assertEquals(createRange(LARGE / 2, LARGE, 1), s1);
+        assertEquals(createRange(0, LARGE / 2, 1), removed);
+        assertEquals(createRange(-10, LARGE / 2, 1), s2);
+    }
+
+    /**
+     * Test writeTo and readFrom round trip with every kind of container.
+     */
+    @Test
+    public final void testSerialization() {
+        RoaringSet s = createRange(-LARGE, 0, 7);
+        s.add(createRange(0, 70_000, 1));
+        s.add(createRange(1 << 20, (1 << 20) + 10_000, 1));
+        s.runOptimize();
+        s.add(createRange(1 << 24, (1 << 24) + 10_000, 2));
+        s.add(Integer.MAX_VALUE);
+        ByteBuffer buffer = ByteBuffer.allocate(s.serializedSize() + 3);
+        buffer.put((byte) 1);
+
+        s.writeTo(buffer);
+        buffer.flip();
+        buffer.get();
+        RoaringSet t = new RoaringSet();
+        t.add(12);
+        t.readFrom(buffer);
+
+        assertEquals(0, buffer.remaining());
+        assertEquals(s, t);
+        assertEquals(s.size(), t.size());
+    }
+
+    /**
+     * Test readFrom of a buffer without a serialized set.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public final void testReadFromBad() {
+        RoaringSet s = new RoaringSet();
+
+        s.readFrom(ByteBuffer.wrap(new byte[16]));
+    }
+
+    /**
+     * Test readFrom of truncated serialized sets, cut inside each kind of
+     * container.
+     */
+    @Test
+    public final void testReadFromTruncated() {
+        RoaringSet s = createRange(0, 100, 3);
+        s.add(createRange(1 << 16, (1 << 16) + 10_000, 1));
+        s.add(createRange(1 << 20, (1 << 20) + 1_000, 1));
+        s.runOptimize();
+        s.add(createRange(1 << 24, (1 << 24) + 10_000, 2));
+        byte[] bytes = serialize(s);
+
+        for (int length = 0; length < bytes.length; length += 97) {
+            checkReadFromRejects(Arrays.copyOf(bytes, length));
+        }
+        checkReadFromRejects(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    /**
+     * Test readFrom of serialized sets with bad counts and lengths.
+     */
+    @Test
+    public final void testReadFromBadLengths() {
+        byte[] bytes = serialize(createFromArgs(1, 2, 3));
+        /*
+         * Layout: magic (4), container count (4), key (2), type (1),
+         * length (4), values (2 each)
+         */
+        ByteBuffer negativeCount = ByteBuffer.wrap(bytes.clone());
+        negativeCount.putInt(4, -1);
+        ByteBuffer hugeCount = ByteBuffer.wrap(bytes.clone());
+        hugeCount.putInt(4, Integer.MAX_VALUE);
+        ByteBuffer negativeLength = ByteBuffer.wrap(bytes.clone());
+        negativeLength.putInt(11, -1);
+        ByteBuffer hugeLength = ByteBuffer.wrap(bytes.clone());
+        hugeLength.putInt(11, Integer.MAX_VALUE);
+        ByteBuffer unordered = ByteBuffer.wrap(bytes.clone());
+        unordered.putChar(15, (char) 5);
+        ByteBuffer badType = ByteBuffer.wrap(bytes.clone());
+        badType.put(10, (byte) 7);
+
+        checkReadFromRejects(negativeCount.array());
+        checkReadFromRejects(hugeCount.array());
+        checkReadFromRejects(negativeLength.array());
+        checkReadFromRejects(hugeLength.array());
+        checkReadFromRejects(unordered.array());
+        checkReadFromRejects(badType.array());
+    }
+
+    /**
+     * Test readFrom of two containers with keys out of order.
+     */
+    @Test
+    public final void testReadFromKeysOutOfOrder() {
+        byte[] first = serialize(createFromArgs(1 << 16));
+        byte[] second = serialize(createFromArgs(1));
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length
+                - 2 * Integer.BYTES);
+        buffer.put(first, 0, Integer.BYTES);
+        buffer.putInt(2);
+        buffer.put(first, 2 * Integer.BYTES, first.length - 2 * Integer.BYTES);
+        buffer.put(second, 2 * Integer.BYTES,
+                second.length - 2 * Integer.BYTES);
+
+        checkReadFromRejects(buffer.array());
+    }
+
+}
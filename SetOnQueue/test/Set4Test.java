@@ -0,0 +1,154 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set4}.
+ */
+public class Set4Test extends SetTest {
+
+    /**
+     * Number of elements in the growth tests.
+     */
+    private static final int MANY = 10_000;
+
+    /**
+     * Creates and returns a {@code Set4<String>} with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     */
+    private Set<String> createFromArgs(String... args) {
+        Set<String> set = this.constructorTest();
+        for (String x : args) {
+            set.add(x);
+        }
+        return set;
+    }
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set4<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Test add and remove through many table doublings.
+     */
+    @Test
+    public final void testAddRemoveMany() {
+        Set<String> s = this.constructorTest();
+        Set<String> expected = this.constructorRef();
+        for (int i = 0; i < MANY; i++) {
+            s.add("x" + i);
+            expected.add("x" + i);
+        }
+        assertEquals(expected, s);
+        for (int i = 0; i < MANY; i += 3) {
+            assertEquals("x" + i, s.remove("x" + i));
+            expected.remove("x" + i);
+        }
+        assertEquals(expected, s);
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(expected.contains("x" + i), s.contains("x" + i));
+        }
+    }
+
+    /**
+     * Test remove of colliding elements, whose probe runs overlap.
+     */
+    @Test
+    public final void testRemoveColliding() {
+        /*
+         * "Aa" and "BB" have the same hash code, as do all strings made of
+         * them
+         */
+        Set<String> s = this.constructorTest();
+        s.add("AaAa");
+        s.add("AaBB");
+        s.add("BBAa");
+        s.add("BBBB");
+        assertEquals("AaBB", s.remove("AaBB"));
+        assertTrue(s.contains("AaAa"));
+        assertTrue(s.contains("BBAa"));
+        assertTrue(s.contains("BBBB"));
+        assertEquals(3, s.size());
+    }
+
+    /**
+     * Test removeAny until empty.
+     */
+    @Test
+    public final void testRemoveAnyMany() {
+        Set<String> s = new Set4<String>(MANY);
+        Set<String> expected = this.constructorRef();
+        for (int i = 0; i < MANY; i++) {
+            s.add("x" + i);
+            expected.add("x" + i);
+        }
+        while (s.size() > 0) {
+            String x = s.removeAny();
+            assertTrue(expected.contains(x));
+            expected.remove(x);
+        }
+        assertEquals(0, expected.size());
+    }
+
+    /**
+     * Test add(Set) with a {@code Set4} operand.
+     */
+    @Test
+    public final void testAddSet() {
+        Set<String> s = this.createFromArgs("1", "2", "3");
+        Set<String> t = this.createFromArgs("3", "4");
+
+        s.add(t);
+
+        assertEquals(this.createFromArgs("1", "2", "3", "4"), s);
+        assertEquals(this.createFromArgs("3"), t);
+    }
+
+    /**
+     * Test remove(Set) with a smaller {@code Set4} operand.
+     */
+    @Test
+    public final void testRemoveSmallerSet() {
+        Set<String> s = this.createFromArgs("1", "2", "3", "4");
+        Set<String> t = this.createFromArgs("3", "5");
+
+        Set<String> removed = s.remove(t);
+
+        assertEquals(this.createFromArgs("1", "2", "4"), s);
+        assertEquals(this.createFromArgs("3", "5"), t);
+        assertEquals(this.createFromArgs("3"), removed);
+    }
+
+    /**
+     * Test remove(Set) with a larger operand of another implementation.
+     */
+    @Test
+    public final void testRemoveLargerSet() {
+        Set<String> s = this.createFromArgs("1", "2");
+        Set<String> t = this.constructorRef();
+        t.add("2");
+        t.add("3");
+        t.add("4");
+
+        Set<String> removed = s.remove(t);
+
+        assertEquals(this.createFromArgs("1"), s);
+        assertEquals(3, t.size());
+        assertEquals(this.createFromArgs("2"), removed);
+    }
+
+}
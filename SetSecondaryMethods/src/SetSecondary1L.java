@@ -1,15 +1,112 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import components.set.Set;
 import components.set.Set1L;
 
 /**
  * Layered implementations of secondary methods {@code add} and {@code remove}
  * for {@code Set}.
+ * <p>
+ * {@code remove} walks whichever of the two sets is smaller and probes the
+ * other, so removing a few elements from a large set costs time proportional
+ * to the few. {@code parallelAdd} and {@code parallelRemove} do the same work
+ * as {@code add} and {@code remove}, but for operands of more than
+ * {@code PARALLEL_THRESHOLD} elements they probe {@code this} from several
+ * threads of the common fork/join pool; only the final updates are
+ * sequential. No other thread may change either set while they run.
  *
  * @param <T>
  *            type of {@code Set} elements
  */
 public final class SetSecondary1L<T> extends Set1L<T> {
 
+    /**
+     * Number of elements below which the parallel methods probe sequentially,
+     * and size of the chunks they hand to each task.
+     */
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+    /**
+     * Task that reports which elements of a range of an array are in a set.
+     *
+     * @param <T>
+     *            type of {@code Set} elements
+     */
+    private static final class Probe<T> extends RecursiveAction {
+
+        /**
+         * Serial version UID (tasks are never serialized).
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The set probed.
+         */
+        private final Set<T> set;
+
+        /**
+         * The elements looked up.
+         */
+        private final Object[] elements;
+
+        /**
+         * Whether each element is in the set, filled in by the task.
+         */
+        private final boolean[] found;
+
+        /**
+         * Start of the range.
+         */
+        private final int lo;
+
+        /**
+         * End of the range.
+         */
+        private final int hi;
+
+        /**
+         * Constructor.
+         *
+         * @param set
+         *            the set probed
+         * @param elements
+         *            the elements looked up
+         * @param found
+         *            the result array
+         * @param lo
+         *            start of the range
+         * @param hi
+         *            end of the range
+         */
+        Probe(Set<T> set, Object[] elements, boolean[] found, int lo,
+                int hi) {
+            this.set = set;
+            this.elements = elements;
+            this.found = found;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo <= PARALLEL_THRESHOLD) {
+                for (int i = this.lo; i < this.hi; i++) {
+                    this.found[i] = this.set.contains((T) this.elements[i]);
+                }
+            } else {
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(
+                        new Probe<T>(this.set, this.elements, this.found,
+                                this.lo, mid),
+                        new Probe<T>(this.set, this.elements, this.found, mid,
+                                this.hi));
+            }
+        }
+
+    }
+
     /**
      * No-argument constructor.
      */
@@ -18,14 +115,54 @@ public final class SetSecondary1L<T> extends Set1L<T> {
     }
 
     /**
-     * Removes and returns an arbitrary element from {@code this}.
+     * Returns the elements of {@code s} in an array.
+     *
+     * @param <T>
+     *            type of {@code Set} elements
+     * @param s
+     *            the set
+     * @return the elements of s
+     * @ensures [entries of toArray = s]  and  |toArray| = |s|
+     */
+    private static <T> Object[] toArray(Set<T> s) {
+        Object[] elements = new Object[s.size()];
+        int i = 0;
+        for (T x : s) {
+            elements[i] = x;
+            i++;
+        }
+        return elements;
+    }
+
+    /**
+     * Reports which of {@code elements} are in {@code this}, probing from
+     * several threads when there are many of them.
      *
-     * @return the element removed from {@code this}
+     * @param elements
+     *            the elements to be looked up
+     * @return found[i] = (elements[i] is in this)
+     */
+    private boolean[] probe(Object[] elements) {
+        boolean[] found = new boolean[elements.length];
+        ForkJoinPool.commonPool().invoke(
+                new Probe<T>(this, elements, found, 0, elements.length));
+        return found;
+    }
+
+    /**
+     * Removes from {@code this} all elements of {@code s} that are also in
+     * {@code this}, leaving {@code s} unchanged, and returns the elements
+     * actually removed.
+     *
+     * @param s
+     *            the {@code Set} whose elements are to be removed from
+     *            {@code this}
+     * @return the {@code Set} whose elements actually were removed from
+     *         {@code this}
      * @updates this
-     * @requires |this| > 0
      * @ensures <pre>
-     * removeAny is in #this and
-     * this = #this \ {removeAny}
+     * this = #this \ s  and
+     * remove = #this intersection s
      * </pre>
      */
     @Override
@@ -34,22 +171,37 @@ public final class SetSecondary1L<T> extends Set1L<T> {
         assert s != this : "Violation of: s is not this";
 
         Set<T> removedSet = s.newInstance();
-        Set<T> thisCopy = this.newInstance();
-
-        // Transfer this to thisCopy
-        // #this = empty
-        thisCopy.transferFrom(this);
-
-        // When thisCopy.size() > 0
-        while (thisCopy.size() > 0) {
-            // Remove one thing from thisCopy to x
-            T x = thisCopy.removeAny();
-            // If thisCopy contains x
-            if (s.contains(x)) {
-                removedSet.add(x);
-            } else {
-                // If thisCopy does not contains x
-                this.add(x);
+
+        if (s.size() < this.size()) {
+            /*
+             * Probe this for each element of the smaller s
+             */
+            for (T x : s) {
+                if (this.contains(x)) {
+                    removedSet.add(x);
+                }
+            }
+            for (T x : removedSet) {
+                this.remove(x);
+            }
+        } else {
+            Set<T> thisCopy = this.newInstance();
+
+            // Transfer this to thisCopy
+            // #this = empty
+            thisCopy.transferFrom(this);
+
+            // When thisCopy.size() > 0
+            while (thisCopy.size() > 0) {
+                // Remove one thing from thisCopy to x
+                T x = thisCopy.removeAny();
+                // If thisCopy contains x
+                if (s.contains(x)) {
+                    removedSet.add(x);
+                } else {
+                    // If thisCopy does not contains x
+                    this.add(x);
+                }
             }
         }
 
@@ -86,4 +238,76 @@ public final class SetSecondary1L<T> extends Set1L<T> {
         }
     }
 
+    /**
+     * Same as {@code remove(s)}, with the lookups of the elements of
+     * {@code s} in {@code this} spread over several threads.
+     *
+     * @param s
+     *            the {@code Set} whose elements are to be removed from
+     *            {@code this}
+     * @return the {@code Set} whose elements actually were removed from
+     *         {@code this}
+     * @updates this
+     * @requires [no other thread changes this or s during the call]
+     * @ensures <pre>
+     * this = #this \ s  and
+     * parallelRemove = #this intersection s
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public Set<T> parallelRemove(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        Set<T> removedSet;
+        if (s.size() <= PARALLEL_THRESHOLD) {
+            removedSet = this.remove(s);
+        } else {
+            removedSet = s.newInstance();
+            Object[] elements = toArray(s);
+            boolean[] found = this.probe(elements);
+            for (int i = 0; i < elements.length; i++) {
+                if (found[i]) {
+                    this.remove((T) elements[i]);
+                    removedSet.add((T) elements[i]);
+                }
+            }
+        }
+        return removedSet;
+    }
+
+    /**
+     * Same as {@code add(s)}, with the lookups of the elements of {@code s}
+     * in {@code this} spread over several threads.
+     *
+     * @param s
+     *            the {@code Set} whose elements are to be added to {@code this}
+     * @updates this, s
+     * @requires [no other thread changes this or s during the call]
+     * @ensures <pre>
+     * this = #this union #s  and
+     * s = #this intersection #s
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public void parallelAdd(Set<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s.size() <= PARALLEL_THRESHOLD) {
+            this.add(s);
+        } else {
+            Object[] elements = toArray(s);
+            boolean[] found = this.probe(elements);
+            s.clear();
+            for (int i = 0; i < elements.length; i++) {
+                if (found[i]) {
+                    s.add((T) elements[i]);
+                } else {
+                    this.add((T) elements[i]);
+                }
+            }
+        }
+    }
+
 }
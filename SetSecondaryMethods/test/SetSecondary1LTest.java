@@ -6,6 +6,12 @@ import components.set.Set;
 
 public final class SetSecondary1LTest {
 
+    /**
+     * Number of elements in the large tests, enough for the parallel methods
+     * to split the work.
+     */
+    private static final int LARGE = 60_000;
+
     /**
      * Construct and return a {@code Set<String>} containing the given
      * {@code String}s.
@@ -126,4 +132,70 @@ public final class SetSecondary1LTest {
         assertEquals("{two}", result.toString());
     }
 
+    @Test
+    public final void testRemoveSmallerSet() {
+        Set<String> s1 = createFromArgs("one", "two", "three");
+        Set<String> s2 = createFromArgs("two", "four");
+        Set<String> result = s1.remove(s2);
+        assertEquals(createFromArgs("one", "three"), s1);
+        assertEquals(createFromArgs("two", "four"), s2);
+        assertEquals("{two}", result.toString());
+    }
+
+    @Test
+    public final void testParallelAddLarge() {
+        SetSecondary1L<String> s1 = new SetSecondary1L<String>();
+        Set<String> s2 = createFromArgs();
+        Set<String> union = createFromArgs();
+        Set<String> common = createFromArgs();
+        for (int i = 0; i < LARGE; i += 2) {
+            s1.add("x" + i);
+            union.add("x" + i);
+        }
+        for (int i = 0; i < LARGE; i += 3) {
+            s2.add("x" + i);
+            if (union.contains("x" + i)) {
+                common.add("x" + i);
+            } else {
+                union.add("x" + i);
+            }
+        }
+        s1.parallelAdd(s2);
+        assertEquals(union, s1);
+        assertEquals(common, s2);
+    }
+
+    @Test
+    public final void testParallelRemoveLarge() {
+        SetSecondary1L<String> s1 = new SetSecondary1L<String>();
+        Set<String> s2 = createFromArgs();
+        Set<String> difference = createFromArgs();
+        Set<String> common = createFromArgs();
+        for (int i = 0; i < LARGE; i += 2) {
+            s1.add("x" + i);
+            difference.add("x" + i);
+        }
+        for (int i = 0; i < LARGE; i += 3) {
+            s2.add("x" + i);
+            if (difference.contains("x" + i)) {
+                difference.remove("x" + i);
+                common.add("x" + i);
+            }
+        }
+        Set<String> result = s1.parallelRemove(s2);
+        assertEquals(difference, s1);
+        assertEquals(common, result);
+        assertEquals((LARGE + 2) / 3, s2.size());
+    }
+
+    @Test
+    public final void testParallelAddSmall() {
+        SetSecondary1L<String> s1 = new SetSecondary1L<String>();
+        s1.add("one");
+        Set<String> s2 = createFromArgs("one", "two");
+        s1.parallelAdd(s2);
+        assertEquals(createFromArgs("one", "two"), s1);
+        assertEquals("{one}", s2.toString());
+    }
+
 }
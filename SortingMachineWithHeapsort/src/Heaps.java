@@ -0,0 +1,514 @@
+import java.util.Comparator;
+
+/**
+ * Utility class of iterative binary-heap operations on plain arrays, with
+ * specializations for {@code int} and {@code long} entries.
+ * <p>
+ * A heap of size n occupies entries [0, n) of its array, interpreted as a
+ * complete binary tree in which the children of index i are 2i + 1 and
+ * 2i + 2; the smallest entry (according to the order) is at index 0. Sifting
+ * moves a "hole" instead of exchanging entries: the entry being sifted is
+ * held aside, each entry that must move is copied once into the hole, and the
+ * held entry is stored once where the hole stops, about half the array writes
+ * of an exchange-based sift. {@code heapify} is Floyd's bottom-up
+ * construction, which takes O(n) time. The {@code int} and {@code long}
+ * versions compare with {@code <} directly, so no {@code Comparator} call or
+ * boxing is involved.
+ * <p>
+ * Only O(1) checks are made with assertions enabled, so the cost of a heap
+ * operation does not grow to O(n) under {@code -ea}; {@code isHeap} is
+ * available for tests.
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class Heaps {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private Heaps() {
+    }
+
+    /*
+     * Generic entries --------------------------------------------------------
+     */
+
+    /**
+     * Sifts the entry at {@code top} down within the first {@code size}
+     * entries of {@code heap}, where both subtrees of {@code top} are already
+     * heaps.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param heap
+     *            the array
+     * @param top
+     *            the index of the root of the subtree
+     * @param size
+     *            the number of entries in the heap
+     * @param order
+     *            total preorder for the heap
+     * @updates heap
+     * @requires <pre>
+     * 0 <= top < size <= |heap|  and
+     * [the subtrees rooted at 2 * top + 1 and 2 * top + 2, within
+     *  heap[0, size), are heaps]
+     * </pre>
+     * @ensures <pre>
+     * [the subtree rooted at top, within heap[0, size), is a heap and has the
+     *  same entries as in #heap]  and
+     * [the other entries of heap are unchanged]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void siftDown(Object[] heap, int top, int size,
+            Comparator<? super T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert top < size : "Violation of: top < size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        T x = (T) heap[top];
+        int hole = top;
+        int firstLeaf = size >>> 1;
+        boolean placed = false;
+        while (hole < firstLeaf && !placed) {
+            int child = 2 * hole + 1;
+            T smaller = (T) heap[child];
+            if (child + 1 < size
+                    && order.compare((T) heap[child + 1], smaller) < 0) {
+                child++;
+                smaller = (T) heap[child];
+            }
+            if (order.compare(smaller, x) < 0) {
+                heap[hole] = smaller;
+                hole = child;
+            } else {
+                placed = true;
+            }
+        }
+        heap[hole] = x;
+    }
+
+    /**
+     * Sifts the entry at {@code bottom} up toward the root, where the first
+     * {@code bottom} entries of {@code heap} already form a heap.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param heap
+     *            the array
+     * @param bottom
+     *            the index of the entry to be sifted up
+     * @param order
+     *            total preorder for the heap
+     * @updates heap
+     * @requires 0 <= bottom < |heap|  and  [heap[0, bottom) is a heap]
+     * @ensures <pre>
+     * [heap[0, bottom + 1) is a heap with the same entries as in #heap]  and
+     * [the other entries of heap are unchanged]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void siftUp(Object[] heap, int bottom,
+            Comparator<? super T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert order != null : "Violation of: order is not null";
+        assert 0 <= bottom : "Violation of: 0 <= bottom";
+        assert bottom < heap.length : "Violation of: bottom < |heap|";
+
+        T x = (T) heap[bottom];
+        int hole = bottom;
+        boolean placed = false;
+        while (hole > 0 && !placed) {
+            int parent = (hole - 1) >>> 1;
+            T p = (T) heap[parent];
+            if (order.compare(x, p) < 0) {
+                heap[hole] = p;
+                hole = parent;
+            } else {
+                placed = true;
+            }
+        }
+        heap[hole] = x;
+    }
+
+    /**
+     * Rearranges the first {@code size} entries of {@code heap} into a heap,
+     * bottom-up, in O({@code size}) time.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param heap
+     *            the array
+     * @param size
+     *            the number of entries in the heap
+     * @param order
+     *            total preorder for the heap
+     * @updates heap
+     * @requires 0 <= size <= |heap|
+     * @ensures <pre>
+     * [heap[0, size) is a heap]  and  perms(heap[0, size), #heap[0, size))
+     * and  [the other entries of heap are unchanged]
+     * </pre>
+     */
+    public static <T> void heapify(Object[] heap, int size,
+            Comparator<? super T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 <= size : "Violation of: 0 <= size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, size, order);
+        }
+    }
+
+    /**
+     * Removes the smallest entry from the heap in the first {@code size}
+     * entries of {@code heap} and returns it; the remaining entries form a
+     * heap in the first {@code size - 1} entries, and entry {@code size - 1}
+     * is set to {@code null}.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param heap
+     *            the array
+     * @param size
+     *            the number of entries in the heap
+     * @param order
+     *            total preorder for the heap
+     * @return the smallest entry
+     * @updates heap
+     * @requires 0 < size <= |heap|  and  [heap[0, size) is a heap]
+     * @ensures <pre>
+     * removeFirst = #heap[0]  and  [heap[0, size - 1) is a heap]  and
+     * perms(heap[0, size - 1) * <removeFirst>, #heap[0, size))  and
+     * heap[size - 1] = null
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T removeFirst(Object[] heap, int size,
+            Comparator<? super T> order) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 < size : "Violation of: 0 < size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        T first = (T) heap[0];
+        heap[0] = heap[size - 1];
+        heap[size - 1] = null;
+        if (size > 2) {
+            siftDown(heap, 0, size - 1, order);
+        }
+        return first;
+    }
+
+    /**
+     * Reports whether the first {@code size} entries of {@code heap} form a
+     * heap. Takes O({@code size}) time.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param heap
+     *            the array
+     * @param size
+     *            the number of entries in the heap
+     * @param order
+     *            total preorder for the heap
+     * @return true iff heap[0, size) is a heap
+     * @requires 0 <= size <= |heap|
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> boolean isHeap(Object[] heap, int size,
+            Comparator<? super T> order) {
+        boolean isHeap = true;
+        for (int i = 1; i < size && isHeap; i++) {
+            isHeap = order.compare((T) heap[(i - 1) >>> 1], (T) heap[i]) <= 0;
+        }
+        return isHeap;
+    }
+
+    /*
+     * int entries ------------------------------------------------------------
+     */
+
+    /**
+     * Sifts the entry at {@code top} down within the first {@code size}
+     * entries of {@code heap}, in increasing order.
+     *
+     * @param heap
+     *            the array
+     * @param top
+     *            the index of the root of the subtree
+     * @param size
+     *            the number of entries in the heap
+     * @updates heap
+     * @requires <pre>
+     * 0 <= top < size <= |heap|  and
+     * [the subtrees rooted at 2 * top + 1 and 2 * top + 2, within
+     *  heap[0, size), are heaps]
+     * </pre>
+     * @ensures <pre>
+     * [the subtree rooted at top, within heap[0, size), is a heap and has the
+     *  same entries as in #heap]  and
+     * [the other entries of heap are unchanged]
+     * </pre>
+     */
+    public static void siftDown(int[] heap, int top, int size) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert top < size : "Violation of: top < size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        int x = heap[top];
+        int hole = top;
+        int firstLeaf = size >>> 1;
+        boolean placed = false;
+        while (hole < firstLeaf && !placed) {
+            int child = 2 * hole + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] < x) {
+                heap[hole] = heap[child];
+                hole = child;
+            } else {
+                placed = true;
+            }
+        }
+        heap[hole] = x;
+    }
+
+    /**
+     * Sifts the entry at {@code bottom} up toward the root, in increasing
+     * order.
+     *
+     * @param heap
+     *            the array
+     * @param bottom
+     *            the index of the entry to be sifted up
+     * @updates heap
+     * @requires 0 <= bottom < |heap|  and  [heap[0, bottom) is a heap]
+     * @ensures <pre>
+     * [heap[0, bottom + 1) is a heap with the same entries as in #heap]  and
+     * [the other entries of heap are unchanged]
+     * </pre>
+     */
+    public static void siftUp(int[] heap, int bottom) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 <= bottom : "Violation of: 0 <= bottom";
+        assert bottom < heap.length : "Violation of: bottom < |heap|";
+
+        int x = heap[bottom];
+        int hole = bottom;
+        boolean placed = false;
+        while (hole > 0 && !placed) {
+            int parent = (hole - 1) >>> 1;
+            if (x < heap[parent]) {
+                heap[hole] = heap[parent];
+                hole = parent;
+            } else {
+                placed = true;
+            }
+        }
+        heap[hole] = x;
+    }
+
+    /**
+     * Rearranges the first {@code size} entries of {@code heap} into a heap in
+     * increasing order, bottom-up, in O({@code size}) time.
+     *
+     * @param heap
+     *            the array
+     * @param size
+     *            the number of entries in the heap
+     * @updates heap
+     * @requires 0 <= size <= |heap|
+     * @ensures <pre>
+     * [heap[0, size) is a heap]  and  perms(heap[0, size), #heap[0, size))
+     * and  [the other entries of heap are unchanged]
+     * </pre>
+     */
+    public static void heapify(int[] heap, int size) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 <= size : "Violation of: 0 <= size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, size);
+        }
+    }
+
+    /**
+     * Removes the smallest entry from the heap in the first {@code size}
+     * entries of {@code heap} and returns it; the remaining entries form a
+     * heap in the first {@code size - 1} entries.
+     *
+     * @param heap
+     *            the array
+     * @param size
+     *            the number of entries in the heap
+     * @return the smallest entry
+     * @updates heap
+     * @requires 0 < size <= |heap|  and  [heap[0, size) is a heap]
+     * @ensures <pre>
+     * removeFirst = #heap[0]  and  [heap[0, size - 1) is a heap]  and
+     * perms(heap[0, size - 1) * <removeFirst>, #heap[0, size))
+     * </pre>
+     */
+    public static int removeFirst(int[] heap, int size) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 < size : "Violation of: 0 < size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        int first = heap[0];
+        heap[0] = heap[size - 1];
+        if (size > 2) {
+            siftDown(heap, 0, size - 1);
+        }
+        return first;
+    }
+
+    /*
+     * long entries -----------------------------------------------------------
+     */
+
+    /**
+     * Sifts the entry at {@code top} down within the first {@code size}
+     * entries of {@code heap}, in increasing order.
+     *
+     * @param heap
+     *            the array
+     * @param top
+     *            the index of the root of the subtree
+     * @param size
+     *            the number of entries in the heap
+     * @updates heap
+     * @requires <pre>
+     * 0 <= top < size <= |heap|  and
+     * [the subtrees rooted at 2 * top + 1 and 2 * top + 2, within
+     *  heap[0, size), are heaps]
+     * </pre>
+     * @ensures <pre>
+     * [the subtree rooted at top, within heap[0, size), is a heap and has the
+     *  same entries as in #heap]  and
+     * [the other entries of heap are unchanged]
+     * </pre>
+     */
+    public static void siftDown(long[] heap, int top, int size) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 <= top : "Violation of: 0 <= top";
+        assert top < size : "Violation of: top < size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        long x = heap[top];
+        int hole = top;
+        int firstLeaf = size >>> 1;
+        boolean placed = false;
+        while (hole < firstLeaf && !placed) {
+            int child = 2 * hole + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] < x) {
+                heap[hole] = heap[child];
+                hole = child;
+            } else {
+                placed = true;
+            }
+        }
+        heap[hole] = x;
+    }
+
+    /**
+     * Sifts the entry at {@code bottom} up toward the root, in increasing
+     * order.
+     *
+     * @param heap
+     *            the array
+     * @param bottom
+     *            the index of the entry to be sifted up
+     * @updates heap
+     * @requires 0 <= bottom < |heap|  and  [heap[0, bottom) is a heap]
+     * @ensures <pre>
+     * [heap[0, bottom + 1) is a heap with the same entries as in #heap]  and
+     * [the other entries of heap are unchanged]
+     * </pre>
+     */
+    public static void siftUp(long[] heap, int bottom) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 <= bottom : "Violation of: 0 <= bottom";
+        assert bottom < heap.length : "Violation of: bottom < |heap|";
+
+        long x = heap[bottom];
+        int hole = bottom;
+        boolean placed = false;
+        while (hole > 0 && !placed) {
+            int parent = (hole - 1) >>> 1;
+            if (x < heap[parent]) {
+                heap[hole] = heap[parent];
+                hole = parent;
+            } else {
+                placed = true;
+            }
+        }
+        heap[hole] = x;
+    }
+
+    /**
+     * Rearranges the first {@code size} entries of {@code heap} into a heap in
+     * increasing order, bottom-up, in O({@code size}) time.
+     *
+     * @param heap
+     *            the array
+     * @param size
+     *            the number of entries in the heap
+     * @updates heap
+     * @requires 0 <= size <= |heap|
+     * @ensures <pre>
+     * [heap[0, size) is a heap]  and  perms(heap[0, size), #heap[0, size))
+     * and  [the other entries of heap are unchanged]
+     * </pre>
+     */
+    public static void heapify(long[] heap, int size) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 <= size : "Violation of: 0 <= size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, size);
+        }
+    }
+
+    /**
+     * Removes the smallest entry from the heap in the first {@code size}
+     * entries of {@code heap} and returns it; the remaining entries form a
+     * heap in the first {@code size - 1} entries.
+     *
+     * @param heap
+     *            the array
+     * @param size
+     *            the number of entries in the heap
+     * @return the smallest entry
+     * @updates heap
+     * @requires 0 < size <= |heap|  and  [heap[0, size) is a heap]
+     * @ensures <pre>
+     * removeFirst = #heap[0]  and  [heap[0, size - 1) is a heap]  and
+     * perms(heap[0, size - 1) * <removeFirst>, #heap[0, size))
+     * </pre>
+     */
+    public static long removeFirst(long[] heap, int size) {
+        assert heap != null : "Violation of: heap is not null";
+        assert 0 < size : "Violation of: 0 < size";
+        assert size <= heap.length : "Violation of: size <= |heap|";
+
+        long first = heap[0];
+        heap[0] = heap[size - 1];
+        if (size > 2) {
+            siftDown(heap, 0, size - 1);
+        }
+        return first;
+    }
+
+}
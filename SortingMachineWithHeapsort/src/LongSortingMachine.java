@@ -0,0 +1,159 @@
+import java.util.Arrays;
+
+/**
+ * Sorting machine for {@code long}s in increasing order, represented as a
+ * single {@code long[]} heap.
+ * <p>
+ * It offers the kernel operations of {@code SortingMachine} with {@code long}
+ * in place of {@code T}: entries are never boxed and are compared with
+ * {@code <} rather than through a {@code Comparator}, using the {@code long}
+ * operations of {@code Heaps}.
+ *
+ * @convention <pre>
+ * 0 <= $this.size <= |$this.heap|  and
+ * if not $this.insertionMode then
+ *   [$this.heap[0, $this.size) is a heap in increasing order]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, <=,
+ *         multiset_entries($this.heap[0, $this.size)))
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class LongSortingMachine {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial length of the array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion order in insertion mode, and a heap in extraction
+     * mode.
+     */
+    private long[] heap;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.insertionMode = true;
+        this.heap = new long[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public LongSortingMachine() {
+        this.createNewRep();
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Resets {@code this} to an empty machine in insertion mode.
+     *
+     * @clears this
+     */
+    public void clear() {
+        this.createNewRep();
+    }
+
+    /**
+     * Adds {@code x} to the contents of {@code this}.
+     *
+     * @param x
+     *            the element to be added
+     * @updates this.contents
+     * @requires this.insertion_mode
+     * @ensures this.contents = #this.contents union {x}
+     */
+    public void add(long x) {
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, 2 * this.heap.length);
+        }
+        this.heap[this.size] = x;
+        this.size++;
+    }
+
+    /**
+     * Changes the mode of {@code this} from insertion to extraction.
+     *
+     * @updates this.insertion_mode
+     * @requires this.insertion_mode
+     * @ensures not this.insertion_mode
+     */
+    public void changeToExtractionMode() {
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+
+        this.insertionMode = false;
+        Heaps.heapify(this.heap, this.size);
+    }
+
+    /**
+     * Removes and returns the smallest element of {@code this.contents}.
+     *
+     * @return the element removed
+     * @updates this.contents
+     * @requires not this.insertion_mode  and  this.contents /= {}
+     * @ensures <pre>
+     * removeFirst is in #this.contents  and
+     * this.contents = #this.contents \ {removeFirst}  and
+     * for all x: integer where (x is in this.contents) (removeFirst <= x)
+     * </pre>
+     */
+    public long removeFirst() {
+        assert !this.insertionMode : "Violation of: not this.insertion_mode";
+        assert this.size > 0 : "Violation of: this.contents /= {}";
+
+        long x = Heaps.removeFirst(this.heap, this.size);
+        this.size--;
+        return x;
+    }
+
+    /**
+     * Reports whether {@code this} is in insertion mode.
+     *
+     * @return true iff {@code this} is in insertion mode
+     * @ensures isInInsertionMode = this.insertion_mode
+     */
+    public boolean isInInsertionMode() {
+        return this.insertionMode;
+    }
+
+    /**
+     * Reports the number of elements in {@code this.contents}.
+     *
+     * @return the number of elements
+     * @ensures size = |this.contents|
+     */
+    public int size() {
+        return this.size;
+    }
+
+}
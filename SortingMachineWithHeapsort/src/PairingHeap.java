@@ -0,0 +1,483 @@
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Priority queue represented as a pairing heap: a heap-ordered tree of any
+ * shape, each node keeping a pointer to its leftmost child and to its next
+ * sibling.
+ * <p>
+ * {@code insert} and {@code meld} link two trees with one comparison, and so
+ * take O(1) time. {@code removeFirst} removes the root and pairs up its
+ * children left to right, then links the pairs right to left, in amortized
+ * O(log n) time. {@code insert} returns a {@code Handle} to the new entry,
+ * through which {@code decreaseKey} can later move the entry forward: the
+ * entry's subtree is cut from its parent and linked with the root, in O(1)
+ * time (amortized O(log n) in the worst case analysis, and fast in practice).
+ * <p>
+ * This makes it suitable as a scheduler queue where the priority of waiting
+ * entries changes, as well as the representation of
+ * {@code SortingMachine5c}.
+ *
+ * @param <T>
+ *            type of {@code PairingHeap} entries
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.order.compare method])  and
+ * if $this.root = null then
+ *   $this.size = 0
+ * else
+ *   [$this.root is the root of a tree with $this.size nodes, each
+ *    no greater than its children according to $this.order.compare]  and
+ *   [for each node y of that tree, y.prev is the parent of y if y is a
+ *    leftmost child, its left sibling otherwise, and null if y is the root]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.order, [multiset of the values of the nodes of the tree
+ *         rooted at $this.root])
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class PairingHeap<T> implements Iterable<T> {
+
+    /**
+     * An entry of a {@code PairingHeap}, as returned by {@code insert}: a node
+     * of its tree.
+     *
+     * @param <T>
+     *            type of the entry
+     */
+    public static final class Handle<T> {
+
+        /**
+         * The entry.
+         */
+        private T value;
+
+        /**
+         * Leftmost child, or null.
+         */
+        private Handle<T> child;
+
+        /**
+         * Next sibling to the right, or null.
+         */
+        private Handle<T> sibling;
+
+        /**
+         * Parent if leftmost child, left sibling otherwise, null if root.
+         */
+        private Handle<T> prev;
+
+        /**
+         * Whether the entry is still in a heap.
+         */
+        private boolean inHeap;
+
+        /**
+         * Constructor.
+         *
+         * @param value
+         *            the entry
+         */
+        private Handle(T value) {
+            this.value = value;
+            this.inHeap = true;
+        }
+
+        /**
+         * Reports the entry.
+         *
+         * @return the entry
+         */
+        public T value() {
+            return this.value;
+        }
+
+        /**
+         * Reports whether the entry is still in a heap, i.e., it has not been
+         * removed by {@code removeFirst} or {@code clear}.
+         *
+         * @return true iff the entry is still in a heap
+         */
+        public boolean isInHeap() {
+            return this.inHeap;
+        }
+
+    }
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Order.
+     */
+    private final Comparator<T> order;
+
+    /**
+     * Root of the tree, or null.
+     */
+    private Handle<T> root;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Links the trees rooted at {@code a} and {@code b}, making the root that
+     * comes later in the order the leftmost child of the other (on a tie,
+     * {@code b} goes under {@code a}).
+     *
+     * @param a
+     *            the root of one tree
+     * @param b
+     *            the root of the other tree
+     * @return the root of the linked tree
+     * @requires <pre>
+     * a and b are roots of disjoint trees  and
+     * a.sibling = null  and  b.sibling = null
+     * </pre>
+     */
+    private Handle<T> link(Handle<T> a, Handle<T> b) {
+        Handle<T> parent = a;
+        Handle<T> child = b;
+        if (this.order.compare(b.value, a.value) < 0) {
+            parent = b;
+            child = a;
+        }
+        child.sibling = parent.child;
+        if (parent.child != null) {
+            parent.child.prev = child;
+        }
+        child.prev = parent;
+        parent.child = child;
+        parent.prev = null;
+        return parent;
+    }
+
+    /**
+     * Links the trees rooted at {@code first} and its right siblings into one
+     * tree, by the two-pass pairing: adjacent pairs left to right, then the
+     * results right to left.
+     *
+     * @param first
+     *            the leftmost of the roots, or null
+     * @return the root of the linked tree, or null
+     */
+    private Handle<T> combine(Handle<T> first) {
+        /*
+         * First pass: link adjacent pairs, stacking the results (through
+         * sibling) so the rightmost is on top
+         */
+        Handle<T> pairs = null;
+        Handle<T> a = first;
+        while (a != null) {
+            Handle<T> b = a.sibling;
+            Handle<T> next = null;
+            a.sibling = null;
+            Handle<T> linked = a;
+            if (b != null) {
+                next = b.sibling;
+                b.sibling = null;
+                linked = this.link(a, b);
+            }
+            linked.sibling = pairs;
+            pairs = linked;
+            a = next;
+        }
+
+        /*
+         * Second pass: link the results from the right
+         */
+        Handle<T> result = pairs;
+        if (pairs != null) {
+            Handle<T> rest = pairs.sibling;
+            result.sibling = null;
+            while (rest != null) {
+                Handle<T> next = rest.sibling;
+                rest.sibling = null;
+                result = this.link(rest, result);
+                rest = next;
+            }
+            result.prev = null;
+        }
+        return result;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for ordering the entries
+     */
+    public PairingHeap(Comparator<T> order) {
+        assert order != null : "Violation of: order is not null";
+
+        this.order = order;
+        this.root = null;
+        this.size = 0;
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Reports the order of {@code this}.
+     *
+     * @return the order
+     * @ensures order = this.order
+     */
+    public Comparator<T> order() {
+        return this.order;
+    }
+
+    /**
+     * Removes all entries from {@code this}. Their handles are no longer in a
+     * heap.
+     *
+     * @clears this
+     */
+    public void clear() {
+        for (Handle<T> h : this.handles()) {
+            h.inHeap = false;
+        }
+        this.root = null;
+        this.size = 0;
+    }
+
+    /**
+     * Adds {@code x} to {@code this}.
+     *
+     * @param x
+     *            the entry to be added
+     * @return a handle to the new entry
+     * @updates this
+     * @ensures this.entries = #this.entries union {x}
+     */
+    public Handle<T> insert(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Handle<T> h = new Handle<T>(x);
+        if (this.root == null) {
+            this.root = h;
+        } else {
+            this.root = this.link(this.root, h);
+        }
+        this.size++;
+        return h;
+    }
+
+    /**
+     * Moves all entries of {@code other} into {@code this}. Handles to them
+     * remain valid, now for {@code this}.
+     *
+     * @param other
+     *            the heap to be melded into {@code this}
+     * @updates this
+     * @clears other
+     * @requires other is not this  and  [other has the same order as this]
+     * @ensures this.entries = #this.entries union #other.entries
+     */
+    public void meld(PairingHeap<T> other) {
+        assert other != null : "Violation of: other is not null";
+        assert other != this : "Violation of: other is not this";
+
+        if (this.root == null) {
+            this.root = other.root;
+        } else if (other.root != null) {
+            this.root = this.link(this.root, other.root);
+        }
+        this.size += other.size;
+        other.root = null;
+        other.size = 0;
+    }
+
+    /**
+     * Reports the first entry of {@code this}.
+     *
+     * @return the first entry
+     * @requires this.entries /= {}
+     * @ensures <pre>
+     * first is in this.entries  and
+     * for all x: T where (x is in this.entries)
+     *   ([relation computed by this.order.compare(first, x) <= 0])
+     * </pre>
+     */
+    public T first() {
+        assert this.size > 0 : "Violation of: this.entries /= {}";
+
+        return this.root.value;
+    }
+
+    /**
+     * Removes and returns the first entry of {@code this}.
+     *
+     * @return the entry removed
+     * @updates this
+     * @requires this.entries /= {}
+     * @ensures <pre>
+     * removeFirst is in #this.entries  and
+     * this.entries = #this.entries \ {removeFirst}  and
+     * for all x: T where (x is in this.entries)
+     *   ([relation computed by this.order.compare(removeFirst, x) <= 0])
+     * </pre>
+     */
+    public T removeFirst() {
+        assert this.size > 0 : "Violation of: this.entries /= {}";
+
+        Handle<T> h = this.root;
+        this.root = this.combine(h.child);
+        h.child = null;
+        h.inHeap = false;
+        this.size--;
+        return h.value;
+    }
+
+    /**
+     * Replaces the entry of {@code h} with {@code x}, which must not come
+     * after it in the order.
+     *
+     * @param h
+     *            handle to an entry of {@code this}
+     * @param x
+     *            the new entry
+     * @updates this
+     * @requires <pre>
+     * h is a handle to an entry of this  and
+     * [relation computed by this.order.compare(x, h.value) <= 0]
+     * </pre>
+     * @ensures this.entries = (#this.entries \ {#h.value}) union {x}
+     */
+    public void decreaseKey(Handle<T> h, T x) {
+        assert h != null : "Violation of: h is not null";
+        assert x != null : "Violation of: x is not null";
+        assert h.inHeap : "Violation of: h is a handle to an entry of this";
+        assert this.order.compare(x,
+                h.value) <= 0 : "Violation of: x <= h.value";
+
+        h.value = x;
+        if (h != this.root) {
+            /*
+             * Cut the subtree of h out of its sibling list and link it with
+             * the root
+             */
+            if (h.prev.child == h) {
+                h.prev.child = h.sibling;
+            } else {
+                h.prev.sibling = h.sibling;
+            }
+            if (h.sibling != null) {
+                h.sibling.prev = h.prev;
+            }
+            h.prev = null;
+            h.sibling = null;
+            this.root = this.link(this.root, h);
+        }
+    }
+
+    /**
+     * Reports the number of entries in {@code this}.
+     *
+     * @return the number of entries
+     * @ensures size = |this.entries|
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the handles of all entries of {@code this}, in no particular
+     * order.
+     *
+     * @return the handles
+     */
+    private Deque<Handle<T>> handles() {
+        Deque<Handle<T>> result = new ArrayDeque<Handle<T>>();
+        Deque<Handle<T>> pending = new ArrayDeque<Handle<T>>();
+        if (this.root != null) {
+            pending.push(this.root);
+        }
+        while (!pending.isEmpty()) {
+            Handle<T> h = pending.pop();
+            result.add(h);
+            if (h.child != null) {
+                pending.push(h.child);
+            }
+            if (h.sibling != null) {
+                pending.push(h.sibling);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PairingHeapIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code PairingHeap},
+     * walking the tree depth first.
+     */
+    private final class PairingHeapIterator implements Iterator<T> {
+
+        /**
+         * Roots of the subtrees (with their right siblings) not yet visited.
+         */
+        private final Deque<Handle<T>> pending;
+
+        /**
+         * No-argument constructor.
+         */
+        private PairingHeapIterator() {
+            this.pending = new ArrayDeque<Handle<T>>();
+            if (PairingHeap.this.root != null) {
+                this.pending.push(PairingHeap.this.root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.pending.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Handle<T> h = this.pending.pop();
+            if (h.child != null) {
+                this.pending.push(h.child);
+            }
+            if (h.sibling != null) {
+                this.pending.push(h.sibling);
+            }
+            return h.value;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
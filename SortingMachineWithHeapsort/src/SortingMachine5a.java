@@ -479,14 +479,13 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
 
         T x = this.heap.entry(0);
         this.heapSize--;
-//        Array<T> a = new Array1L<>(this.heapSize);
-//
-//        for (int i = 0; i < this.heapSize; i++) {
-//            a.setEntry(i, this.heap.entry(i + 1));
-//        }
-//
-//        this.heap.transferFrom(a);
-        heapify(this.heap, 0, this.machineOrder);
+        /*
+         * Move the last entry of the heap to the root, leaving the removed
+         * entry just past the heap, and restore the heap ordering property
+         * along one root-to-leaf path
+         */
+        this.heap.exchangeEntries(0, this.heapSize);
+        siftDown(this.heap, 0, this.heapSize - 1, this.machineOrder);
 
         assert this.conventionHolds();
 
@@ -555,12 +554,15 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
 
         @Override
         public boolean hasNext() {
+            /*
+             * Iterating does not change the representation, so the convention
+             * is checked once, by the constructor; checking it on every call
+             * would make each step O(n) and a full iteration O(n^2).
+             */
             if (!SortingMachine5a.this.insertionMode
                     && (this.notSeenCount == 0)) {
-                assert SortingMachine5a.this.conventionHolds();
                 return false;
             }
-            assert SortingMachine5a.this.conventionHolds();
             return this.iterator.hasNext();
         }
 
@@ -578,7 +580,6 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
             if (!SortingMachine5a.this.insertionMode) {
                 this.notSeenCount--;
             }
-            assert SortingMachine5a.this.conventionHolds();
             return this.iterator.next();
         }
 
@@ -0,0 +1,120 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code Heaps}.
+ */
+public final class HeapsTest {
+
+    /**
+     * Number of entries in the randomized tests.
+     */
+    private static final int MANY = 1000;
+
+    /**
+     * Compare {@code Integer}s in increasing order. Also used by
+     * {@code PairingHeapTest}.
+     */
+    static final class IntegerLT implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer i1, Integer i2) {
+            return i1.compareTo(i2);
+        }
+
+    }
+
+    @Test
+    public void testHeapifyAndDrainGeneric() {
+        Random rnd = new Random(2231);
+        Object[] heap = new Object[MANY + 1];
+        int[] expected = new int[MANY];
+        for (int i = 0; i < MANY; i++) {
+            expected[i] = rnd.nextInt(MANY / 2);
+            heap[i] = expected[i];
+        }
+        Arrays.sort(expected);
+        Comparator<Integer> order = new IntegerLT();
+
+        Heaps.heapify(heap, MANY, order);
+        assertTrue(Heaps.isHeap(heap, MANY, order));
+        int[] drained = new int[MANY];
+        for (int i = 0; i < MANY; i++) {
+            drained[i] = Heaps.<Integer> removeFirst(heap, MANY - i, order);
+            assertNull(heap[MANY - i - 1]);
+        }
+
+        assertArrayEquals(expected, drained);
+    }
+
+    @Test
+    public void testSiftUpGeneric() {
+        Comparator<Integer> order = new IntegerLT();
+        Object[] heap = new Object[MANY];
+        for (int i = 0; i < MANY; i++) {
+            heap[i] = MANY - i;
+            Heaps.siftUp(heap, i, order);
+            assertTrue(Heaps.isHeap(heap, i + 1, order));
+        }
+
+        assertEquals(1, heap[0]);
+    }
+
+    @Test
+    public void testHeapifyAndDrainInt() {
+        Random rnd = new Random(2231);
+        int[] heap = new int[MANY];
+        for (int i = 0; i < MANY; i++) {
+            heap[i] = rnd.nextInt();
+        }
+        int[] expected = heap.clone();
+        Arrays.sort(expected);
+
+        Heaps.heapify(heap, MANY);
+        int[] drained = new int[MANY];
+        for (int i = 0; i < MANY; i++) {
+            drained[i] = Heaps.removeFirst(heap, MANY - i);
+        }
+
+        assertArrayEquals(expected, drained);
+    }
+
+    @Test
+    public void testSiftUpAndDrainLong() {
+        Random rnd = new Random(2231);
+        long[] heap = new long[MANY];
+        long[] expected = new long[MANY];
+        for (int i = 0; i < MANY; i++) {
+            heap[i] = rnd.nextLong();
+            expected[i] = heap[i];
+            Heaps.siftUp(heap, i);
+        }
+        Arrays.sort(expected);
+
+        long[] drained = new long[MANY];
+        for (int i = 0; i < MANY; i++) {
+            drained[i] = Heaps.removeFirst(heap, MANY - i);
+        }
+
+        assertArrayEquals(expected, drained);
+    }
+
+    @Test
+    public void testHeapifyEmptyAndSingle() {
+        int[] heap = { 7 };
+
+        Heaps.heapify(heap, 0);
+        Heaps.heapify(heap, 1);
+
+        assertEquals(7, Heaps.removeFirst(heap, 1));
+    }
+
+}
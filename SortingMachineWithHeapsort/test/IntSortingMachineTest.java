@@ -0,0 +1,64 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code IntSortingMachine}.
+ */
+public final class IntSortingMachineTest {
+
+    @Test
+    public void testConstructor() {
+        IntSortingMachine m = new IntSortingMachine();
+
+        assertEquals(true, m.isInInsertionMode());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testChangeToExtractionModeEmpty() {
+        IntSortingMachine m = new IntSortingMachine();
+
+        m.changeToExtractionMode();
+
+        assertEquals(false, m.isInInsertionMode());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testRemoveFirstSorts() {
+        final int n = 1000;
+        IntSortingMachine m = new IntSortingMachine();
+        int[] expected = new int[n];
+        Random rnd = new Random(2231);
+        for (int i = 0; i < n; i++) {
+            expected[i] = rnd.nextInt(n) - n / 2;
+            m.add(expected[i]);
+        }
+        Arrays.sort(expected);
+
+        m.changeToExtractionMode();
+
+        assertEquals(n, m.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(expected[i], m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testClear() {
+        IntSortingMachine m = new IntSortingMachine();
+        m.add(1);
+        m.changeToExtractionMode();
+
+        m.clear();
+
+        assertEquals(true, m.isInInsertionMode());
+        assertEquals(0, m.size());
+    }
+
+}
@@ -0,0 +1,70 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code LongSortingMachine}.
+ */
+public final class LongSortingMachineTest {
+
+    @Test
+    public void testConstructor() {
+        LongSortingMachine m = new LongSortingMachine();
+
+        assertEquals(true, m.isInInsertionMode());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testRemoveFirstSorts() {
+        final int n = 1000;
+        LongSortingMachine m = new LongSortingMachine();
+        long[] expected = new long[n];
+        Random rnd = new Random(2231);
+        for (int i = 0; i < n; i++) {
+            expected[i] = rnd.nextLong();
+            m.add(expected[i]);
+        }
+        Arrays.sort(expected);
+
+        m.changeToExtractionMode();
+
+        assertEquals(n, m.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(expected[i], m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testRemoveFirstExtremes() {
+        LongSortingMachine m = new LongSortingMachine();
+        m.add(0L);
+        m.add(Long.MAX_VALUE);
+        m.add(Long.MIN_VALUE);
+        m.add(-1L);
+
+        m.changeToExtractionMode();
+
+        assertEquals(Long.MIN_VALUE, m.removeFirst());
+        assertEquals(-1L, m.removeFirst());
+        assertEquals(0L, m.removeFirst());
+        assertEquals(Long.MAX_VALUE, m.removeFirst());
+    }
+
+    @Test
+    public void testClear() {
+        LongSortingMachine m = new LongSortingMachine();
+        m.add(1L);
+        m.changeToExtractionMode();
+
+        m.clear();
+
+        assertEquals(true, m.isInInsertionMode());
+        assertEquals(0, m.size());
+    }
+
+}
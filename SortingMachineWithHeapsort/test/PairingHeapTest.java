@@ -0,0 +1,159 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code PairingHeap}.
+ */
+public final class PairingHeapTest {
+
+    /**
+     * Number of entries in the large tests.
+     */
+    private static final int MANY = 2000;
+
+    /**
+     * Order of the heaps in all test cases.
+     */
+    private static final Comparator<Integer> ORDER = new HeapsTest.IntegerLT();
+
+    @Test
+    public void testConstructor() {
+        PairingHeap<Integer> h = new PairingHeap<Integer>(ORDER);
+
+        assertEquals(0, h.size());
+        assertEquals(false, h.iterator().hasNext());
+    }
+
+    @Test
+    public void testInsertAndFirst() {
+        PairingHeap<Integer> h = new PairingHeap<Integer>(ORDER);
+        h.insert(5);
+        h.insert(2);
+        h.insert(8);
+
+        assertEquals(3, h.size());
+        assertEquals(Integer.valueOf(2), h.first());
+    }
+
+    @Test
+    public void testRemoveFirstDrainsInOrder() {
+        PairingHeap<Integer> h = new PairingHeap<Integer>(ORDER);
+        List<Integer> expected = new ArrayList<Integer>();
+        Random rnd = new Random(2231);
+        for (int i = 0; i < MANY; i++) {
+            int x = rnd.nextInt(MANY / 2);
+            h.insert(x);
+            expected.add(x);
+        }
+        Collections.sort(expected);
+
+        for (Integer x : expected) {
+            assertEquals(x, h.removeFirst());
+        }
+        assertEquals(0, h.size());
+    }
+
+    @Test
+    public void testMeld() {
+        PairingHeap<Integer> h1 = new PairingHeap<Integer>(ORDER);
+        PairingHeap<Integer> h2 = new PairingHeap<Integer>(ORDER);
+        h1.insert(4);
+        h1.insert(1);
+        h2.insert(3);
+        PairingHeap.Handle<Integer> two = h2.insert(2);
+
+        h1.meld(h2);
+
+        assertEquals(4, h1.size());
+        assertEquals(0, h2.size());
+        h1.decreaseKey(two, 0);
+        assertEquals(Integer.valueOf(0), h1.removeFirst());
+        assertEquals(Integer.valueOf(1), h1.removeFirst());
+        assertEquals(Integer.valueOf(3), h1.removeFirst());
+        assertEquals(Integer.valueOf(4), h1.removeFirst());
+    }
+
+    @Test
+    public void testDecreaseKeyOfRoot() {
+        PairingHeap<Integer> h = new PairingHeap<Integer>(ORDER);
+        PairingHeap.Handle<Integer> one = h.insert(1);
+        h.insert(5);
+
+        h.decreaseKey(one, -1);
+
+        assertEquals(Integer.valueOf(-1), h.removeFirst());
+        assertEquals(false, one.isInHeap());
+        assertEquals(Integer.valueOf(5), h.removeFirst());
+    }
+
+    @Test
+    public void testDecreaseKeyRandom() {
+        PairingHeap<Integer> h = new PairingHeap<Integer>(ORDER);
+        List<PairingHeap.Handle<Integer>> handles;
+        handles = new ArrayList<PairingHeap.Handle<Integer>>();
+        Random rnd = new Random(2231);
+        for (int i = 0; i < MANY; i++) {
+            handles.add(h.insert(rnd.nextInt(MANY)));
+        }
+        /*
+         * Remove some entries first so the tree is no longer flat
+         */
+        for (int i = 0; i < MANY / 10; i++) {
+            h.removeFirst();
+        }
+        List<Integer> expected = new ArrayList<Integer>();
+        for (PairingHeap.Handle<Integer> handle : handles) {
+            if (handle.isInHeap()) {
+                if (rnd.nextBoolean()) {
+                    h.decreaseKey(handle, handle.value() - rnd.nextInt(MANY));
+                }
+                expected.add(handle.value());
+            }
+        }
+        Collections.sort(expected);
+
+        assertEquals(expected.size(), h.size());
+        for (Integer x : expected) {
+            assertEquals(x, h.removeFirst());
+        }
+    }
+
+    @Test
+    public void testIteratorSeesAllEntries() {
+        PairingHeap<Integer> h = new PairingHeap<Integer>(ORDER);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 10; i++) {
+            h.insert(i * 7 % 10);
+            expected.add(i);
+        }
+        h.removeFirst();
+        expected.remove(0);
+
+        List<Integer> seen = new ArrayList<Integer>();
+        for (Integer x : h) {
+            seen.add(x);
+        }
+        Collections.sort(seen);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void testClear() {
+        PairingHeap<Integer> h = new PairingHeap<Integer>(ORDER);
+        PairingHeap.Handle<Integer> one = h.insert(1);
+
+        h.clear();
+
+        assertEquals(0, h.size());
+        assertEquals(false, one.isInHeap());
+    }
+
+}
@@ -1,6 +1,7 @@
 import static org.junit.Assert.assertEquals;
 
 import java.util.Comparator;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -117,6 +118,11 @@ public abstract class SortingMachineTest {
      */
     private static final StringLT ORDER = new StringLT();
 
+    /**
+     * Number of entries drained by {@code testRemoveFirstDrainsInOrder}.
+     */
+    private static final int MANY = 500;
+
     /*
      * Sample test cases.
      */
@@ -373,6 +379,28 @@ public abstract class SortingMachineTest {
         assertEquals(4, mExpectedLength);
         assertEquals(mExpected, m);
     }
+
+    @Test
+    public final void testRemoveFirstDrainsInOrder() {
+        SortingMachine<String> m = this.constructorTest(ORDER);
+        SortingMachine<String> mExpected = this.constructorRef(ORDER);
+        Random rnd = new Random(2231);
+        for (int i = 0; i < MANY; i++) {
+            String s = Integer.toString(rnd.nextInt(MANY / 2));
+            m.add(s);
+            mExpected.add(s);
+        }
+        m.changeToExtractionMode();
+        mExpected.changeToExtractionMode();
+
+        while (mExpected.size() > 0) {
+            assertEquals(mExpected.removeFirst(), m.removeFirst());
+            assertEquals(mExpected, m);
+        }
+
+        assertEquals(0, m.size());
+    }
+
     // test cases for add, changeToExtractionMode, removeFirst,
     // isInInsertionMode, order, and size
 
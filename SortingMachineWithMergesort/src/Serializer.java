@@ -0,0 +1,48 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Conversion of entries to and from bytes, used by {@code SortingMachine7} to
+ * spill sorted runs to disk. {@link StringSerializer} handles {@code String}
+ * entries.
+ *
+ * @param <T>
+ *            type of the entries serialized
+ *
+ * @author Yifan Yao
+ *
+ */
+public interface Serializer<T> {
+
+    /**
+     * Writes {@code x} to {@code out}.
+     *
+     * @param x
+     *            the entry to be written
+     * @param out
+     *            the output written to
+     * @throws IOException
+     *             if {@code out} cannot be written
+     * @requires x is not null
+     * @ensures [the bytes of x are appended to out]
+     */
+    void write(T x, DataOutput out) throws IOException;
+
+    /**
+     * Reads one entry from {@code in}.
+     *
+     * @param in
+     *            the input read from
+     * @return the entry read
+     * @throws IOException
+     *             if {@code in} cannot be read
+     * @requires [in is positioned at bytes appended by write]
+     * @ensures <pre>
+     * read = [the entry whose bytes were read]  and
+     * [read equals the entry those bytes were written from]
+     * </pre>
+     */
+    T read(DataInput in) throws IOException;
+
+}
@@ -0,0 +1,614 @@
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as an array sorted by a parallel merge
+ * sort, with implementations of primary methods.
+ * <p>
+ * {@code add} appends to a growable array. {@code changeToExtractionMode}
+ * sorts that array with a fork/join merge sort in the common
+ * {@code ForkJoinPool}: ranges longer than the threshold are split in half,
+ * the halves are sorted in parallel, and the two sorted halves are merged in
+ * parallel too (the longer run is split at its middle entry, the other run
+ * at the matching position found by binary search, and the two pairs of
+ * pieces are merged independently). Ranges of at most the threshold are
+ * sorted sequentially with {@code Arrays.sort}. The sort alternates between
+ * the array and one scratch array of the same length, so each level of
+ * merging copies every entry just once. The sort is stable. After that,
+ * {@code removeFirst} just reads the entry at a cursor and advances it.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])
+ * and  $this.threshold >= 1  and
+ * 0 <= $this.first <= $this.last <= |$this.entries|  and
+ * [$this.entries[0, $this.first) and $this.entries[$this.last,
+ *  |$this.entries|) are all null]  and
+ * if $this.insertionMode then
+ *   $this.first = 0
+ * else
+ *   [$this.entries[$this.first, $this.last) is sorted according to
+ *    $this.machineOrder.compare]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.first, $this.last)))
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class SortingMachine6<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default length of the longest range sorted or merged sequentially.
+     */
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    /**
+     * Initial length of the array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Length of the longest range sorted or merged sequentially.
+     */
+    private int threshold;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion order in insertion mode, and sorted in extraction
+     * mode.
+     */
+    private Object[] entries;
+
+    /**
+     * Index of the first entry not yet removed.
+     */
+    private int first;
+
+    /**
+     * Index just past the last entry.
+     */
+    private int last;
+
+    /**
+     * Task merging two sorted runs of one array into another array.
+     */
+    private final class MergeTask extends RecursiveAction {
+
+        /**
+         * Serial Version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Array holding the two runs.
+         */
+        private final Object[] src;
+
+        /**
+         * Array receiving the merged run.
+         */
+        private final Object[] dst;
+
+        /**
+         * Bounds of the first run, [lo1, hi1).
+         */
+        private final int lo1, hi1;
+
+        /**
+         * Bounds of the second run, [lo2, hi2).
+         */
+        private final int lo2, hi2;
+
+        /**
+         * Index in {@code dst} of the first merged entry.
+         */
+        private final int to;
+
+        /**
+         * Constructor.
+         *
+         * @param src
+         *            array holding the runs
+         * @param dst
+         *            array receiving the merged run
+         * @param lo1
+         *            start of the first run
+         * @param hi1
+         *            end of the first run
+         * @param lo2
+         *            start of the second run
+         * @param hi2
+         *            end of the second run
+         * @param to
+         *            start of the merged run in {@code dst}
+         */
+        MergeTask(Object[] src, Object[] dst, int lo1, int hi1, int lo2,
+                int hi2, int to) {
+            this.src = src;
+            this.dst = dst;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.to = to;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void compute() {
+            Comparator<T> order = SortingMachine6.this.machineOrder;
+            int n1 = this.hi1 - this.lo1;
+            int n2 = this.hi2 - this.lo2;
+            /*
+             * With an empty run there is nothing to merge, and two single
+             * entries cannot be split into two smaller merges
+             */
+            if (n1 + n2 <= SortingMachine6.this.threshold || n1 == 0
+                    || n2 == 0 || n1 + n2 == 2) {
+                merge(this.src, this.dst, this.lo1, this.hi1, this.lo2,
+                        this.hi2, this.to, order);
+            } else {
+                int m1;
+                int m2;
+                if (n1 >= n2) {
+                    /*
+                     * Entries of the second run equal to the split entry must
+                     * follow it, so they go to the upper half
+                     */
+                    m1 = (this.lo1 + this.hi1) >>> 1;
+                    m2 = lowerBound(this.src, this.lo2, this.hi2,
+                            (T) this.src[m1], order);
+                } else {
+                    /*
+                     * Entries of the first run equal to the split entry must
+                     * precede it, so they go to the lower half
+                     */
+                    m2 = (this.lo2 + this.hi2) >>> 1;
+                    m1 = upperBound(this.src, this.lo1, this.hi1,
+                            (T) this.src[m2], order);
+                }
+                int mid = this.to + (m1 - this.lo1) + (m2 - this.lo2);
+                invokeAll(
+                        new MergeTask(this.src, this.dst, this.lo1, m1,
+                                this.lo2, m2, this.to),
+                        new MergeTask(this.src, this.dst, m1, this.hi1, m2,
+                                this.hi2, mid));
+            }
+        }
+
+    }
+
+    /**
+     * Task sorting a range of {@code a}, leaving the result in {@code a} or
+     * in the scratch array {@code b}.
+     */
+    private final class SortTask extends RecursiveAction {
+
+        /**
+         * Serial Version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Array holding the range to be sorted.
+         */
+        private final Object[] a;
+
+        /**
+         * Scratch array, as long as {@code a}.
+         */
+        private final Object[] b;
+
+        /**
+         * Bounds of the range, [lo, hi).
+         */
+        private final int lo, hi;
+
+        /**
+         * Whether the sorted range is to end up in {@code a} (otherwise in
+         * {@code b}).
+         */
+        private final boolean intoA;
+
+        /**
+         * Constructor.
+         *
+         * @param a
+         *            array holding the range
+         * @param b
+         *            scratch array
+         * @param lo
+         *            start of the range
+         * @param hi
+         *            end of the range
+         * @param intoA
+         *            whether the result goes to {@code a}
+         */
+        SortTask(Object[] a, Object[] b, int lo, int hi, boolean intoA) {
+            this.a = a;
+            this.b = b;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoA = intoA;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo <= SortingMachine6.this.threshold) {
+                Arrays.sort(this.a, this.lo, this.hi,
+                        (Comparator<Object>) SortingMachine6.this.machineOrder);
+                if (!this.intoA) {
+                    System.arraycopy(this.a, this.lo, this.b, this.lo,
+                            this.hi - this.lo);
+                }
+            } else {
+                /*
+                 * The halves are sorted into the other array and merged back
+                 */
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(
+                        new SortTask(this.a, this.b, this.lo, mid,
+                                !this.intoA),
+                        new SortTask(this.a, this.b, mid, this.hi,
+                                !this.intoA));
+                Object[] src = this.b;
+                Object[] dst = this.a;
+                if (!this.intoA) {
+                    src = this.a;
+                    dst = this.b;
+                }
+                new MergeTask(src, dst, this.lo, mid, mid, this.hi, this.lo)
+                        .compute();
+            }
+        }
+
+    }
+
+    /**
+     * Merges the sorted runs {@code src[lo1, hi1)} and {@code src[lo2, hi2)}
+     * into {@code dst} starting at {@code to}, sequentially and stably.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param src
+     *            array holding the runs
+     * @param dst
+     *            array receiving the merged run
+     * @param lo1
+     *            start of the first run
+     * @param hi1
+     *            end of the first run
+     * @param lo2
+     *            start of the second run
+     * @param hi2
+     *            end of the second run
+     * @param to
+     *            start of the merged run in {@code dst}
+     * @param order
+     *            total preorder for sorting
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void merge(Object[] src, Object[] dst, int lo1,
+            int hi1, int lo2, int hi2, int to, Comparator<T> order) {
+        int i = lo1;
+        int j = lo2;
+        int k = to;
+        while (i < hi1 && j < hi2) {
+            if (order.compare((T) src[j], (T) src[i]) < 0) {
+                dst[k] = src[j];
+                j++;
+            } else {
+                dst[k] = src[i];
+                i++;
+            }
+            k++;
+        }
+        System.arraycopy(src, i, dst, k, hi1 - i);
+        System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+    }
+
+    /**
+     * Returns the first index in the sorted range {@code a[lo, hi)} whose
+     * entry is not less than {@code x}.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the array
+     * @param lo
+     *            start of the range
+     * @param hi
+     *            end of the range
+     * @param x
+     *            the entry searched for
+     * @param order
+     *            total preorder for sorting
+     * @return the first index of an entry not less than {@code x}, or
+     *         {@code hi}
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int lowerBound(Object[] a, int lo, int hi, T x,
+            Comparator<T> order) {
+        int low = lo;
+        int high = hi;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare((T) a[mid], x) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first index in the sorted range {@code a[lo, hi)} whose
+     * entry is greater than {@code x}.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the array
+     * @param lo
+     *            start of the range
+     * @param hi
+     *            end of the range
+     * @param x
+     *            the entry searched for
+     * @param order
+     *            total preorder for sorting
+     * @return the first index of an entry greater than {@code x}, or
+     *         {@code hi}
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int upperBound(Object[] a, int lo, int hi, T x,
+            Comparator<T> order) {
+        int low = lo;
+        int high = hi;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(x, (T) a[mid]) < 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param threshold
+     *            length of the longest range sorted or merged sequentially
+     */
+    private void createNewRep(Comparator<T> order, int threshold) {
+        this.machineOrder = order;
+        this.threshold = threshold;
+        this.insertionMode = true;
+        this.entries = new Object[INITIAL_CAPACITY];
+        this.first = 0;
+        this.last = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order, with the default threshold.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine6(Comparator<T> order) {
+        this(order, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructor from order and threshold. Ranges of at most
+     * {@code threshold} entries are sorted and merged without forking.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param threshold
+     *            length of the longest range sorted or merged sequentially
+     * @requires threshold >= 1
+     */
+    public SortingMachine6(Comparator<T> order, int threshold) {
+        assert threshold >= 1 : "Violation of: threshold >= 1";
+
+        this.createNewRep(order, threshold);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            Constructor<?> c = this.getClass().getConstructor(Comparator.class,
+                    int.class);
+            return (SortingMachine<T>) c.newInstance(this.machineOrder,
+                    this.threshold);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.threshold);
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine6<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine6<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine6<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine6<T> localSource = (SortingMachine6<T>) source;
+        this.machineOrder = localSource.machineOrder;
+        this.threshold = localSource.threshold;
+        this.insertionMode = localSource.insertionMode;
+        this.entries = localSource.entries;
+        this.first = localSource.first;
+        this.last = localSource.last;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.threshold);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.last == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries,
+                    2 * this.entries.length);
+        }
+        this.entries[this.last] = x;
+        this.last++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        this.insertionMode = false;
+        if (this.last > this.threshold) {
+            Object[] scratch = new Object[this.last];
+            ForkJoinPool.commonPool().invoke(
+                    new SortTask(this.entries, scratch, 0, this.last, true));
+        } else {
+            Arrays.sort(this.entries, 0, this.last,
+                    (Comparator<Object>) (Comparator<?>) this.machineOrder);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        T x = (T) this.entries[this.first];
+        this.entries[this.first] = null;
+        this.first++;
+
+        return x;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        return this.last - this.first;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine6Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine6}.
+     */
+    private final class SortingMachine6Iterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine6Iterator() {
+            this.current = SortingMachine6.this.first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < SortingMachine6.this.last;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = (T) SortingMachine6.this.entries[this.current];
+            this.current++;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
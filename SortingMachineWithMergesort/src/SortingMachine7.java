@@ -0,0 +1,845 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} that spills sorted runs to temporary files (an
+ * external merge sort), with implementations of primary methods.
+ * <p>
+ * In insertion mode, entries are buffered in memory; whenever the buffer
+ * holds {@code runLength} entries it is sorted and written to a temporary
+ * file with the given {@code Serializer}, so at most {@code runLength}
+ * entries are ever held in memory while adding. {@code changeToExtractionMode}
+ * sorts what is left in the buffer and, while there are more than
+ * {@code MAX_FAN_IN} runs, merges groups of {@code MAX_FAN_IN} consecutive
+ * runs into single longer runs, so that no more than {@code MAX_FAN_IN}
+ * files (and read buffers) are ever open at once. It then opens every run
+ * for buffered reading through a {@code FileChannel}, and builds a loser
+ * tree over the runs and the buffer. {@code removeFirst} then takes the
+ * winner of the tree, reads the next entry of its run, and replays only the
+ * path from that run to the root: one comparison per level, O(log k) for k
+ * runs. A run's file is
+ * deleted as soon as it is exhausted, or when the machine is cleared or
+ * closed, so a machine that is dropped before it is drained should be closed
+ * (for instance, with try-with-resources); a file that cannot be fully
+ * written is deleted at once.
+ * <p>
+ * The iterator re-reads the unconsumed part of each run from its file; an
+ * iterator that is abandoned before it is exhausted keeps one file open
+ * until it is garbage collected. I/O errors are reported as
+ * {@code UncheckedIOException}s.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])
+ * and  $this.runLength >= 1  and
+ * 0 <= $this.first <= $this.last <= $this.runLength  and
+ * [$this.buffer[0, $this.first) and $this.buffer[$this.last, |$this.buffer|)
+ *  are all null]  and
+ * 0 <= $this.runCount <= |$this.runs|  and
+ * [each $this.runs[i] for 0 <= i < $this.runCount holds, in a file, a
+ *  sequence of entries sorted according to $this.machineOrder.compare, of
+ *  which the first $this.runs[i].consumed have been removed]  and
+ * $this.size = [total number of entries in $this.buffer[$this.first,
+ *  $this.last) and in the runs, less those consumed]  and
+ * if $this.insertionMode then
+ *   $this.first = 0  and  $this.last < $this.runLength  and
+ *   [no run has been opened]
+ * else
+ *   [$this.buffer[$this.first, $this.last) is sorted according to
+ *    $this.machineOrder.compare]  and
+ *   [$this.tree is a loser tree over the runs and $this.buffer, and
+ *    $this.tree[0] is the source whose next entry is first]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.buffer[$this.first, $this.last)) union
+ *         [the entries of the runs not yet consumed])
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class SortingMachine7<T> extends SortingMachineSecondary<T>
+        implements AutoCloseable {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of entries buffered in memory before they are spilled.
+     */
+    public static final int DEFAULT_RUN_LENGTH = 1 << 16;
+
+    /**
+     * Largest number of runs merged at once.
+     */
+    public static final int MAX_FAN_IN = 128;
+
+    /**
+     * Size in bytes of the buffer of each run file stream.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Initial length of the buffer and of the run array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Serializer of the entries written to run files.
+     */
+    private Serializer<T> serializer;
+
+    /**
+     * Largest number of entries buffered in memory.
+     */
+    private int runLength;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries held in memory: in insertion order in insertion mode, and
+     * sorted in extraction mode.
+     */
+    private Object[] buffer;
+
+    /**
+     * Index of the first entry of the buffer not yet removed.
+     */
+    private int first;
+
+    /**
+     * Index just past the last entry of the buffer.
+     */
+    private int last;
+
+    /**
+     * Runs spilled to files.
+     */
+    private Run[] runs;
+
+    /**
+     * Number of runs.
+     */
+    private int runCount;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Loser tree in extraction mode: {@code tree[0]} is the source whose next
+     * entry is first, and {@code tree[1, runCount + 1)} are the losers at the
+     * internal nodes. Source {@code i < runCount} is {@code runs[i]}, and
+     * source {@code runCount} is the buffer.
+     */
+    private int[] tree;
+
+    /**
+     * A sorted run spilled to a temporary file.
+     */
+    private static final class Run {
+
+        /**
+         * The file.
+         */
+        private final Path path;
+
+        /**
+         * Number of entries in the file.
+         */
+        private final int count;
+
+        /**
+         * Number of entries removed from the machine.
+         */
+        private int consumed;
+
+        /**
+         * Stream reading the file, once opened.
+         */
+        private DataInputStream in;
+
+        /**
+         * Next entry not yet removed, once opened; null when exhausted.
+         */
+        private Object head;
+
+        /**
+         * Constructor.
+         *
+         * @param path
+         *            the file
+         * @param count
+         *            number of entries in the file
+         */
+        Run(Path path, int count) {
+            this.path = path;
+            this.count = count;
+            this.consumed = 0;
+        }
+
+        /**
+         * Opens the file and reads the first entry.
+         *
+         * @param serializer
+         *            serializer of the entries
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        void open(Serializer<?> serializer) throws IOException {
+            this.in = openRun(this.path);
+            this.head = this.readNext(serializer);
+        }
+
+        /**
+         * Consumes {@code head} and reads the next entry.
+         *
+         * @param serializer
+         *            serializer of the entries
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        void advance(Serializer<?> serializer) throws IOException {
+            this.consumed++;
+            this.head = this.readNext(serializer);
+        }
+
+        /**
+         * Returns the next entry in the file, or closes and deletes the file
+         * and returns null if all entries have been read.
+         *
+         * @param serializer
+         *            serializer of the entries
+         * @return the next entry, or null
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        private Object readNext(Serializer<?> serializer) throws IOException {
+            Object x = null;
+            if (this.consumed < this.count) {
+                x = serializer.read(this.in);
+            } else {
+                this.discard();
+            }
+            return x;
+        }
+
+        /**
+         * Closes and deletes the file.
+         *
+         * @throws IOException
+         *             if the file cannot be closed or deleted
+         */
+        void discard() throws IOException {
+            if (this.in != null) {
+                this.in.close();
+                this.in = null;
+            }
+            Files.deleteIfExists(this.path);
+        }
+
+    }
+
+    /**
+     * Opens the file at {@code path} for buffered reading.
+     *
+     * @param path
+     *            the file
+     * @return a stream reading the file
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    private static DataInputStream openRun(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel), BUFFER_SIZE));
+    }
+
+    /**
+     * Sorts the buffer and writes it to a new run file, leaving the buffer
+     * empty.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @SuppressWarnings("unchecked")
+    private void spill() throws IOException {
+        Arrays.sort(this.buffer, 0, this.last,
+                (Comparator<Object>) (Comparator<?>) this.machineOrder);
+        Path path = Files.createTempFile("sortingmachine", ".run");
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(path),
+                            BUFFER_SIZE));
+            try {
+                for (int i = 0; i < this.last; i++) {
+                    this.serializer.write((T) this.buffer[i], out);
+                    this.buffer[i] = null;
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        if (this.runCount == this.runs.length) {
+            this.runs = Arrays.copyOf(this.runs, 2 * this.runs.length);
+        }
+        this.runs[this.runCount] = new Run(path, this.last);
+        this.runCount++;
+        this.last = 0;
+    }
+
+    /**
+     * Merges {@code runs[from, to)} into one new run, deleting their files.
+     * Equal entries keep their order, those of earlier runs first.
+     *
+     * @param from
+     *            the first run merged
+     * @param to
+     *            the bound of the runs merged
+     * @return the new run
+     * @throws IOException
+     *             if a file cannot be read or written
+     * @requires 0 <= from < to <= runCount  and  to - from <= MAX_FAN_IN
+     */
+    private Run mergeRuns(int from, int to) throws IOException {
+        /*
+         * A machine holding just these runs merges them with its loser tree
+         */
+        SortingMachine7<T> group = new SortingMachine7<T>(this.machineOrder,
+                this.serializer, this.runLength);
+        group.runs = Arrays.copyOfRange(this.runs, from, to);
+        group.runCount = to - from;
+        for (int i = from; i < to; i++) {
+            group.size += this.runs[i].count;
+        }
+        int count = group.size;
+        group.changeToExtractionMode();
+        Path path = Files.createTempFile("sortingmachine", ".run");
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(path),
+                            BUFFER_SIZE));
+            try {
+                while (group.size() > 0) {
+                    this.serializer.write(group.removeFirst(), out);
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return new Run(path, count);
+    }
+
+    /**
+     * Merges each group of {@code MAX_FAN_IN} consecutive runs into one run,
+     * until there are at most {@code MAX_FAN_IN} runs.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    private void reduceRuns() throws IOException {
+        while (this.runCount > MAX_FAN_IN) {
+            int groups = (this.runCount + MAX_FAN_IN - 1) / MAX_FAN_IN;
+            Run[] merged = new Run[Math.max(groups, INITIAL_CAPACITY)];
+            int g = 0;
+            try {
+                for (int from = 0; from < this.runCount; from += MAX_FAN_IN) {
+                    int to = Math.min(from + MAX_FAN_IN, this.runCount);
+                    if (to - from == 1) {
+                        merged[g] = this.runs[from];
+                    } else {
+                        merged[g] = this.mergeRuns(from, to);
+                    }
+                    g++;
+                }
+            } catch (IOException | RuntimeException e) {
+                /*
+                 * this.runs still holds the runs being merged, which clear
+                 * deletes, so only the new runs are deleted here; a run
+                 * carried over alone comes last, after any failure
+                 */
+                for (int i = 0; i < g; i++) {
+                    try {
+                        Files.deleteIfExists(merged[i].path);
+                    } catch (IOException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+                throw e;
+            }
+            this.runs = merged;
+            this.runCount = g;
+        }
+    }
+
+    /**
+     * Returns the next entry of source {@code i}, or null if it is exhausted.
+     *
+     * @param i
+     *            the source
+     * @return the next entry of source {@code i}, or null
+     */
+    @SuppressWarnings("unchecked")
+    private T head(int i) {
+        T x = null;
+        if (i < this.runCount) {
+            x = (T) this.runs[i].head;
+        } else if (this.first < this.last) {
+            x = (T) this.buffer[this.first];
+        }
+        return x;
+    }
+
+    /**
+     * Reports whether the next entry of source {@code i} comes before that of
+     * source {@code j}. An exhausted source comes last, and ties go to the
+     * earlier source so that equal entries leave in the order they were
+     * added.
+     *
+     * @param i
+     *            one source
+     * @param j
+     *            the other source
+     * @return true iff source {@code i} wins over source {@code j}
+     */
+    private boolean beats(int i, int j) {
+        T x = this.head(i);
+        T y = this.head(j);
+        boolean result;
+        if (x == null) {
+            result = false;
+        } else if (y == null) {
+            result = true;
+        } else {
+            int c = this.machineOrder.compare(x, y);
+            result = c < 0 || (c == 0 && i < j);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the subtree of the loser tree rooted at {@code node}, recording
+     * the loser of each match.
+     *
+     * @param node
+     *            the node, with leaves at {@code [k, 2k)} for {@code k}
+     *            sources
+     * @return the winner of the subtree
+     */
+    private int build(int node) {
+        int k = this.runCount + 1;
+        int winner;
+        if (node >= k) {
+            winner = node - k;
+        } else {
+            int left = this.build(2 * node);
+            int right = this.build(2 * node + 1);
+            winner = left;
+            this.tree[node] = right;
+            if (this.beats(right, left)) {
+                winner = right;
+                this.tree[node] = left;
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * Replays the matches from source {@code i} to the root of the loser tree
+     * after the next entry of {@code i} has changed.
+     *
+     * @param i
+     *            the source
+     */
+    private void replay(int i) {
+        int winner = i;
+        int node = (i + this.runCount + 1) / 2;
+        while (node > 0) {
+            if (this.beats(this.tree[node], winner)) {
+                int loser = winner;
+                winner = this.tree[node];
+                this.tree[node] = loser;
+            }
+            node = node / 2;
+        }
+        this.tree[0] = winner;
+    }
+
+    /**
+     * Closes and deletes every run file.
+     */
+    private void discardRuns() {
+        try {
+            for (int i = 0; i < this.runCount; i++) {
+                this.runs[i].discard();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param serializer
+     *            serializer of the entries
+     * @param runLength
+     *            largest number of entries buffered in memory
+     */
+    private void createNewRep(Comparator<T> order, Serializer<T> serializer,
+            int runLength) {
+        this.machineOrder = order;
+        this.serializer = serializer;
+        this.runLength = runLength;
+        this.insertionMode = true;
+        this.buffer = new Object[Math.min(runLength, INITIAL_CAPACITY)];
+        this.first = 0;
+        this.last = 0;
+        this.runs = new Run[INITIAL_CAPACITY];
+        this.runCount = 0;
+        this.size = 0;
+        this.tree = null;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and serializer, with the default run length.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param serializer
+     *            serializer of the entries
+     */
+    public SortingMachine7(Comparator<T> order, Serializer<T> serializer) {
+        this(order, serializer, DEFAULT_RUN_LENGTH);
+    }
+
+    /**
+     * Constructor from order, serializer and run length. At most
+     * {@code runLength} entries are held in memory while adding.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param serializer
+     *            serializer of the entries
+     * @param runLength
+     *            largest number of entries buffered in memory
+     * @requires runLength >= 1
+     */
+    public SortingMachine7(Comparator<T> order, Serializer<T> serializer,
+            int runLength) {
+        assert serializer != null : "Violation of: serializer is not null";
+        assert runLength >= 1 : "Violation of: runLength >= 1";
+
+        this.createNewRep(order, serializer, runLength);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            Constructor<?> c = this.getClass().getConstructor(Comparator.class,
+                    Serializer.class, int.class);
+            return (SortingMachine<T>) c.newInstance(this.machineOrder,
+                    this.serializer, this.runLength);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.discardRuns();
+        this.createNewRep(this.machineOrder, this.serializer, this.runLength);
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine7<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine7<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine7<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine7<T> localSource = (SortingMachine7<T>) source;
+        this.discardRuns();
+        this.machineOrder = localSource.machineOrder;
+        this.serializer = localSource.serializer;
+        this.runLength = localSource.runLength;
+        this.insertionMode = localSource.insertionMode;
+        this.buffer = localSource.buffer;
+        this.first = localSource.first;
+        this.last = localSource.last;
+        this.runs = localSource.runs;
+        this.runCount = localSource.runCount;
+        this.size = localSource.size;
+        this.tree = localSource.tree;
+        localSource.createNewRep(localSource.machineOrder,
+                localSource.serializer, localSource.runLength);
+    }
+
+    /**
+     * Deletes the run files of {@code this} and resets it; the same as
+     * {@code clear}, so that a machine can be used with try-with-resources.
+     *
+     * @clears this
+     */
+    @Override
+    public final void close() {
+        this.clear();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.last == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer,
+                    Math.min(2 * this.buffer.length, this.runLength));
+        }
+        this.buffer[this.last] = x;
+        this.last++;
+        this.size++;
+        if (this.last == this.runLength) {
+            try {
+                this.spill();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        this.insertionMode = false;
+        Arrays.sort(this.buffer, 0, this.last,
+                (Comparator<Object>) (Comparator<?>) this.machineOrder);
+        try {
+            this.reduceRuns();
+            for (int i = 0; i < this.runCount; i++) {
+                this.runs[i].open(this.serializer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.tree = new int[this.runCount + 1];
+        this.tree[0] = this.build(1);
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        int i = this.tree[0];
+        T x = this.head(i);
+        if (i < this.runCount) {
+            try {
+                this.runs[i].advance(this.serializer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            this.buffer[this.first] = null;
+            this.first++;
+        }
+        this.replay(i);
+        this.size--;
+
+        return x;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine7Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine7}.
+     */
+    private final class SortingMachine7Iterator implements Iterator<T> {
+
+        /**
+         * Index of the run being read, or -1 before the first.
+         */
+        private int run;
+
+        /**
+         * Stream reading the current run, if any.
+         */
+        private DataInputStream in;
+
+        /**
+         * Number of entries left to read from the current run.
+         */
+        private int remaining;
+
+        /**
+         * Index of the next buffer entry.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine7Iterator() {
+            this.run = -1;
+            this.remaining = 0;
+            this.current = SortingMachine7.this.first;
+            this.nextRun();
+        }
+
+        /**
+         * Closes the current run, if any, and opens the next one with entries
+         * left, skipping those already consumed.
+         */
+        private void nextRun() {
+            try {
+                if (this.in != null) {
+                    this.in.close();
+                    this.in = null;
+                }
+                while (this.remaining == 0
+                        && this.run + 1 < SortingMachine7.this.runCount) {
+                    this.run++;
+                    Run r = SortingMachine7.this.runs[this.run];
+                    if (r.consumed < r.count) {
+                        this.in = openRun(r.path);
+                        for (int i = 0; i < r.consumed; i++) {
+                            SortingMachine7.this.serializer.read(this.in);
+                        }
+                        this.remaining = r.count - r.consumed;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0
+                    || this.current < SortingMachine7.this.last;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x;
+            if (this.remaining > 0) {
+                try {
+                    x = SortingMachine7.this.serializer.read(this.in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                this.remaining--;
+                if (this.remaining == 0) {
+                    this.nextRun();
+                }
+            } else {
+                x = (T) SortingMachine7.this.buffer[this.current];
+                this.current++;
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
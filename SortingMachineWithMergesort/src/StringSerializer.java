@@ -0,0 +1,35 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@code Serializer} for {@code String}s, written as a length-prefixed array
+ * of UTF-8 bytes (unlike {@code DataOutput.writeUTF}, there is no 64 KB
+ * limit).
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class StringSerializer implements Serializer<String> {
+
+    @Override
+    public void write(String x, DataOutput out) throws IOException {
+        assert x != null : "Violation of: x is not null";
+        assert out != null : "Violation of: out is not null";
+
+        byte[] bytes = x.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public String read(DataInput in) throws IOException {
+        assert in != null : "Violation of: in is not null";
+
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,80 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine6}.
+ * <p>
+ * The machines under test use a threshold of 2, so even the small cases of
+ * {@code SortingMachineTest} go through the forking sort and merge.
+ */
+public final class SortingMachine6Test extends SortingMachineTest {
+
+    /**
+     * Threshold of the machines under test.
+     */
+    private static final int SMALL_THRESHOLD = 2;
+
+    /**
+     * Number of entries in {@code testRemoveFirstIsStable}.
+     */
+    private static final int MANY = 500;
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine6<String>(order, SMALL_THRESHOLD);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    @Test
+    public void testRemoveFirstIsStable() {
+        SortingMachine<String> m = this.constructorTest(new StringLengthLT());
+        Random rnd = new Random(2231);
+        for (int i = 0; i < MANY; i++) {
+            m.add(rnd.nextInt(3) + ":" + i);
+        }
+        m.changeToExtractionMode();
+
+        String previous = m.removeFirst();
+        while (m.size() > 0) {
+            String s = m.removeFirst();
+            if (s.length() == previous.length()) {
+                int i = Integer.parseInt(s.substring(s.indexOf(':') + 1));
+                int j = Integer.parseInt(
+                        previous.substring(previous.indexOf(':') + 1));
+                assertEquals(true, j < i);
+            }
+            assertEquals(true, previous.length() <= s.length());
+            previous = s;
+        }
+    }
+
+    @Test
+    public void testDefaultThresholdLarge() {
+        final int large = 3 * SortingMachine6.DEFAULT_THRESHOLD;
+        SortingMachine<String> m = new SortingMachine6<String>(ORDER);
+        Random rnd = new Random(2231);
+        for (int i = 0; i < large; i++) {
+            m.add(Integer.toString(rnd.nextInt(large)));
+        }
+        m.changeToExtractionMode();
+
+        String previous = m.removeFirst();
+        while (m.size() > 0) {
+            String s = m.removeFirst();
+            assertEquals(true, ORDER.compare(previous, s) <= 0);
+            previous = s;
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine7}.
+ * <p>
+ * The machines under test use a run length of 2, so even the small cases of
+ * {@code SortingMachineTest} spill runs to disk and merge them.
+ */
+public final class SortingMachine7Test extends SortingMachineTest {
+
+    /**
+     * Run length of the machines under test.
+     */
+    private static final int SHORT_RUN = 2;
+
+    /**
+     * Number of entries in {@code testRemoveFirstIsStable}.
+     */
+    private static final int MANY = 500;
+
+    /**
+     * Machines created by {@code constructorTest}, closed after each test so
+     * that their run files are deleted.
+     */
+    private final List<SortingMachine7<String>> machines =
+            new ArrayList<SortingMachine7<String>>();
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        SortingMachine7<String> m = new SortingMachine7<String>(order,
+                new StringSerializer(), SHORT_RUN);
+        this.machines.add(m);
+        return m;
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    @After
+    public void closeMachines() {
+        for (SortingMachine7<String> m : this.machines) {
+            m.close();
+        }
+    }
+
+    /**
+     * Serializer that fails after writing {@code limit} entries.
+     */
+    private static final class FailingSerializer
+            implements Serializer<String> {
+
+        /**
+         * Number of entries left to write before failing.
+         */
+        private int limit;
+
+        /**
+         * Constructor from the number of entries to write before failing.
+         *
+         * @param limit
+         *            the number of entries
+         */
+        FailingSerializer(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(String x, DataOutput out) throws IOException {
+            if (this.limit == 0) {
+                throw new IOException("write failed");
+            }
+            this.limit--;
+            new StringSerializer().write(x, out);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            return new StringSerializer().read(in);
+        }
+
+    }
+
+    /**
+     * Returns the run files currently in the temporary directory.
+     *
+     * @return the run files
+     * @throws IOException
+     *             if the directory cannot be read
+     */
+    private static Set<Path> runFiles() throws IOException {
+        Set<Path> files = new HashSet<Path>();
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir,
+                "sortingmachine*.run")) {
+            for (Path p : stream) {
+                files.add(p);
+            }
+        }
+        return files;
+    }
+
+    @Test
+    public void testRemoveFirstIsStable() {
+        SortingMachine<String> m = new SortingMachine7<String>(
+                new StringLengthLT(), new StringSerializer(), 5);
+        Random rnd = new Random(2231);
+        for (int i = 0; i < MANY; i++) {
+            m.add(rnd.nextInt(3) + ":" + i);
+        }
+        m.changeToExtractionMode();
+
+        String previous = m.removeFirst();
+        while (m.size() > 0) {
+            String s = m.removeFirst();
+            if (s.length() == previous.length()) {
+                int i = Integer.parseInt(s.substring(s.indexOf(':') + 1));
+                int j = Integer.parseInt(
+                        previous.substring(previous.indexOf(':') + 1));
+                assertEquals(true, j < i);
+            }
+            assertEquals(true, previous.length() <= s.length());
+            previous = s;
+        }
+    }
+
+    @Test
+    public void testMoreRunsThanFanIn() throws IOException {
+        final int n = 2 * SortingMachine7.MAX_FAN_IN + 1;
+        Set<Path> before = runFiles();
+        SortingMachine7<String> m = new SortingMachine7<String>(
+                new StringLengthLT(), new StringSerializer(), 1);
+        this.machines.add(m);
+        Random rnd = new Random(2231);
+        for (int i = 0; i < n; i++) {
+            m.add(rnd.nextInt(3) + ":" + i);
+        }
+
+        m.changeToExtractionMode();
+
+        Set<Path> open = runFiles();
+        open.removeAll(before);
+        assertEquals(true, open.size() <= SortingMachine7.MAX_FAN_IN);
+        assertEquals(n, m.size());
+        String previous = m.removeFirst();
+        while (m.size() > 0) {
+            String s = m.removeFirst();
+            if (s.length() == previous.length()) {
+                int i = Integer.parseInt(s.substring(s.indexOf(':') + 1));
+                int j = Integer.parseInt(
+                        previous.substring(previous.indexOf(':') + 1));
+                assertEquals(true, j < i);
+            }
+            assertEquals(true, previous.length() <= s.length());
+            previous = s;
+        }
+        assertEquals(before, runFiles());
+    }
+
+    @Test
+    public void testNonAsciiEntriesRoundTrip() {
+        SortingMachine<String> m = this.constructorTest(ORDER);
+        m.add("\u00e9t\u00e9");
+        m.add("\u4e2d\u6587");
+        m.add("abc");
+        m.changeToExtractionMode();
+
+        assertEquals("abc", m.removeFirst());
+        assertEquals("\u00e9t\u00e9", m.removeFirst());
+        assertEquals("\u4e2d\u6587", m.removeFirst());
+    }
+
+    @Test
+    public void testClearAfterPartialExtraction() {
+        SortingMachine<String> m = this.constructorTest(ORDER);
+        SortingMachine<String> mExpected = this.constructorRef(ORDER);
+        m.add("c");
+        m.add("a");
+        m.add("d");
+        m.add("b");
+        m.add("e");
+        m.changeToExtractionMode();
+        m.removeFirst();
+
+        m.clear();
+
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public void testCloseDeletesRunFiles() throws IOException {
+        Set<Path> before = runFiles();
+        Set<Path> spilled;
+        try (SortingMachine7<String> m = new SortingMachine7<String>(ORDER,
+                new StringSerializer(), SHORT_RUN)) {
+            for (int i = 0; i < 2 * SHORT_RUN + 1; i++) {
+                m.add(Integer.toString(i));
+            }
+            m.changeToExtractionMode();
+            m.removeFirst();
+            spilled = runFiles();
+            spilled.removeAll(before);
+            assertEquals(2, spilled.size());
+        }
+
+        for (Path p : spilled) {
+            assertFalse(Files.exists(p));
+        }
+    }
+
+    @Test
+    public void testFailedSpillDeletesRunFile() throws IOException {
+        Set<Path> before = runFiles();
+        SortingMachine7<String> m = new SortingMachine7<String>(ORDER,
+                new FailingSerializer(1), SHORT_RUN);
+        m.add("a");
+
+        try {
+            m.add("b");
+            fail("Expected an UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertEquals("write failed", e.getCause().getMessage());
+        }
+
+        assertEquals(before, runFiles());
+    }
+
+}
@@ -0,0 +1,579 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as an array sorted by radix sort on a
+ * key extracted from each entry, with implementations of primary methods.
+ * <p>
+ * The machine is built either by {@code withIntKey}, with an {@code int} key
+ * sorted by an LSD radix sort (four stable counting passes over the bytes of
+ * the key, skipping any pass in which all keys share the byte), or by
+ * {@code withByteKey}, with a {@code byte[]} key sorted by an MSD radix sort
+ * (one counting pass per byte position, ranges of at most {@code CUTOFF}
+ * entries finished by insertion sort, and one array of counts per byte
+ * position, reused by every range at that position). Either way the order
+ * is consulted only to break ties among entries with equal keys,
+ * so sorting n entries with distinct keys takes O(n) time for {@code int}
+ * keys, and O(total key bytes examined) for {@code byte[]} keys. After
+ * {@code changeToExtractionMode}, {@code removeFirst} is a cursor read.
+ * <p>
+ * The key must agree with the order: whenever the key of {@code x} is less
+ * than the key of {@code y} ({@code int} keys as signed integers,
+ * {@code byte[]} keys lexicographically as unsigned bytes), {@code x} must
+ * come before {@code y} in the order.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])
+ * and  exactly one of $this.intKey and $this.byteKey is not null  and
+ * 0 <= $this.first <= $this.last <= |$this.entries|  and
+ * [$this.entries[0, $this.first) and $this.entries[$this.last,
+ *  |$this.entries|) are all null]  and
+ * if $this.insertionMode then
+ *   $this.first = 0
+ * else
+ *   [$this.entries[$this.first, $this.last) is sorted according to
+ *    $this.machineOrder.compare]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.first, $this.last)))
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public class SortingMachine8<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of distinct byte values.
+     */
+    private static final int RADIX = 256;
+
+    /**
+     * Length of the longest range the MSD sort finishes by insertion sort.
+     */
+    private static final int CUTOFF = 16;
+
+    /**
+     * Initial length of the array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Key extractor for LSD sorting, or null.
+     */
+    private ToIntFunction<T> intKey;
+
+    /**
+     * Key extractor for MSD sorting, or null.
+     */
+    private Function<T, byte[]> byteKey;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: in insertion order in insertion mode, and sorted in extraction
+     * mode.
+     */
+    private Object[] entries;
+
+    /**
+     * Index of the first entry not yet removed.
+     */
+    private int first;
+
+    /**
+     * Index just past the last entry.
+     */
+    private int last;
+
+    /**
+     * Sorts {@code this.entries[0, this.last)} by LSD radix sort on
+     * {@code this.intKey}, then sorts each run of equal keys by
+     * {@code this.machineOrder}.
+     */
+    @SuppressWarnings("unchecked")
+    private void lsdSort() {
+        int n = this.last;
+        Object[] srcEntries = this.entries;
+        Object[] dstEntries = new Object[n];
+        int[] srcKeys = new int[n];
+        int[] dstKeys = new int[n];
+        for (int i = 0; i < n; i++) {
+            /*
+             * Flipping the sign bit makes unsigned byte order agree with
+             * signed order
+             */
+            srcKeys[i] = this.intKey.applyAsInt((T) srcEntries[i])
+                    ^ Integer.MIN_VALUE;
+        }
+
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            int[] count = new int[RADIX + 1];
+            for (int i = 0; i < n; i++) {
+                count[((srcKeys[i] >>> shift) & (RADIX - 1)) + 1]++;
+            }
+            int firstByte = (srcKeys[0] >>> shift) & (RADIX - 1);
+            if (count[firstByte + 1] < n) {
+                for (int r = 0; r < RADIX; r++) {
+                    count[r + 1] += count[r];
+                }
+                for (int i = 0; i < n; i++) {
+                    int b = (srcKeys[i] >>> shift) & (RADIX - 1);
+                    dstEntries[count[b]] = srcEntries[i];
+                    dstKeys[count[b]] = srcKeys[i];
+                    count[b]++;
+                }
+                Object[] tmpEntries = srcEntries;
+                srcEntries = dstEntries;
+                dstEntries = tmpEntries;
+                int[] tmpKeys = srcKeys;
+                srcKeys = dstKeys;
+                dstKeys = tmpKeys;
+            }
+        }
+        if (srcEntries != this.entries) {
+            System.arraycopy(srcEntries, 0, this.entries, 0, n);
+        }
+
+        int i = 0;
+        while (i < n) {
+            int j = i + 1;
+            while (j < n && srcKeys[j] == srcKeys[i]) {
+                j++;
+            }
+            if (j - i > 1) {
+                Arrays.sort(this.entries, i, j,
+                        (Comparator<Object>) (Comparator<?>) this.machineOrder);
+            }
+            i = j;
+        }
+    }
+
+    /**
+     * Returns the byte of {@code key} at position {@code d} plus one, or 0
+     * if {@code key} is shorter than {@code d + 1}.
+     *
+     * @param key
+     *            the key
+     * @param d
+     *            the position
+     * @return the bucket of {@code key} at position {@code d}
+     * @requires d >= 0
+     * @ensures <pre>
+     * if d < |key| then bucket = [key[d] as an unsigned byte] + 1
+     * else bucket = 0
+     * </pre>
+     */
+    private static int bucket(byte[] key, int d) {
+        int b = 0;
+        if (d < key.length) {
+            b = (key[d] & (RADIX - 1)) + 1;
+        }
+        return b;
+    }
+
+    /**
+     * Compares {@code k1} and {@code k2} lexicographically as unsigned bytes,
+     * starting at position {@code d}.
+     *
+     * @param k1
+     *            one key
+     * @param k2
+     *            the other key
+     * @param d
+     *            the position at which to start
+     * @return negative, zero or positive as {@code k1[d, |k1|)} is less than,
+     *         equal to or greater than {@code k2[d, |k2|)}
+     * @requires d <= |k1|  and  d <= |k2|
+     */
+    private static int compareKeys(byte[] k1, byte[] k2, int d) {
+        int length = Math.min(k1.length, k2.length);
+        int i = d;
+        while (i < length && k1[i] == k2[i]) {
+            i++;
+        }
+        int result;
+        if (i < length) {
+            result = (k1[i] & (RADIX - 1)) - (k2[i] & (RADIX - 1));
+        } else {
+            result = k1.length - k2.length;
+        }
+        return result;
+    }
+
+    /**
+     * Sorts {@code entries[lo, hi)}, whose keys {@code keys[lo, hi)} all agree
+     * on their first {@code d} bytes, by MSD radix sort from byte {@code d}
+     * on, breaking ties with {@code this.machineOrder}.
+     *
+     * @param entries
+     *            the entries
+     * @param keys
+     *            the keys of the entries
+     * @param auxEntries
+     *            scratch space for entries
+     * @param auxKeys
+     *            scratch space for keys
+     * @param counts
+     *            arrays of counts, {@code counts[d]} being either null or
+     *            of length {@code RADIX + 2} and reused at position {@code d}
+     * @param lo
+     *            start of the range
+     * @param hi
+     *            end of the range
+     * @param d
+     *            the byte position to sort on
+     */
+    @SuppressWarnings("unchecked")
+    private void msdSort(Object[] entries, byte[][] keys, Object[] auxEntries,
+            byte[][] auxKeys, int[][] counts, int lo, int hi, int d) {
+        if (hi - lo <= CUTOFF) {
+            for (int i = lo + 1; i < hi; i++) {
+                Object x = entries[i];
+                byte[] k = keys[i];
+                int j = i;
+                boolean placed = false;
+                while (!placed && j > lo) {
+                    int c = compareKeys(keys[j - 1], k, d);
+                    if (c == 0) {
+                        c = this.machineOrder.compare((T) entries[j - 1],
+                                (T) x);
+                    }
+                    if (c > 0) {
+                        entries[j] = entries[j - 1];
+                        keys[j] = keys[j - 1];
+                        j--;
+                    } else {
+                        placed = true;
+                    }
+                }
+                entries[j] = x;
+                keys[j] = k;
+            }
+        } else {
+            /*
+             * Bucket 0 holds the keys that end before byte d, and bucket b > 0
+             * those whose byte d is b - 1
+             */
+            if (counts[d] == null) {
+                counts[d] = new int[RADIX + 2];
+            }
+            int[] count = counts[d];
+            Arrays.fill(count, 0);
+            for (int i = lo; i < hi; i++) {
+                count[bucket(keys[i], d) + 1]++;
+            }
+            for (int b = 0; b <= RADIX; b++) {
+                count[b + 1] += count[b];
+            }
+            for (int i = lo; i < hi; i++) {
+                int b = bucket(keys[i], d);
+                auxEntries[count[b]] = entries[i];
+                auxKeys[count[b]] = keys[i];
+                count[b]++;
+            }
+            System.arraycopy(auxEntries, 0, entries, lo, hi - lo);
+            System.arraycopy(auxKeys, 0, keys, lo, hi - lo);
+
+            /*
+             * Now bucket b occupies [lo + count[b - 1], lo + count[b]); the
+             * keys in bucket 0 are all equal
+             */
+            if (count[0] > 1) {
+                Arrays.sort(entries, lo, lo + count[0],
+                        (Comparator<Object>) (Comparator<?>) this.machineOrder);
+            }
+            for (int b = 1; b <= RADIX; b++) {
+                if (count[b] - count[b - 1] > 1) {
+                    this.msdSort(entries, keys, auxEntries, auxKeys, counts,
+                            lo + count[b - 1], lo + count[b], d + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param intKey
+     *            key extractor for LSD sorting, or null
+     * @param byteKey
+     *            key extractor for MSD sorting, or null
+     */
+    private void createNewRep(Comparator<T> order, ToIntFunction<T> intKey,
+            Function<T, byte[]> byteKey) {
+        this.machineOrder = order;
+        this.intKey = intKey;
+        this.byteKey = byteKey;
+        this.insertionMode = true;
+        this.entries = new Object[INITIAL_CAPACITY];
+        this.first = 0;
+        this.last = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and key extractors.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param intKey
+     *            key extractor for LSD sorting, or null
+     * @param byteKey
+     *            key extractor for MSD sorting, or null
+     * @requires exactly one of intKey and byteKey is not null
+     */
+    private SortingMachine8(Comparator<T> order, ToIntFunction<T> intKey,
+            Function<T, byte[]> byteKey) {
+        this.createNewRep(order, intKey, byteKey);
+    }
+
+    /*
+     * Factory methods --------------------------------------------------------
+     */
+
+    /**
+     * Returns a new machine with the given order and {@code int} key, sorted
+     * by LSD radix sort.
+     *
+     * @param <T>
+     *            type of {@code SortingMachine} entries
+     * @param order
+     *            total preorder for sorting
+     * @param key
+     *            key extractor
+     * @return the new machine
+     * @requires <pre>
+     * for all x, y: T where (key(x) < key(y))
+     *   ([relation computed by order.compare method](x, y)  and
+     *    not [relation computed by order.compare method](y, x))
+     * </pre>
+     * @ensures withIntKey = (true, order, {})
+     */
+    public static <T> SortingMachine8<T> withIntKey(Comparator<T> order,
+            ToIntFunction<T> key) {
+        assert key != null : "Violation of: key is not null";
+
+        return new SortingMachine8<T>(order, key, null);
+    }
+
+    /**
+     * Returns a new machine with the given order and {@code byte[]} key,
+     * sorted by MSD radix sort.
+     *
+     * @param <T>
+     *            type of {@code SortingMachine} entries
+     * @param order
+     *            total preorder for sorting
+     * @param key
+     *            key extractor
+     * @return the new machine
+     * @requires <pre>
+     * for all x, y: T
+     *     where ([key(x) is lexicographically less than key(y), as unsigned
+     *             bytes])
+     *   ([relation computed by order.compare method](x, y)  and
+     *    not [relation computed by order.compare method](y, x))
+     * </pre>
+     * @ensures withByteKey = (true, order, {})
+     */
+    public static <T> SortingMachine8<T> withByteKey(Comparator<T> order,
+            Function<T, byte[]> key) {
+        assert key != null : "Violation of: key is not null";
+
+        return new SortingMachine8<T>(order, null, key);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final SortingMachine<T> newInstance() {
+        return new SortingMachine8<T>(this.machineOrder, this.intKey,
+                this.byteKey);
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.intKey, this.byteKey);
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine8<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine8<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine8<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine8<T> localSource = (SortingMachine8<T>) source;
+        this.machineOrder = localSource.machineOrder;
+        this.intKey = localSource.intKey;
+        this.byteKey = localSource.byteKey;
+        this.insertionMode = localSource.insertionMode;
+        this.entries = localSource.entries;
+        this.first = localSource.first;
+        this.last = localSource.last;
+        localSource.createNewRep(localSource.machineOrder, localSource.intKey,
+                localSource.byteKey);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        if (this.last == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries,
+                    2 * this.entries.length);
+        }
+        this.entries[this.last] = x;
+        this.last++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        this.insertionMode = false;
+        if (this.last > 1) {
+            if (this.intKey != null) {
+                this.lsdSort();
+            } else {
+                int n = this.last;
+                byte[][] keys = new byte[n][];
+                int maxLength = 0;
+                for (int i = 0; i < n; i++) {
+                    keys[i] = this.byteKey.apply((T) this.entries[i]);
+                    maxLength = Math.max(maxLength, keys[i].length);
+                }
+                /*
+                 * Ranges are split only at positions up to maxLength: at
+                 * position maxLength every key falls in bucket 0
+                 */
+                this.msdSort(this.entries, keys, new Object[n], new byte[n][],
+                        new int[maxLength + 1][], 0, n, 0);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T removeFirst() {
+        assert !this
+                .isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        T x = (T) this.entries[this.first];
+        this.entries[this.first] = null;
+        this.first++;
+
+        return x;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        return this.last - this.first;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine8Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine8}.
+     */
+    private final class SortingMachine8Iterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine8Iterator() {
+            this.current = SortingMachine8.this.first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < SortingMachine8.this.last;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = (T) SortingMachine8.this.entries[this.current];
+            this.current++;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
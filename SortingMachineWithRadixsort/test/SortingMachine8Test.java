@@ -0,0 +1,264 @@
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine8}.
+ * <p>
+ * The {@code String} machines under test are keyed by their lower case
+ * UTF-16 code units, which agrees with the case-insensitive order of
+ * {@code SortingMachineTest}.
+ */
+public final class SortingMachine8Test extends SortingMachineTest {
+
+    /**
+     * Number of entries in the large tests.
+     */
+    private static final int MANY = 5000;
+
+    /**
+     * Lower case UTF-16 code units of a {@code String}, as bytes.
+     */
+    private static class LowerCaseKey implements Function<String, byte[]> {
+
+        @Override
+        public byte[] apply(String s) {
+            return s.toLowerCase(Locale.ROOT)
+                    .getBytes(StandardCharsets.UTF_16BE);
+        }
+
+    }
+
+    /**
+     * Value of an {@code Integer}.
+     */
+    private static class IntegerKey implements ToIntFunction<Integer> {
+
+        @Override
+        public int applyAsInt(Integer x) {
+            return x;
+        }
+
+    }
+
+    /**
+     * Length of a {@code String}.
+     */
+    private static class LengthKey implements ToIntFunction<String> {
+
+        @Override
+        public int applyAsInt(String s) {
+            return s.length();
+        }
+
+    }
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer i1, Integer i2) {
+            return i1.compareTo(i2);
+        }
+
+    }
+
+    /**
+     * Compare {@code String}s by length, then in lexicographic order.
+     */
+    private static class StringLengthLT implements Comparator<String> {
+
+        @Override
+        public int compare(String s1, String s2) {
+            int result = Integer.compare(s1.length(), s2.length());
+            if (result == 0) {
+                result = s1.compareTo(s2);
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Compare {@code String}s in lexicographic order.
+     */
+    private static class StringLT implements Comparator<String> {
+
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+
+    }
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return SortingMachine8.withByteKey(order, new LowerCaseKey());
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    @Test
+    public void testIntKeyDrainsInOrder() {
+        Comparator<Integer> order = new IntegerLT();
+        SortingMachine<Integer> m = SortingMachine8.withIntKey(order,
+                new IntegerKey());
+        List<Integer> expected = new ArrayList<Integer>();
+        Random rnd = new Random(2231);
+        for (int i = 0; i < MANY; i++) {
+            int x = rnd.nextInt();
+            m.add(x);
+            expected.add(x);
+        }
+        m.add(Integer.MIN_VALUE);
+        expected.add(Integer.MIN_VALUE);
+        m.add(Integer.MAX_VALUE);
+        expected.add(Integer.MAX_VALUE);
+        Collections.sort(expected, order);
+
+        m.changeToExtractionMode();
+
+        for (Integer x : expected) {
+            assertEquals(x, m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testIntKeyBreaksTiesWithOrder() {
+        Comparator<String> order = new StringLengthLT();
+        SortingMachine<String> m = SortingMachine8.withIntKey(order,
+                new LengthKey());
+        List<String> expected = new ArrayList<String>();
+        Random rnd = new Random(2231);
+        for (int i = 0; i < MANY; i++) {
+            String s = Integer.toString(rnd.nextInt(MANY * MANY));
+            m.add(s);
+            expected.add(s);
+        }
+        Collections.sort(expected, order);
+
+        m.changeToExtractionMode();
+
+        for (String s : expected) {
+            assertEquals(s, m.removeFirst());
+        }
+    }
+
+    @Test
+    public void testByteKeyDrainsInOrder() {
+        Comparator<String> order = new StringLT();
+        SortingMachine<String> m = SortingMachine8.withByteKey(order,
+                new LowerCaseKey());
+        List<String> expected = new ArrayList<String>();
+        Random rnd = new Random(2231);
+        for (int i = 0; i < MANY; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = rnd.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                sb.append((char) ('a' + rnd.nextInt(3)));
+            }
+            m.add(sb.toString());
+            expected.add(sb.toString());
+        }
+        Collections.sort(expected, order);
+
+        m.changeToExtractionMode();
+
+        for (String s : expected) {
+            assertEquals(s, m.removeFirst());
+        }
+    }
+
+    @Test
+    public void testByteKeyLongSharedPrefixes() {
+        Comparator<String> order = new StringLT();
+        SortingMachine<String> m = SortingMachine8.withByteKey(order,
+                new LowerCaseKey());
+        List<String> expected = new ArrayList<String>();
+        Random rnd = new Random(2231);
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < MANY; i++) {
+            if (i % 100 == 0) {
+                prefix.append((char) ('a' + rnd.nextInt(2)));
+            }
+            String s = prefix.toString() + (char) ('a' + rnd.nextInt(26))
+                    + rnd.nextInt(10);
+            m.add(s);
+            expected.add(s);
+        }
+        Collections.sort(expected, order);
+
+        m.changeToExtractionMode();
+
+        for (String s : expected) {
+            assertEquals(s, m.removeFirst());
+        }
+    }
+
+    @Test
+    public void testByteKeyBreaksTiesWithOrder() {
+        Comparator<String> order = new StringLT();
+        SortingMachine<String> m = SortingMachine8.withByteKey(order,
+                new LowerCaseKey());
+        m.add("Bb");
+        m.add("bB");
+        m.add("a");
+        m.add("BB");
+        m.add("bb");
+        m.changeToExtractionMode();
+
+        assertEquals("a", m.removeFirst());
+        assertEquals("BB", m.removeFirst());
+        assertEquals("Bb", m.removeFirst());
+        assertEquals("bB", m.removeFirst());
+        assertEquals("bb", m.removeFirst());
+    }
+
+    @Test
+    public void testNewInstanceKeepsIntKey() {
+        SortingMachine<Integer> m = SortingMachine8.withIntKey(new IntegerLT(),
+                new IntegerKey());
+        SortingMachine<Integer> n = m.newInstance();
+        n.add(2);
+        n.add(-1);
+
+        n.changeToExtractionMode();
+
+        assertEquals(Integer.valueOf(-1), n.removeFirst());
+        assertEquals(Integer.valueOf(2), n.removeFirst());
+    }
+
+    @Test
+    public void testNewInstanceKeepsByteKey() {
+        SortingMachine<String> m = SortingMachine8.withByteKey(new StringLT(),
+                new LowerCaseKey());
+        SortingMachine<String> n = m.newInstance();
+        n.add("b");
+        n.add("A");
+
+        n.changeToExtractionMode();
+
+        assertEquals("A", n.removeFirst());
+        assertEquals("b", n.removeFirst());
+    }
+
+}
@@ -3,17 +3,13 @@ import java.util.Comparator;
 
 import components.map.Map;
 import components.map.Map.Pair;
-import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue2;
 import components.set.Set;
-import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
 import components.simplewriter.SimpleWriter1L;
-import components.sortingmachine.SortingMachine;
-import components.sortingmachine.SortingMachine5;
 
 /**
  * Generates a tag cloud from a given input text in a given input file and
@@ -49,6 +45,45 @@ public final class TagCloudGenerator {
         }
     }
 
+    /**
+     * A word and its count, as a {@code Map.Pair} for the sorting machine.
+     */
+    private static final class WordCount implements Map.Pair<String, Integer> {
+
+        /**
+         * The word.
+         */
+        private final String word;
+
+        /**
+         * The count.
+         */
+        private final Integer count;
+
+        /**
+         * Constructor.
+         *
+         * @param word
+         *            the word
+         * @param count
+         *            the count
+         */
+        WordCount(String word, int count) {
+            this.word = word;
+            this.count = count;
+        }
+
+        @Override
+        public String key() {
+            return this.word;
+        }
+
+        @Override
+        public Integer value() {
+            return this.count;
+        }
+    }
+
     /**
      * Generates the set of characters in the given {@code String} into the
      * given {@code Set}.
@@ -158,17 +193,8 @@ public final class TagCloudGenerator {
      * @ensure words = {Word}
      *
      */
-    public static void addWordOrValue(String text, Map<String, Integer> words) {
-        String lText = text.toLowerCase();
-
-        if (words.hasKey(lText)) {
-            int value = words.value(lText);
-
-            value++;
-            words.replaceValue(lText, value);
-        } else {
-            words.add(lText, 1);
-        }
+    public static void addWordOrValue(String text, ObjIntMap<String> words) {
+        words.increment(text.toLowerCase());
     }
 
     /**
@@ -183,7 +209,7 @@ public final class TagCloudGenerator {
      * @param outputDir
      *            path for output file
      */
-    public static void generateHTML(Map<String, Integer> words, int size,
+    public static void generateHTML(ObjIntMap<String> words, int size,
             String inputFile, String outputDir) {
         SimpleWriter fileOut = new SimpleWriter1L(outputDir);
         final String css = "https://cse.aws.fanfanishere.org/cse-2231/tagcloud.css";
@@ -191,23 +217,24 @@ public final class TagCloudGenerator {
         final int minFontSize = 11;
         final int enlargeFactor = 5;
 
-        Map<String, Integer> output = words.newInstance();
+        ObjIntMap<String> output = new ObjIntMap<String>(words.size());
         int totalWords = 0;
 
         /*
          * Sort words
          */
         final Comparator<Pair<String, Integer>> pv = new PairVLT();
-        SortingMachine<Pair<String, Integer>> sm;
-        sm = new SortingMachine5<Pair<String, Integer>>(pv);
+        TopKSortingMachine<Pair<String, Integer>> sm;
+        sm = new TopKSortingMachine<Pair<String, Integer>>(pv, size);
 
         /*
-         * Put each pair into SortingMachine, and generate a new MAP with font
-         * size
+         * Offer each pair to the top-k machine, which keeps only the size
+         * most frequent, and generate a new MAP with font size
          */
-        for (Pair<String, Integer> x : words) {
-            sm.add(x);
-            output.add(x.key(), x.value());
+        for (String key : words) {
+            int count = words.get(key);
+            sm.add(new WordCount(key, count));
+            output.put(key, count);
         }
 
         Queue<String> w = new Queue2<String>();
@@ -221,8 +248,9 @@ public final class TagCloudGenerator {
 
         final int enlargeWeight = totalWords / size;
 
-        for (Pair<String, Integer> x : output) {
-            int classifiedValue = x.value() * enlargeFactor / enlargeWeight;
+        for (String key : output) {
+            int classifiedValue = output.get(key) * enlargeFactor
+                    / enlargeWeight;
 
             classifiedValue += minFontSize;
             if (classifiedValue > maxFontSize) {
@@ -230,7 +258,7 @@ public final class TagCloudGenerator {
             } else if (classifiedValue < minFontSize) {
                 classifiedValue = minFontSize;
             }
-            output.replaceValue(x.key(), classifiedValue);
+            output.put(key, classifiedValue);
         }
 
         // Sort words by alphabet order
@@ -252,8 +280,8 @@ public final class TagCloudGenerator {
             String outputWord = w.dequeue();
 
             fileOut.println("<span style=\"cursor:default\" class=\"f"
-                    + output.value(outputWord) + "\" title=\"count:"
-                    + words.value(outputWord) + "\">" + outputWord + "</span>");
+                    + output.get(outputWord) + "\" title=\"count:"
+                    + words.get(outputWord) + "\">" + outputWord + "</span>");
         }
         fileOut.println("</p>");
         fileOut.println("</div>");
@@ -276,7 +304,7 @@ public final class TagCloudGenerator {
          * Define separator characters for test
          */
         final String separatorStr = " \t\n\r,-.!?[]';:/()";
-        Set<Character> separatorSet = new Set1L<>();
+        Set<Character> separatorSet = new CharSet();
         generateElements(separatorStr, separatorSet);
 
         /*
@@ -311,7 +339,7 @@ public final class TagCloudGenerator {
         /*
          * Put words into Map and generate html file
          */
-        Map<String, Integer> words = new Map1L<String, Integer>();
+        ObjIntMap<String> words = new ObjIntMap<String>();
 
         while (!fileIn.atEOS()) {
             int pos = 0;
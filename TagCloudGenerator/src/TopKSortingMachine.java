@@ -0,0 +1,376 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorting machine that keeps only the first {@code k} entries (according to
+ * its order) of everything added to it, represented as a bounded
+ * {@code Object[]} heap.
+ * <p>
+ * In insertion mode the array is a heap with the <em>last</em> kept entry at
+ * the root, so a new entry is either dropped after one comparison or replaces
+ * the root and is sifted down. Adding {@code n} entries therefore costs
+ * O(n log k) time and O(k) memory, where a full {@code SortingMachine} costs
+ * O(n log n) and O(n). {@code changeToExtractionMode} heap-sorts the kept
+ * entries in place (O(k log k)), after which {@code removeFirst} is a cursor
+ * read.
+ * <p>
+ * It offers the kernel operations of {@code SortingMachine}, except that
+ * {@code add} may drop an entry (or evict a kept one) to stay within the
+ * bound. Among entries that compare equal at the boundary, which are kept is
+ * unspecified.
+ *
+ * @param <T>
+ *            type of {@code TopKSortingMachine} entries
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])
+ * and  $this.bound >= 0  and
+ * 0 <= $this.first <= $this.last <= $this.bound  and
+ * |$this.heap| = $this.bound  and
+ * [$this.heap[0, $this.first) and $this.heap[$this.last, $this.bound) are all
+ *  null]  and
+ * if $this.insertionMode then
+ *   $this.first = 0  and
+ *   [$this.heap[0, $this.last) is a heap with the largest entry according to
+ *    $this.machineOrder.compare at the root]
+ * else
+ *   [$this.heap[$this.first, $this.last) is sorted according to
+ *    $this.machineOrder.compare]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder, $this.bound,
+ *         multiset_entries($this.heap[$this.first, $this.last)))
+ * </pre>
+ *
+ * @author Yifan Yao
+ *
+ */
+public final class TopKSortingMachine<T> implements Iterable<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Order.
+     */
+    private final Comparator<T> machineOrder;
+
+    /**
+     * Largest number of entries kept.
+     */
+    private final int bound;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries: a heap with the last kept entry at the root in insertion mode,
+     * and sorted in extraction mode.
+     */
+    private Object[] heap;
+
+    /**
+     * Index of the first entry not yet removed.
+     */
+    private int first;
+
+    /**
+     * Index just past the last entry.
+     */
+    private int last;
+
+    /**
+     * Restores the heap property of {@code heap[0, size)} at index {@code i},
+     * keeping the entry largest according to {@code order} at the root.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param heap
+     *            the array
+     * @param i
+     *            index of the entry that may be out of place
+     * @param size
+     *            number of entries in the heap
+     * @param order
+     *            total preorder for sorting
+     * @updates heap
+     * @requires <pre>
+     * 0 <= i < size <= |heap|  and
+     * [the subtrees rooted at the children of i are heaps]
+     * </pre>
+     * @ensures <pre>
+     * perms(heap, #heap)  and  [the subtree rooted at i is a heap]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void siftDown(Object[] heap, int i, int size,
+            Comparator<T> order) {
+        Object x = heap[i];
+        int hole = i;
+        boolean placed = false;
+        while (!placed && 2 * hole + 1 < size) {
+            int child = 2 * hole + 1;
+            if (child + 1 < size && order.compare((T) heap[child + 1],
+                    (T) heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare((T) heap[child], (T) x) > 0) {
+                heap[hole] = heap[child];
+                hole = child;
+            } else {
+                placed = true;
+            }
+        }
+        heap[hole] = x;
+    }
+
+    /**
+     * Moves the entry at index {@code i} of the heap {@code heap[0, i]} up
+     * until the heap property holds, keeping the entry largest according to
+     * {@code order} at the root.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param heap
+     *            the array
+     * @param i
+     *            index of the entry that may be out of place
+     * @param order
+     *            total preorder for sorting
+     * @updates heap
+     * @requires <pre>
+     * 0 <= i < |heap|  and  [heap[0, i) is a heap]
+     * </pre>
+     * @ensures <pre>
+     * perms(heap, #heap)  and  [heap[0, i] is a heap]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void siftUp(Object[] heap, int i,
+            Comparator<T> order) {
+        Object x = heap[i];
+        int hole = i;
+        while (hole > 0 && order.compare((T) heap[(hole - 1) / 2], (T) x) < 0) {
+            heap[hole] = heap[(hole - 1) / 2];
+            hole = (hole - 1) / 2;
+        }
+        heap[hole] = x;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and bound.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param k
+     *            largest number of entries kept
+     * @requires k >= 0
+     */
+    public TopKSortingMachine(Comparator<T> order, int k) {
+        assert order != null : "Violation of: order is not null";
+        assert k >= 0 : "Violation of: k >= 0";
+
+        this.machineOrder = order;
+        this.bound = k;
+        this.clear();
+    }
+
+    /*
+     * Public methods ---------------------------------------------------------
+     */
+
+    /**
+     * Resets {@code this} to an empty machine in insertion mode, with the same
+     * order and bound.
+     *
+     * @clears this
+     */
+    public void clear() {
+        this.insertionMode = true;
+        this.heap = new Object[this.bound];
+        this.first = 0;
+        this.last = 0;
+    }
+
+    /**
+     * Offers {@code x} to {@code this}: it is added to the contents if they
+     * then still are the first {@code k} entries added.
+     *
+     * @param x
+     *            the element offered
+     * @updates this.contents
+     * @requires this.insertion_mode
+     * @ensures <pre>
+     * this.contents is a multiset of |#this.contents union {x}| min k
+     *   entries of #this.contents union {x}  and
+     * for all y, z: T
+     *     where (y is in this.contents  and
+     *            z is in (#this.contents union {x}) \ this.contents)
+     *   ([relation computed by this.order.compare(y, z) <= 0])
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+
+        if (this.last < this.bound) {
+            this.heap[this.last] = x;
+            siftUp(this.heap, this.last, this.machineOrder);
+            this.last++;
+        } else if (this.bound > 0
+                && this.machineOrder.compare(x, (T) this.heap[0]) < 0) {
+            this.heap[0] = x;
+            siftDown(this.heap, 0, this.last, this.machineOrder);
+        }
+    }
+
+    /**
+     * Changes the mode of {@code this} from insertion to extraction.
+     *
+     * @updates this.insertion_mode
+     * @requires this.insertion_mode
+     * @ensures not this.insertion_mode
+     */
+    public void changeToExtractionMode() {
+        assert this.insertionMode : "Violation of: this.insertion_mode";
+
+        this.insertionMode = false;
+        /*
+         * Heap sort: the root is the largest remaining entry, so it goes just
+         * past the shrinking heap
+         */
+        for (int n = this.last - 1; n > 0; n--) {
+            Object x = this.heap[0];
+            this.heap[0] = this.heap[n];
+            this.heap[n] = x;
+            siftDown(this.heap, 0, n, this.machineOrder);
+        }
+    }
+
+    /**
+     * Removes and returns the first entry of {@code this.contents} according
+     * to {@code this.order}.
+     *
+     * @return the entry removed
+     * @updates this.contents
+     * @requires not this.insertion_mode  and  this.contents /= {}
+     * @ensures <pre>
+     * removeFirst is in #this.contents  and
+     * this.contents = #this.contents \ {removeFirst}  and
+     * for all x: T where (x is in this.contents)
+     *   ([relation computed by this.order.compare(removeFirst, x) <= 0])
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public T removeFirst() {
+        assert !this.insertionMode : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+
+        T x = (T) this.heap[this.first];
+        this.heap[this.first] = null;
+        this.first++;
+        return x;
+    }
+
+    /**
+     * Reports whether {@code this} is in insertion mode.
+     *
+     * @return true iff {@code this} is in insertion mode
+     * @ensures isInInsertionMode = this.insertion_mode
+     */
+    public boolean isInInsertionMode() {
+        return this.insertionMode;
+    }
+
+    /**
+     * Reports the order of {@code this}.
+     *
+     * @return the order
+     * @ensures order = this.order
+     */
+    public Comparator<T> order() {
+        return this.machineOrder;
+    }
+
+    /**
+     * Reports the largest number of entries {@code this} keeps.
+     *
+     * @return the bound
+     * @ensures bound = k
+     */
+    public int bound() {
+        return this.bound;
+    }
+
+    /**
+     * Reports the number of elements in {@code this.contents}.
+     *
+     * @return the number of elements
+     * @ensures size = |this.contents|
+     */
+    public int size() {
+        return this.last - this.first;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new TopKSortingMachineIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code TopKSortingMachine}.
+     */
+    private final class TopKSortingMachineIterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private TopKSortingMachineIterator() {
+            this.current = TopKSortingMachine.this.first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < TopKSortingMachine.this.last;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = (T) TopKSortingMachine.this.heap[this.current];
+            this.current++;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+}
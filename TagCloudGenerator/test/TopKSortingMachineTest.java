@@ -0,0 +1,137 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code TopKSortingMachine}.
+ */
+public final class TopKSortingMachineTest {
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static class IntegerLT implements Comparator<Integer> {
+
+        @Override
+        public int compare(Integer i1, Integer i2) {
+            return i1.compareTo(i2);
+        }
+
+    }
+
+    @Test
+    public void testConstructor() {
+        TopKSortingMachine<Integer> m = new TopKSortingMachine<Integer>(
+                new IntegerLT(), 3);
+
+        assertEquals(true, m.isInInsertionMode());
+        assertEquals(3, m.bound());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testAddBelowBound() {
+        TopKSortingMachine<Integer> m = new TopKSortingMachine<Integer>(
+                new IntegerLT(), 3);
+        m.add(5);
+        m.add(1);
+
+        m.changeToExtractionMode();
+
+        assertEquals(2, m.size());
+        assertEquals(Integer.valueOf(1), m.removeFirst());
+        assertEquals(Integer.valueOf(5), m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testAddBeyondBoundKeepsFirst() {
+        TopKSortingMachine<Integer> m = new TopKSortingMachine<Integer>(
+                new IntegerLT(), 3);
+        m.add(7);
+        m.add(3);
+        m.add(9);
+        m.add(1);
+        m.add(8);
+        m.add(2);
+
+        assertEquals(3, m.size());
+        m.changeToExtractionMode();
+
+        assertEquals(Integer.valueOf(1), m.removeFirst());
+        assertEquals(Integer.valueOf(2), m.removeFirst());
+        assertEquals(Integer.valueOf(3), m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testZeroBound() {
+        TopKSortingMachine<Integer> m = new TopKSortingMachine<Integer>(
+                new IntegerLT(), 0);
+        m.add(1);
+
+        m.changeToExtractionMode();
+
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testRemoveFirstMatchesSort() {
+        final int n = 1000;
+        final int k = 37;
+        TopKSortingMachine<Integer> m = new TopKSortingMachine<Integer>(
+                new IntegerLT(), k);
+        int[] all = new int[n];
+        Random rnd = new Random(2231);
+        for (int i = 0; i < n; i++) {
+            all[i] = rnd.nextInt(n / 2);
+            m.add(all[i]);
+        }
+        Arrays.sort(all);
+
+        m.changeToExtractionMode();
+
+        assertEquals(k, m.size());
+        for (int i = 0; i < k; i++) {
+            assertEquals(Integer.valueOf(all[i]), m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testIteratorInExtractionMode() {
+        TopKSortingMachine<Integer> m = new TopKSortingMachine<Integer>(
+                new IntegerLT(), 2);
+        m.add(4);
+        m.add(6);
+        m.add(5);
+        m.changeToExtractionMode();
+        m.removeFirst();
+
+        int count = 0;
+        for (Integer x : m) {
+            assertEquals(Integer.valueOf(5), x);
+            count++;
+        }
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void testClear() {
+        TopKSortingMachine<Integer> m = new TopKSortingMachine<Integer>(
+                new IntegerLT(), 2);
+        m.add(1);
+        m.changeToExtractionMode();
+
+        m.clear();
+
+        assertEquals(true, m.isInInsertionMode());
+        assertEquals(2, m.bound());
+        assertEquals(0, m.size());
+    }
+
+}
@@ -5,8 +5,9 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Serializable;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -188,17 +189,8 @@ public final class TagCloudGeneratorStandard {
      * @ensure words = {Word}
      *
      */
-    public static void addWordOrValue(String text, Map<String, Integer> words) {
-        String lText = text.toLowerCase();
-
-        if (words.containsKey(lText)) {
-            int value = words.get(lText);
-
-            value++;
-            words.replace(lText, value);
-        } else {
-            words.put(lText, 1);
-        }
+    public static void addWordOrValue(String text, ObjIntMap<String> words) {
+        words.increment(text.toLowerCase());
     }
 
     /**
@@ -213,7 +205,7 @@ public final class TagCloudGeneratorStandard {
      * @param outputFile
      *            path for output file
      */
-    public static void generateHTML(Map<String, Integer> words, int size,
+    public static void generateHTML(ObjIntMap<String> words, int size,
             String inputFile, String outputFile) {
 
         PrintWriter fileOut;
@@ -222,7 +214,7 @@ public final class TagCloudGeneratorStandard {
         final int minFontSize = 11;
         final int enlargeFactor = 5;
 
-        Map<String, Integer> output = new HashMap<String, Integer>();
+        ObjIntMap<String> output = new ObjIntMap<String>(words.size());
         int totalWords = 0;
 
         try {
@@ -234,26 +226,32 @@ public final class TagCloudGeneratorStandard {
         }
 
         /*
-         * Sort words via Map on Queue
+         * Keep the size most frequent words in a bounded heap whose head is
+         * the least frequent of them, so n words cost O(n log size)
          */
-        Queue<Map.Entry<String, Integer>> q = new PriorityQueue<Entry<String, Integer>>(
-                new PairVLT());
+        PriorityQueue<Map.Entry<String, Integer>> q = new PriorityQueue<Entry<String, Integer>>(
+                Math.max(size, 1), Collections.reverseOrder(new PairVLT()));
 
         /*
-         * Put each pair into SortingMachine, and generate a new Map with font
-         * size
+         * Offer each pair to the bounded heap, and generate a new Map with
+         * font size
          */
-        for (Map.Entry<String, Integer> x : words.entrySet()) {
-            q.add(x);
-            output.put(x.getKey(), x.getValue());
+        for (String key : words) {
+            int count = words.get(key);
+            if (q.size() < size) {
+                q.add(new SimpleEntry<String, Integer>(key, count));
+            } else if (size > 0 && count > q.peek().getValue()) {
+                q.poll();
+                q.add(new SimpleEntry<String, Integer>(key, count));
+            }
+            output.put(key, count);
         }
 
         // Sort words by alphabet order
         final Comparator<String> cs = String.CASE_INSENSITIVE_ORDER;
         Queue<String> w = new PriorityQueue<String>(cs);
 
-        for (int i = 0; i < size; i++) {
-            Map.Entry<String, Integer> x = q.remove();
+        for (Map.Entry<String, Integer> x : q) {
             totalWords += x.getValue();
             w.add(x.getKey());
         }
@@ -261,8 +259,8 @@ public final class TagCloudGeneratorStandard {
         if (size > 0) {
             final int enlargeWeight = totalWords / size;
 
-            for (Map.Entry<String, Integer> x : output.entrySet()) {
-                int classifiedValue = x.getValue() * enlargeFactor
+            for (String key : output) {
+                int classifiedValue = output.get(key) * enlargeFactor
                         / enlargeWeight;
 
                 classifiedValue += minFontSize;
@@ -271,7 +269,7 @@ public final class TagCloudGeneratorStandard {
                 } else if (classifiedValue < minFontSize) {
                     classifiedValue = minFontSize;
                 }
-                output.replace(x.getKey(), classifiedValue);
+                output.put(key, classifiedValue);
             }
         }
 
@@ -360,7 +358,7 @@ public final class TagCloudGeneratorStandard {
         /*
          * Put words into Map and generate html file
          */
-        Map<String, Integer> words = new HashMap<String, Integer>();
+        ObjIntMap<String> words = new ObjIntMap<String>();
 
         try {
             String token = fileIn.readLine();
@@ -4,8 +4,6 @@ import static components.utilities.Tokenizer.isKeyword;
 
 import components.queue.Queue;
 import components.queue.Queue2;
-import components.set.Set;
-import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -26,6 +24,11 @@ public final class Tokenizer {
      */
     private static final String SEPARATORS = " \t\n\r";
 
+    /**
+     * The characters of {@code SEPARATORS}, as a set built once.
+     */
+    private static final CharSet SEPARATOR_SET = new CharSet(SEPARATORS);
+
     /**
      * Private constructor so this utility class cannot be instantiated.
      */
@@ -88,19 +91,10 @@ public final class Tokenizer {
         assert 0 <= position : "Violation of: 0 <= position";
         assert position < text.length() : "Violation of: position < |text|";
 
-        Set<Character> separatorSet = new Set1L<Character>();
-
-        for (int i = 0; i < SEPARATORS.length(); i++) {
-            char character = SEPARATORS.charAt(i);
-            if (!separatorSet.contains(character)) {
-                separatorSet.add(character);
-            }
-        }
-
         int counter = position;
-        boolean contains = separatorSet.contains(text.charAt(position));
+        boolean contains = SEPARATOR_SET.contains(text.charAt(position));
         while (counter < text.length()
-                && (contains == separatorSet.contains(text.charAt(counter)))) {
+                && (contains == SEPARATOR_SET.contains(text.charAt(counter)))) {
             counter++;
         }
 
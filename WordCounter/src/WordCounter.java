@@ -1,8 +1,5 @@
 import java.util.Comparator;
 
-import components.map.Map;
-import components.map.Map.Pair;
-import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
 import components.set.Set;
@@ -113,14 +110,8 @@ public final class WordCounter {
      * @ensure words = {Word}
      *
      */
-    public static void addWordOrValue(String text, Map<String, Integer> words) {
-        if (words.hasKey(text)) {
-            int value = words.value(text);
-            value++;
-            words.replaceValue(text, value);
-        } else {
-            words.add(text, 1);
-        }
+    public static void addWordOrValue(String text, ObjIntMap<String> words) {
+        words.increment(text);
     }
 
     /**
@@ -133,7 +124,7 @@ public final class WordCounter {
      * @param outputDir
      *            path for output file
      */
-    public static void generateHTML(Map<String, Integer> words,
+    public static void generateHTML(ObjIntMap<String> words,
             String inputFile, String outputDir) {
         SimpleWriter fileOut = new SimpleWriter1L(outputDir);
 
@@ -141,8 +132,8 @@ public final class WordCounter {
          * Sort words
          */
         Queue<String> wordS = new Queue1L<String>();
-        for (Pair<String, Integer> s : words) {
-            wordS.enqueue(s.key());
+        for (String s : words) {
+            wordS.enqueue(s);
         }
         final Comparator<String> cs = String.CASE_INSENSITIVE_ORDER;
         wordS.sort(cs);
@@ -164,7 +155,7 @@ public final class WordCounter {
         for (String s : wordS) {
             fileOut.println("<tr>");
             fileOut.println("<td>" + s + "</td>");
-            fileOut.println("<td>" + words.value(s) + "</td>");
+            fileOut.println("<td>" + words.get(s) + "</td>");
             fileOut.println("</tr>");
         }
 
@@ -212,7 +203,7 @@ public final class WordCounter {
         /*
          * Put words into Map and generate html file
          */
-        Map<String, Integer> words = new Map1L<String, Integer>();
+        ObjIntMap<String> words = new ObjIntMap<String>();
         while (!fileIn.atEOS()) {
             int pos = 0;
             String token = fileIn.nextLine();